@@ -7,6 +7,7 @@ plugins {
 }
 
 dependencies {
+    api(project(":omnilink-flywise:omnilink-flywise-weather-engine"))
     api(libs.org.springframework.ai.spring.ai.mcp.server.spring.boot.starter)
     api(libs.org.springframework.spring.web)
 }
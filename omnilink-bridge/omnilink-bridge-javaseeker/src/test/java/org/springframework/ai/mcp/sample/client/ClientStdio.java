@@ -43,7 +43,7 @@ public class ClientStdio {
                 Map.of("latitude", "39.9042", "longitude", "116.4074")));
         System.out.println("北京天气预报: " + weatherForecastResult);
 
-        // 获取北京的空气质量信息（模拟数据）
+        // 获取北京的空气质量信息
         CallToolResult airQualityResult = client.callTool(new CallToolRequest("getAirQuality",
                 Map.of("latitude", "39.9042", "longitude", "116.4074")));
         System.out.println("北京空气质量: " + airQualityResult);
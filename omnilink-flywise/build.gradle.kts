@@ -30,4 +30,11 @@ project(":omnilink-flywise:omnilink-flywise-weather") {
         enabled = true
         mainClass.set("org.springframework.ai.mcp.sample.server.McpServerApplication")
     }
-} 
\ No newline at end of file
+} 
+
+project(":omnilink-flywise:omnilink-flywise-loadtest") {
+    tasks.bootJar {
+        enabled = true
+        mainClass.set("com.alibaba.spring.ai.example.loadtest.LoadDriver")
+    }
+}
@@ -0,0 +1,13 @@
+/*
+ * This file was generated by the Gradle 'init' task.
+ */
+
+plugins {
+    id("buildlogic.java-conventions")
+}
+
+dependencies {
+    api(libs.org.springframework.ai.spring.ai.mcp)
+}
+
+description = "omnilink-flywise-common"
@@ -0,0 +1,62 @@
+package org.springframework.ai.mcp.sample.common;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.ServerMcpTransport;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Serializes outbound messages of a {@link ServerMcpTransport}.
+ * <p>
+ * The SDK transports hand every outbound message to a unicast sink with
+ * {@code tryEmitNext}. The sink rejects a second emission while another thread is inside
+ * one, so when tool calls complete concurrently a response can be dropped and its caller
+ * waits until it times out. This wrapper makes the emission happen under a lock. Once the
+ * transport is connected the delegate emits synchronously on subscription, so only the
+ * hand-off is serialized, not the write to the client.
+ *
+ * @author Brian Xiadong
+ */
+public class SerializedServerMcpTransport implements ServerMcpTransport {
+
+    private final ServerMcpTransport delegate;
+    private final Object sendLock = new Object();
+
+    public SerializedServerMcpTransport(ServerMcpTransport delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Mono<Void> connect(Function<Mono<JSONRPCMessage>, Mono<JSONRPCMessage>> handler) {
+        return delegate.connect(handler);
+    }
+
+    @Override
+    public Mono<Void> sendMessage(JSONRPCMessage message) {
+        return Mono.defer(() -> {
+            CompletableFuture<Void> sent;
+            synchronized (sendLock) {
+                sent = delegate.sendMessage(message).toFuture();
+            }
+            return Mono.fromFuture(sent);
+        });
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        return delegate.closeGracefully();
+    }
+
+    @Override
+    public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+        return delegate.unmarshalFrom(data, typeRef);
+    }
+}
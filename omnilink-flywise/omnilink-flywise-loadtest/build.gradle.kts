@@ -0,0 +1,16 @@
+/*
+ * This file was generated by the Gradle 'init' task.
+ */
+
+plugins {
+    id("buildlogic.java-conventions")
+}
+
+dependencies {
+    api(libs.org.springframework.ai.spring.ai.mcp)
+    api(libs.org.hdrhistogram.hdrhistogram)
+    api(libs.com.fasterxml.jackson.core.jackson.databind)
+    runtimeOnly(libs.ch.qos.logback.logback.classic)
+}
+
+description = "omnilink-flywise-loadtest"
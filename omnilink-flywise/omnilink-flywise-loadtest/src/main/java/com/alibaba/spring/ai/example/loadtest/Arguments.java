@@ -0,0 +1,91 @@
+package com.alibaba.spring.ai.example.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code --name=value} command line arguments. A name may be repeated to give a list.
+ *
+ * @author Brian Xiadong
+ */
+final class Arguments {
+
+    private final Map<String, List<String>> values;
+
+    private Arguments(Map<String, List<String>> values) {
+        this.values = values;
+    }
+
+    static Arguments parse(String[] args) {
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            String name = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+            String value = eq < 0 ? "true" : arg.substring(eq + 1);
+            values.computeIfAbsent(name, n -> new ArrayList<>()).add(value);
+        }
+        return new Arguments(values);
+    }
+
+    String string(String name, String defaultValue) {
+        List<String> list = values.get(name);
+        return list == null ? defaultValue : list.get(list.size() - 1);
+    }
+
+    List<String> list(String name) {
+        return values.getOrDefault(name, List.of());
+    }
+
+    int integer(String name, int defaultValue) {
+        String value = string(name, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    double decimal(String name, double defaultValue) {
+        String value = string(name, null);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    boolean flag(String name, boolean defaultValue) {
+        String value = string(name, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Durations such as {@code 250ms}, {@code 30s} or {@code 2m}.
+     */
+    Duration duration(String name, Duration defaultValue) {
+        String value = string(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration " + value + " for --" + name);
+        };
+    }
+
+    StandInUpstream.Options standInOptions() {
+        StandInUpstream.Options defaults = StandInUpstream.Options.DEFAULT;
+        return new StandInUpstream.Options(
+                duration("latency", defaults.latency()),
+                decimal("jitter", defaults.jitter()),
+                decimal("error-rate", defaults.errorRate()),
+                decimal("hang-rate", defaults.hangRate()),
+                duration("hang", defaults.hang()),
+                Set.copyOf(list("unknown-code")),
+                Set.copyOf(list("failing-code")));
+    }
+}
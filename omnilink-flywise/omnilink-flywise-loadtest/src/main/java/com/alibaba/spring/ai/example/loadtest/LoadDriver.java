@@ -0,0 +1,325 @@
+package com.alibaba.spring.ai.example.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.client.McpAsyncClient;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.spec.ClientMcpTransport;
+import io.modelcontextprotocol.spec.McpSchema.CallToolRequest;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load driver that sends {@code tools/call} requests to a flywise MCP server at
+ * a fixed rate and reports throughput and latency percentiles.
+ * <p>
+ * Requests are issued on schedule whether or not earlier ones have completed. Latency is
+ * measured from the intended send time, so a stalled server shows up in the percentiles
+ * instead of silently lowering the request rate (coordinated omission). Latencies are
+ * recorded in microseconds into an HdrHistogram and printed in milliseconds; the full
+ * percentile distribution can also be written as an {@code .hgrm} file for plotting.
+ * <p>
+ * At most {@code --max-in-flight} calls are outstanding; later ones wait for a slot, and
+ * the wait counts toward their latency. Calls still outstanding after
+ * {@code --drain-timeout} are recorded with their latency so far and the run is reported
+ * as saturated, exiting with status 1, since its percentiles are then only lower bounds.
+ * <p>
+ * With the stdio transport the driver starts the server jar itself and, unless
+ * {@code --stand-in=false}, points it at an embedded {@link StandInUpstream}:
+ *
+ * <pre>
+ * java -jar omnilink-flywise-loadtest.jar \
+ *     --transport=stdio --server-jar=omnilink-flywise-stock/target/omnilink-flywise-stock-1.0.0.jar \
+ *     --tool=getStockInfo --arguments='{"stockCode":"600519"}' --arguments='{"stockCode":"000001"}' \
+ *     --rate=200 --duration=60s --warmup=10s --latency=80ms --jitter=0.5 --error-rate=0.01 \
+ *     --server-arg=-Dstock.cache.enabled=false --histogram-output=target/getStockInfo.hgrm
+ * </pre>
+ *
+ * With the SSE transport the server is started separately and addressed with
+ * {@code --url}; {@code --stand-in} then only starts the stand-in (on {@code --port}) for
+ * the server to be pointed at.
+ *
+ * @author Brian Xiadong
+ */
+public class LoadDriver {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Latencies are recorded in microseconds and reported in milliseconds
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final McpAsyncClient client;
+    private final List<CallToolRequest> requests;
+    private final int rate;
+    private final int maxInFlight;
+    private final Duration drainTimeout;
+    private final Recorder recorder = new Recorder(TimeUnit.HOURS.toMicros(1), 3);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Calls waiting for an in-flight slot, oldest first
+    private final Queue<Call> waiting = new ConcurrentLinkedQueue<>();
+    // Calls sent or waiting and not yet recorded
+    private final Set<Call> outstanding = ConcurrentHashMap.newKeySet();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder unfinished = new LongAdder();
+    private volatile long measureFrom;
+
+    /**
+     * One call, recorded exactly once: when it completes, or when the drain gives up on it.
+     */
+    private record Call(CallToolRequest request, long intended, boolean measured, AtomicBoolean recorded) {
+    }
+
+    LoadDriver(McpAsyncClient client, List<CallToolRequest> requests, int rate, int maxInFlight,
+               Duration drainTimeout) {
+        this.client = client;
+        this.requests = requests;
+        this.rate = rate;
+        this.maxInFlight = maxInFlight;
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Sends requests for {@code warmup + duration} and returns the latency histogram of
+     * the calls intended to start after the warmup.
+     */
+    Histogram run(Duration warmup, Duration duration) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(requests.get((int) (i % requests.size())), intended);
+        }
+
+        // Let outstanding calls finish before taking the histogram
+        long drainDeadline = System.nanoTime() + drainTimeout.toNanos();
+        while (!outstanding.isEmpty() && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        // Whatever is left waited at least this long; leaving it out would hide the saturation
+        waiting.clear();
+        for (Call call : outstanding) {
+            if (record(call) && call.measured()) {
+                unfinished.increment();
+            }
+        }
+        return recorder.getIntervalHistogram();
+    }
+
+    /**
+     * Whether calls were still outstanding when the drain timed out.
+     */
+    boolean saturated() {
+        return unfinished.sum() > 0;
+    }
+
+    private void send(CallToolRequest request, long intended) {
+        // Calls are attributed to the warmup or the measured period by their intended start
+        Call call = new Call(request, intended, intended >= measureFrom, new AtomicBoolean());
+        outstanding.add(call);
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            if (call.measured()) {
+                queued.increment();
+            }
+            waiting.add(call);
+            // A slot may have been freed before the call was queued
+            dispatchWaiting();
+            return;
+        }
+        dispatch(call);
+    }
+
+    private void dispatch(Call call) {
+        client.callTool(call.request()).subscribe(
+                result -> complete(call, Boolean.TRUE.equals(result.isError())),
+                error -> complete(call, true));
+    }
+
+    /**
+     * Sends waiting calls while there are free in-flight slots.
+     */
+    private void dispatchWaiting() {
+        while (!waiting.isEmpty()) {
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            Call next = waiting.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+            } else {
+                dispatch(next);
+            }
+        }
+    }
+
+    private void complete(Call call, boolean error) {
+        if (record(call) && call.measured()) {
+            completed.increment();
+            if (error) {
+                failed.increment();
+            }
+        }
+        inFlight.decrementAndGet();
+        dispatchWaiting();
+    }
+
+    /**
+     * Records the latency of {@code call} since its intended start, unless already recorded.
+     */
+    private boolean record(Call call) {
+        if (!call.recorded().compareAndSet(false, true)) {
+            return false;
+        }
+        outstanding.remove(call);
+        if (call.measured()) {
+            recorder.recordValue(Math.max(0, (System.nanoTime() - call.intended()) / 1000));
+        }
+        return true;
+    }
+
+    void report(Histogram histogram, Duration duration, PrintStream out) {
+        double seconds = duration.toNanos() / 1e9;
+        out.printf("requests: completed=%d failed=%d queued=%d unfinished=%d%n",
+                completed.sum(), failed.sum(), queued.sum(), unfinished.sum());
+        if (saturated()) {
+            out.printf("SATURATED: %d calls were still outstanding after the %s drain timeout and are recorded "
+                    + "with their latency so far, so the percentiles below are lower bounds%n", unfinished.sum(), drainTimeout);
+        }
+        out.printf("throughput: %.1f calls/s (target %d/s)%n", completed.sum() / seconds, rate);
+        out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = Arguments.parse(args);
+        String transportName = arguments.string("transport", "stdio");
+        boolean stdio = "stdio".equals(transportName);
+
+        StandInUpstream standIn = null;
+        if (arguments.flag("stand-in", stdio)) {
+            standIn = new StandInUpstream(arguments.integer("port", 0), arguments.standInOptions()).start();
+            System.out.println("Stand-in upstream listening on " + standIn.baseUrl());
+        }
+
+        ClientMcpTransport transport = stdio
+                ? stdioTransport(arguments, standIn)
+                : new HttpClientSseClientTransport(arguments.string("url", "http://localhost:8080"));
+        McpAsyncClient client = McpClient.async(transport)
+                .requestTimeout(arguments.duration("request-timeout", Duration.ofSeconds(30)))
+                .build();
+
+        boolean saturated = false;
+        try {
+            client.initialize().block(Duration.ofSeconds(60));
+
+            List<CallToolRequest> requests = new ArrayList<>();
+            String tool = arguments.string("tool", "getStockInfo");
+            List<String> toolArguments = arguments.list("arguments");
+            for (String json : toolArguments.isEmpty() ? List.of("{\"stockCode\":\"600519\"}") : toolArguments) {
+                requests.add(new CallToolRequest(tool, objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {
+                })));
+            }
+
+            Duration duration = arguments.duration("duration", Duration.ofSeconds(30));
+            LoadDriver driver = new LoadDriver(client, requests,
+                    arguments.integer("rate", 50), arguments.integer("max-in-flight", 1000),
+                    arguments.duration("drain-timeout", Duration.ofSeconds(30)));
+            System.out.printf("Calling %s at %d/s for %s over %s%n", tool, driver.rate, duration, transportName);
+
+            Histogram histogram = driver.run(arguments.duration("warmup", Duration.ofSeconds(5)), duration);
+            driver.report(histogram, duration, System.out);
+            saturated = driver.saturated();
+            if (standIn != null) {
+                System.out.printf("upstream: requests=%d injected errors=%d%n", standIn.requests(), standIn.errors());
+            }
+            System.out.println();
+            histogram.outputPercentileDistribution(System.out, MICROS_PER_MILLI);
+
+            String output = arguments.string("histogram-output", null);
+            if (output != null) {
+                writeHistogram(histogram, Path.of(output));
+            }
+        } finally {
+            client.closeGracefully().block(Duration.ofSeconds(10));
+            if (standIn != null) {
+                standIn.close();
+            }
+        }
+        if (saturated) {
+            System.exit(1);
+        }
+    }
+
+    private static ClientMcpTransport stdioTransport(Arguments arguments, StandInUpstream standIn) {
+        String jar = arguments.string("server-jar", null);
+        if (jar == null) {
+            throw new IllegalArgumentException("--server-jar is required for the stdio transport");
+        }
+        List<String> command = new ArrayList<>(List.of(
+                "-Dspring.ai.mcp.server.stdio=true",
+                "-Dspring.main.web-application-type=none",
+                "-Dlogging.pattern.console="));
+        if (standIn != null) {
+            command.add("-Dstock.eastmoney.quote-base-url=" + standIn.baseUrl());
+            command.add("-Dstock.eastmoney.history-base-url=" + standIn.baseUrl());
+            command.add("-Dweather.open-meteo.base-url=" + standIn.baseUrl() + "/v1");
+            command.add("-Dweather.open-meteo.geocoding-base-url=" + standIn.baseUrl() + "/v1");
+            command.add("-Dweather.open-meteo.air-quality-base-url=" + standIn.baseUrl() + "/v1");
+        }
+        command.addAll(arguments.list("server-arg"));
+        command.add("-jar");
+        command.add(jar);
+
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new StdioClientTransport(ServerParameters.builder(java).args(command).build());
+    }
+
+    private static void writeHistogram(Histogram histogram, Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (PrintStream out = new PrintStream(new FileOutputStream(path.toFile()), true)) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+        System.out.println("Histogram written to " + path);
+    }
+}
@@ -0,0 +1,361 @@
+package com.alibaba.spring.ai.example.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Embedded stand-in for the Eastmoney and Open-Meteo APIs, so the flywise servers can be
+ * load-tested without calling the real services.
+ * <p>
+ * Responses are replayed from {@code recordings/} on the classpath, with the requested
+ * symbol substituted in. K-line responses are generated for the requested date range,
+ * with bars derived from the symbol and date so that repeated requests agree. Every response is delayed by a log-normally distributed
+ * latency. A configurable share of requests fails with HTTP 503, and another share hangs
+ * for {@link Options#hang} to exercise client timeouts. Failures can also be pinned to
+ * symbols: {@link Options#unknownCodes} are answered as Eastmoney answers codes it does
+ * not list, and any request naming one of {@link Options#failingCodes} fails with HTTP 503.
+ * <p>
+ * Point the servers at it with:
+ *
+ * <pre>
+ * -Dstock.eastmoney.quote-base-url=http://127.0.0.1:PORT
+ * -Dstock.eastmoney.history-base-url=http://127.0.0.1:PORT
+ * -Dweather.open-meteo.base-url=http://127.0.0.1:PORT/v1
+ * -Dweather.open-meteo.geocoding-base-url=http://127.0.0.1:PORT/v1
+ * -Dweather.open-meteo.air-quality-base-url=http://127.0.0.1:PORT/v1
+ * </pre>
+ *
+ * @author Brian Xiadong
+ */
+public class StandInUpstream implements AutoCloseable {
+
+    private static final DateTimeFormatter BASIC_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    // Eastmoney's answer for a code it does not list
+    private static final String NO_DATA = "{\"rc\":0,\"rt\":4,\"svr\":181669437,\"lt\":1,\"full\":1,\"dlmkts\":\"\",\"data\":null}";
+
+    /**
+     * Latency and failure model of the stand-in.
+     *
+     * @param latency      median response latency
+     * @param jitter       sigma of the log-normal latency distribution; 0 for a fixed latency
+     * @param errorRate    share of requests answered with HTTP 503
+     * @param hangRate     share of requests that hang for {@code hang} before answering
+     * @param hang         how long a hanging request is held
+     * @param unknownCodes stock codes left out of answers, as if they were not listed
+     * @param failingCodes stock codes whose requests always fail with HTTP 503
+     */
+    public record Options(Duration latency, double jitter, double errorRate, double hangRate, Duration hang,
+                          Set<String> unknownCodes, Set<String> failingCodes) {
+
+        public static final Options DEFAULT = new Options(Duration.ofMillis(50), 0.5, 0, 0, Duration.ofSeconds(30),
+                Set.of(), Set.of());
+
+        public Options {
+            unknownCodes = Set.copyOf(unknownCodes);
+            failingCodes = Set.copyOf(failingCodes);
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Options options;
+    private final String stockGet;
+    private final String ulistItem;
+    private final String forecast;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public StandInUpstream(int port, Options options) throws IOException {
+        this.options = options;
+        this.stockGet = recording("eastmoney-stock-get.json");
+        this.ulistItem = recording("eastmoney-ulist-item.json");
+        this.forecast = recording("open-meteo-forecast.json");
+        // Virtual threads, so simulated latency does not tie up a thread pool
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        this.server.setExecutor(executor);
+        route("/api/qt/stock/get", this::stockGet);
+        route("/api/qt/ulist.np/get", this::ulist);
+        route("/api/qt/stock/kline/get", this::kline);
+        route("/v1/forecast", this::forecast);
+        route("/v1/search", this::search);
+        route("/v1/air-quality", this::airQuality);
+    }
+
+    public StandInUpstream start() {
+        server.start();
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void route(String path, Function<Map<String, String>, String> responder) {
+        server.createContext(path, exchange -> {
+            boolean interrupted = false;
+            try (exchange) {
+                requests.increment();
+                int status;
+                String body;
+                try {
+                    delay();
+                    Map<String, String> query = query(exchange);
+                    if (ThreadLocalRandom.current().nextDouble() < options.errorRate()
+                            || codes(query).stream().anyMatch(options.failingCodes()::contains)) {
+                        errors.increment();
+                        status = 503;
+                        body = "{\"rc\":503}";
+                    } else {
+                        status = 200;
+                        body = responder.apply(query);
+                    }
+                } catch (InterruptedException e) {
+                    // Stopping: still answer, so the client sees an error rather than a reset.
+                    // The interrupt is restored after the write, which it would otherwise abort.
+                    interrupted = true;
+                    status = 503;
+                    body = "{\"rc\":503}";
+                } catch (RuntimeException e) {
+                    status = 500;
+                    body = "{\"error\":\"" + String.valueOf(e.getMessage()).replace("\"", "'") + "\"}";
+                }
+                send(exchange, status, body);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+
+    private void delay() throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < options.hangRate()) {
+            Thread.sleep(options.hang().toMillis());
+            return;
+        }
+        long median = options.latency().toNanos();
+        long nanos = options.jitter() <= 0 ? median
+                : (long) (median * Math.exp(options.jitter() * random.nextGaussian()));
+        if (nanos > 0) {
+            Thread.sleep(Duration.ofNanos(nanos));
+        }
+    }
+
+    private String stockGet(Map<String, String> query) {
+        String code = code(query.getOrDefault("secid", "1.600519"));
+        return options.unknownCodes().contains(code) ? NO_DATA : stockGet.replace("{{code}}", code);
+    }
+
+    private String ulist(Map<String, String> query) {
+        String[] secids = query.getOrDefault("secids", "").split(",");
+        StringBuilder diff = new StringBuilder();
+        int total = 0;
+        for (String secid : secids) {
+            if (secid.isEmpty() || options.unknownCodes().contains(code(secid))) {
+                continue;
+            }
+            total++;
+            if (!diff.isEmpty()) {
+                diff.append(',');
+            }
+            diff.append(ulistItem
+                    .replace("{{code}}", code(secid))
+                    .replace("{{market}}", secid.substring(0, secid.indexOf('.'))));
+        }
+        return "{\"rc\":0,\"rt\":11,\"svr\":181669437,\"lt\":1,\"full\":1,\"dlmkts\":\"\",\"data\":{\"total\":"
+                + total + ",\"diff\":[" + diff + "]}}";
+    }
+
+    /**
+     * A comma-separated list of coordinates is answered with an array, as Open-Meteo does.
+     */
+    private String forecast(Map<String, String> query) {
+        int locations = query.getOrDefault("latitude", "").split(",").length;
+        return locations <= 1 ? forecast : "[" + String.join(",", Collections.nCopies(locations, forecast)) + "]";
+    }
+
+    /**
+     * Geocoding answer with coordinates derived from the name, so each name maps to its own point.
+     */
+    private String search(Map<String, String> query) {
+        String name = query.getOrDefault("name", "");
+        Random random = new Random(name.hashCode());
+        return String.format(Locale.ROOT,
+                "{\"results\":[{\"id\":%d,\"name\":\"%s\",\"latitude\":%.5f,\"longitude\":%.5f,"
+                        + "\"country\":\"中国\",\"admin1\":\"stand-in\",\"timezone\":\"Asia/Shanghai\"}]}",
+                Math.abs(name.hashCode()), name.replace("\"", ""), 20 + random.nextDouble() * 25,
+                100 + random.nextDouble() * 25);
+    }
+
+    /**
+     * Current air quality with values derived from the coordinates, so each point keeps its own readings.
+     */
+    private String airQuality(Map<String, String> query) {
+        Random random = new Random((query.getOrDefault("latitude", "") + "," + query.getOrDefault("longitude", ""))
+                .hashCode());
+        int europeanAqi = 10 + random.nextInt(80);
+        return String.format(Locale.ROOT,
+                "{\"latitude\":%s,\"longitude\":%s,\"timezone\":\"Asia/Shanghai\","
+                        + "\"current_units\":{\"time\":\"iso8601\",\"european_aqi\":\"EAQI\",\"us_aqi\":\"USAQI\","
+                        + "\"pm2_5\":\"μg/m³\",\"pm10\":\"μg/m³\"},"
+                        + "\"current\":{\"time\":\"%s\",\"interval\":3600,\"european_aqi\":%d,\"us_aqi\":%d,"
+                        + "\"pm2_5\":%.1f,\"pm10\":%.1f,\"ozone\":%.1f,\"nitrogen_dioxide\":%.1f,"
+                        + "\"sulphur_dioxide\":%.1f,\"carbon_monoxide\":%.1f}}",
+                query.getOrDefault("latitude", "0"), query.getOrDefault("longitude", "0"),
+                LocalDateTime.now().truncatedTo(ChronoUnit.HOURS),
+                europeanAqi, europeanAqi * 3 / 2, 2 + random.nextDouble() * 40, 5 + random.nextDouble() * 60,
+                20 + random.nextDouble() * 80, 5 + random.nextDouble() * 40, 1 + random.nextDouble() * 10,
+                100 + random.nextDouble() * 400);
+    }
+
+    /**
+     * One bar per weekday in {@code beg..end}, pseudo-random but seeded by the symbol and
+     * date so repeated requests return the same bars.
+     */
+    private String kline(Map<String, String> query) {
+        String code = code(query.getOrDefault("secid", "1.600519"));
+        if (options.unknownCodes().contains(code)) {
+            return NO_DATA;
+        }
+        LocalDate end = LocalDate.parse(query.getOrDefault("end", LocalDate.now().format(BASIC_DATE)), BASIC_DATE);
+        LocalDate begin = LocalDate.parse(query.getOrDefault("beg", end.minusYears(1).format(BASIC_DATE)), BASIC_DATE);
+        // Cap generated history so a request from the default history start stays cheap
+        if (begin.isBefore(end.minusYears(3))) {
+            begin = end.minusYears(3);
+        }
+
+        StringBuilder klines = new StringBuilder();
+        for (LocalDate day = begin; !day.isAfter(end); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            Random random = new Random(code.hashCode() * 31L + day.toEpochDay());
+            double open = 100 + (day.toEpochDay() % 200) * 0.1;
+            double close = open * (1 + random.nextGaussian() * 0.02);
+            double high = Math.max(open, close) * (1 + random.nextDouble() * 0.01);
+            double low = Math.min(open, close) * (1 - random.nextDouble() * 0.01);
+            long volume = 10000 + random.nextInt(90000);
+            if (!klines.isEmpty()) {
+                klines.append(',');
+            }
+            klines.append(String.format(Locale.ROOT, "\"%s,%.2f,%.2f,%.2f,%.2f,%d,%.2f\"",
+                    day, open, close, high, low, volume, volume * 100 * (open + close) / 2));
+        }
+        return "{\"rc\":0,\"rt\":17,\"svr\":181669437,\"lt\":1,\"full\":0,\"dlmkts\":\"\",\"data\":{\"code\":\""
+                + code + "\",\"name\":\"stand-in\",\"decimal\":2,\"klines\":[" + klines + "]}}";
+    }
+
+    /**
+     * Stock codes a request names, in {@code secid} or {@code secids}.
+     */
+    private static List<String> codes(Map<String, String> query) {
+        List<String> codes = new ArrayList<>();
+        for (String secid : (query.getOrDefault("secid", "") + "," + query.getOrDefault("secids", "")).split(",")) {
+            if (!secid.isEmpty()) {
+                codes.add(code(secid));
+            }
+        }
+        return codes;
+    }
+
+    private static String code(String secid) {
+        int dot = secid.indexOf('.');
+        return dot < 0 ? secid : secid.substring(dot + 1);
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String recording(String name) {
+        try (InputStream in = StandInUpstream.class.getResourceAsStream("/recordings/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing recording " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).strip();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs the stand-in on its own, e.g. for servers started by hand.
+     * <pre>
+     * java -cp omnilink-flywise-loadtest.jar com.alibaba.spring.ai.example.loadtest.StandInUpstream \
+     *     --port=18080 --latency=80ms --jitter=0.5 --error-rate=0.01 --unknown-code=999999 --failing-code=000060
+     * </pre>
+     */
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = Arguments.parse(args);
+        StandInUpstream upstream = new StandInUpstream(arguments.integer("port", 18080), arguments.standInOptions())
+                .start();
+        System.out.println("Stand-in upstream listening on " + upstream.baseUrl());
+        Runtime.getRuntime().addShutdownHook(new Thread(upstream::close));
+        Thread.currentThread().join();
+    }
+}
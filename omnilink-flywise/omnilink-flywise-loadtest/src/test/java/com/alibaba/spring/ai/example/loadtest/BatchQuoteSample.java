@@ -0,0 +1,135 @@
+package com.alibaba.spring.ai.example.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.spec.McpSchema.CallToolRequest;
+import io.modelcontextprotocol.spec.McpSchema.CallToolResult;
+import io.modelcontextprotocol.spec.McpSchema.TextContent;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calls {@code getBatchStockInfo} of the stock server against a {@link StandInUpstream} that
+ * does not list one code and fails every request naming another, and checks that each
+ * problem is reported against its own codes while the rest of the batch succeeds:
+ * <ul>
+ * <li>a malformed code is rejected on its own</li>
+ * <li>a code missing from the upstream answer is reported as not found</li>
+ * <li>every code of the failed chunk gets an error; the other chunk is served</li>
+ * </ul>
+ * Build the server jar first, then run from {@code omnilink-flywise}, or pass the jar path:
+ *
+ * <pre>
+ * mvn -pl omnilink-flywise-stock -am package -DskipTests
+ * </pre>
+ *
+ * @author Brian Xiadong
+ */
+public class BatchQuoteSample {
+
+    private static final String UNKNOWN = "999999";
+
+    private static final String FAILING = "000060";
+
+    // Codes per upstream request, as in StockService
+    private static final int CHUNK_SIZE = 50;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(args.length > 0 ? args[0] : "omnilink-flywise-stock/target/omnilink-flywise-stock-1.0.0.jar");
+        if (!Files.exists(jar)) {
+            throw new IllegalStateException("Stock server jar not found at " + jar.toAbsolutePath());
+        }
+
+        // The first chunk holds 49 listed codes and the unknown one; the second, 10 codes
+        // including the failing one. The malformed code never reaches upstream.
+        List<String> served = new ArrayList<>();
+        for (int i = 0; i < CHUNK_SIZE - 1; i++) {
+            served.add(String.valueOf(600000 + i));
+        }
+        List<String> failedChunk = new ArrayList<>();
+        for (int i = 1; i < 10; i++) {
+            failedChunk.add(String.format("%06d", i));
+        }
+        failedChunk.add(FAILING);
+        List<String> codes = new ArrayList<>();
+        codes.add("abc");
+        codes.addAll(served);
+        codes.add(UNKNOWN);
+        codes.addAll(failedChunk);
+
+        StandInUpstream.Options options = new StandInUpstream.Options(Duration.ofMillis(5), 0, 0, 0,
+                Duration.ofSeconds(30), Set.of(UNKNOWN), Set.of(FAILING));
+        try (StandInUpstream standIn = new StandInUpstream(0, options).start()) {
+            McpSyncClient client = McpClient.sync(new StdioClientTransport(serverParameters(jar, standIn)))
+                    .requestTimeout(Duration.ofSeconds(30))
+                    .build();
+            try {
+                client.initialize();
+                CallToolResult result = client.callTool(new CallToolRequest("getBatchStockInfo",
+                        Map.of("stockCodes", codes)));
+                check(!Boolean.TRUE.equals(result.isError()), "the batch call succeeds as a whole");
+
+                List<Map<String, Object>> quotes = objectMapper.readValue(
+                        ((TextContent) result.content().get(0)).text(), new TypeReference<>() {
+                        });
+                check(quotes.size() == codes.size(), "one result per code, " + quotes.size());
+                for (int i = 0; i < codes.size(); i++) {
+                    check(codes.get(i).equals(quotes.get(i).get("code")), "results keep the caller's order");
+                }
+
+                Map<String, Object> malformed = quotes.get(0);
+                check(malformed.get("stockInfo") == null && String.valueOf(malformed.get("error")).contains("6 digits"),
+                        "malformed code is rejected on its own: " + malformed.get("error"));
+
+                for (Map<String, Object> quote : quotes.subList(1, 1 + served.size())) {
+                    check(quote.get("error") == null && quote.get("stockInfo") != null,
+                            "listed code " + quote.get("code") + " is served");
+                }
+
+                Map<String, Object> unknown = quotes.get(1 + served.size());
+                check(unknown.get("stockInfo") == null
+                                && String.valueOf(unknown.get("error")).contains("No information found"),
+                        "unknown code is reported as not found: " + unknown.get("error"));
+
+                for (Map<String, Object> quote : quotes.subList(2 + served.size(), quotes.size())) {
+                    check(quote.get("stockInfo") == null && String.valueOf(quote.get("error")).startsWith("Failed to get stock"),
+                            "code " + quote.get("code") + " of the failed chunk has its own error");
+                }
+                System.out.printf("upstream: requests=%d injected errors=%d%n", standIn.requests(), standIn.errors());
+                System.out.println("All batch quote checks passed");
+            } finally {
+                client.closeGracefully();
+            }
+        }
+    }
+
+    private static ServerParameters serverParameters(Path jar, StandInUpstream standIn) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return ServerParameters.builder(java)
+                .args("-Dspring.ai.mcp.server.stdio=true",
+                        "-Dspring.main.web-application-type=none",
+                        "-Dlogging.pattern.console=",
+                        "-Dstock.eastmoney.quote-base-url=" + standIn.baseUrl(),
+                        "-Dstock.eastmoney.history-base-url=" + standIn.baseUrl(),
+                        "-jar", jar.toString())
+                .build();
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Check failed: " + what);
+        }
+    }
+}
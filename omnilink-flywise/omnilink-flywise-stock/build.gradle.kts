@@ -7,8 +7,11 @@ plugins {
 }
 
 dependencies {
+    api(project(":omnilink-flywise:omnilink-flywise-common"))
     api(libs.org.springframework.ai.spring.ai.mcp.server.spring.boot.starter)
     api(libs.org.springframework.spring.web)
+    testImplementation(libs.org.openjdk.jmh.jmh.core)
+    testAnnotationProcessor(libs.org.openjdk.jmh.jmh.generator.annprocess)
 }
 
 description = "omnilink-flywise-stock"
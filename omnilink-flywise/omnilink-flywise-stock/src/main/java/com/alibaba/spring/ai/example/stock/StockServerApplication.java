@@ -1,21 +1,62 @@
 package com.alibaba.spring.ai.example.stock;
 
+import com.alibaba.spring.ai.example.stock.config.McpSessions;
+import com.alibaba.spring.ai.example.stock.config.StockProperties;
+import com.alibaba.spring.ai.example.stock.service.IndicatorService;
+import com.alibaba.spring.ai.example.stock.service.KlineService;
+import com.alibaba.spring.ai.example.stock.service.QuoteSubscriptionService;
 import com.alibaba.spring.ai.example.stock.service.StockService;
+import io.modelcontextprotocol.server.McpServerFeatures.SyncResourceRegistration;
+import io.modelcontextprotocol.server.transport.StdioServerTransport;
+import io.modelcontextprotocol.spec.ServerMcpTransport;
+import org.springframework.ai.mcp.sample.common.SerializedServerMcpTransport;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
+import java.util.List;
+
 @SpringBootApplication
+@EnableConfigurationProperties(StockProperties.class)
 public class StockServerApplication {
 
+    private static final String VIRTUAL_THREADS_PROPERTY = "reactor.schedulers.defaultBoundedElasticOnVirtualThreads";
+
     public static void main(String[] args) {
+        // The MCP server runs every sync tool call on Reactor's bounded elastic scheduler.
+        // Backing it with virtual threads lets calls that block on the upstream API run
+        // concurrently without being capped by the platform thread pool. Must be set
+        // before Reactor's Schedulers class is initialized; pass -D...=false to opt out.
+        if (System.getProperty(VIRTUAL_THREADS_PROPERTY) == null) {
+            System.setProperty(VIRTUAL_THREADS_PROPERTY, "true");
+        }
         SpringApplication.run(StockServerApplication.class, args);
     }
 
+    /**
+     * Replaces the auto-configured stdio transport, whose outbound sink drops responses
+     * when tool calls complete concurrently, and tracks the client's MCP sessions.
+     */
+    @Bean
+    public ServerMcpTransport stdioServerTransport(McpSessions sessions) {
+        // The transport reads System.in as it is created; the client closing it ends its session
+        System.setIn(sessions.watch(System.in));
+        return sessions.track(new SerializedServerMcpTransport(new StdioServerTransport()));
+    }
+
+    @Bean
+    public ToolCallbackProvider stockTools(StockService stockService, QuoteSubscriptionService quoteSubscriptionService,
+                                           KlineService klineService, IndicatorService indicatorService) {
+        return MethodToolCallbackProvider.builder()
+                .toolObjects(stockService, quoteSubscriptionService, klineService, indicatorService)
+                .build();
+    }
+
     @Bean
-    public ToolCallbackProvider stockTools(StockService stockService) {
-        return MethodToolCallbackProvider.builder().toolObjects(stockService).build();
+    public List<SyncResourceRegistration> quoteResources(QuoteSubscriptionService quoteSubscriptionService) {
+        return List.of(quoteSubscriptionService.subscriptionsResource());
     }
 }
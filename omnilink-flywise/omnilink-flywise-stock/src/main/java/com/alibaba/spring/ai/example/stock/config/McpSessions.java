@@ -0,0 +1,152 @@
+package com.alibaba.spring.ai.example.stock.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.ServerMcpTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Tells which MCP session a tool call belongs to, and when that session ends.
+ * <p>
+ * The SDK in use serves one client per transport and gives tool calls no session handle.
+ * A session therefore starts with each {@code initialize} request and ends with the next
+ * one, with the end of the client's input, or when the transport closes; tool calls belong
+ * to the session open when they run. Listeners are told the id of every session that ends,
+ * so that what it held can be released.
+ *
+ * @author Brian Xiadong
+ */
+@Component
+public class McpSessions {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpSessions.class);
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private volatile String current = "session-0";
+    private volatile boolean open = true;
+
+    /**
+     * Id of the session tool calls currently come from.
+     */
+    public String current() {
+        return current;
+    }
+
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Wraps a transport so that {@code initialize} requests start a new session and closing
+     * the transport ends the current one.
+     */
+    public ServerMcpTransport track(ServerMcpTransport transport) {
+        return new ServerMcpTransport() {
+
+            @Override
+            public Mono<Void> connect(Function<Mono<JSONRPCMessage>, Mono<JSONRPCMessage>> handler) {
+                return transport.connect(messages -> handler.apply(messages.doOnNext(McpSessions.this::inspect)));
+            }
+
+            @Override
+            public Mono<Void> sendMessage(JSONRPCMessage message) {
+                return transport.sendMessage(message);
+            }
+
+            @Override
+            public void close() {
+                end();
+                transport.close();
+            }
+
+            @Override
+            public Mono<Void> closeGracefully() {
+                return transport.closeGracefully().doFinally(signal -> end());
+            }
+
+            @Override
+            public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+                return transport.unmarshalFrom(data, typeRef);
+            }
+        };
+    }
+
+    /**
+     * Wraps the input a stdio transport reads, so that the client closing it ends the
+     * current session.
+     */
+    public InputStream watch(InputStream input) {
+        return new FilterInputStream(input) {
+
+            @Override
+            public int read() throws IOException {
+                return ended(super.read());
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                return ended(super.read(buffer, offset, length));
+            }
+
+            private int ended(int read) {
+                if (read < 0) {
+                    end();
+                }
+                return read;
+            }
+        };
+    }
+
+    private void inspect(JSONRPCMessage message) {
+        if (message instanceof McpSchema.JSONRPCRequest request
+                && McpSchema.METHOD_INITIALIZE.equals(request.method())) {
+            String previous;
+            synchronized (this) {
+                previous = open ? current : null;
+                current = "session-" + sequence.incrementAndGet();
+                open = true;
+            }
+            if (previous != null) {
+                notifyEnded(previous);
+            }
+            logger.debug("MCP {} started", current);
+        }
+    }
+
+    private void end() {
+        String ended;
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            ended = current;
+        }
+        notifyEnded(ended);
+    }
+
+    private void notifyEnded(String session) {
+        logger.debug("MCP {} ended", session);
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(session);
+            } catch (RuntimeException e) {
+                logger.warn("Session listener failed for {}", session, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package com.alibaba.spring.ai.example.stock.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the stock server.
+ *
+ * @author Brian Xiadong
+ */
+@ConfigurationProperties(StockProperties.CONFIG_PREFIX)
+public class StockProperties {
+
+    public static final String CONFIG_PREFIX = "stock";
+
+    private final Eastmoney eastmoney = new Eastmoney();
+
+    private final Http http = new Http();
+
+    private final Cache cache = new Cache();
+
+    private final Resilience resilience = new Resilience();
+
+    private final Calendar calendar = new Calendar();
+
+    private final Subscription subscription = new Subscription();
+
+    private final Kline kline = new Kline();
+
+    private final Symbols symbols = new Symbols();
+
+    public Eastmoney getEastmoney() {
+        return this.eastmoney;
+    }
+
+    public Http getHttp() {
+        return this.http;
+    }
+
+    public Cache getCache() {
+        return this.cache;
+    }
+
+    public Resilience getResilience() {
+        return this.resilience;
+    }
+
+    public Calendar getCalendar() {
+        return this.calendar;
+    }
+
+    public Subscription getSubscription() {
+        return this.subscription;
+    }
+
+    public Kline getKline() {
+        return this.kline;
+    }
+
+    public Symbols getSymbols() {
+        return this.symbols;
+    }
+
+    /**
+     * Eastmoney API endpoints. Override to point the server at a stand-in upstream.
+     */
+    public static class Eastmoney {
+
+        /**
+         * Base URL of the real-time quote API.
+         */
+        private String quoteBaseUrl = "https://push2.eastmoney.com";
+
+        /**
+         * Base URL of the historical K-line API.
+         */
+        private String historyBaseUrl = "https://push2his.eastmoney.com";
+
+        public String getQuoteBaseUrl() {
+            return this.quoteBaseUrl;
+        }
+
+        public void setQuoteBaseUrl(String quoteBaseUrl) {
+            this.quoteBaseUrl = quoteBaseUrl;
+        }
+
+        public String getHistoryBaseUrl() {
+            return this.historyBaseUrl;
+        }
+
+        public void setHistoryBaseUrl(String historyBaseUrl) {
+            this.historyBaseUrl = historyBaseUrl;
+        }
+    }
+
+    /**
+     * Upstream HTTP client settings.
+     */
+    public static class Http {
+
+        /**
+         * Timeout for establishing a connection to the upstream API.
+         */
+        private Duration connectTimeout = Duration.ofSeconds(3);
+
+        /**
+         * Timeout for receiving the response of a single upstream request.
+         */
+        private Duration readTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Maximum number of upstream requests in flight at the same time.
+         */
+        private int maxConcurrentRequests = 32;
+
+        /**
+         * How long a request waits for a free slot before it fails.
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(2);
+
+        public Duration getConnectTimeout() {
+            return this.connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return this.readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return this.maxConcurrentRequests;
+        }
+
+        public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+        }
+
+        public Duration getAcquireTimeout() {
+            return this.acquireTimeout;
+        }
+
+        public void setAcquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+    }
+
+    /**
+     * Quote cache settings.
+     */
+    public static class Cache {
+
+        /**
+         * Whether quotes are cached at all.
+         */
+        private boolean enabled = true;
+
+        /**
+         * How long a quote stays fresh while the market is trading. Outside trading
+         * hours quotes stay fresh until the next session opens.
+         */
+        private Duration tradingTtl = Duration.ofSeconds(3);
+
+        /**
+         * Most codes cached; beyond it the least recently used quote is dropped.
+         */
+        private int maxSize = 10000;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTradingTtl() {
+            return this.tradingTtl;
+        }
+
+        public void setTradingTtl(Duration tradingTtl) {
+            this.tradingTtl = tradingTtl;
+        }
+
+        public int getMaxSize() {
+            return this.maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * Time budgets, stale serving and circuit breaking for the quote tools.
+     */
+    public static class Resilience {
+
+        /**
+         * How long getStockInfo waits for upstream when no usable quote is cached.
+         */
+        private Duration timeout = Duration.ofSeconds(2);
+
+        /**
+         * How long getBatchStockInfo waits for upstream in total. Codes still pending
+         * afterwards are served from stale quotes or reported as timed out.
+         */
+        private Duration batchTimeout = Duration.ofSeconds(5);
+
+        /**
+         * How long an expired quote is kept. Within this window it is returned
+         * immediately, marked with its age, while a refresh runs in the background.
+         */
+        private Duration maxStale = Duration.ofMinutes(30);
+
+        /**
+         * Consecutive failures of an upstream host that open its circuit.
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * How long an open circuit rejects requests before letting a probe through.
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        public Duration getTimeout() {
+            return this.timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Duration getBatchTimeout() {
+            return this.batchTimeout;
+        }
+
+        public void setBatchTimeout(Duration batchTimeout) {
+            this.batchTimeout = batchTimeout;
+        }
+
+        public Duration getMaxStale() {
+            return this.maxStale;
+        }
+
+        public void setMaxStale(Duration maxStale) {
+            this.maxStale = maxStale;
+        }
+
+        public int getFailureThreshold() {
+            return this.failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return this.openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+    }
+
+    /**
+     * SH/SZ trading calendar settings.
+     */
+    public static class Calendar {
+
+        /**
+         * Tab separated list of weekdays on which the exchanges are closed (date, holiday).
+         * Accepts {@code classpath:} and {@code file:} locations; the bundled list covers
+         * the years whose holiday notices have been published.
+         */
+        private String holidaysLocation = "classpath:exchange-holidays.tsv";
+
+        /**
+         * Further closed weekdays on top of the holiday list, e.g. an unscheduled closure.
+         * Weekends are always treated as closed.
+         */
+        private List<LocalDate> holidays = new ArrayList<>();
+
+        public String getHolidaysLocation() {
+            return this.holidaysLocation;
+        }
+
+        public void setHolidaysLocation(String holidaysLocation) {
+            this.holidaysLocation = holidaysLocation;
+        }
+
+        public List<LocalDate> getHolidays() {
+            return this.holidays;
+        }
+
+        public void setHolidays(List<LocalDate> holidays) {
+            this.holidays = holidays;
+        }
+    }
+
+    /**
+     * Quote subscription (quote:// resource) settings.
+     */
+    public static class Subscription {
+
+        /**
+         * Poll interval of a symbol with a single subscriber during trading hours. Each
+         * additional subscriber shortens it, down to {@link #minPollInterval}.
+         */
+        private Duration pollInterval = Duration.ofSeconds(10);
+
+        /**
+         * Shortest poll interval regardless of the number of subscribers.
+         */
+        private Duration minPollInterval = Duration.ofSeconds(3);
+
+        /**
+         * Longest sleep of an idle poller outside trading hours before it re-checks the
+         * calendar.
+         */
+        private Duration maxIdleInterval = Duration.ofHours(1);
+
+        /**
+         * Maximum number of symbols that can be subscribed at the same time.
+         */
+        private int maxSymbols = 200;
+
+        public Duration getPollInterval() {
+            return this.pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getMinPollInterval() {
+            return this.minPollInterval;
+        }
+
+        public void setMinPollInterval(Duration minPollInterval) {
+            this.minPollInterval = minPollInterval;
+        }
+
+        public Duration getMaxIdleInterval() {
+            return this.maxIdleInterval;
+        }
+
+        public void setMaxIdleInterval(Duration maxIdleInterval) {
+            this.maxIdleInterval = maxIdleInterval;
+        }
+
+        public int getMaxSymbols() {
+            return this.maxSymbols;
+        }
+
+        public void setMaxSymbols(int maxSymbols) {
+            this.maxSymbols = maxSymbols;
+        }
+    }
+
+    /**
+     * Daily K-line history store settings.
+     */
+    public static class Kline {
+
+        /**
+         * Directory holding one folder of memory-mapped column files per symbol.
+         */
+        private Path storeDir = Path.of(System.getProperty("java.io.tmpdir"), "omnilink-kline");
+
+        /**
+         * First day fetched for a symbol that has no stored history yet.
+         */
+        private LocalDate historyStart = LocalDate.of(2015, 1, 1);
+
+        /**
+         * Maximum number of bars returned by a single history query.
+         */
+        private int maxBars = 250;
+
+        /**
+         * Most symbols whose column files are kept open; the least recently used ones are
+         * closed beyond it and reopened when queried again.
+         */
+        private int maxOpenSeries = 256;
+
+        public Path getStoreDir() {
+            return this.storeDir;
+        }
+
+        public void setStoreDir(Path storeDir) {
+            this.storeDir = storeDir;
+        }
+
+        public LocalDate getHistoryStart() {
+            return this.historyStart;
+        }
+
+        public void setHistoryStart(LocalDate historyStart) {
+            this.historyStart = historyStart;
+        }
+
+        public int getMaxBars() {
+            return this.maxBars;
+        }
+
+        public void setMaxBars(int maxBars) {
+            this.maxBars = maxBars;
+        }
+
+        public int getMaxOpenSeries() {
+            return this.maxOpenSeries;
+        }
+
+        public void setMaxOpenSeries(int maxOpenSeries) {
+            this.maxOpenSeries = maxOpenSeries;
+        }
+    }
+
+    /**
+     * Symbol search index settings.
+     */
+    public static class Symbols {
+
+        /**
+         * Tab separated symbol list (code, name, pinyin initials, market). Accepts
+         * {@code classpath:} and {@code file:} locations. Used until a full listing has
+         * been downloaded to {@link #listingFile}.
+         */
+        private String location = "classpath:symbols.tsv";
+
+        /**
+         * File the full listing downloaded from Eastmoney is saved to, in the same format.
+         * While it exists it is indexed instead of {@link #location}; unset to never
+         * download the listing.
+         */
+        private Path listingFile;
+
+        /**
+         * How often the full listing is downloaded again, to pick up new listings and
+         * renames.
+         */
+        private Duration listingRefreshInterval = Duration.ofDays(1);
+
+        /**
+         * How often the symbol list is checked for changes and reloaded.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(1);
+
+        /**
+         * Maximum number of matches returned by a search.
+         */
+        private int maxResults = 20;
+
+        public String getLocation() {
+            return this.location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        public Path getListingFile() {
+            return this.listingFile;
+        }
+
+        public void setListingFile(Path listingFile) {
+            this.listingFile = listingFile;
+        }
+
+        public Duration getListingRefreshInterval() {
+            return this.listingRefreshInterval;
+        }
+
+        public void setListingRefreshInterval(Duration listingRefreshInterval) {
+            this.listingRefreshInterval = listingRefreshInterval;
+        }
+
+        public Duration getRefreshInterval() {
+            return this.refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public int getMaxResults() {
+            return this.maxResults;
+        }
+
+        public void setMaxResults(int maxResults) {
+            this.maxResults = maxResults;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Circuit breaker for one upstream host, applied as a {@link org.springframework.web.client.RestClient}
+ * interceptor.
+ * <p>
+ * Opens after {@code failureThreshold} consecutive failures (I/O errors or 5xx responses)
+ * and rejects requests without touching the network while open. Once the open duration has
+ * passed a single probe request is let through: success closes the breaker, failure opens
+ * it again.
+ *
+ * @author Brian Xiadong
+ */
+public class CircuitBreaker implements ClientHttpRequestInterceptor {
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this(name, failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    CircuitBreaker(String name, int failureThreshold, Duration openDuration, Clock clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!tryAcquire()) {
+            throw new RestClientException("Upstream " + name + " is unavailable (circuit open)");
+        }
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            onFailure();
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            onFailure();
+        } else {
+            onSuccess();
+        }
+        return response;
+    }
+
+    /**
+     * Whether requests are currently rejected.
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && clock.millis() - openedAt < openMillis;
+    }
+
+    private synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.millis() - openedAt < openMillis) {
+                    return false;
+                }
+                // Let exactly one probe through
+                state = State.HALF_OPEN;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    private synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.millis();
+        }
+    }
+}
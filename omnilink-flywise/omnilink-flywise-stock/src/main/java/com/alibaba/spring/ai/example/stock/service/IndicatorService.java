@@ -0,0 +1,171 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import com.alibaba.spring.ai.example.stock.service.KlineStore.Columns;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Technical indicator tools over the daily bars of the {@link KlineStore}. Only the latest
+ * value of each indicator is returned, so the model gets a few numbers instead of the raw
+ * series.
+ * <p>
+ * Indicators run over the forward-adjusted bars of the store, so ex-dates do not show up
+ * as price gaps in the averages, RSI or ATR. Forward adjustment leaves the latest prices
+ * as traded, so the reported close and bands are comparable with live quotes.
+ * <p>
+ * For several symbols, history is brought up to date on virtual threads (the step that
+ * waits on the network) and the indicators are then computed on the fork/join pool.
+ *
+ * @author Brian Xiadong
+ */
+@Service
+public class IndicatorService {
+    private static final Logger logger = LoggerFactory.getLogger(IndicatorService.class);
+
+    // Enough bars for the 60-day MA and for the EMAs to forget their seed
+    private static final int LOOKBACK = 500;
+    private static final int BATCH_MAX_CODES = 100;
+
+    private final KlineService klineService;
+    private final ExecutorService executor;
+
+    public IndicatorService(KlineService klineService, UpstreamClients upstreamClients) {
+        this.klineService = klineService;
+        this.executor = upstreamClients.executor();
+    }
+
+    /**
+     * Latest indicator values. Fields are {@code null} when there is not enough history.
+     */
+    public record IndicatorSnapshot(
+            @JsonProperty("code") String code,
+            @JsonProperty("date") String date,
+            @JsonProperty("close") Double close,
+            @JsonProperty("ma5") Double ma5,
+            @JsonProperty("ma10") Double ma10,
+            @JsonProperty("ma20") Double ma20,
+            @JsonProperty("ma60") Double ma60,
+            @JsonProperty("ema12") Double ema12,
+            @JsonProperty("ema26") Double ema26,
+            @JsonProperty("macdDif") Double macdDif,
+            @JsonProperty("macdDea") Double macdDea,
+            @JsonProperty("macd") Double macd,
+            @JsonProperty("rsi14") Double rsi14,
+            @JsonProperty("bollUpper") Double bollUpper,
+            @JsonProperty("bollMiddle") Double bollMiddle,
+            @JsonProperty("bollLower") Double bollLower,
+            @JsonProperty("atr14") Double atr14) {
+    }
+
+    /**
+     * Per-symbol result of a batch request. Exactly one of {@code indicators} and
+     * {@code error} is set.
+     */
+    public record IndicatorResult(
+            @JsonProperty("code") String code,
+            @JsonProperty("indicators") IndicatorSnapshot indicators,
+            @JsonProperty("error") String error) {
+    }
+
+    @Tool(name = "getIndicators", description = "Get the latest daily technical indicators of a stock: "
+            + "MA5/10/20/60, EMA12/26, MACD(12,26,9) as DIF/DEA/MACD bar, RSI14, Bollinger bands(20,2) and ATR14. "
+            + "Computed from forward-adjusted daily bars, so dividends and splits do not distort them")
+    public IndicatorSnapshot getIndicators(@ToolParam(description = "6-digit stock code") String stockCode) {
+        validate(stockCode);
+        return compute(stockCode, klineService.sync(stockCode));
+    }
+
+    @Tool(name = "getBatchIndicators", description = "Get the latest daily technical indicators of several stocks "
+            + "in one call, e.g. to screen a watchlist. Each code is reported separately, either with its indicators "
+            + "or with an error")
+    public List<IndicatorResult> getBatchIndicators(
+            @ToolParam(description = "List of 6-digit stock codes") List<String> stockCodes) {
+        if (stockCodes == null || stockCodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one stock code is required");
+        }
+        LinkedHashSet<String> codes = new LinkedHashSet<>();
+        for (String stockCode : stockCodes) {
+            codes.add(stockCode == null ? "" : stockCode.trim());
+        }
+        if (codes.size() > BATCH_MAX_CODES) {
+            throw new IllegalArgumentException("At most " + BATCH_MAX_CODES + " stock codes are allowed per batch");
+        }
+
+        List<CompletableFuture<IndicatorResult>> futures = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            futures.add(CompletableFuture
+                    .supplyAsync(() -> {
+                        validate(code);
+                        return klineService.sync(code);
+                    }, executor)
+                    .thenApplyAsync(columns -> compute(code, columns), ForkJoinPool.commonPool())
+                    .thenApply(snapshot -> new IndicatorResult(code, snapshot, null))
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        logger.warn("Failed to compute indicators of {}: {}", code, cause.getMessage());
+                        return new IndicatorResult(code, null, cause.getMessage());
+                    }));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private static IndicatorSnapshot compute(String code, Columns columns) {
+        if (columns.rows() == 0) {
+            throw new IllegalArgumentException("No K-line history found for stock code " + code);
+        }
+        int n = Math.min(columns.rows(), LOOKBACK);
+        int from = columns.rows() - n;
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        columns.high().get(from, high);
+        columns.low().get(from, low);
+        columns.close().get(from, close);
+
+        double[][] macd = Indicators.macd(close, 12, 26, 9);
+        double[][] boll = Indicators.bollinger(close, 20, 2.0);
+        return new IndicatorSnapshot(
+                code,
+                LocalDate.ofEpochDay(columns.lastEpochDay()).toString(),
+                last(close),
+                last(Indicators.sma(close, 5)),
+                last(Indicators.sma(close, 10)),
+                last(Indicators.sma(close, 20)),
+                last(Indicators.sma(close, 60)),
+                last(Indicators.ema(close, 12)),
+                last(Indicators.ema(close, 26)),
+                last(macd[0]),
+                last(macd[1]),
+                last(macd[2]),
+                last(Indicators.rsi(close, 14)),
+                last(boll[0]),
+                last(boll[1]),
+                last(boll[2]),
+                last(Indicators.atr(high, low, close, 14)));
+    }
+
+    private static Double last(double[] series) {
+        double value = series[series.length - 1];
+        // Rounded to 4 decimals: enough for prices in yuan, and shorter in the response
+        return Double.isNaN(value) ? null : Math.round(value * 10000.0) / 10000.0;
+    }
+
+    private static void validate(String stockCode) {
+        if (stockCode == null || !stockCode.matches("^[0-9]{6}$")) {
+            throw new IllegalArgumentException("Stock code must be 6 digits");
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import java.util.Arrays;
+
+/**
+ * Technical indicators over primitive price series, oldest value first.
+ * <p>
+ * Every indicator is computed in a single pass with running sums or recursive smoothing,
+ * so cost is linear in the series length and independent of the period. Outputs have the
+ * length of the input; positions before an indicator has enough data are {@link Double#NaN}.
+ * Smoothed indicators (EMA, RSI, ATR) are seeded with the simple average of their first
+ * period, and RSI and ATR use Wilder's smoothing.
+ *
+ * @author Brian Xiadong
+ */
+public final class Indicators {
+
+    private Indicators() {
+    }
+
+    /**
+     * Simple moving average.
+     */
+    public static double[] sma(double[] values, int period) {
+        double[] out = nanArray(values.length);
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += values[i];
+            if (i >= period) {
+                sum -= values[i - period];
+            }
+            if (i >= period - 1) {
+                out[i] = sum / period;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Exponential moving average with smoothing factor {@code 2 / (period + 1)}.
+     */
+    public static double[] ema(double[] values, int period) {
+        return ema(values, period, 0);
+    }
+
+    /**
+     * Exponential moving average of {@code values[from..]}, for series that only start
+     * being defined at {@code from}.
+     */
+    static double[] ema(double[] values, int period, int from) {
+        double[] out = nanArray(values.length);
+        int seedEnd = from + period - 1;
+        if (seedEnd >= values.length) {
+            return out;
+        }
+        double sum = 0;
+        for (int i = from; i <= seedEnd; i++) {
+            sum += values[i];
+        }
+        double alpha = 2.0 / (period + 1);
+        double ema = sum / period;
+        out[seedEnd] = ema;
+        for (int i = seedEnd + 1; i < values.length; i++) {
+            ema += alpha * (values[i] - ema);
+            out[i] = ema;
+        }
+        return out;
+    }
+
+    /**
+     * MACD as quoted by SH/SZ market software: {@code [DIF, DEA, MACD]}, where DIF is the
+     * difference of the fast and slow EMAs, DEA the signal EMA of DIF, and MACD the
+     * histogram {@code 2 * (DIF - DEA)}.
+     */
+    public static double[][] macd(double[] close, int fast, int slow, int signal) {
+        double[] fastEma = ema(close, fast);
+        double[] slowEma = ema(close, slow);
+        double[] dif = nanArray(close.length);
+        for (int i = slow - 1; i < close.length; i++) {
+            dif[i] = fastEma[i] - slowEma[i];
+        }
+        double[] dea = ema(dif, signal, slow - 1);
+        double[] histogram = nanArray(close.length);
+        for (int i = 0; i < close.length; i++) {
+            histogram[i] = 2 * (dif[i] - dea[i]);
+        }
+        return new double[][]{dif, dea, histogram};
+    }
+
+    /**
+     * Relative strength index, 0-100.
+     */
+    public static double[] rsi(double[] close, int period) {
+        double[] out = nanArray(close.length);
+        if (close.length <= period) {
+            return out;
+        }
+        double gain = 0;
+        double loss = 0;
+        for (int i = 1; i <= period; i++) {
+            double change = close[i] - close[i - 1];
+            gain += Math.max(change, 0);
+            loss += Math.max(-change, 0);
+        }
+        gain /= period;
+        loss /= period;
+        out[period] = rsi(gain, loss);
+        for (int i = period + 1; i < close.length; i++) {
+            double change = close[i] - close[i - 1];
+            gain = (gain * (period - 1) + Math.max(change, 0)) / period;
+            loss = (loss * (period - 1) + Math.max(-change, 0)) / period;
+            out[i] = rsi(gain, loss);
+        }
+        return out;
+    }
+
+    /**
+     * Bollinger bands {@code [upper, middle, lower]}: the simple moving average plus and
+     * minus {@code width} population standard deviations.
+     */
+    public static double[][] bollinger(double[] close, int period, double width) {
+        double[] upper = nanArray(close.length);
+        double[] middle = nanArray(close.length);
+        double[] lower = nanArray(close.length);
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 0; i < close.length; i++) {
+            sum += close[i];
+            sumOfSquares += close[i] * close[i];
+            if (i >= period) {
+                sum -= close[i - period];
+                sumOfSquares -= close[i - period] * close[i - period];
+            }
+            if (i >= period - 1) {
+                double mean = sum / period;
+                // Rounding can push the variance of a flat window slightly below zero
+                double deviation = Math.sqrt(Math.max(0, sumOfSquares / period - mean * mean));
+                middle[i] = mean;
+                upper[i] = mean + width * deviation;
+                lower[i] = mean - width * deviation;
+            }
+        }
+        return new double[][]{upper, middle, lower};
+    }
+
+    /**
+     * Average true range.
+     */
+    public static double[] atr(double[] high, double[] low, double[] close, int period) {
+        double[] out = nanArray(close.length);
+        if (close.length < period) {
+            return out;
+        }
+        double sum = 0;
+        for (int i = 0; i < period; i++) {
+            sum += trueRange(high, low, close, i);
+        }
+        double atr = sum / period;
+        out[period - 1] = atr;
+        for (int i = period; i < close.length; i++) {
+            atr = (atr * (period - 1) + trueRange(high, low, close, i)) / period;
+            out[i] = atr;
+        }
+        return out;
+    }
+
+    private static double trueRange(double[] high, double[] low, double[] close, int i) {
+        double range = high[i] - low[i];
+        if (i == 0) {
+            return range;
+        }
+        return Math.max(range, Math.max(Math.abs(high[i] - close[i - 1]), Math.abs(low[i] - close[i - 1])));
+    }
+
+    private static double rsi(double gain, double loss) {
+        return loss == 0 ? (gain == 0 ? 50 : 100) : 100 - 100 / (1 + gain / loss);
+    }
+
+    private static double[] nanArray(int length) {
+        double[] out = new double[length];
+        Arrays.fill(out, Double.NaN);
+        return out;
+    }
+}
@@ -0,0 +1,309 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import com.alibaba.spring.ai.example.stock.config.StockProperties;
+import com.alibaba.spring.ai.example.stock.service.KlineStore.Bar;
+import com.alibaba.spring.ai.example.stock.service.KlineStore.Columns;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Daily K-line (OHLCV) history tools. Bars are fetched from Eastmoney once, kept in the
+ * {@link KlineStore}, and topped up incrementally with the bars of days completed since
+ * the last fetch. Range queries and aggregations are then served locally.
+ * <p>
+ * Prices are forward-adjusted, so returns and indicators are not distorted by dividends
+ * and splits. Forward adjustment rescales all earlier prices at every ex-date, so each
+ * top-up refetches the last stored bar too; when its close no longer matches, the whole
+ * history is fetched again and replaces the stored one.
+ *
+ * @author Brian Xiadong
+ */
+@Service
+public class KlineService {
+    private static final Logger logger = LoggerFactory.getLogger(KlineService.class);
+    private static final String KLINE_PATH = "/api/qt/stock/kline/get";
+    private static final DateTimeFormatter BASIC_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final RestClient restClient;
+    private final KlineStore store;
+    private final TradingCalendar calendar;
+    private final StockProperties.Kline properties;
+    private final ConcurrentHashMap<String, LocalDate> syncedThrough = new ConcurrentHashMap<>();
+    // Striped per-code locks, so that arbitrary codes do not grow a lock table
+    private final Object[] syncLocks = new Object[32];
+
+    public KlineService(KlineStore store, TradingCalendar calendar, UpstreamClients upstreamClients,
+                        StockProperties properties) {
+        this.store = store;
+        this.calendar = calendar;
+        this.properties = properties.getKline();
+        this.restClient = upstreamClients.create(properties.getEastmoney().getHistoryBaseUrl() + KLINE_PATH);
+        for (int i = 0; i < syncLocks.length; i++) {
+            syncLocks[i] = new Object();
+        }
+    }
+
+    public record KlineBar(
+            @JsonProperty("date") String date,
+            @JsonProperty("open") double open,
+            @JsonProperty("high") double high,
+            @JsonProperty("low") double low,
+            @JsonProperty("close") double close,
+            @JsonProperty("volume") double volume,     // Lots
+            @JsonProperty("amount") double amount) {   // Yuan
+    }
+
+    public record KlineHistory(
+            @JsonProperty("code") String code,
+            @JsonProperty("totalBars") int totalBars,
+            @JsonProperty("truncated") boolean truncated,
+            @JsonProperty("bars") List<KlineBar> bars) {
+    }
+
+    public record KlineStats(
+            @JsonProperty("code") String code,
+            @JsonProperty("startDate") String startDate,
+            @JsonProperty("endDate") String endDate,
+            @JsonProperty("bars") int bars,
+            @JsonProperty("startClose") double startClose,
+            @JsonProperty("endClose") double endClose,
+            @JsonProperty("priceReturnPercent") double priceReturnPercent,
+            @JsonProperty("high") double high,
+            @JsonProperty("highDate") String highDate,
+            @JsonProperty("low") double low,
+            @JsonProperty("lowDate") String lowDate,
+            @JsonProperty("vwap") double vwap,
+            @JsonProperty("averageVolume") double averageVolume) {  // Lots
+    }
+
+    @Tool(name = "getKlineHistory", description = "Get daily K-line (OHLCV) bars of a stock between two dates. "
+            + "Prices are forward-adjusted yuan, volume is in lots and amount in yuan. Long ranges return only the most recent bars")
+    public KlineHistory getKlineHistory(
+            @ToolParam(description = "6-digit stock code") String stockCode,
+            @ToolParam(description = "First date, yyyy-MM-dd") String startDate,
+            @ToolParam(description = "Last date, yyyy-MM-dd; defaults to today", required = false) String endDate) {
+        validate(stockCode);
+        LocalDate from = parseDate(startDate);
+        LocalDate to = endDate == null || endDate.isBlank() ? LocalDate.now(TradingCalendar.MARKET_ZONE) : parseDate(endDate);
+
+        Columns columns = sync(stockCode);
+        int start = columns.lowerBound(from.toEpochDay());
+        int end = columns.lowerBound(to.toEpochDay() + 1);
+        int total = Math.max(0, end - start);
+        int first = Math.max(start, end - properties.getMaxBars());
+
+        List<KlineBar> bars = new ArrayList<>(Math.max(0, end - first));
+        for (int i = first; i < end; i++) {
+            bars.add(new KlineBar(
+                    LocalDate.ofEpochDay(columns.dates().get(i)).toString(),
+                    columns.open().get(i),
+                    columns.high().get(i),
+                    columns.low().get(i),
+                    columns.close().get(i),
+                    columns.volume().get(i),
+                    columns.amount().get(i)));
+        }
+        return new KlineHistory(stockCode, total, total > bars.size(), bars);
+    }
+
+    @Tool(name = "getKlineStats", description = "Summarize the last N trading days of a stock: return, "
+            + "highest high, lowest low, VWAP and average volume (lots), computed from forward-adjusted daily bars, "
+            + "so the return includes dividends and splits")
+    public KlineStats getKlineStats(
+            @ToolParam(description = "6-digit stock code") String stockCode,
+            @ToolParam(description = "Number of trading days, e.g. 20, 60 or 250") int days) {
+        validate(stockCode);
+        if (days <= 0) {
+            throw new IllegalArgumentException("Days must be positive");
+        }
+
+        Columns columns = sync(stockCode);
+        if (columns.rows() == 0) {
+            throw new IllegalArgumentException("No K-line history found for stock code " + stockCode);
+        }
+        int end = columns.rows();
+        int start = Math.max(0, end - days);
+        // The return is measured from the close before the window when there is one
+        int base = Math.max(0, start - 1);
+
+        double high = Double.NEGATIVE_INFINITY;
+        double low = Double.POSITIVE_INFINITY;
+        int highIndex = start;
+        int lowIndex = start;
+        double volume = 0;
+        double typicalValue = 0;
+        for (int i = start; i < end; i++) {
+            double h = columns.high().get(i);
+            double l = columns.low().get(i);
+            if (h > high) {
+                high = h;
+                highIndex = i;
+            }
+            if (l < low) {
+                low = l;
+                lowIndex = i;
+            }
+            double v = columns.volume().get(i);
+            volume += v;
+            // Amounts are in traded yuan, so VWAP is weighted on adjusted typical prices instead
+            typicalValue += (h + l + columns.close().get(i)) / 3 * v;
+        }
+
+        double startClose = columns.close().get(base);
+        double endClose = columns.close().get(end - 1);
+        return new KlineStats(
+                stockCode,
+                dateAt(columns, start),
+                dateAt(columns, end - 1),
+                end - start,
+                startClose,
+                endClose,
+                startClose == 0 ? Double.NaN : (endClose / startClose - 1) * 100.0,
+                high,
+                dateAt(columns, highIndex),
+                low,
+                dateAt(columns, lowIndex),
+                volume == 0 ? Double.NaN : typicalValue / volume,
+                volume / (end - start));
+    }
+
+    /**
+     * Brings the stored series of {@code code} up to the last completed trading day. When
+     * the upstream fetch fails, whatever is stored is served.
+     */
+    Columns sync(String code) {
+        LocalDate through = calendar.lastCompletedTradingDay(Instant.now());
+        if (isSynced(code, through)) {
+            return store.columns(code);
+        }
+        synchronized (syncLocks[Math.floorMod(code.hashCode(), syncLocks.length)]) {
+            Columns columns = store.columns(code);
+            if (isSynced(code, through)) {
+                return columns;
+            }
+            // The last stored bar is fetched again to tell whether earlier prices were re-adjusted
+            LocalDate from = columns.rows() == 0
+                    ? properties.getHistoryStart()
+                    : LocalDate.ofEpochDay(columns.lastEpochDay());
+            try {
+                List<Bar> bars = fetch(code, from, through);
+                if (readjusted(columns, bars)) {
+                    bars = fetch(code, properties.getHistoryStart(), through);
+                    columns = store.replace(code, bars);
+                    logger.info("Replaced K-line history of {} with {} re-adjusted bars", code, bars.size());
+                } else {
+                    int stored = columns.rows();
+                    columns = store.append(code, bars);
+                    logger.info("Stored {} new K-line bars of {} through {}", columns.rows() - stored, code, through);
+                }
+                if (columns.rows() > 0) {
+                    // Codes without history are not remembered, and not stored either
+                    syncedThrough.put(code, through);
+                }
+            } catch (RuntimeException e) {
+                if (columns.rows() == 0) {
+                    throw e;
+                }
+                logger.warn("Failed to update K-line history of {}, serving stored bars: {}", code, e.getMessage());
+            }
+            return columns;
+        }
+    }
+
+    /**
+     * Whether the refetched last bar has a different close than the stored one, meaning an
+     * ex-date since the last fetch rescaled all earlier prices.
+     */
+    private static boolean readjusted(Columns columns, List<Bar> bars) {
+        if (columns.rows() == 0 || bars.isEmpty() || bars.get(0).epochDay() != columns.lastEpochDay()) {
+            return false;
+        }
+        return Double.compare(bars.get(0).close(), columns.close().get(columns.rows() - 1)) != 0;
+    }
+
+    private boolean isSynced(String code, LocalDate through) {
+        LocalDate synced = syncedThrough.get(code);
+        return (synced != null && !synced.isBefore(through))
+                || store.columns(code).lastEpochDay() >= through.toEpochDay();
+    }
+
+    private List<Bar> fetch(String code, LocalDate from, LocalDate to) {
+        String response = restClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .queryParam("secid", StockService.toSecid(code))
+                        .queryParam("fields1", "f1,f2,f3")
+                        // date, open, close, high, low, volume, amount
+                        .queryParam("fields2", "f51,f52,f53,f54,f55,f56,f57")
+                        .queryParam("klt", "101")
+                        // Forward-adjusted
+                        .queryParam("fqt", "1")
+                        .queryParam("beg", from.format(BASIC_DATE))
+                        .queryParam("end", to.format(BASIC_DATE))
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .body(String.class);
+
+        JsonNode klines;
+        try {
+            klines = objectMapper.readTree(response).path("data").path("klines");
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse K-line response of " + code + ": " + e.getMessage(), e);
+        }
+        if (!klines.isArray()) {
+            throw new IllegalArgumentException("No K-line history found for stock code " + code);
+        }
+
+        List<Bar> bars = new ArrayList<>(klines.size());
+        for (JsonNode line : klines) {
+            String[] f = line.asText().split(",");
+            if (f.length < 7) {
+                continue;
+            }
+            bars.add(new Bar(
+                    LocalDate.parse(f[0]).toEpochDay(),
+                    Double.parseDouble(f[1]),
+                    Double.parseDouble(f[3]),
+                    Double.parseDouble(f[4]),
+                    Double.parseDouble(f[2]),
+                    Double.parseDouble(f[5]),
+                    Double.parseDouble(f[6])));
+        }
+        return bars;
+    }
+
+    private static String dateAt(Columns columns, int index) {
+        return LocalDate.ofEpochDay(columns.dates().get(index)).toString();
+    }
+
+    private static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new IllegalArgumentException("Date must be formatted as yyyy-MM-dd: " + date);
+        }
+    }
+
+    private static void validate(String stockCode) {
+        if (stockCode == null || !stockCode.matches("^[0-9]{6}$")) {
+            throw new IllegalArgumentException("Stock code must be 6 digits");
+        }
+    }
+}
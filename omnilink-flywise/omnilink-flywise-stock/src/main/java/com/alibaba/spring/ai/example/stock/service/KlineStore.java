@@ -0,0 +1,338 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import com.alibaba.spring.ai.example.stock.config.StockProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Local columnar store of daily K-line bars. Each symbol has one directory with a
+ * file per column: trading dates as epoch-day {@code long}s and OHLC, volume and amount
+ * as {@code double}s. Columns are memory-mapped read-only, so range scans and
+ * aggregations run over off-heap data without copying it onto the heap. New bars are
+ * appended to the files and the columns re-mapped; a rewritten history is written to a
+ * {@code <code>.new} directory and swapped in.
+ * <p>
+ * A symbol's files are only created once it has bars to store, and at most
+ * {@link StockProperties.Kline#getMaxOpenSeries()} series are kept open, the least recently
+ * used one being closed first. Views handed out stay readable after their series is closed.
+ *
+ * @author Brian Xiadong
+ */
+@Component
+public class KlineStore {
+    private static final Logger logger = LoggerFactory.getLogger(KlineStore.class);
+
+    private static final int DATE = 0;
+    private static final int OPEN = 1;
+    private static final int HIGH = 2;
+    private static final int LOW = 3;
+    private static final int CLOSE = 4;
+    private static final int VOLUME = 5;
+    private static final int AMOUNT = 6;
+    private static final String[] COLUMN_FILES = {"date", "open", "high", "low", "close", "volume", "amount"};
+    private static final String STAGING_SUFFIX = ".new";
+
+    /**
+     * One bar as appended to the store. Volume is in lots and amount in yuan.
+     */
+    public record Bar(long epochDay, double open, double high, double low, double close, double volume, double amount) {
+    }
+
+    /**
+     * Immutable view of a series: {@code rows} bars in mapped column buffers. Only
+     * absolute reads are used, so a view can be shared between threads.
+     */
+    public record Columns(int rows, LongBuffer dates, DoubleBuffer open, DoubleBuffer high, DoubleBuffer low,
+                          DoubleBuffer close, DoubleBuffer volume, DoubleBuffer amount) {
+
+        static final Columns EMPTY = new Columns(0, LongBuffer.allocate(0), DoubleBuffer.allocate(0),
+                DoubleBuffer.allocate(0), DoubleBuffer.allocate(0), DoubleBuffer.allocate(0),
+                DoubleBuffer.allocate(0), DoubleBuffer.allocate(0));
+
+        public long lastEpochDay() {
+            return rows == 0 ? Long.MIN_VALUE : dates.get(rows - 1);
+        }
+
+        /**
+         * Index of the first bar on or after {@code epochDay}.
+         */
+        public int lowerBound(long epochDay) {
+            int low = 0;
+            int high = rows;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (dates.get(mid) < epochDay) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private final Path storeDir;
+    private final int maxOpenSeries;
+    // Access order, so that the least recently used series is closed first
+    private final Map<String, Series> series = new LinkedHashMap<>(16, 0.75f, true);
+
+    public KlineStore(StockProperties properties) {
+        this.storeDir = properties.getKline().getStoreDir();
+        this.maxOpenSeries = properties.getKline().getMaxOpenSeries();
+        recover();
+    }
+
+    /**
+     * Current view of the stored bars of {@code code}; empty if none are stored.
+     */
+    public Columns columns(String code) {
+        Series stored = open(code, false);
+        return stored == null ? Columns.EMPTY : stored.columns;
+    }
+
+    /**
+     * Appends bars newer than the last stored one; older or duplicate bars are ignored.
+     */
+    public Columns append(String code, List<Bar> bars) {
+        if (bars.isEmpty()) {
+            return columns(code);
+        }
+        while (true) {
+            Columns appended = open(code, true).append(bars);
+            if (appended != null) {
+                return appended;
+            }
+            // Closed to make room for another series in the meantime
+        }
+    }
+
+    /**
+     * Replaces all stored bars of {@code code}, e.g. after upstream re-adjusted its history.
+     * Views of the old bars stay readable.
+     */
+    public Columns replace(String code, List<Bar> bars) {
+        Path dir = storeDir.resolve(code);
+        Path staging = storeDir.resolve(code + STAGING_SUFFIX);
+        Series replaced;
+        try {
+            delete(staging);
+            Series fresh = new Series(staging);
+            try {
+                fresh.append(bars);
+            } finally {
+                fresh.close();
+            }
+            synchronized (series) {
+                replaced = series.remove(code);
+                // Mapped files stay readable after being deleted
+                delete(dir);
+                Files.move(staging, dir, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replace K-line store of " + code, e);
+        }
+        if (replaced != null) {
+            replaced.close();
+        }
+        return columns(code);
+    }
+
+    @PreDestroy
+    public void close() {
+        List<Series> open;
+        synchronized (series) {
+            open = new ArrayList<>(series.values());
+            series.clear();
+        }
+        open.forEach(Series::close);
+    }
+
+    /**
+     * Returns the open series of {@code code}, opening it if its files exist or
+     * {@code create} is set, and closing the least recently used series beyond the limit.
+     *
+     * @return {@code null} if nothing is stored and {@code create} is not set
+     */
+    private Series open(String code, boolean create) {
+        Series open;
+        List<Series> evicted = new ArrayList<>();
+        // Opened under the lock, so that a series being replaced is never reopened
+        synchronized (series) {
+            open = series.get(code);
+            if (open != null) {
+                return open;
+            }
+            Path dir = storeDir.resolve(code);
+            if (!create && !Files.isDirectory(dir)) {
+                return null;
+            }
+            try {
+                open = new Series(dir);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open K-line store of " + code, e);
+            }
+            series.put(code, open);
+            Iterator<Series> eldest = series.values().iterator();
+            while (series.size() > maxOpenSeries) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+        }
+        evicted.forEach(Series::close);
+        return open;
+    }
+
+    /**
+     * Finishes or discards replacements interrupted by a crash: a complete {@code .new}
+     * directory is only left without its series once the old files were deleted.
+     */
+    private void recover() {
+        if (!Files.isDirectory(storeDir)) {
+            return;
+        }
+        try (Stream<Path> dirs = Files.list(storeDir)) {
+            for (Path staging : dirs.filter(d -> d.getFileName().toString().endsWith(STAGING_SUFFIX)).toList()) {
+                String name = staging.getFileName().toString();
+                Path dir = storeDir.resolve(name.substring(0, name.length() - STAGING_SUFFIX.length()));
+                if (Files.isDirectory(dir)) {
+                    delete(staging);
+                } else {
+                    logger.warn("Completing interrupted replacement of K-line store {}", dir);
+                    Files.move(staging, dir, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover K-line store in " + storeDir, e);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        for (String column : COLUMN_FILES) {
+            Files.deleteIfExists(dir.resolve(column + ".col"));
+        }
+        Files.delete(dir);
+    }
+
+    private static final class Series {
+        private final FileChannel[] channels = new FileChannel[COLUMN_FILES.length];
+        private volatile Columns columns;
+        private boolean closed;
+
+        private Series(Path dir) throws IOException {
+            Files.createDirectories(dir);
+            for (int i = 0; i < COLUMN_FILES.length; i++) {
+                channels[i] = FileChannel.open(dir.resolve(COLUMN_FILES[i] + ".col"),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            // A crash between column writes leaves columns of different lengths; keep the common prefix
+            long rows = Long.MAX_VALUE;
+            for (FileChannel channel : channels) {
+                rows = Math.min(rows, channel.size() / Long.BYTES);
+            }
+            for (FileChannel channel : channels) {
+                if (channel.size() != rows * Long.BYTES) {
+                    logger.warn("Truncating torn K-line column in {} to {} rows", dir, rows);
+                    channel.truncate(rows * Long.BYTES);
+                }
+            }
+            this.columns = map((int) rows);
+        }
+
+        /**
+         * @return the view with the bars appended, or {@code null} if the series was closed
+         */
+        private synchronized Columns append(List<Bar> bars) {
+            if (closed) {
+                return null;
+            }
+            Columns current = columns;
+            long last = current.lastEpochDay();
+            List<Bar> fresh = bars.stream().filter(bar -> bar.epochDay() > last).toList();
+            if (fresh.isEmpty()) {
+                return current;
+            }
+
+            int rows = current.rows() + fresh.size();
+            ByteBuffer[] buffers = new ByteBuffer[COLUMN_FILES.length];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.allocate(fresh.size() * Long.BYTES);
+            }
+            for (Bar bar : fresh) {
+                buffers[DATE].putLong(bar.epochDay());
+                buffers[OPEN].putDouble(bar.open());
+                buffers[HIGH].putDouble(bar.high());
+                buffers[LOW].putDouble(bar.low());
+                buffers[CLOSE].putDouble(bar.close());
+                buffers[VOLUME].putDouble(bar.volume());
+                buffers[AMOUNT].putDouble(bar.amount());
+            }
+            try {
+                long position = (long) current.rows() * Long.BYTES;
+                for (int i = 0; i < channels.length; i++) {
+                    buffers[i].flip();
+                    long offset = position;
+                    while (buffers[i].hasRemaining()) {
+                        offset += channels[i].write(buffers[i], offset);
+                    }
+                }
+                for (FileChannel channel : channels) {
+                    channel.force(false);
+                }
+                columns = map(rows);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append K-line bars", e);
+            }
+            return columns;
+        }
+
+        private Columns map(int rows) throws IOException {
+            if (rows == 0) {
+                return Columns.EMPTY;
+            }
+            long size = (long) rows * Long.BYTES;
+            LongBuffer dates = channels[DATE].map(FileChannel.MapMode.READ_ONLY, 0, size).asLongBuffer();
+            DoubleBuffer[] values = new DoubleBuffer[COLUMN_FILES.length];
+            for (int i = OPEN; i < COLUMN_FILES.length; i++) {
+                values[i] = channels[i].map(FileChannel.MapMode.READ_ONLY, 0, size).asDoubleBuffer();
+            }
+            return new Columns(rows, dates, values[OPEN], values[HIGH], values[LOW], values[CLOSE],
+                    values[VOLUME], values[AMOUNT]);
+        }
+
+        private synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (FileChannel channel : channels) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close K-line column: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import com.alibaba.spring.ai.example.stock.config.StockProperties;
+import com.alibaba.spring.ai.example.stock.service.StockService.StockInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Quote cache keyed by stock code. Entries expire according to the {@link TradingCalendar}:
+ * quickly while a session is open, and at the next open while the market is closed.
+ * Concurrent misses and refreshes for the same code share a single upstream request.
+ * <p>
+ * Expired quotes are kept for {@link StockProperties.Resilience#getMaxStale()}. Within that
+ * window a lookup returns the old quote at once, marked with its age, and refreshes it in
+ * the background, so a slow or failing upstream degrades to older prices instead of errors.
+ * A lookup with nothing usable cached waits at most {@link StockProperties.Resilience#getTimeout()}.
+ *
+ * @author Brian Xiadong
+ */
+@Component
+public class QuoteCache {
+
+    private record Entry(StockInfo stockInfo, Instant fetchedAt, Instant expiresAt) {
+    }
+
+    private final Map<String, Entry> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<StockInfo>> inFlight = new ConcurrentHashMap<>();
+
+    private final TradingCalendar calendar;
+    private final StockProperties.Cache properties;
+    private final StockProperties.Resilience resilience;
+    private final Executor executor;
+    private final Clock clock;
+
+    private final Counter hits;
+    private final Counter stale;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public QuoteCache(TradingCalendar calendar, StockProperties properties, UpstreamClients upstreamClients,
+                      ObjectProvider<MeterRegistry> registryProvider) {
+        this.calendar = calendar;
+        this.properties = properties.getCache();
+        this.resilience = properties.getResilience();
+        this.executor = upstreamClients.executor();
+        this.clock = Clock.systemUTC();
+        int maxSize = this.properties.getMaxSize();
+        // Access order, so that the least recently used quote goes once the cache is full
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        MeterRegistry registry = registryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.hits = Counter.builder("stock.quote.cache.requests").tag("result", "hit")
+                .description("Quote lookups served from the cache").register(registry);
+        this.stale = Counter.builder("stock.quote.cache.requests").tag("result", "stale")
+                .description("Quote lookups served from an expired entry").register(registry);
+        this.misses = Counter.builder("stock.quote.cache.requests").tag("result", "miss")
+                .description("Quote lookups that went upstream").register(registry);
+        this.coalesced = Counter.builder("stock.quote.cache.coalesced")
+                .description("Quote lookups that joined an in-flight upstream request").register(registry);
+        Gauge.builder("stock.quote.cache.size", entries, map -> {
+                    synchronized (map) {
+                        return map.size();
+                    }
+                })
+                .description("Number of cached quotes").register(registry);
+    }
+
+    /**
+     * Returns the cached quote for {@code code}. An expired quote within the stale window
+     * is returned marked with its age while a refresh runs in the background; with nothing
+     * usable cached, waits for {@code loader} up to the configured timeout. A load already
+     * running for the same code is joined instead of starting another.
+     *
+     * @throws RestClientException if nothing usable is cached and the load times out
+     */
+    public StockInfo get(String code, Supplier<StockInfo> loader) {
+        if (!properties.isEnabled()) {
+            misses.increment();
+            return loader.get();
+        }
+
+        Instant now = clock.instant();
+        Entry entry = lookup(code, now);
+        if (entry != null && now.isBefore(entry.expiresAt())) {
+            hits.increment();
+            return entry.stockInfo();
+        }
+
+        CompletableFuture<StockInfo> refresh = refresh(code, loader);
+        if (entry != null) {
+            stale.increment();
+            return markStale(entry, now);
+        }
+        return await(code, refresh);
+    }
+
+    /**
+     * Returns the cached quote for {@code code} if it has not expired, counting a hit.
+     */
+    public StockInfo getIfFresh(String code) {
+        Instant now = clock.instant();
+        Entry entry = lookup(code, now);
+        if (entry != null && now.isBefore(entry.expiresAt())) {
+            hits.increment();
+            return entry.stockInfo();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cached quote for {@code code} within the stale window, marked with its
+     * age if it has expired, for serving when upstream cannot answer in time. Returns
+     * {@code null} if there is none.
+     */
+    public StockInfo getStale(String code) {
+        Instant now = clock.instant();
+        Entry entry = lookup(code, now);
+        if (entry == null) {
+            return null;
+        }
+        if (now.isBefore(entry.expiresAt())) {
+            hits.increment();
+            return entry.stockInfo();
+        }
+        stale.increment();
+        return markStale(entry, now);
+    }
+
+    /**
+     * Stores a quote fetched just now.
+     */
+    public void put(String code, StockInfo stockInfo) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Instant now = clock.instant();
+        Duration ttl = calendar.quoteTtl(now, properties.getTradingTtl());
+        synchronized (entries) {
+            entries.put(code, new Entry(stockInfo, now, now.plus(ttl)));
+        }
+    }
+
+    /**
+     * Refreshes {@code codes} in the background, in chunks of at most {@code chunkSize}
+     * codes per {@code loader} call. Codes with a load already running are left to it, so
+     * lookups and refreshes of the same code never go upstream twice at once. The loader
+     * returns the quotes it got; a code it leaves out keeps its cached quote.
+     */
+    public void refreshAll(List<String> codes, int chunkSize, Function<List<String>, Map<String, StockInfo>> loader) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Map<String, CompletableFuture<StockInfo>> claimed = new HashMap<>();
+        for (String code : codes) {
+            CompletableFuture<StockInfo> future = new CompletableFuture<>();
+            if (inFlight.putIfAbsent(code, future) == null) {
+                claimed.put(code, future);
+            } else {
+                coalesced.increment();
+            }
+        }
+        misses.increment(claimed.size());
+
+        List<String> pending = new ArrayList<>(claimed.keySet());
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<String> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            try {
+                executor.execute(() -> {
+                    Map<String, StockInfo> loaded = Map.of();
+                    Throwable failure = null;
+                    try {
+                        loaded = loader.apply(chunk);
+                    } catch (Throwable e) {
+                        failure = e;
+                    }
+                    for (String code : chunk) {
+                        complete(code, claimed.get(code), loaded.get(code), failure);
+                    }
+                });
+            } catch (RuntimeException e) {
+                for (String code : chunk) {
+                    complete(code, claimed.get(code), null, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts loading {@code code} on the upstream executor, or returns the load already
+     * running for it.
+     */
+    private CompletableFuture<StockInfo> refresh(String code, Supplier<StockInfo> loader) {
+        CompletableFuture<StockInfo> future = new CompletableFuture<>();
+        CompletableFuture<StockInfo> existing = inFlight.putIfAbsent(code, future);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        misses.increment();
+        try {
+            executor.execute(() -> {
+                try {
+                    StockInfo stockInfo = loader.get();
+                    put(code, stockInfo);
+                    future.complete(stockInfo);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(code, future);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(code, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Caches the result of a claimed refresh and releases its in-flight slot.
+     */
+    private void complete(String code, CompletableFuture<StockInfo> future, StockInfo stockInfo, Throwable failure) {
+        try {
+            if (stockInfo != null) {
+                put(code, stockInfo);
+                future.complete(stockInfo);
+            } else {
+                future.completeExceptionally(failure != null ? failure
+                        : new RestClientException("No information found for stock code " + code));
+            }
+        } finally {
+            inFlight.remove(code, future);
+        }
+    }
+
+    /**
+     * Returns the entry for {@code code} unless it has outlived the stale window.
+     */
+    private Entry lookup(String code, Instant now) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(code);
+        }
+        if (entry == null || !now.isBefore(entry.expiresAt().plus(resilience.getMaxStale()))) {
+            return null;
+        }
+        return entry;
+    }
+
+    private static StockInfo markStale(Entry entry, Instant now) {
+        return entry.stockInfo().withStaleSeconds(Duration.between(entry.fetchedAt(), now).toSeconds());
+    }
+
+    private StockInfo await(String code, CompletableFuture<StockInfo> future) {
+        long timeout = resilience.getTimeout().toMillis();
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The load keeps running and caches its result for the next lookup
+            throw new RestClientException("Timed out after " + timeout + " ms waiting for stock " + code);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RestClientException("Failed to load stock " + code, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while waiting for stock " + code, e);
+        }
+    }
+}
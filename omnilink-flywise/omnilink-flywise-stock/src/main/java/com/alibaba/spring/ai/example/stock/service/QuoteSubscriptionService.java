@@ -0,0 +1,309 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import com.alibaba.spring.ai.example.stock.config.McpSessions;
+import com.alibaba.spring.ai.example.stock.config.StockProperties;
+import com.alibaba.spring.ai.example.stock.service.StockService.StockInfo;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpServerFeatures.SyncResourceRegistration;
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.ServerMcpTransport;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes quotes as MCP resources ({@code quote://600519}) that clients can subscribe to.
+ * Each subscribed symbol has one shared poller whose rate follows the trading calendar
+ * and the number of subscribers. A {@code notifications/resources/updated} notification
+ * is sent only when the price or volume of the symbol changes.
+ * <p>
+ * The MCP SDK in use does not route {@code resources/subscribe} requests to the server,
+ * so subscriptions are managed through the {@code subscribeQuote} and
+ * {@code unsubscribeQuote} tools. A subscription belongs to the {@link McpSessions MCP
+ * session} that made it: only that session can cancel it, and it is released when the
+ * session ends.
+ *
+ * @author Brian Xiadong
+ */
+@Service
+public class QuoteSubscriptionService {
+    private static final Logger logger = LoggerFactory.getLogger(QuoteSubscriptionService.class);
+    private static final String URI_PREFIX = "quote://";
+    private static final String SUBSCRIPTIONS_URI = URI_PREFIX + "subscriptions";
+    private static final String MIME_TYPE = "application/json";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final StockService stockService;
+    private final TradingCalendar calendar;
+    private final StockProperties.Subscription properties;
+    private final ObjectProvider<McpSyncServer> mcpServer;
+    private final ObjectProvider<ServerMcpTransport> transport;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService pollExecutor;
+    private final McpSessions sessions;
+    private final ConcurrentHashMap<String, QuotePoller> pollers = new ConcurrentHashMap<>();
+    // Striped per-code locks: subscribers, the poller and its resource change together
+    private final Object[] locks = new Object[32];
+
+    public QuoteSubscriptionService(StockService stockService, TradingCalendar calendar, StockProperties properties,
+                                    UpstreamClients upstreamClients, ObjectProvider<McpSyncServer> mcpServer,
+                                    ObjectProvider<ServerMcpTransport> transport, McpSessions sessions) {
+        this.stockService = stockService;
+        this.pollExecutor = upstreamClients.executor();
+        this.calendar = calendar;
+        this.properties = properties.getSubscription();
+        this.mcpServer = mcpServer;
+        this.transport = transport;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "quote-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sessions = sessions;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        sessions.addListener(this::release);
+    }
+
+    public record Subscription(
+            @JsonProperty("uri") String uri,
+            @JsonProperty("code") String code,
+            @JsonProperty("subscribers") int subscribers,
+            @JsonProperty("pollIntervalSeconds") long pollIntervalSeconds) {
+    }
+
+    @Tool(name = "subscribeQuote", description = "Subscribe to real-time updates of a stock. The quote is exposed as the "
+            + "MCP resource quote://<code>, and a resources/updated notification is sent whenever its price or volume changes")
+    public Subscription subscribeQuote(@ToolParam(description = "6-digit stock code") String stockCode) {
+        validate(stockCode);
+        String session = sessions.current();
+        synchronized (lock(stockCode)) {
+            QuotePoller poller = pollers.get(stockCode);
+            if (poller == null) {
+                if (pollers.size() >= properties.getMaxSymbols()) {
+                    throw new IllegalArgumentException("At most " + properties.getMaxSymbols()
+                            + " symbols can be subscribed at the same time");
+                }
+                poller = new QuotePoller(stockCode);
+                poller.subscribers.add(session);
+                pollers.put(stockCode, poller);
+                QuotePoller started = poller;
+                mcpServer.ifAvailable(server -> server.addResource(started.registration()));
+                poller.schedule(Duration.ZERO);
+                logger.info("Started polling {}", poller.uri);
+            } else if (poller.subscribers.add(session)) {
+                // A new subscriber may shorten the poll interval
+                poller.reschedule();
+            }
+            return poller.describe();
+        }
+    }
+
+    @Tool(name = "unsubscribeQuote", description = "Cancel a subscription created with subscribeQuote")
+    public Subscription unsubscribeQuote(@ToolParam(description = "6-digit stock code") String stockCode) {
+        validate(stockCode);
+        Subscription subscription = unsubscribe(stockCode, sessions.current());
+        if (subscription == null) {
+            throw new IllegalArgumentException("Stock " + stockCode + " is not subscribed in this session");
+        }
+        return subscription;
+    }
+
+    /**
+     * Drops the subscriptions of a session that ended.
+     */
+    private void release(String session) {
+        for (QuotePoller poller : List.copyOf(pollers.values())) {
+            if (poller.subscribers.contains(session)) {
+                try {
+                    unsubscribe(poller.code, session);
+                } catch (RuntimeException e) {
+                    // The server may be shutting down along with the session
+                    logger.warn("Releasing {} of ended {} failed: {}", poller.uri, session, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a session from the subscribers of a code, stopping its poller and removing
+     * its resource once nobody is left.
+     *
+     * @return the subscription after the change, or {@code null} if the session had none
+     */
+    private Subscription unsubscribe(String stockCode, String session) {
+        synchronized (lock(stockCode)) {
+            QuotePoller poller = pollers.get(stockCode);
+            if (poller == null || !poller.subscribers.remove(session)) {
+                return null;
+            }
+            if (!poller.subscribers.isEmpty()) {
+                return poller.describe();
+            }
+            pollers.remove(stockCode);
+            poller.cancel();
+            mcpServer.ifAvailable(server -> server.removeResource(poller.uri));
+            logger.info("Stopped polling {}", poller.uri);
+            return new Subscription(poller.uri, stockCode, 0, 0);
+        }
+    }
+
+    private Object lock(String stockCode) {
+        return locks[Math.floorMod(stockCode.hashCode(), locks.length)];
+    }
+
+    /**
+     * Static resource listing the active subscriptions. Registering it at startup also
+     * enables the resources capability so quote resources can be added at runtime.
+     */
+    public SyncResourceRegistration subscriptionsResource() {
+        var resource = new McpSchema.Resource(SUBSCRIPTIONS_URI, "Quote subscriptions",
+                "Active quote subscriptions and their poll intervals", MIME_TYPE, null);
+        return new SyncResourceRegistration(resource, request -> new McpSchema.ReadResourceResult(List.of(
+                new McpSchema.TextResourceContents(SUBSCRIPTIONS_URI, MIME_TYPE,
+                        toJson(pollers.values().stream().map(QuotePoller::describe).toList())))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static void validate(String stockCode) {
+        if (stockCode == null || !stockCode.matches("^[0-9]{6}$")) {
+            throw new IllegalArgumentException("Stock code must be 6 digits");
+        }
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void notifyUpdated(String uri) {
+        ServerMcpTransport serverTransport = transport.getIfAvailable();
+        if (serverTransport == null) {
+            return;
+        }
+        var notification = new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+                "notifications/resources/updated", Map.of("uri", uri));
+        serverTransport.sendMessage(notification)
+                .doOnError(e -> logger.warn("Failed to notify update of {}: {}", uri, e.getMessage()))
+                .onErrorComplete()
+                .subscribe();
+    }
+
+    /**
+     * Shared poller of one symbol. Subscribers are only changed under the lock of its code.
+     */
+    private final class QuotePoller {
+        private final String code;
+        private final String uri;
+        private final Set<String> subscribers = ConcurrentHashMap.newKeySet();
+        private volatile StockInfo last;
+        private ScheduledFuture<?> next;
+
+        private QuotePoller(String code) {
+            this.code = code;
+            this.uri = URI_PREFIX + code;
+        }
+
+        private SyncResourceRegistration registration() {
+            var resource = new McpSchema.Resource(uri, "Quote " + code,
+                    "Real-time quote of stock " + code, MIME_TYPE, null);
+            return new SyncResourceRegistration(resource, request -> {
+                StockInfo quote = last != null ? last : stockService.getStockInfo(code);
+                return new McpSchema.ReadResourceResult(List.of(
+                        new McpSchema.TextResourceContents(uri, MIME_TYPE, toJson(quote))));
+            });
+        }
+
+        private void poll() {
+            if (pollers.get(code) != this) {
+                return;
+            }
+            try {
+                StockInfo quote = stockService.getStockInfo(code);
+                StockInfo previous = last;
+                last = quote;
+                if (previous != null && changed(previous, quote)) {
+                    notifyUpdated(uri);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Polling {} failed: {}", uri, e.getMessage());
+            }
+            schedule(interval());
+        }
+
+        private static boolean changed(StockInfo previous, StockInfo current) {
+            return !Objects.equals(previous.currentPrice(), current.currentPrice())
+                    || !Objects.equals(previous.volume(), current.volume());
+        }
+
+        /**
+         * Shortens the poll interval with every subscriber during trading hours, and
+         * sleeps until the next session outside trading hours.
+         */
+        private Duration interval() {
+            Instant now = Instant.now();
+            if (!calendar.isTrading(now)) {
+                Duration untilOpen = Duration.between(now, calendar.nextOpen(now));
+                return untilOpen.compareTo(properties.getMaxIdleInterval()) > 0
+                        ? properties.getMaxIdleInterval() : untilOpen;
+            }
+            Duration interval = properties.getPollInterval().dividedBy(Math.max(1, subscribers.size()));
+            return interval.compareTo(properties.getMinPollInterval()) < 0
+                    ? properties.getMinPollInterval() : interval;
+        }
+
+        private synchronized void schedule(Duration delay) {
+            if (scheduler.isShutdown()) {
+                return;
+            }
+            // The scheduler thread only dispatches; the blocking fetch runs on a virtual thread
+            next = scheduler.schedule(() -> pollExecutor.execute(this::poll), delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void reschedule() {
+            Duration interval = interval();
+            if (next != null && next.getDelay(TimeUnit.MILLISECONDS) > interval.toMillis() && next.cancel(false)) {
+                schedule(interval);
+            }
+        }
+
+        private synchronized void cancel() {
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+
+        private Subscription describe() {
+            return new Subscription(uri, code, subscribers.size(), interval().toSeconds());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import com.alibaba.spring.ai.example.stock.service.StockService.StockInfo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming decoder for Eastmoney {@code /api/qt/stock/get} responses. Reads the f43-f58
+ * fields of the {@code data} object straight from the byte stream into primitive fields,
+ * without building a JSON tree or boxed intermediate records.
+ * <p>
+ * Eastmoney reports missing values as {@code "-"}; these, nulls and absent fields decode
+ * to {@link Double#NaN}.
+ *
+ * @author Brian Xiadong
+ */
+public final class StockQuoteDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private StockQuoteDecoder() {
+    }
+
+    /**
+     * Quote as reported by Eastmoney: prices in cents, volume in lots, amount in yuan.
+     */
+    public record StockQuote(
+            String code,            // f57
+            String name,            // f58
+            double currentPrice,    // f43
+            double highPrice,       // f44
+            double lowPrice,        // f45
+            double openPrice,       // f46
+            double volume,          // f47
+            double amount) {        // f48
+
+        /**
+         * Converts to the tool-facing {@link StockInfo}: prices in yuan, volume in 10,000
+         * lots and amount in 100 million yuan. Missing values become {@code null}.
+         */
+        public StockInfo toStockInfo(String stockCode) {
+            return new StockInfo(
+                    stockCode,
+                    name,
+                    scaled(currentPrice, 100.0),
+                    scaled(highPrice, 100.0),
+                    scaled(lowPrice, 100.0),
+                    scaled(openPrice, 100.0),
+                    scaled(volume, 10000.0),
+                    scaled(amount, 100000000.0));
+        }
+
+        private static Double scaled(double value, double divisor) {
+            return Double.isNaN(value) ? null : value / divisor;
+        }
+    }
+
+    /**
+     * Decodes the {@code data} object of a response.
+     *
+     * @return the quote, or {@code null} if the response has no {@code data} object
+     */
+    public static StockQuote decode(InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            return decode(parser);
+        }
+    }
+
+    public static StockQuote decode(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return decode(parser);
+        }
+    }
+
+    private static StockQuote decode(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("data".equals(field)) {
+                return value == JsonToken.START_OBJECT ? decodeData(parser) : null;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    private static StockQuote decodeData(JsonParser parser) throws IOException {
+        String code = null;
+        String name = null;
+        double currentPrice = Double.NaN;
+        double highPrice = Double.NaN;
+        double lowPrice = Double.NaN;
+        double openPrice = Double.NaN;
+        double volume = Double.NaN;
+        double amount = Double.NaN;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "f43" -> currentPrice = readDouble(parser);
+                case "f44" -> highPrice = readDouble(parser);
+                case "f45" -> lowPrice = readDouble(parser);
+                case "f46" -> openPrice = readDouble(parser);
+                case "f47" -> volume = readDouble(parser);
+                case "f48" -> amount = readDouble(parser);
+                case "f57" -> code = readString(parser);
+                case "f58" -> name = readString(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new StockQuote(code, name, currentPrice, highPrice, lowPrice, openPrice, volume, amount);
+    }
+
+    private static double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            // "-" placeholder, or occasionally a number sent as a string
+            String text = parser.getText();
+            try {
+                return "-".equals(text) || text.isEmpty() ? Double.NaN : Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        parser.skipChildren();
+        return Double.NaN;
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING || token == JsonToken.VALUE_NUMBER_INT) {
+            String text = parser.getText();
+            return "-".equals(text) || text.isEmpty() ? null : text;
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
@@ -1,6 +1,9 @@
 package com.alibaba.spring.ai.example.stock.service;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.alibaba.spring.ai.example.stock.config.StockProperties;
+import com.alibaba.spring.ai.example.stock.service.StockQuoteDecoder.StockQuote;
+import com.alibaba.spring.ai.example.stock.service.SymbolIndex.Symbol;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.springframework.ai.tool.annotation.Tool;
@@ -16,8 +19,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Stock service for retrieving real-time stock information from Eastmoney API.
@@ -29,29 +41,32 @@ import java.util.Map;
 @Service
 public class StockService {
     private static final Logger logger = LoggerFactory.getLogger(StockService.class);
-    private static final String BASE_URL = "https://push2.eastmoney.com/api/qt/stock/get";
+    private static final String QUOTE_PATH = "/api/qt/stock/get";
+    private static final String BATCH_PATH = "/api/qt/ulist.np/get";
+    // Number of secids sent to the multi-security list endpoint per request
+    private static final int BATCH_CHUNK_SIZE = 50;
+    private static final int BATCH_MAX_CODES = 500;
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final ObjectMapper objectMapper = new ObjectMapper();
     
     private final RestClient restClient;
+    private final RestClient batchRestClient;
+    private final QuoteCache quoteCache;
+    private final SymbolIndex symbolIndex;
+    private final ExecutorService executor;
+    private final int maxSearchResults;
+    private final long batchTimeoutMillis;
 
-    public StockService() {
-        this.restClient = RestClient.builder()
-                .baseUrl(BASE_URL)
-                .defaultHeader("Accept", MediaType.APPLICATION_JSON_VALUE)
-                .build();
-    }
-
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public record StockData(
-            @JsonProperty("f43") Double currentPrice,    // Latest price (in cents)
-            @JsonProperty("f44") Double highPrice,       // Highest price (in cents)
-            @JsonProperty("f45") Double lowPrice,        // Lowest price (in cents)
-            @JsonProperty("f46") Double openPrice,       // Opening price (in cents)
-            @JsonProperty("f47") Double volume,          // Trading volume (in lots)
-            @JsonProperty("f48") Double amount,          // Trading amount (in yuan)
-            @JsonProperty("f57") String code,            // Stock code
-            @JsonProperty("f58") String name) {          // Stock name
+    public StockService(QuoteCache quoteCache, SymbolIndex symbolIndex, UpstreamClients upstreamClients,
+                        StockProperties properties) {
+        this.quoteCache = quoteCache;
+        this.symbolIndex = symbolIndex;
+        this.executor = upstreamClients.executor();
+        this.maxSearchResults = properties.getSymbols().getMaxResults();
+        this.batchTimeoutMillis = properties.getResilience().getBatchTimeout().toMillis();
+        String baseUrl = properties.getEastmoney().getQuoteBaseUrl();
+        this.restClient = upstreamClients.create(baseUrl + QUOTE_PATH);
+        this.batchRestClient = upstreamClients.create(baseUrl + BATCH_PATH);
     }
 
     @JsonSerialize
@@ -63,8 +78,51 @@ public class StockService {
             @JsonProperty("lowPrice") Double lowPrice,
             @JsonProperty("openPrice") Double openPrice,
             @JsonProperty("volume") Double volume,
-            @JsonProperty("amount") Double amount
+            @JsonProperty("amount") Double amount,
+            // Set only when the quote is served from cache after it expired
+            @JsonProperty("staleSeconds") @JsonInclude(JsonInclude.Include.NON_NULL) Long staleSeconds
+    ) implements Serializable {
+
+        public StockInfo(String code, String name, Double currentPrice, Double highPrice, Double lowPrice,
+                         Double openPrice, Double volume, Double amount) {
+            this(code, name, currentPrice, highPrice, lowPrice, openPrice, volume, amount, null);
+        }
+
+        /**
+         * This quote marked as {@code seconds} old.
+         */
+        StockInfo withStaleSeconds(long seconds) {
+            return new StockInfo(code, name, currentPrice, highPrice, lowPrice, openPrice, volume, amount, seconds);
+        }
+    }
+
+    /**
+     * Per-symbol result of a batch quote request. Exactly one of {@code stockInfo}
+     * and {@code error} is set.
+     */
+    @JsonSerialize
+    public record StockQuoteResult(
+            @JsonProperty("code") String code,
+            @JsonProperty("stockInfo") StockInfo stockInfo,
+            @JsonProperty("error") String error
     ) implements Serializable {
+
+        static StockQuoteResult success(String code, StockInfo stockInfo) {
+            return new StockQuoteResult(code, stockInfo, null);
+        }
+
+        static StockQuoteResult failure(String code, String error) {
+            return new StockQuoteResult(code, null, error);
+        }
+    }
+
+    @Tool(name = "searchStock", description = "Find stock codes by code, Chinese name or pinyin initials, "
+            + "e.g. \"茅台\", \"gzmt\" or \"600519\". Returns the best matches first")
+    public List<Symbol> searchStock(
+            @ToolParam(description = "Code, name, or pinyin initials, or a prefix of them") String query,
+            @ToolParam(description = "Maximum number of matches, default 5", required = false) Integer limit) {
+        int max = limit == null || limit <= 0 ? 5 : Math.min(limit, maxSearchResults);
+        return symbolIndex.search(query, max);
     }
 
     @Tool(name = "getStockInfo", description = "Get real-time stock information for the specified stock code")
@@ -72,58 +130,263 @@ public class StockService {
         try {
             // Validate stock code format
             if (!stockCode.matches("^[0-9]{6}$")) {
-                throw new IllegalArgumentException("Stock code must be 6 digits");
+                throw new IllegalArgumentException("Stock code must be 6 digits; use searchStock to look up a code by name");
+            }
+
+            return quoteCache.get(stockCode, () -> fetchStockInfo(stockCode));
+        } catch (IllegalArgumentException e) {
+            logger.error("Parameter error: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            logger.error("Failed to get stock {} information: {}", stockCode, e.getMessage(), e);
+            throw new RuntimeException("Failed to get stock " + stockCode + " information: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fetches one quote from the single-security endpoint, bypassing the cache.
+     */
+    private StockInfo fetchStockInfo(String stockCode) {
+        logger.debug("Fetching stock information for {}", stockCode);
+
+        // Eastmoney API parameters
+        String secid = toSecid(stockCode);
+
+        // Decode straight from the response stream instead of buffering it as a String
+        StockQuote quote = restClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .queryParam("secid", secid)
+                        .queryParam("fields", "f43,f44,f45,f46,f47,f48,f57,f58")
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw new RestClientException("Unexpected HTTP status " + response.getStatusCode().value());
+                    }
+                    try (InputStream body = response.getBody()) {
+                        return StockQuoteDecoder.decode(body);
+                    }
+                });
+
+        if (quote == null) {
+            logger.warn("No stock data found");
+            throw new IllegalArgumentException("No information found for stock code " + stockCode);
+        }
+        logger.debug("Parsed data: {}", quote);
+
+        if (quote.name() == null) {
+            throw new IllegalArgumentException("Invalid data format for stock code " + stockCode);
+        }
+
+        // Convert data format
+        return quote.toStockInfo(stockCode);
+    }
+
+    /**
+     * Fresh cached quotes are served directly and expired ones are served with their age
+     * while being refreshed in the background. The rest are fetched in concurrent chunks
+     * for at most the batch timeout; codes still pending after that, or whose chunk failed,
+     * fall back to a stale quote when there is one.
+     */
+    @Tool(name = "getBatchStockInfo", description = "Get real-time stock information for multiple stock codes in one call. "
+            + "Each code is reported separately, either with its stock information or with an error")
+    public List<StockQuoteResult> getBatchStockInfo(
+            @ToolParam(description = "List of 6-digit stock codes, e.g. [\"600519\", \"000001\"]") List<String> stockCodes) {
+        if (stockCodes == null || stockCodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one stock code is required");
+        }
+
+        // Deduplicate while keeping the caller's order
+        LinkedHashSet<String> codes = new LinkedHashSet<>();
+        for (String stockCode : stockCodes) {
+            codes.add(stockCode == null ? "" : stockCode.trim());
+        }
+        if (codes.size() > BATCH_MAX_CODES) {
+            throw new IllegalArgumentException("At most " + BATCH_MAX_CODES + " stock codes are allowed per batch");
+        }
+
+        logger.info("Fetching stock information for {} codes", codes.size());
+
+        Map<String, StockQuoteResult> results = new HashMap<>();
+        List<String> toFetch = new ArrayList<>(codes.size());
+        List<String> toRefresh = new ArrayList<>();
+        // Quotes still in the cache are served without waiting for upstream
+        for (String code : codes) {
+            if (!code.matches("^[0-9]{6}$")) {
+                results.put(code, StockQuoteResult.failure(code, "Stock code must be 6 digits"));
+                continue;
+            }
+            StockInfo cached = quoteCache.getIfFresh(code);
+            if (cached == null) {
+                cached = quoteCache.getStale(code);
+                if (cached != null) {
+                    toRefresh.add(code);
+                }
             }
+            if (cached != null) {
+                results.put(code, StockQuoteResult.success(code, cached));
+            } else {
+                toFetch.add(code);
+            }
+        }
+
+        // Stale quotes are refreshed in the background unless a refresh is already running
+        quoteCache.refreshAll(toRefresh, BATCH_CHUNK_SIZE, this::fetchQuotes);
+        // Chunks are fetched concurrently; fetchChunk reports its own failures per code
+        List<CompletableFuture<Map<String, StockQuoteResult>>> chunks = fetchChunks(toFetch);
+        CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new))
+                .completeOnTimeout(null, batchTimeoutMillis, TimeUnit.MILLISECONDS)
+                .join();
+        for (CompletableFuture<Map<String, StockQuoteResult>> chunk : chunks) {
+            Map<String, StockQuoteResult> fetched = chunk.getNow(null);
+            if (fetched != null) {
+                results.putAll(fetched);
+            }
+        }
+
+        List<StockQuoteResult> ordered = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            StockQuoteResult result = results.get(code);
+            if (result == null) {
+                // Still in flight after the batch timeout; it will be cached when it completes
+                StockInfo stale = quoteCache.getStale(code);
+                result = stale != null ? StockQuoteResult.success(code, stale) : StockQuoteResult.failure(code,
+                        "Timed out after " + batchTimeoutMillis + " ms waiting for stock " + code);
+            }
+            ordered.add(result);
+        }
+        return ordered;
+    }
+
+    private List<CompletableFuture<Map<String, StockQuoteResult>>> fetchChunks(List<String> codes) {
+        List<CompletableFuture<Map<String, StockQuoteResult>>> chunks = new ArrayList<>();
+        for (int from = 0; from < codes.size(); from += BATCH_CHUNK_SIZE) {
+            List<String> chunk = codes.subList(from, Math.min(from + BATCH_CHUNK_SIZE, codes.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> fetchChunk(chunk), executor));
+        }
+        return chunks;
+    }
+
+    /**
+     * Fetches one chunk of codes and caches the quotes it gets. A failure of the whole
+     * request is reported against every code in the chunk that has no stale quote to
+     * fall back to.
+     */
+    private Map<String, StockQuoteResult> fetchChunk(List<String> chunk) {
+        Map<String, StockQuoteResult> results;
+        try {
+            results = fetchResults(chunk);
+        } catch (Exception e) {
+            logger.error("Failed to get batch information for {}: {}", chunk, e.getMessage(), e);
+            results = new HashMap<>();
+            for (String code : chunk) {
+                StockInfo stale = quoteCache.getStale(code);
+                results.put(code, stale != null ? StockQuoteResult.success(code, stale) : StockQuoteResult.failure(code,
+                        "Failed to get stock " + code + " information: " + e.getMessage()));
+            }
+            return results;
+        }
+
+        for (String code : chunk) {
+            StockQuoteResult result = results.putIfAbsent(code,
+                    StockQuoteResult.failure(code, "No information found for stock code " + code));
+            if (result != null && result.stockInfo() != null) {
+                quoteCache.put(code, result.stockInfo());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Fetches the quotes of one chunk of codes, leaving out those without valid data;
+     * used to refresh stale quotes.
+     */
+    private Map<String, StockInfo> fetchQuotes(List<String> chunk) {
+        Map<String, StockQuoteResult> results;
+        try {
+            results = fetchResults(chunk);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh batch information for {}: {}", chunk, e.getMessage());
+            throw e;
+        }
+        Map<String, StockInfo> quotes = new HashMap<>();
+        results.forEach((code, result) -> {
+            if (result.stockInfo() != null) {
+                quotes.put(code, result.stockInfo());
+            }
+        });
+        return quotes;
+    }
 
-            logger.info("Fetching stock information for {}", stockCode);
-            
-            // Eastmoney API parameters
-            String secid = stockCode.startsWith("6") ? "1." + stockCode : "0." + stockCode;
-            
-            String response = restClient.get()
+    /**
+     * Requests one chunk of codes from the multi-security list endpoint and returns a
+     * result for each code the answer lists. Does not touch the cache.
+     *
+     * @throws RestClientException if the request fails
+     */
+    private Map<String, StockQuoteResult> fetchResults(List<String> chunk) {
+        Map<String, StockQuoteResult> results = new HashMap<>();
+        Map<String, String> codesBySecid = new HashMap<>();
+        for (String code : chunk) {
+            codesBySecid.put(toSecid(code), code);
+        }
+
+        try {
+            // fltt=2 returns prices as decimals instead of scaled integers
+            String response = batchRestClient.get()
                     .uri(uriBuilder -> uriBuilder
-                            .queryParam("secid", secid)
-                            .queryParam("fields", "f43,f44,f45,f46,f47,f48,f57,f58")
+                            .queryParam("secids", String.join(",", codesBySecid.keySet()))
+                            .queryParam("fields", "f2,f5,f6,f12,f13,f14,f15,f16,f17")
+                            .queryParam("fltt", "2")
+                            .queryParam("np", "1")
                             .build())
                     .accept(MediaType.APPLICATION_JSON)
                     .retrieve()
                     .body(String.class);
 
-            logger.info("Raw response: {}", response);
-
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode data = root.path("data");
-            
-            if (data.isMissingNode()) {
-                logger.warn("No stock data found");
-                throw new IllegalArgumentException("No information found for stock code " + stockCode);
+            JsonNode diff = objectMapper.readTree(response).path("data").path("diff");
+            for (JsonNode item : diff) {
+                String secid = item.path("f13").asText() + "." + item.path("f12").asText();
+                String code = codesBySecid.get(secid);
+                if (code == null) {
+                    continue;
+                }
+                String name = item.path("f14").asText(null);
+                if (name == null || name.isEmpty() || "-".equals(name)) {
+                    results.put(code, StockQuoteResult.failure(code, "Invalid data format for stock code " + code));
+                    continue;
+                }
+                StockInfo stockInfo = new StockInfo(
+                        code,
+                        name,
+                        decimalOrNull(item.path("f2")),
+                        decimalOrNull(item.path("f15")),
+                        decimalOrNull(item.path("f16")),
+                        decimalOrNull(item.path("f17")),
+                        scaledOrNull(item.path("f5"), 10000.0),    // Convert to 10,000 lots
+                        scaledOrNull(item.path("f6"), 100000000.0) // Convert to 100 million yuan
+                );
+                results.put(code, StockQuoteResult.success(code, stockInfo));
             }
+        } catch (IOException e) {
+            throw new RestClientException("Unreadable batch response: " + e.getMessage(), e);
+        }
+        return results;
+    }
 
-            StockData stockData = objectMapper.treeToValue(data, StockData.class);
-            logger.info("Parsed data: {}", stockData);
+    /**
+     * Eastmoney security id: market 1 for Shanghai (codes starting with 6), 0 otherwise.
+     */
+    static String toSecid(String stockCode) {
+        return stockCode.startsWith("6") ? "1." + stockCode : "0." + stockCode;
+    }
 
-            if (stockData == null || stockData.name() == null) {
-                throw new IllegalArgumentException("Invalid data format for stock code " + stockCode);
-            }
+    // Eastmoney uses "-" for fields that have no value (e.g. suspended stocks)
+    private static Double decimalOrNull(JsonNode node) {
+        return node.isNumber() ? node.asDouble() : null;
+    }
 
-            // Convert data format
-            return new StockInfo(
-                    stockCode,
-                    stockData.name(),
-                    stockData.currentPrice() / 100.0, // Convert to yuan
-                    stockData.highPrice() / 100.0,    // Convert to yuan
-                    stockData.lowPrice() / 100.0,     // Convert to yuan
-                    stockData.openPrice() / 100.0,    // Convert to yuan
-                    stockData.volume() / 10000.0,     // Convert to 10,000 lots
-                    stockData.amount() / 100000000.0  // Convert to 100 million yuan
-            );
-        } catch (IllegalArgumentException e) {
-            logger.error("Parameter error: {}", e.getMessage());
-            throw e;
-        } catch (Exception e) {
-            logger.error("Failed to get stock {} information: {}", stockCode, e.getMessage(), e);
-            throw new RuntimeException("Failed to get stock " + stockCode + " information: " + e.getMessage());
-        }
+    private static Double scaledOrNull(JsonNode node, double divisor) {
+        return node.isNumber() ? node.asDouble() / divisor : null;
     }
 }
-
@@ -0,0 +1,276 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import com.alibaba.spring.ai.example.stock.config.StockProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index of listed symbols for resolving codes, Chinese names and pinyin
+ * initials to stock codes.
+ * <p>
+ * Every symbol contributes its code, name, pinyin initials and the suffixes of its name as
+ * lower-cased keys to one sorted array. A query is a binary search for the range of keys
+ * it prefixes, so lookups take microseconds and the index costs a few hundred bytes per
+ * symbol. Matches are ranked exact before prefix before infix, then by key kind.
+ * <p>
+ * Symbols are loaded from {@code stock.symbols.location}, a tab separated file of code,
+ * name, pinyin initials and market, or from {@code stock.symbols.listing-file} once
+ * {@link SymbolListing} has downloaded the full listing there. The file is checked for
+ * changes at most once per {@code stock.symbols.refresh-interval} and the index swapped
+ * atomically when it changed.
+ *
+ * @author Brian Xiadong
+ */
+@Component
+public class SymbolIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SymbolIndex.class);
+
+    // Codes are accepted with exchange prefixes or suffixes, e.g. sh600519 or 600519.SH
+    private static final Pattern QUALIFIED_CODE = Pattern.compile("^(?:sh|sz|bj)?([0-9]{6})(?:\\.(?:sh|sz|bj))?$");
+
+    // Key kinds, in ranking order
+    private static final byte CODE = 0;
+    private static final byte NAME = 1;
+    private static final byte PINYIN = 2;
+    private static final byte NAME_INFIX = 3;
+
+    public record Symbol(
+            @JsonProperty("code") String code,
+            @JsonProperty("name") String name,
+            @JsonProperty("pinyin") String pinyin,
+            @JsonProperty("market") String market) {
+    }
+
+    /**
+     * Immutable index over one loaded snapshot.
+     */
+    private record Snapshot(Symbol[] symbols, String[] keys, int[] owners, byte[] kinds) {
+
+        static final Snapshot EMPTY = new Snapshot(new Symbol[0], new String[0], new int[0], new byte[0]);
+
+        static Snapshot of(List<Symbol> symbols) {
+            record Key(String key, int owner, byte kind) {
+            }
+            List<Key> keys = new ArrayList<>(symbols.size() * 6);
+            for (int i = 0; i < symbols.size(); i++) {
+                Symbol symbol = symbols.get(i);
+                String name = symbol.name().toLowerCase(Locale.ROOT);
+                keys.add(new Key(symbol.code(), i, CODE));
+                keys.add(new Key(name, i, NAME));
+                if (!symbol.pinyin().isEmpty()) {
+                    keys.add(new Key(symbol.pinyin(), i, PINYIN));
+                }
+                for (int from = 1; from < name.length(); from++) {
+                    keys.add(new Key(name.substring(from), i, NAME_INFIX));
+                }
+            }
+            keys.sort(Comparator.comparing(Key::key));
+
+            String[] sortedKeys = new String[keys.size()];
+            int[] owners = new int[keys.size()];
+            byte[] kinds = new byte[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                sortedKeys[i] = keys.get(i).key();
+                owners[i] = keys.get(i).owner();
+                kinds[i] = keys.get(i).kind();
+            }
+            return new Snapshot(symbols.toArray(Symbol[]::new), sortedKeys, owners, kinds);
+        }
+
+        /**
+         * Index of the first key that is not less than {@code query}.
+         */
+        int lowerBound(String query) {
+            int index = Arrays.binarySearch(keys, query);
+            if (index < 0) {
+                return -index - 1;
+            }
+            // Several symbols can share a key; step back to the first of them
+            while (index > 0 && keys[index - 1].equals(query)) {
+                index--;
+            }
+            return index;
+        }
+    }
+
+    private final ResourceLoader resourceLoader;
+    private final String location;
+    private final Path listingFile;
+    private final long refreshIntervalNanos;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile String loadedFrom;
+    private volatile long lastModified;
+    private volatile long nextCheckNanos;
+
+    public SymbolIndex(ResourceLoader resourceLoader, StockProperties properties) {
+        this.resourceLoader = resourceLoader;
+        this.location = properties.getSymbols().getLocation();
+        this.listingFile = properties.getSymbols().getListingFile();
+        Duration refreshInterval = properties.getSymbols().getRefreshInterval();
+        this.refreshIntervalNanos = refreshInterval == null ? Long.MAX_VALUE : refreshInterval.toNanos();
+        reload();
+    }
+
+    /**
+     * Number of indexed symbols.
+     */
+    public int size() {
+        return snapshot.symbols().length;
+    }
+
+    /**
+     * All indexed symbols.
+     */
+    public List<Symbol> symbols() {
+        return List.of(snapshot.symbols());
+    }
+
+    /**
+     * Symbols matching {@code query}, best match first.
+     */
+    public List<Symbol> search(String query, int limit) {
+        refreshIfDue();
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        // Best score per symbol: rank of the match type, then key kind
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (int i = current.lowerBound(normalized); i < current.keys().length; i++) {
+            String key = current.keys()[i];
+            if (!key.startsWith(normalized)) {
+                break;
+            }
+            byte kind = current.kinds()[i];
+            int score = (key.length() == normalized.length() ? 0 : 4) + kind;
+            if (kind == NAME_INFIX) {
+                score += 4;
+            }
+            scores.merge(current.owners()[i], score, Math::min);
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue()
+                        .thenComparing(e -> current.symbols()[e.getKey()].name().length())
+                        .thenComparing(e -> current.symbols()[e.getKey()].code()))
+                .limit(limit)
+                .map(e -> current.symbols()[e.getKey()])
+                .toList();
+    }
+
+    /**
+     * Reloads the snapshot from the downloaded listing or the configured location. On
+     * failure the current index is kept.
+     */
+    public void reload() {
+        reloadLock.lock();
+        String source = source();
+        try {
+            Resource resource = resourceLoader.getResource(source);
+            List<Symbol> symbols = read(resource);
+            snapshot = Snapshot.of(symbols);
+            loadedFrom = source;
+            lastModified = lastModified(resource);
+            logger.info("Loaded {} symbols from {}", symbols.size(), source);
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Failed to load symbols from {}: {}", source, e.getMessage());
+        } finally {
+            nextCheckNanos = System.nanoTime() + refreshIntervalNanos;
+            reloadLock.unlock();
+        }
+    }
+
+    private void refreshIfDue() {
+        if (System.nanoTime() - nextCheckNanos < 0 || !reloadLock.tryLock()) {
+            return;
+        }
+        try {
+            if (System.nanoTime() - nextCheckNanos < 0) {
+                return;
+            }
+            String source = source();
+            if (!source.equals(loadedFrom) || lastModified(resourceLoader.getResource(source)) != lastModified) {
+                reload();
+            } else {
+                nextCheckNanos = System.nanoTime() + refreshIntervalNanos;
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private String source() {
+        return listingFile != null && Files.isRegularFile(listingFile) ? listingFile.toUri().toString() : location;
+    }
+
+    private static List<Symbol> read(Resource resource) throws IOException {
+        List<Symbol> symbols = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length < 2 || !fields[0].trim().matches("^[0-9]{6}$")) {
+                    logger.warn("Skipping malformed symbol line {}: {}", number, line);
+                    continue;
+                }
+                symbols.add(new Symbol(
+                        fields[0].trim(),
+                        fields[1].trim(),
+                        fields.length > 2 ? fields[2].trim().toLowerCase(Locale.ROOT) : "",
+                        fields.length > 3 ? fields[3].trim().toUpperCase(Locale.ROOT) : ""));
+            }
+        }
+        return symbols;
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            // Not resolvable in the file system, e.g. a classpath resource inside a jar
+            return 0L;
+        }
+    }
+
+    private static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        Matcher matcher = QUALIFIED_CODE.matcher(normalized);
+        return matcher.matches() ? matcher.group(1) : normalized;
+    }
+}
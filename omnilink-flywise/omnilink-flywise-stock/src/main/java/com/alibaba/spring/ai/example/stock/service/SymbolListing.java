@@ -0,0 +1,196 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import com.alibaba.spring.ai.example.stock.config.StockProperties;
+import com.alibaba.spring.ai.example.stock.service.SymbolIndex.Symbol;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloads the full list of A-share symbols from Eastmoney into
+ * {@code stock.symbols.listing-file}, which the {@link SymbolIndex} then indexes instead of
+ * the bundled snapshot. The download runs at startup when the file is missing or older than
+ * {@code stock.symbols.listing-refresh-interval}, and again every interval after that.
+ * <p>
+ * The listing has no pinyin initials; they are carried over from the symbols already
+ * indexed, so symbols listed after the bundled snapshot can only be found by code or name.
+ * The bundled {@code symbols.tsv} is regenerated the same way with
+ * {@code SymbolListGenerator} from the test sources.
+ *
+ * @author Brian Xiadong
+ */
+@Component
+public class SymbolListing {
+    private static final Logger logger = LoggerFactory.getLogger(SymbolListing.class);
+    private static final String LIST_PATH = "/api/qt/clist/get";
+    // Shanghai main board and STAR, Shenzhen main board and ChiNext, Beijing
+    private static final String A_SHARES = "m:1+t:2,m:1+t:23,m:0+t:6,m:0+t:80,m:0+t:81+s:2048";
+    // The endpoint returns at most 100 rows per page whatever is asked for
+    private static final int PAGE_SIZE = 100;
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(10);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SymbolIndex symbolIndex;
+    private final RestClient restClient;
+    private final Path listingFile;
+    private final Duration refreshInterval;
+    private final ScheduledExecutorService scheduler;
+
+    public SymbolListing(SymbolIndex symbolIndex, UpstreamClients upstreamClients, StockProperties properties) {
+        this.symbolIndex = symbolIndex;
+        this.restClient = upstreamClients.create(properties.getEastmoney().getQuoteBaseUrl() + LIST_PATH);
+        this.listingFile = properties.getSymbols().getListingFile();
+        this.refreshInterval = properties.getSymbols().getListingRefreshInterval();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "symbol-listing");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (listingFile != null) {
+            schedule(untilStale());
+        }
+    }
+
+    /**
+     * Downloads the full listing, keeping the pinyin initials of symbols already indexed.
+     */
+    public List<Symbol> download() {
+        Map<String, String> pinyin = new HashMap<>();
+        for (Symbol symbol : symbolIndex.symbols()) {
+            pinyin.put(symbol.code(), symbol.pinyin());
+        }
+
+        // Keyed by code: rows can shift between pages while the listing is paged through
+        Map<String, Symbol> symbols = new LinkedHashMap<>();
+        for (int page = 1; ; page++) {
+            JsonNode data = fetchPage(page);
+            JsonNode rows = data.path("diff");
+            for (JsonNode row : rows) {
+                String code = row.path("f12").asText();
+                String name = row.path("f14").asText().replace(" ", "");
+                if (!code.matches("^[0-9]{6}$") || name.isEmpty()) {
+                    continue;
+                }
+                symbols.put(code, new Symbol(code, name, pinyin.getOrDefault(code, ""), market(code)));
+            }
+            if (rows.size() < PAGE_SIZE || (long) page * PAGE_SIZE >= data.path("total").asLong()) {
+                break;
+            }
+        }
+        if (symbols.isEmpty()) {
+            throw new IllegalStateException("Eastmoney returned an empty symbol listing");
+        }
+        return new ArrayList<>(symbols.values());
+    }
+
+    /**
+     * Writes symbols in the format the {@link SymbolIndex} reads, replacing {@code file}
+     * atomically so a reload never sees a partial list.
+     */
+    public static void write(Path file, List<Symbol> symbols) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write("# A-share listing downloaded from Eastmoney on " + Instant.now() + ".\n");
+            writer.write("# Columns (tab separated): code, name, pinyin initials, market (SH/SZ/BJ).\n");
+            for (Symbol symbol : symbols) {
+                writer.write(symbol.code() + "\t" + symbol.name() + "\t" + symbol.pinyin() + "\t" + symbol.market() + "\n");
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void refresh() {
+        try {
+            List<Symbol> symbols = download();
+            write(listingFile, symbols);
+            logger.info("Downloaded {} symbols to {}", symbols.size(), listingFile);
+            symbolIndex.reload();
+            schedule(refreshInterval);
+        } catch (IOException | RuntimeException e) {
+            // The index keeps serving the previous listing or the bundled snapshot
+            logger.warn("Failed to download the symbol listing: {}", e.getMessage());
+            schedule(RETRY_DELAY.compareTo(refreshInterval) < 0 ? RETRY_DELAY : refreshInterval);
+        }
+    }
+
+    private void schedule(Duration delay) {
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::refresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Time left until the saved listing is due for a refresh; zero if there is none.
+     */
+    private Duration untilStale() {
+        try {
+            Instant modified = Files.getLastModifiedTime(listingFile).toInstant();
+            Duration left = refreshInterval.minus(Duration.between(modified, Instant.now()));
+            return left.isNegative() ? Duration.ZERO : left;
+        } catch (IOException e) {
+            return Duration.ZERO;
+        }
+    }
+
+    private JsonNode fetchPage(int page) {
+        String response = restClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .queryParam("pn", page)
+                        .queryParam("pz", PAGE_SIZE)
+                        .queryParam("po", 0)
+                        .queryParam("np", 1)
+                        .queryParam("fid", "f12")
+                        .queryParam("fs", A_SHARES)
+                        // code, name
+                        .queryParam("fields", "f12,f14")
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .body(String.class);
+        try {
+            return objectMapper.readTree(response).path("data");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse symbol listing page " + page, e);
+        }
+    }
+
+    private static String market(String code) {
+        if (code.startsWith("6")) {
+            return "SH";
+        }
+        return code.startsWith("0") || code.startsWith("3") ? "SZ" : "BJ";
+    }
+}
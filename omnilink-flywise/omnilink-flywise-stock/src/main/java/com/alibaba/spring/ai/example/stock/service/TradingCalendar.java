@@ -0,0 +1,159 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import com.alibaba.spring.ai.example.stock.config.StockProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Trading calendar of the Shanghai and Shenzhen exchanges.
+ * Sessions run 09:15-11:30 (including the opening call auction) and 13:00-15:00
+ * Beijing time on weekdays that are not exchange holidays. Holidays come from the list at
+ * {@code stock.calendar.holidays-location}, by default the bundled one, plus any days in
+ * {@code stock.calendar.holidays}.
+ *
+ * @author Brian Xiadong
+ */
+@Component
+public class TradingCalendar {
+    private static final Logger logger = LoggerFactory.getLogger(TradingCalendar.class);
+
+    public static final ZoneId MARKET_ZONE = ZoneId.of("Asia/Shanghai");
+
+    private static final LocalTime MORNING_OPEN = LocalTime.of(9, 15);
+    private static final LocalTime MORNING_CLOSE = LocalTime.of(11, 30);
+    private static final LocalTime AFTERNOON_OPEN = LocalTime.of(13, 0);
+    // A short grace period after 15:00 so the closing auction result is picked up
+    private static final LocalTime AFTERNOON_CLOSE = LocalTime.of(15, 5);
+
+    private final Set<LocalDate> holidays;
+
+    public TradingCalendar(ResourceLoader resourceLoader, StockProperties properties) {
+        StockProperties.Calendar calendar = properties.getCalendar();
+        this.holidays = new HashSet<>(calendar.getHolidays());
+        String location = calendar.getHolidaysLocation();
+        if (location != null && !location.isBlank()) {
+            try {
+                holidays.addAll(read(resourceLoader.getResource(location)));
+            } catch (IOException e) {
+                // Quotes are then cached for too short on closed days, not served wrongly
+                logger.error("Failed to load exchange holidays from {}: {}", location, e.getMessage());
+            }
+        }
+        int year = LocalDate.now(MARKET_ZONE).getYear();
+        if (holidays.stream().noneMatch(day -> day.getYear() == year)) {
+            logger.warn("No exchange holidays are configured for {}; its weekdays are all treated as trading days",
+                    year);
+        }
+    }
+
+    /**
+     * Whether the given day is a trading day.
+     */
+    public boolean isTradingDay(LocalDate date) {
+        DayOfWeek day = date.getDayOfWeek();
+        return day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY && !holidays.contains(date);
+    }
+
+    /**
+     * Whether prices can change at the given instant.
+     */
+    public boolean isTrading(Instant instant) {
+        ZonedDateTime time = instant.atZone(MARKET_ZONE);
+        if (!isTradingDay(time.toLocalDate())) {
+            return false;
+        }
+        LocalTime t = time.toLocalTime();
+        return (!t.isBefore(MORNING_OPEN) && t.isBefore(MORNING_CLOSE))
+                || (!t.isBefore(AFTERNOON_OPEN) && t.isBefore(AFTERNOON_CLOSE));
+    }
+
+    /**
+     * The next instant at or after {@code instant} at which a session is open.
+     */
+    public Instant nextOpen(Instant instant) {
+        if (isTrading(instant)) {
+            return instant;
+        }
+        ZonedDateTime time = instant.atZone(MARKET_ZONE);
+        LocalDate date = time.toLocalDate();
+        LocalTime t = time.toLocalTime();
+        if (isTradingDay(date)) {
+            if (t.isBefore(MORNING_OPEN)) {
+                return date.atTime(MORNING_OPEN).atZone(MARKET_ZONE).toInstant();
+            }
+            if (t.isBefore(AFTERNOON_OPEN)) {
+                return date.atTime(AFTERNOON_OPEN).atZone(MARKET_ZONE).toInstant();
+            }
+        }
+        LocalDate next = date.plusDays(1);
+        while (!isTradingDay(next)) {
+            next = next.plusDays(1);
+        }
+        return next.atTime(MORNING_OPEN).atZone(MARKET_ZONE).toInstant();
+    }
+
+    /**
+     * The most recent trading day whose sessions have fully closed at {@code instant}.
+     */
+    public LocalDate lastCompletedTradingDay(Instant instant) {
+        ZonedDateTime time = instant.atZone(MARKET_ZONE);
+        LocalDate day = time.toLocalDate();
+        if (!isTradingDay(day) || time.toLocalTime().isBefore(AFTERNOON_CLOSE)) {
+            day = day.minusDays(1);
+        }
+        while (!isTradingDay(day)) {
+            day = day.minusDays(1);
+        }
+        return day;
+    }
+
+    /**
+     * How long a quote fetched at {@code now} stays valid: {@code tradingTtl} while a
+     * session is open, otherwise until the next session opens.
+     */
+    public Duration quoteTtl(Instant now, Duration tradingTtl) {
+        if (isTrading(now)) {
+            return tradingTtl;
+        }
+        return Duration.between(now, nextOpen(now));
+    }
+
+    private static Set<LocalDate> read(Resource resource) throws IOException {
+        Set<LocalDate> days = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    days.add(LocalDate.parse(line.split("\t")[0].trim()));
+                } catch (DateTimeParseException e) {
+                    logger.warn("Skipping malformed holiday line {}: {}", number, line);
+                }
+            }
+        }
+        return days;
+    }
+}
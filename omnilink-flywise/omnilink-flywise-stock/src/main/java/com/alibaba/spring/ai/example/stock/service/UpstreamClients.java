@@ -0,0 +1,113 @@
+package com.alibaba.spring.ai.example.stock.service;
+
+import com.alibaba.spring.ai.example.stock.config.StockProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP plumbing for the Eastmoney endpoints.
+ * <p>
+ * All clients share one JDK {@link HttpClient} whose connections are multiplexed and whose
+ * I/O runs on virtual threads, with connect and read timeouts so a slow upstream cannot
+ * hold a caller indefinitely. A bulkhead caps the number of requests in flight; a caller
+ * that cannot get a permit within the acquire timeout fails fast instead of queueing.
+ * Each upstream host has its own {@link CircuitBreaker}, shared by all clients of that
+ * host, so a failing host is not hammered while it recovers.
+ * <p>
+ * {@link #executor()} runs blocking fan-out work, such as batch chunks and quote
+ * polls, on virtual threads.
+ *
+ * @author Brian Xiadong
+ */
+@Component
+public class UpstreamClients {
+
+    private final JdkClientHttpRequestFactory requestFactory;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final StockProperties.Resilience resilience;
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public UpstreamClients(StockProperties properties) {
+        StockProperties.Http http = properties.getHttp();
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("stock-upstream-", 0).factory());
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(http.getConnectTimeout())
+                .executor(executor)
+                .build();
+        this.requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        this.requestFactory.setReadTimeout(http.getReadTimeout());
+        this.permits = new Semaphore(http.getMaxConcurrentRequests());
+        this.acquireTimeout = http.getAcquireTimeout();
+        this.resilience = properties.getResilience();
+    }
+
+    /**
+     * A JSON client for {@code baseUrl} that goes through the shared connection pool,
+     * the host's circuit breaker and the bulkhead.
+     */
+    public RestClient create(String baseUrl) {
+        String host = URI.create(baseUrl).getHost();
+        CircuitBreaker breaker = breakers.computeIfAbsent(host, name ->
+                new CircuitBreaker(name, resilience.getFailureThreshold(), resilience.getOpenDuration()));
+        return RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                // A full bulkhead is local saturation and must not count against the host
+                .requestInterceptor(bulkhead())
+                .requestInterceptor(breaker)
+                .defaultHeader("Accept", MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+
+    /**
+     * Virtual-thread executor for blocking upstream work.
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * Holds a permit until the response is received. Streaming bodies are read after the
+     * permit is released, which is short compared to waiting for the response.
+     */
+    private ClientHttpRequestInterceptor bulkhead() {
+        return (request, body, execution) -> {
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RestClientException("Interrupted while waiting for an upstream connection");
+            }
+            if (!acquired) {
+                throw new RestClientException("Too many concurrent upstream requests");
+            }
+            try {
+                return execution.execute(request, body);
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
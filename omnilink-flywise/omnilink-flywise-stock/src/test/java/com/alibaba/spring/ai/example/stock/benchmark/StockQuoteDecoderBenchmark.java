@@ -0,0 +1,111 @@
+package com.alibaba.spring.ai.example.stock.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.spring.ai.example.stock.service.StockQuoteDecoder;
+import com.alibaba.spring.ai.example.stock.service.StockService.StockInfo;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the previous tree-based quote decoding with {@link StockQuoteDecoder}.
+ * From the repository root, compile the benchmark, write its classpath, and run it with
+ * {@code -prof gc} to see the allocation difference; further JMH options can be appended:
+ *
+ * <pre>
+ * mvn -pl omnilink-flywise/omnilink-flywise-stock -am test-compile
+ * mvn -pl omnilink-flywise/omnilink-flywise-stock dependency:build-classpath \
+ *     -Dmdep.includeScope=test -Dmdep.outputFile=target/benchmark.classpath
+ * cd omnilink-flywise/omnilink-flywise-stock
+ * java -cp target/test-classes:target/classes:$(cat target/benchmark.classpath) \
+ *     com.alibaba.spring.ai.example.stock.benchmark.StockQuoteDecoderBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockQuoteDecoderBenchmark {
+
+    // Captured from push2.eastmoney.com/api/qt/stock/get?secid=1.600519
+    private static final String RESPONSE = """
+            {"rc":0,"rt":4,"svr":181669437,"lt":1,"full":1,"dlmkts":"","data":\
+            {"f43":145820,"f44":146980,"f45":144501,"f46":146000,"f47":28315,\
+            "f48":4130285568.0,"f57":"600519","f58":"贵州茅台"}}""";
+
+    // A suspended stock: Eastmoney sends "-" for prices that have no value
+    private static final String SUSPENDED_RESPONSE = """
+            {"rc":0,"rt":4,"svr":181669437,"lt":1,"full":1,"dlmkts":"","data":\
+            {"f43":"-","f44":"-","f45":"-","f46":"-","f47":"-",\
+            "f48":"-","f57":"600000","f58":"浦发银行"}}""";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] suspendedBody = SUSPENDED_RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record StockData(
+            @JsonProperty("f43") Double currentPrice,
+            @JsonProperty("f44") Double highPrice,
+            @JsonProperty("f45") Double lowPrice,
+            @JsonProperty("f46") Double openPrice,
+            @JsonProperty("f47") Double volume,
+            @JsonProperty("f48") Double amount,
+            @JsonProperty("f57") String code,
+            @JsonProperty("f58") String name) {
+    }
+
+    @Benchmark
+    public StockInfo treeDecode() throws Exception {
+        String response = new String(body, StandardCharsets.UTF_8);
+        JsonNode data = objectMapper.readTree(response).path("data");
+        StockData stockData = objectMapper.treeToValue(data, StockData.class);
+        return new StockInfo(
+                "600519",
+                stockData.name(),
+                stockData.currentPrice() / 100.0,
+                stockData.highPrice() / 100.0,
+                stockData.lowPrice() / 100.0,
+                stockData.openPrice() / 100.0,
+                stockData.volume() / 10000.0,
+                stockData.amount() / 100000000.0);
+    }
+
+    @Benchmark
+    public StockInfo streamingDecode() throws Exception {
+        return StockQuoteDecoder.decode(body).toStockInfo("600519");
+    }
+
+    @Benchmark
+    public StockInfo streamingDecodeSuspended() throws Exception {
+        return StockQuoteDecoder.decode(suspendedBody).toStockInfo("600000");
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(StockQuoteDecoderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -1,5 +1,6 @@
 package com.alibaba.spring.ai.example.stock.client;
 
+import java.util.List;
 import java.util.Map;
 
 import io.modelcontextprotocol.client.McpClient;
@@ -50,6 +51,12 @@ public class ClientStdio {
                     Map.of("stockCode", "000001")));
             System.out.println("Stock info: " + szStockResult);
 
+            // Test batch quotes, including one invalid code reported on its own
+            System.out.println("\nTesting batch stocks (600519, 000001, abc):");
+            CallToolResult batchResult = client.callTool(new CallToolRequest("getBatchStockInfo",
+                    Map.of("stockCodes", List.of("600519", "000001", "abc"))));
+            System.out.println("Batch info: " + batchResult);
+
             // Test non-existent stock
             System.out.println("\nTesting non-existent stock (999999):");
             try {
@@ -0,0 +1,56 @@
+package com.alibaba.spring.ai.example.stock.tools;
+
+import com.alibaba.spring.ai.example.stock.config.StockProperties;
+import com.alibaba.spring.ai.example.stock.service.SymbolIndex;
+import com.alibaba.spring.ai.example.stock.service.SymbolIndex.Symbol;
+import com.alibaba.spring.ai.example.stock.service.SymbolListing;
+import com.alibaba.spring.ai.example.stock.service.UpstreamClients;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Regenerates the bundled {@code symbols.tsv} from the full Eastmoney listing, keeping the
+ * pinyin initials already in it. Symbols new to the file get empty initials, which can be
+ * filled in by hand. Run from the module directory after {@code mvn test-compile}:
+ *
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     com.alibaba.spring.ai.example.stock.tools.SymbolListGenerator [output] [quote base URL]
+ * </pre>
+ *
+ * The output defaults to {@code src/main/resources/symbols.tsv}. A running server keeps its
+ * own copy up to date through {@code stock.symbols.listing-file} instead.
+ *
+ * @author Brian Xiadong
+ */
+public class SymbolListGenerator {
+
+    public static void main(String[] args) throws Exception {
+        Path output = Path.of(args.length > 0 ? args[0] : "src/main/resources/symbols.tsv");
+
+        StockProperties properties = new StockProperties();
+        if (args.length > 1) {
+            properties.getEastmoney().setQuoteBaseUrl(args[1]);
+        }
+        // Pinyin initials are carried over from the current file
+        properties.getSymbols().setLocation(output.toUri().toString());
+        properties.getSymbols().setListingFile(null);
+
+        UpstreamClients upstreamClients = new UpstreamClients(properties);
+        SymbolListing listing = new SymbolListing(
+                new SymbolIndex(new DefaultResourceLoader(), properties), upstreamClients, properties);
+        try {
+            List<Symbol> symbols = listing.download();
+            SymbolListing.write(output, symbols);
+            long withoutPinyin = symbols.stream().filter(symbol -> symbol.pinyin().isEmpty()).count();
+            System.out.printf("Wrote %d symbols to %s, %d without pinyin initials%n",
+                    symbols.size(), output, withoutPinyin);
+        } finally {
+            listing.shutdown();
+            upstreamClients.close();
+        }
+    }
+}
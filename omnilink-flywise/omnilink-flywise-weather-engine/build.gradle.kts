@@ -0,0 +1,16 @@
+/*
+ * This file was generated by the Gradle 'init' task.
+ */
+
+plugins {
+    id("buildlogic.java-conventions")
+}
+
+dependencies {
+    api(libs.org.springframework.boot.spring.boot.autoconfigure)
+    api(libs.org.springframework.spring.web)
+    api(libs.com.fasterxml.jackson.core.jackson.databind)
+    api(libs.io.micrometer.micrometer.core)
+}
+
+description = "omnilink-flywise-weather-engine"
@@ -0,0 +1,27 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 一个地点当前的空气质量
+ * <p>
+ * 字段与OpenMeteo空气质量API的响应一致，其他 {@link WeatherProvider} 需转换为此格式。
+ * 污染物浓度单位为 μg/m³，时间为地点的当地时间，缺失的值为 {@code null}。
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record AirQuality(@JsonProperty("current") Current current) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Current(
+            @JsonProperty("time") String time,
+            @JsonProperty("european_aqi") Integer europeanAqi,
+            @JsonProperty("us_aqi") Integer usAqi,
+            @JsonProperty("pm2_5") Double pm25,
+            @JsonProperty("pm10") Double pm10,
+            @JsonProperty("ozone") Double ozone,
+            @JsonProperty("nitrogen_dioxide") Double nitrogenDioxide,
+            @JsonProperty("sulphur_dioxide") Double sulphurDioxide,
+            @JsonProperty("carbon_monoxide") Double carbonMonoxide) {
+    }
+}
@@ -0,0 +1,101 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 上游熔断器，作为 {@link org.springframework.web.client.RestClient} 的拦截器使用
+ * <p>
+ * 连续失败（IO异常或5xx响应）达到阈值后打开，在打开期间直接拒绝请求，不再访问上游。
+ * 打开时长过后放行一个探测请求：成功则关闭，失败则重新打开。
+ */
+public class CircuitBreaker implements ClientHttpRequestInterceptor {
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this(name, failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    CircuitBreaker(String name, int failureThreshold, Duration openDuration, Clock clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!tryAcquire()) {
+            throw new RestClientException(name + " 暂时不可用（熔断中）");
+        }
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            onFailure();
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            onFailure();
+        } else {
+            onSuccess();
+        }
+        return response;
+    }
+
+    /**
+     * 是否处于打开状态，即请求会被直接拒绝
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && clock.millis() - openedAt < openMillis;
+    }
+
+    private synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.millis() - openedAt < openMillis) {
+                    return false;
+                }
+                // 只放行一个探测请求
+                state = State.HALF_OPEN;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    private synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.millis();
+        }
+    }
+}
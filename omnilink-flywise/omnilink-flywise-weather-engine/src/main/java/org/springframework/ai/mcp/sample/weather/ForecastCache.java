@@ -0,0 +1,147 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 按网格缓存的天气预报
+ * <p>
+ * 经纬度按 {@link WeatherProperties.Cache#getGridResolution()} 量化到网格，同一网格内的坐标
+ * 共用一份预报，且总是以网格中心点向上游请求，因此结果与先查询的是哪个坐标无关。
+ * 缓存在下一个更新周期边界过期，而不是从写入时起算固定时长，这样不会在数据已更新后继续
+ * 返回旧预报。超出容量时淘汰最久未使用的网格；同一网格的并发未命中和刷新只发起一次上游请求。
+ * <p>
+ * 过期的预报在 {@link WeatherProperties.Resilience#getMaxStale()} 内继续保留：再次查询时
+ * 立即返回旧预报并在后台刷新，上游变慢或不可用时工具仍能带着数据时间给出结果。
+ * 没有任何可用数据时最多等待 {@link WeatherProperties.Resilience#getTimeout()}。
+ * <p>
+ * 每次查询都按网格计入 {@link HotLocations}，供 {@link ForecastWarmer} 预热热点地点。
+ * 命中、过期和未命中次数记录到 {@code weather.forecast.cache.requests}。
+ * 网格缓存本身由 {@link GridCache} 实现，空气质量也按同样的规则缓存。
+ */
+public class ForecastCache {
+
+    /**
+     * 缓存返回的预报
+     *
+     * @param weatherData 预报数据
+     * @param fetchedAt   从上游获取的时间
+     * @param stale       是否已过更新周期，为 {@code true} 时后台正在刷新
+     */
+    public record Forecast(WeatherData weatherData, Instant fetchedAt, boolean stale) {
+    }
+
+    private final GridCache<WeatherData> cache;
+    private final HotLocations hotLocations;
+
+    public ForecastCache(WeatherProperties properties, Executor executor, MeterRegistry registry) {
+        this(properties, executor, registry, Clock.systemUTC());
+    }
+
+    ForecastCache(WeatherProperties properties, Executor executor, MeterRegistry registry, Clock clock) {
+        this.cache = new GridCache<>("weather.forecast.cache", "天气数据", properties, executor, registry, clock);
+        // 多留一些候选，热点的排名变化时不会被挤出
+        this.hotLocations = new HotLocations(properties.getWarmup().getTopN() * 4);
+    }
+
+    /**
+     * 返回坐标所在网格的预报
+     * <p>
+     * 未过期时直接返回；已过期但仍在保留期内时立即返回旧预报并在后台刷新；
+     * 没有数据时用 {@code loader} 按网格中心点加载，最多等待配置的超时时间。
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @param loader    以 (纬度, 经度) 请求上游的函数
+     * @throws RestClientException 没有可用数据且上游失败或超时
+     */
+    public Forecast get(double latitude, double longitude, BiFunction<Double, Double, WeatherData> loader) {
+        record(latitude, longitude, 1);
+        return forecast(cache.get(latitude, longitude, loader));
+    }
+
+    /**
+     * 返回坐标所在网格的未过期预报，没有则返回 {@code null}
+     */
+    public WeatherData getIfFresh(double latitude, double longitude) {
+        return cache.getIfFresh(latitude, longitude);
+    }
+
+    /**
+     * 返回坐标所在网格保留期内的预报，无论是否过期，用于上游失败时降级。没有则返回 {@code null}。
+     * 与 {@link #get} 一样计入查询热度
+     */
+    public Forecast getStale(double latitude, double longitude) {
+        record(latitude, longitude, 1);
+        GridCache.Cached<WeatherData> cached = cache.getStale(latitude, longitude);
+        return cached == null ? null : forecast(cached);
+    }
+
+    /**
+     * 写入坐标所在网格刚从上游获取的预报
+     *
+     * @return 写入的预报
+     */
+    public Forecast put(double latitude, double longitude, WeatherData weatherData) {
+        return forecast(cache.put(latitude, longitude, weatherData));
+    }
+
+    /**
+     * 把坐标所在网格的查询次数增加 {@code times}，用于从文件恢复热点
+     */
+    public void recordRequests(double latitude, double longitude, int times) {
+        record(latitude, longitude, times);
+    }
+
+    /**
+     * 查询次数最多的 {@code n} 个网格
+     */
+    public List<HotLocations.Hot> hottest(int n) {
+        return hotLocations.top(n);
+    }
+
+    /**
+     * 查询次数减半，使热度反映近期的查询
+     */
+    public void decayPopularity() {
+        hotLocations.decay();
+    }
+
+    /**
+     * 坐标所在网格的中心点 {纬度, 经度}，即缓存向上游请求的坐标。未启用缓存时返回原坐标
+     */
+    public double[] cellCenter(double latitude, double longitude) {
+        return cache.cellCenter(latitude, longitude);
+    }
+
+    /**
+     * 在后台刷新一组网格中心点的预报，每批最多 {@code chunkSize} 个，用 {@code loader} 的多坐标查询获取。
+     * 已有进行中加载的网格交给该加载，不重复请求上游；刷新失败的网格保留旧预报
+     *
+     * @param points 网格中心点 [纬度, 经度]
+     * @param loader 按 {@code points} 的顺序返回各坐标预报的函数
+     */
+    public void refreshAll(List<List<Double>> points, int chunkSize,
+            Function<List<List<Double>>, List<WeatherData>> loader) {
+        cache.refreshAll(points, chunkSize, loader);
+    }
+
+    private void record(double latitude, double longitude, int times) {
+        if (cache.isEnabled()) {
+            double[] center = cache.cellCenter(latitude, longitude);
+            hotLocations.record(cache.cell(latitude, longitude), center[0], center[1], times);
+        }
+    }
+
+    private static Forecast forecast(GridCache.Cached<WeatherData> cached) {
+        return new Forecast(cached.value(), cached.fetchedAt(), cached.stale());
+    }
+}
@@ -0,0 +1,448 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 把 {@link WeatherEngine} 的结果渲染为天气工具的文字输出，各服务器的工具输出因此保持一致
+ */
+public class ForecastRenderer {
+
+    // 逐时预报最多输出的小时数
+    private static final int MAX_HOURS = 48;
+
+    // 文字格式预报中的日期，如 2025-05-19 (周一)
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd (EEE)");
+
+    private final WeatherProperties.Output properties;
+
+    public ForecastRenderer(WeatherProperties.Output properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 当前天气和逐日预报，旧预报前注明数据时间
+     *
+     * @param format 输出格式 text 或 compact，为空时使用 {@link WeatherProperties.Output#getFormat()}
+     */
+    public String render(ForecastCache.Forecast forecast, String format) {
+        WeatherData weatherData = forecast.weatherData();
+        return staleNote(forecast) + (outputFormat(format) == WeatherProperties.OutputFormat.COMPACT
+                ? renderCompact(weatherData)
+                : renderText(weatherData));
+    }
+
+    /**
+     * 获取天气代码对应的描述
+     */
+    private static String getWeatherDescription(int code) {
+        return switch (code) {
+            case 0 -> "晴朗";
+            case 1, 2, 3 -> "多云";
+            case 45, 48 -> "雾";
+            case 51, 53, 55 -> "毛毛雨";
+            case 56, 57 -> "冻雨";
+            case 61, 63, 65 -> "雨";
+            case 66, 67 -> "冻雨";
+            case 71, 73, 75 -> "雪";
+            case 77 -> "雪粒";
+            case 80, 81, 82 -> "阵雨";
+            case 85, 86 -> "阵雪";
+            case 95 -> "雷暴";
+            case 96, 99 -> "雷暴伴有冰雹";
+            default -> "未知天气";
+        };
+    }
+
+    /**
+     * 获取风向描述
+     */
+    private static String getWindDirection(int degrees) {
+        if (degrees == SeriesDeserializers.MISSING)
+            return "未知风向";
+        if (degrees >= 337.5 || degrees < 22.5)
+            return "北风";
+        if (degrees >= 22.5 && degrees < 67.5)
+            return "东北风";
+        if (degrees >= 67.5 && degrees < 112.5)
+            return "东风";
+        if (degrees >= 112.5 && degrees < 157.5)
+            return "东南风";
+        if (degrees >= 157.5 && degrees < 202.5)
+            return "南风";
+        if (degrees >= 202.5 && degrees < 247.5)
+            return "西南风";
+        if (degrees >= 247.5 && degrees < 292.5)
+            return "西风";
+        return "西北风";
+    }
+
+    /**
+     * 旧预报的提示，注明数据获取于多久之前；预报未过期时为空
+     */
+    private static String staleNote(ForecastCache.Forecast forecast) {
+        if (!forecast.stale()) {
+            return "";
+        }
+        return "注意: 天气数据暂时无法更新，以下为" + age(forecast.fetchedAt()) + "获取的数据\n\n";
+    }
+
+    /**
+     * 数据的获取时间距现在多久，如 "25 分钟前"
+     */
+    private static String age(Instant fetchedAt) {
+        long minutes = Duration.between(fetchedAt, Instant.now()).toMinutes();
+        return minutes < 1 ? "不到 1 分钟前" : minutes + " 分钟前";
+    }
+
+    private WeatherProperties.OutputFormat outputFormat(String format) {
+        if (format == null || format.isBlank()) {
+            return properties.getFormat();
+        }
+        try {
+            return WeatherProperties.OutputFormat.valueOf(format.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("format 只能是 text 或 compact");
+        }
+    }
+
+    /**
+     * 文字描述的天气预报
+     */
+    private String renderText(WeatherData weatherData) {
+        // 拼接天气信息，当前天气约200字符，每天约100字符
+        StringBuilder weatherInfo = new StringBuilder(1024);
+
+        // 添加当前天气信息
+        WeatherData.CurrentWeather current = weatherData.current();
+        String temperatureUnit = weatherData.currentUnits() != null ? weatherData.currentUnits().temperatureUnit()
+                : "°C";
+        String windSpeedUnit = weatherData.currentUnits() != null ? weatherData.currentUnits().windSpeedUnit() : "km/h";
+        String humidityUnit = weatherData.currentUnits() != null ? weatherData.currentUnits().humidityUnit() : "%";
+
+        weatherInfo.append(String.format("""
+                当前天气:
+                温度: %.1f%s (体感温度: %.1f%s)
+                天气: %s
+                风向: %s (%.1f %s)
+                湿度: %d%s
+                降水量: %.1f 毫米
+
+                """,
+                current.temperature(),
+                temperatureUnit,
+                current.feelsLike(),
+                temperatureUnit,
+                getWeatherDescription(current.weatherCode()),
+                getWindDirection(current.windDirection()),
+                current.windSpeed(),
+                windSpeedUnit,
+                current.humidity(),
+                humidityUnit,
+                current.precipitation()));
+
+        // 添加未来天气预报
+        weatherInfo.append("未来天气预报:\n");
+        WeatherData.DailyForecast daily = weatherData.daily();
+
+        for (int i = 0; i < daily.time().length; i++) {
+            String date = daily.time()[i];
+            double tempMin = daily.tempMin()[i];
+            double tempMax = daily.tempMax()[i];
+            int weatherCode = daily.weatherCode()[i];
+            double windSpeed = daily.windSpeedMax()[i];
+            int windDir = daily.windDirection()[i];
+            double precip = daily.precipitationSum()[i];
+
+            // 格式化日期
+            LocalDate localDate = LocalDate.parse(date);
+            String formattedDate = localDate.format(DAY_FORMATTER);
+
+            weatherInfo.append(String.format("""
+                    %s:
+                    温度: %.1f%s ~ %.1f%s
+                    天气: %s
+                    风向: %s (%.1f %s)
+                    降水量: %.1f 毫米
+
+                    """,
+                    formattedDate,
+                    tempMin, temperatureUnit,
+                    tempMax, temperatureUnit,
+                    getWeatherDescription(weatherCode),
+                    getWindDirection(windDir),
+                    windSpeed, windSpeedUnit,
+                    precip));
+        }
+
+        return weatherInfo.toString();
+    }
+
+    /**
+     * 紧凑格式的天气预报：单位只在首行出现一次，当前天气一行，逐日预报为竖线分隔的表格
+     * <pre>
+     * 单位: 温度°C 风速km/h 湿度% 降水mm
+     * 当前|2025-05-19T14:00|27.4|体感26.0|多云|西南风|9.8|31|0.0
+     * 日期|天气|最低|最高|降水|风速|风向
+     * 05-19|多云|15.1|29.3|0.0|12.0|北风
+     * </pre>
+     */
+    private String renderCompact(WeatherData weatherData) {
+        WeatherData.CurrentUnits units = weatherData.currentUnits();
+        WeatherData.CurrentWeather current = weatherData.current();
+        WeatherData.DailyForecast daily = weatherData.daily();
+        int days = daily.time().length;
+
+        StringBuilder table = new StringBuilder(160 + days * 40);
+        table.append("单位: 温度").append(units != null ? units.temperatureUnit() : "°C")
+                .append(" 风速").append(units != null ? units.windSpeedUnit() : "km/h")
+                .append(" 湿度").append(units != null ? units.humidityUnit() : "%")
+                .append(" 降水mm\n");
+
+        table.append("当前|").append(current.time()).append('|');
+        appendDecimal(table, current.temperature()).append("|体感");
+        appendDecimal(table, current.feelsLike()).append('|')
+                .append(getWeatherDescription(current.weatherCode())).append('|')
+                .append(getWindDirection(current.windDirection())).append('|');
+        appendDecimal(table, current.windSpeed()).append('|')
+                .append(current.humidity()).append('|');
+        appendDecimal(table, current.precipitation()).append('\n');
+
+        table.append("日期|天气|最低|最高|降水|风速|风向\n");
+        for (int i = 0; i < days; i++) {
+            String date = daily.time()[i];
+            // 只保留月-日
+            table.append(date, 5, date.length()).append('|')
+                    .append(getWeatherDescription(daily.weatherCode()[i])).append('|');
+            appendDecimal(table, daily.tempMin()[i]).append('|');
+            appendDecimal(table, daily.tempMax()[i]).append('|');
+            appendDecimal(table, daily.precipitationSum()[i]).append('|');
+            appendDecimal(table, daily.windSpeedMax()[i]).append('|')
+                    .append(getWindDirection(daily.windDirection()[i])).append('\n');
+        }
+        return table.toString();
+    }
+
+    /**
+     * 从当前小时起的逐时预报表格
+     *
+     * @param hours 小时数，默认24，最多48
+     */
+    public String renderHourly(ForecastCache.Forecast forecast, Integer hours) {
+        WeatherData weatherData = forecast.weatherData();
+        WeatherData.HourlyForecast hourly = weatherData.hourly();
+        if (hourly == null || hourly.time() == null) {
+            throw new IllegalStateException("天气数据中没有逐时预报");
+        }
+        int count = Math.min(hours == null ? 24 : Math.max(1, Math.min(hours, MAX_HOURS)), hourly.time().length);
+        WeatherData.CurrentUnits units = weatherData.currentUnits();
+
+        StringBuilder table = new StringBuilder(96 + count * 40);
+        table.append(staleNote(forecast)).append("单位: 温度").append(units != null ? units.temperatureUnit() : "°C")
+                .append(" 风速").append(units != null ? units.windSpeedUnit() : "km/h")
+                .append(" 降水概率% 降水mm\n")
+                .append("时间|天气|温度|降水概率|降水|风速\n");
+        for (int i = 0; i < count; i++) {
+            String time = hourly.time()[i];
+            int probability = hourly.precipitationProbability()[i];
+            // 时间只保留 月-日 时:分
+            table.append(time, 5, 10).append(' ').append(time, 11, time.length()).append('|')
+                    .append(getWeatherDescription(hourly.weatherCode()[i])).append('|');
+            appendDecimal(table, hourly.temperature()[i]).append('|');
+            if (probability == SeriesDeserializers.MISSING) {
+                table.append('-');
+            } else {
+                table.append(probability);
+            }
+            table.append('|');
+            appendDecimal(table, hourly.precipitation()[i]).append('|');
+            appendDecimal(table, hourly.windSpeed()[i]).append('\n');
+        }
+        return table.toString();
+    }
+
+    /**
+     * 批量查询的结果，每个地点一段：当前天气一行，逐日预报一行；失败的地点给出原因
+     *
+     * @param days 每个地点输出的预报天数，默认3天
+     */
+    public String renderBatch(List<WeatherEngine.BatchResult> results, Integer days) {
+        int shownDays = days == null ? 3 : Math.max(1, Math.min(days, 7));
+        StringBuilder summary = new StringBuilder(results.size() * 256);
+        for (WeatherEngine.BatchResult result : results) {
+            if (result.forecast() == null) {
+                summary.append(result.label()).append(": ").append(result.error()).append("\n\n");
+                continue;
+            }
+            ForecastCache.Forecast forecast = result.forecast();
+            appendSummary(summary, result.location(), forecast.weatherData(), shownDays,
+                    forecast.stale() ? forecast.fetchedAt() : null);
+        }
+        return summary.toString();
+    }
+
+    /**
+     * 追加一个地点的天气摘要：当前天气一行，逐日预报一行
+     *
+     * @param fetchedAt 旧预报的获取时间，用于注明数据时间；预报未过期时为 {@code null}
+     */
+    private void appendSummary(StringBuilder summary, ResolvedLocation location, WeatherData weatherData, int days,
+            Instant fetchedAt) {
+        String temperatureUnit = weatherData.currentUnits() != null ? weatherData.currentUnits().temperatureUnit()
+                : "°C";
+        WeatherData.CurrentWeather current = weatherData.current();
+        summary.append(String.format("%s (%.2f, %.2f)%s: 当前 %.1f%s %s %s, 湿度 %d%%, 降水 %.1f 毫米%n",
+                location.label(), location.latitude(), location.longitude(),
+                fetchedAt != null ? " [" + age(fetchedAt) + "的数据]" : "",
+                current.temperature(), temperatureUnit,
+                getWeatherDescription(current.weatherCode()),
+                getWindDirection(current.windDirection()),
+                current.humidity(),
+                current.precipitation()));
+
+        WeatherData.DailyForecast daily = weatherData.daily();
+        int count = Math.min(days, daily.time().length);
+        for (int i = 0; i < count; i++) {
+            // 只保留月-日
+            summary.append(i == 0 ? "  " : "; ")
+                    .append(daily.time()[i], 5, daily.time()[i].length())
+                    .append(' ').append(getWeatherDescription(daily.weatherCode()[i]))
+                    .append(String.format(" %.0f~%.0f%s 降水%.1f毫米",
+                            daily.tempMin()[i], daily.tempMax()[i], temperatureUnit,
+                            daily.precipitationSum()[i]));
+        }
+        summary.append("\n\n");
+    }
+
+    /**
+     * 综合天气报告：紧凑格式的预报，之后是空气质量和预警各一段；获取失败的部分注明原因，其余部分照常输出
+     * <pre>
+     * 单位: 温度°C 风速km/h 湿度% 降水mm
+     * 当前|2025-05-19T14:00|27.4|体感26.0|多云|西南风|9.8|31|0.0
+     * 日期|天气|最低|最高|降水|风速|风向
+     * 05-19|多云|15.1|29.3|0.0|12.0|北风
+     * 空气质量 单位: μg/m³
+     * 时间|欧洲AQI|美国AQI|PM2.5|PM10|O3|NO2|SO2|CO
+     * 2025-05-19T14:00|35 良|52|12.3|20.1|60.0|10.2|2.0|200.0
+     * 预警: 无
+     * </pre>
+     */
+    public String renderReport(WeatherEngine.Report report) {
+        StringBuilder text = new StringBuilder(1024);
+        WeatherEngine.Part<ForecastCache.Forecast> forecast = report.forecast();
+        if (forecast.value() != null) {
+            text.append(staleNote(forecast.value())).append(renderCompact(forecast.value().weatherData()));
+        } else {
+            text.append("天气预报: 无法获取，").append(forecast.error()).append('\n');
+        }
+
+        WeatherEngine.Part<AirQuality> airQuality = report.airQuality();
+        appendAirQuality(text, airQuality.value(), airQuality.error());
+
+        WeatherEngine.Part<List<WeatherAlert>> alerts = report.alerts();
+        if (alerts.value() == null) {
+            text.append("预警: 无法获取，").append(alerts.error()).append('\n');
+        } else if (alerts.value().isEmpty()) {
+            text.append("预警: 无\n");
+        } else {
+            for (WeatherAlert alert : alerts.value()) {
+                text.append("预警: ").append(alert.event()).append(' ').append(alert.severity())
+                        .append(", ").append(alert.headline());
+                if (alert.expires() != null) {
+                    text.append("，有效至 ").append(alert.expires());
+                }
+                text.append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * 当前空气质量，格式同综合天气报告中的空气质量一段
+     * <pre>
+     * 空气质量 单位: μg/m³
+     * 时间|欧洲AQI|美国AQI|PM2.5|PM10|O3|NO2|SO2|CO
+     * 2025-05-19T14:00|35 良|52|12.3|20.1|60.0|10.2|2.0|200.0
+     * </pre>
+     */
+    public String renderAirQuality(AirQuality airQuality) {
+        return appendAirQuality(new StringBuilder(160), airQuality, null).toString();
+    }
+
+    private static StringBuilder appendAirQuality(StringBuilder text, AirQuality airQuality, String error) {
+        AirQuality.Current current = airQuality != null ? airQuality.current() : null;
+        if (current == null) {
+            return text.append("空气质量: 无法获取，").append(error != null ? error : "上游没有返回数据").append('\n');
+        }
+        text.append("空气质量 单位: μg/m³\n")
+                .append("时间|欧洲AQI|美国AQI|PM2.5|PM10|O3|NO2|SO2|CO\n")
+                .append(current.time()).append('|');
+        if (current.europeanAqi() == null) {
+            text.append('-');
+        } else {
+            text.append(current.europeanAqi()).append(' ').append(getAqiLevel(current.europeanAqi()));
+        }
+        text.append('|').append(current.usAqi() == null ? "-" : current.usAqi()).append('|');
+        appendDecimal(text, current.pm25()).append('|');
+        appendDecimal(text, current.pm10()).append('|');
+        appendDecimal(text, current.ozone()).append('|');
+        appendDecimal(text, current.nitrogenDioxide()).append('|');
+        appendDecimal(text, current.sulphurDioxide()).append('|');
+        return appendDecimal(text, current.carbonMonoxide()).append('\n');
+    }
+
+    /**
+     * 欧洲空气质量指数等级
+     */
+    private static String getAqiLevel(int aqi) {
+        if (aqi <= 20)
+            return "优";
+        if (aqi <= 40)
+            return "良";
+        if (aqi <= 60)
+            return "中等";
+        if (aqi <= 80)
+            return "较差";
+        if (aqi <= 100)
+            return "差";
+        return "极差";
+    }
+
+    /**
+     * 地名查询结果表格
+     */
+    public String renderPlaces(List<GazetteerIndex.Place> places) {
+        StringBuilder table = new StringBuilder(32 + places.size() * 48);
+        table.append("地点|纬度|经度|人口\n");
+        for (GazetteerIndex.Place place : places) {
+            table.append(place.label()).append('|')
+                    .append(place.latitude()).append('|')
+                    .append(place.longitude()).append('|')
+                    .append(place.population()).append('\n');
+        }
+        return table.toString();
+    }
+
+    /**
+     * 追加保留一位小数的数值，缺失时为 -。比 String.format 少了格式串解析和中间对象
+     */
+    private static StringBuilder appendDecimal(StringBuilder builder, Double value) {
+        return appendDecimal(builder, value == null ? Double.NaN : value);
+    }
+
+    private static StringBuilder appendDecimal(StringBuilder builder, double value) {
+        if (Double.isNaN(value)) {
+            return builder.append('-');
+        }
+        long tenths = Math.round(value * 10);
+        if (tenths < 0) {
+            builder.append('-');
+            tenths = -tenths;
+        }
+        return builder.append(tenths / 10).append('.').append(tenths % 10);
+    }
+}
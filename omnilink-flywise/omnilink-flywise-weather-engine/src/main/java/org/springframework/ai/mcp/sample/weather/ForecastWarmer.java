@@ -0,0 +1,177 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 热点地点的预报预热
+ * <p>
+ * 缓存在更新周期边界（按UTC对齐）统一过期，边界之前刷新拿到的仍是即将过期的数据，
+ * 因此预热在每个边界之后 {@link WeatherProperties.Warmup#getDelay()} 进行：取查询次数最多的
+ * 网格，把其中已过期的按 {@link WeatherProperties.Batch#getChunkSize()} 个一批用多坐标查询刷新，
+ * 热点地点的第一个用户因此不必等待上游。
+ * <p>
+ * 热点集合每次预热后写入 {@link WeatherProperties.Warmup#getStateFile()}，重启时先读回并预热，
+ * 最多等待 {@link WeatherProperties.Warmup#getStartupTimeout()} 后再开始接收请求。
+ */
+public class ForecastWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForecastWarmer.class);
+
+    private final WeatherProperties.Warmup properties;
+    private final long updateInterval;
+    private final int chunkSize;
+    private final ForecastCache cache;
+    private final WeatherProvider provider;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+
+    private long lastDecay = System.currentTimeMillis();
+
+    /**
+     * @param provider 以多坐标查询获取网格中心点的预报
+     * @param executor 执行上游请求的线程池
+     */
+    public ForecastWarmer(WeatherProperties properties, ForecastCache cache, WeatherProvider provider,
+            Executor executor) {
+        this.properties = properties.getWarmup();
+        this.updateInterval = properties.getCache().getUpdateInterval().toMillis();
+        this.chunkSize = Math.max(1, properties.getBatch().getChunkSize());
+        this.cache = cache;
+        this.provider = provider;
+        this.executor = executor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "forecast-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 读回保存的热点并预热，然后在每个更新周期边界之后定时预热
+     */
+    public void start() {
+        load();
+        warm().completeOnTimeout(null, properties.getStartupTimeout().toMillis(), TimeUnit.MILLISECONDS).join();
+
+        long now = System.currentTimeMillis();
+        long nextBoundary = (now / updateInterval + 1) * updateInterval;
+        scheduler.scheduleAtFixedRate(this::cycle, nextBoundary - now + properties.getDelay().toMillis(),
+                updateInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定时预热并保存热点
+     */
+    public void close() {
+        scheduler.shutdownNow();
+        save();
+    }
+
+    private void cycle() {
+        try {
+            long now = System.currentTimeMillis();
+            if (now - lastDecay >= properties.getDecayInterval().toMillis()) {
+                cache.decayPopularity();
+                lastDecay = now;
+            }
+            warm().join();
+            save();
+        } catch (RuntimeException e) {
+            // 不抛出，否则定时任务会被取消
+            logger.warn("Forecast warm-up failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 刷新热点中已过期的网格，返回的请求总是正常完成
+     */
+    private CompletableFuture<Void> warm() {
+        List<List<Double>> due = new ArrayList<>();
+        for (HotLocations.Hot hot : cache.hottest(properties.getTopN())) {
+            if (hot.count() >= properties.getMinRequests()
+                    && cache.getIfFresh(hot.latitude(), hot.longitude()) == null) {
+                due.add(List.of(hot.latitude(), hot.longitude()));
+            }
+        }
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < due.size(); from += chunkSize) {
+            List<List<Double>> chunk = due.subList(from, Math.min(from + chunkSize, due.size()));
+            chunks.add(CompletableFuture
+                    .runAsync(() -> {
+                        List<WeatherData> forecasts = provider.forecasts(chunk);
+                        for (int i = 0; i < chunk.size(); i++) {
+                            cache.put(chunk.get(i).get(0), chunk.get(i).get(1), forecasts.get(i));
+                        }
+                    }, executor)
+                    .exceptionally(e -> {
+                        logger.warn("Failed to warm {} locations: {}", chunk.size(), e.getMessage());
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * 每行一个热点：纬度、经度、查询次数，以制表符分隔
+     */
+    private void load() {
+        Path file = properties.getStateFile();
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                cache.recordRequests(Double.parseDouble(columns[0]), Double.parseDouble(columns[1]),
+                        Integer.parseInt(columns[2]));
+            }
+        } catch (IOException | RuntimeException e) {
+            // 热点文件只影响预热，损坏时忽略
+            logger.warn("Ignoring unreadable hot location file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void save() {
+        Path file = properties.getStateFile();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            // 先写临时文件再替换，进程中途退出时不会留下半个文件
+            Path temp = Files.createTempFile(parent, "hot", ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write("# latitude\tlongitude\trequests\n");
+                    for (HotLocations.Hot hot : cache.hottest(properties.getTopN())) {
+                        if (hot.count() >= properties.getMinRequests()) {
+                            writer.write(hot.latitude() + "\t" + hot.longitude() + "\t" + hot.count() + "\n");
+                        }
+                    }
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to save hot locations to {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * 离线的地名索引，支持按地名查经纬度和按经纬度查最近的地点
+ * <p>
+ * 地名数据为GeoNames城市数据的格式（制表符分隔的19列），可以直接替换为GeoNames的
+ * {@code cities15000.txt} 等文件，以 {@code #} 开头的行为注释。名称、ASCII名称和所有别名
+ * 规范化后（小写、去掉空格和标点、去掉变音符号和末尾的“市”）登记到哈希表，同名地点按人口排序；
+ * 同时保留排好序的键用于前缀查找。反向查找把地点转换为单位球面上的三维坐标，
+ * 在隐式k-d树中做最近邻搜索，弦长最近即球面距离最近，不受经度接缝和高纬度的影响。
+ */
+public class GazetteerIndex {
+
+    // 平均地球半径（公里）
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    /**
+     * 一个地点
+     *
+     * @param name       显示名称，优先使用中文别名
+     * @param country    国家或地区名称
+     * @param latitude   纬度
+     * @param longitude  经度
+     * @param population 人口，用于同名地点排序
+     */
+    public record Place(String name, String country, double latitude, double longitude, long population) {
+
+        /**
+         * 名称和国家，如 北京, 中国
+         */
+        public String label() {
+            return country.isEmpty() ? name : name + ", " + country;
+        }
+    }
+
+    /**
+     * 最近的地点及其球面距离
+     */
+    public record Nearest(Place place, double distanceKm) {
+    }
+
+    private final List<Place> places = new ArrayList<>();
+
+    // 规范化名称 -> 地点下标，按人口从多到少排列
+    private final Map<String, int[]> byName = new HashMap<>();
+
+    // byName 的键，按字典序排列，用于前缀查找
+    private final String[] sortedNames;
+
+    // 每个地点在单位球面上的 x, y, z
+    private final double[] points;
+
+    // 隐式k-d树：区间 [lo, hi) 的根是中点，左右子树为中点两侧的区间
+    private final int[] tree;
+
+    public GazetteerIndex(Resource resource) {
+        Map<String, List<Integer>> names = new HashMap<>();
+        load(resource, names);
+        for (Map.Entry<String, List<Integer>> entry : names.entrySet()) {
+            int[] indexes = entry.getValue().stream().mapToInt(Integer::intValue).distinct().toArray();
+            byName.put(entry.getKey(), sortByPopulation(indexes));
+        }
+        this.sortedNames = byName.keySet().toArray(String[]::new);
+        Arrays.sort(sortedNames);
+
+        this.points = new double[places.size() * 3];
+        for (int i = 0; i < places.size(); i++) {
+            double lat = Math.toRadians(places.get(i).latitude());
+            double lon = Math.toRadians(places.get(i).longitude());
+            points[3 * i] = Math.cos(lat) * Math.cos(lon);
+            points[3 * i + 1] = Math.cos(lat) * Math.sin(lon);
+            points[3 * i + 2] = Math.sin(lat);
+        }
+        Integer[] order = new Integer[places.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        build(order, 0, order.length, 0);
+        this.tree = Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 地点数
+     */
+    public int size() {
+        return places.size();
+    }
+
+    /**
+     * 按名称查找地点。完全匹配的在前，其后是以查询开头的名称，各自按人口从多到少排列
+     *
+     * @param query 地名、拼音、英文名或其开头部分
+     * @param limit 最多返回的地点数
+     */
+    public List<Place> find(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        LinkedHashSet<Integer> found = new LinkedHashSet<>();
+        for (int index : byName.getOrDefault(key, new int[0])) {
+            if (found.size() == limit) {
+                break;
+            }
+            found.add(index);
+        }
+
+        if (found.size() < limit) {
+            // 前缀匹配的候选，去掉已完全匹配的后按人口取前几个
+            List<Integer> prefixed = new ArrayList<>();
+            int from = Arrays.binarySearch(sortedNames, key);
+            for (int i = from >= 0 ? from + 1 : -from - 1; i < sortedNames.length && sortedNames[i].startsWith(key); i++) {
+                for (int index : byName.get(sortedNames[i])) {
+                    if (!found.contains(index)) {
+                        prefixed.add(index);
+                    }
+                }
+            }
+            int[] ranked = sortByPopulation(prefixed.stream().mapToInt(Integer::intValue).distinct().toArray());
+            for (int i = 0; i < ranked.length && found.size() < limit; i++) {
+                found.add(ranked[i]);
+            }
+        }
+
+        List<Place> result = new ArrayList<>(found.size());
+        for (int index : found) {
+            result.add(places.get(index));
+        }
+        return result;
+    }
+
+    /**
+     * 名称完全匹配的地点中人口最多的一个，没有则返回 {@code null}
+     */
+    public Place lookup(String name) {
+        int[] indexes = byName.get(normalize(name));
+        return indexes == null ? null : places.get(indexes[0]);
+    }
+
+    /**
+     * 离坐标最近的地点，索引为空时返回 {@code null}
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     */
+    public Nearest nearest(double latitude, double longitude) {
+        if (tree.length == 0) {
+            return null;
+        }
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double[] query = { Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat) };
+        // {最近地点下标, 弦长平方}
+        double[] best = { -1, Double.MAX_VALUE };
+        search(query, 0, tree.length, 0, best);
+        double chord = Math.sqrt(best[1]);
+        double distance = 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, chord / 2));
+        return new Nearest(places.get((int) best[0]), distance);
+    }
+
+    private void search(double[] query, int lo, int hi, int depth, double[] best) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int index = tree[mid];
+        double dx = query[0] - points[3 * index];
+        double dy = query[1] - points[3 * index + 1];
+        double dz = query[2] - points[3 * index + 2];
+        double distance = dx * dx + dy * dy + dz * dz;
+        if (distance < best[1]) {
+            best[0] = index;
+            best[1] = distance;
+        }
+        int axis = depth % 3;
+        double diff = query[axis] - points[3 * index + axis];
+        // 先搜查询点所在一侧，另一侧只有分割面比当前最近点更近时才需要搜索
+        if (diff < 0) {
+            search(query, lo, mid, depth + 1, best);
+            if (diff * diff < best[1]) {
+                search(query, mid + 1, hi, depth + 1, best);
+            }
+        } else {
+            search(query, mid + 1, hi, depth + 1, best);
+            if (diff * diff < best[1]) {
+                search(query, lo, mid, depth + 1, best);
+            }
+        }
+    }
+
+    /**
+     * 按当前深度的坐标轴排序后以中点为根，递归构建左右子树
+     */
+    private void build(Integer[] order, int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int axis = depth % 3;
+        Arrays.sort(order, lo, hi, (a, b) -> Double.compare(points[3 * a + axis], points[3 * b + axis]));
+        int mid = (lo + hi) >>> 1;
+        build(order, lo, mid, depth + 1);
+        build(order, mid + 1, hi, depth + 1);
+    }
+
+    private int[] sortByPopulation(int[] indexes) {
+        return Arrays.stream(indexes).boxed()
+                .sorted((a, b) -> Long.compare(places.get(b).population(), places.get(a).population()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private void load(Resource resource, Map<String, List<Integer>> names) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t", -1);
+                if (columns.length < 15) {
+                    throw new IllegalStateException("Invalid gazetteer line: " + line);
+                }
+                // 1 名称, 2 ASCII名称, 3 别名, 4 纬度, 5 经度, 8 国家代码, 14 人口
+                String[] aliases = columns[3].isEmpty() ? new String[0] : columns[3].split(",");
+                int index = places.size();
+                places.add(new Place(
+                        displayName(columns[1], aliases),
+                        countryName(columns[8]),
+                        Double.parseDouble(columns[4]),
+                        Double.parseDouble(columns[5]),
+                        columns[14].isEmpty() ? 0 : Long.parseLong(columns[14])));
+                register(names, columns[1], index);
+                register(names, columns[2], index);
+                for (String alias : aliases) {
+                    register(names, alias, index);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load gazetteer from " + resource, e);
+        }
+    }
+
+    private static void register(Map<String, List<Integer>> names, String name, int index) {
+        String key = normalize(name);
+        if (!key.isEmpty()) {
+            names.computeIfAbsent(key, k -> new ArrayList<>(1)).add(index);
+        }
+    }
+
+    /**
+     * 第一个含汉字的别名，没有则用原名
+     */
+    private static String displayName(String name, String[] aliases) {
+        for (String alias : aliases) {
+            if (alias.codePoints().anyMatch(c -> Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN)) {
+                return alias;
+            }
+        }
+        return name;
+    }
+
+    private static String countryName(String code) {
+        if (code.isEmpty()) {
+            return "";
+        }
+        String name = Locale.of("", code).getDisplayCountry(Locale.SIMPLIFIED_CHINESE);
+        return name.isEmpty() ? code : name;
+    }
+
+    /**
+     * 规范化地名：小写，去掉变音符号、空白和标点，去掉末尾的“市”，如 "São Paulo" -> "saopaulo"，
+     * "Xi'an" -> "xian"，"北京市" -> "北京"
+     */
+    static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(name.strip(), Normalizer.Form.NFKD);
+        StringBuilder key = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                key.append(Character.toLowerCase(c));
+            }
+        }
+        // 只剩一个字时保留，如 沙市
+        if (key.length() > 2 && key.charAt(key.length() - 1) == '市') {
+            key.setLength(key.length() - 1);
+        }
+        return key.toString();
+    }
+}
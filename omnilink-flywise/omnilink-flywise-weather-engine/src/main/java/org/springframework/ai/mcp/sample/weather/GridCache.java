@@ -0,0 +1,335 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 按网格缓存的上游数据，{@link ForecastCache} 和空气质量共用
+ * <p>
+ * 网格划分、周期边界过期、按最久未使用淘汰、同一网格只发起一次上游请求，以及保留期内
+ * 返回旧数据并在后台刷新的规则见 {@link ForecastCache}，配置取自 {@link WeatherProperties.Cache}
+ * 和 {@link WeatherProperties.Resilience}。指标名以构造时给出的前缀开头。
+ *
+ * @param <T> 缓存的数据类型
+ */
+class GridCache<T> {
+
+    /**
+     * 缓存返回的数据
+     *
+     * @param value     数据
+     * @param fetchedAt 从上游获取的时间
+     * @param stale     是否已过更新周期，为 {@code true} 时后台正在刷新
+     */
+    record Cached<T>(T value, Instant fetchedAt, boolean stale) {
+    }
+
+    private record Entry<T>(T value, Instant fetchedAt, Instant expiresAt) {
+    }
+
+    private final String subject;
+    private final WeatherProperties.Cache properties;
+    private final WeatherProperties.Resilience resilience;
+    private final Executor executor;
+    private final Clock clock;
+    private final Map<Long, Entry<T>> entries;
+    private final ConcurrentHashMap<Long, CompletableFuture<Entry<T>>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter stale;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    /**
+     * @param metricPrefix 指标名前缀，如 {@code weather.forecast.cache}
+     * @param subject      数据的名称，用于指标说明和错误信息，如“天气数据”
+     */
+    GridCache(String metricPrefix, String subject, WeatherProperties properties, Executor executor,
+            MeterRegistry registry, Clock clock) {
+        this.subject = subject;
+        this.properties = properties.getCache();
+        this.resilience = properties.getResilience();
+        this.executor = executor;
+        this.clock = clock;
+        int maxSize = this.properties.getMaxSize();
+        // 按访问顺序排列，超出容量时移除最久未使用的网格
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry<T>> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = Counter.builder(metricPrefix + ".requests").tag("result", "hit")
+                .description("命中未过期" + subject + "的查询").register(registry);
+        this.stale = Counter.builder(metricPrefix + ".requests").tag("result", "stale")
+                .description("返回过期" + subject + "并在后台刷新的查询").register(registry);
+        this.misses = Counter.builder(metricPrefix + ".requests").tag("result", "miss")
+                .description("没有可用" + subject + "、等待上游的查询").register(registry);
+        this.coalesced = Counter.builder(metricPrefix + ".coalesced")
+                .description("复用同一网格进行中的上游请求的次数").register(registry);
+        Gauge.builder(metricPrefix + ".size", entries, map -> {
+                    synchronized (map) {
+                        return map.size();
+                    }
+                })
+                .description("缓存的网格数").register(registry);
+    }
+
+    boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 返回坐标所在网格的数据
+     * <p>
+     * 未过期时直接返回；已过期但仍在保留期内时立即返回旧数据并在后台刷新；
+     * 没有数据时用 {@code loader} 按网格中心点加载，最多等待配置的超时时间。
+     *
+     * @param loader 以 (纬度, 经度) 请求上游的函数
+     * @throws RestClientException 没有可用数据且上游失败或超时
+     */
+    Cached<T> get(double latitude, double longitude, BiFunction<Double, Double, T> loader) {
+        if (!properties.isEnabled()) {
+            misses.increment();
+            return new Cached<>(loader.apply(latitude, longitude), clock.instant(), false);
+        }
+
+        long cell = cell(latitude, longitude);
+        Entry<T> entry = lookup(cell);
+        if (entry != null && isFresh(entry)) {
+            hits.increment();
+            return new Cached<>(entry.value(), entry.fetchedAt(), false);
+        }
+
+        CompletableFuture<Entry<T>> refresh = refresh(cell, latitude, longitude, loader);
+        if (entry != null) {
+            stale.increment();
+            return new Cached<>(entry.value(), entry.fetchedAt(), true);
+        }
+        misses.increment();
+        Entry<T> loaded = await(refresh);
+        return new Cached<>(loaded.value(), loaded.fetchedAt(), false);
+    }
+
+    /**
+     * 返回坐标所在网格的未过期数据，没有则返回 {@code null}
+     */
+    T getIfFresh(double latitude, double longitude) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        Entry<T> entry = lookup(cell(latitude, longitude));
+        return entry != null && isFresh(entry) ? entry.value() : null;
+    }
+
+    /**
+     * 返回坐标所在网格保留期内的数据，无论是否过期。没有则返回 {@code null}
+     */
+    Cached<T> getStale(double latitude, double longitude) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        Entry<T> entry = lookup(cell(latitude, longitude));
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        boolean expired = !isFresh(entry);
+        (expired ? stale : hits).increment();
+        return new Cached<>(entry.value(), entry.fetchedAt(), expired);
+    }
+
+    /**
+     * 写入坐标所在网格刚从上游获取的数据
+     */
+    Cached<T> put(double latitude, double longitude, T value) {
+        if (!properties.isEnabled()) {
+            return new Cached<>(value, clock.instant(), false);
+        }
+        Entry<T> entry = put(cell(latitude, longitude), value);
+        return new Cached<>(entry.value(), entry.fetchedAt(), false);
+    }
+
+    /**
+     * 在后台刷新一组网格中心点的数据，每批最多 {@code chunkSize} 个。已有进行中加载的网格交给该加载，
+     * 不重复请求上游；刷新失败的网格保留旧数据
+     *
+     * @param points 网格中心点 [纬度, 经度]
+     * @param loader 按 {@code points} 的顺序返回各坐标数据的函数
+     */
+    void refreshAll(List<List<Double>> points, int chunkSize, Function<List<List<Double>>, List<T>> loader) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<List<Double>> claimed = new ArrayList<>();
+        List<CompletableFuture<Entry<T>>> futures = new ArrayList<>();
+        for (List<Double> point : points) {
+            CompletableFuture<Entry<T>> future = new CompletableFuture<>();
+            if (inFlight.putIfAbsent(cell(point.get(0), point.get(1)), future) == null) {
+                claimed.add(point);
+                futures.add(future);
+            } else {
+                coalesced.increment();
+            }
+        }
+
+        for (int from = 0; from < claimed.size(); from += chunkSize) {
+            List<List<Double>> chunk = claimed.subList(from, Math.min(from + chunkSize, claimed.size()));
+            List<CompletableFuture<Entry<T>>> chunkFutures = futures.subList(from, from + chunk.size());
+            try {
+                executor.execute(() -> {
+                    List<T> values = null;
+                    Throwable failure = null;
+                    try {
+                        values = loader.apply(chunk);
+                    } catch (Throwable e) {
+                        failure = e;
+                    }
+                    for (int i = 0; i < chunk.size(); i++) {
+                        complete(chunk.get(i), chunkFutures.get(i), values != null ? values.get(i) : null, failure);
+                    }
+                });
+            } catch (RuntimeException e) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    complete(chunk.get(i), chunkFutures.get(i), null, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 坐标所在网格的中心点 {纬度, 经度}，即缓存向上游请求的坐标。未启用缓存时返回原坐标
+     */
+    double[] cellCenter(double latitude, double longitude) {
+        if (!properties.isEnabled()) {
+            return new double[] { latitude, longitude };
+        }
+        double resolution = properties.getGridResolution();
+        return new double[] {
+                round(Math.round(latitude / resolution) * resolution),
+                round(Math.round(longitude / resolution) * resolution) };
+    }
+
+    long cell(double latitude, double longitude) {
+        double resolution = properties.getGridResolution();
+        int row = (int) Math.round(latitude / resolution);
+        int column = (int) Math.round(longitude / resolution);
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 写入 {@link #refreshAll} 认领的网格的结果，并释放其进行中的加载
+     */
+    private void complete(List<Double> point, CompletableFuture<Entry<T>> future, T value, Throwable failure) {
+        long cell = cell(point.get(0), point.get(1));
+        try {
+            if (value != null) {
+                future.complete(put(cell, value));
+            } else {
+                future.completeExceptionally(failure != null ? failure : new RestClientException(subject + "请求失败"));
+            }
+        } finally {
+            inFlight.remove(cell, future);
+        }
+    }
+
+    /**
+     * 在后台加载网格的数据。同一网格已有进行中的加载时复用，不重复请求上游
+     */
+    private CompletableFuture<Entry<T>> refresh(long cell, double latitude, double longitude,
+            BiFunction<Double, Double, T> loader) {
+        CompletableFuture<Entry<T>> future = new CompletableFuture<>();
+        CompletableFuture<Entry<T>> existing = inFlight.putIfAbsent(cell, future);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        double[] center = cellCenter(latitude, longitude);
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(put(cell, loader.apply(center[0], center[1])));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(cell, future);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(cell, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private Entry<T> await(CompletableFuture<Entry<T>> future) {
+        long timeout = resilience.getTimeout().toMillis();
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 不取消加载，完成后仍会写入缓存供之后的查询使用
+            throw new RestClientException(subject + "请求超时（超过 " + timeout + " 毫秒）");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RestClientException(subject + "请求失败", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestClientException(subject + "请求被中断", e);
+        }
+    }
+
+    /**
+     * 返回保留期内的缓存项，超过保留期的视为不存在
+     */
+    private Entry<T> lookup(long cell) {
+        Entry<T> entry;
+        synchronized (entries) {
+            entry = entries.get(cell);
+        }
+        if (entry == null || !clock.instant().isBefore(entry.expiresAt().plus(resilience.getMaxStale()))) {
+            return null;
+        }
+        return entry;
+    }
+
+    private boolean isFresh(Entry<T> entry) {
+        return clock.instant().isBefore(entry.expiresAt());
+    }
+
+    private Entry<T> put(long cell, T value) {
+        long interval = properties.getUpdateInterval().toMillis();
+        long now = clock.millis();
+        // 对齐到下一个更新周期边界
+        Instant expiresAt = Instant.ofEpochMilli((now / interval + 1) * interval);
+        Entry<T> entry = new Entry<>(value, Instant.ofEpochMilli(now), expiresAt);
+        synchronized (entries) {
+            entries.put(cell, entry);
+        }
+        return entry;
+    }
+
+    // 去掉量化带来的浮点尾数，如 39.900000000000006
+    private static double round(double degrees) {
+        return Math.round(degrees * 1e6) / 1e6;
+    }
+}
@@ -0,0 +1,135 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按网格统计的查询热度
+ * <p>
+ * 计数保存在Count-Min Sketch中（4行×4096列，保守更新），内存固定，不随地点数增长，
+ * 估计值只会偏大不会偏小。另外保留少量候选网格及其中心点：新网格的估计值超过候选中最小的
+ * 估计值时替换之，因此频繁查询的网格总会进入候选，其中估计值最高的即为热点。
+ * {@link #decay()} 把所有计数减半，使热度反映近期的查询。
+ */
+public class HotLocations {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 4096;
+
+    /**
+     * 一个热点网格
+     *
+     * @param latitude  网格中心纬度
+     * @param longitude 网格中心经度
+     * @param count     查询次数的估计值
+     */
+    public record Hot(double latitude, double longitude, int count) {
+    }
+
+    private final int[] counts = new int[DEPTH * WIDTH];
+    private final int capacity;
+
+    // 候选网格 -> 中心点 {纬度, 经度}
+    private final Map<Long, double[]> candidates = new HashMap<>();
+
+    // 候选中最小估计值的下界，计数只增不减（减半时同步减半），可以跳过大部分扫描
+    private int minCandidate;
+
+    /**
+     * @param capacity 保留的候选网格数，应大于需要的热点数
+     */
+    public HotLocations(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * 记录网格被查询了 {@code times} 次
+     *
+     * @param cell      网格编号
+     * @param latitude  网格中心纬度
+     * @param longitude 网格中心经度
+     */
+    public synchronized void record(long cell, double latitude, double longitude, int times) {
+        int estimate = increment(cell, times);
+        if (candidates.containsKey(cell)) {
+            return;
+        }
+        if (candidates.size() < capacity) {
+            candidates.put(cell, new double[] { latitude, longitude });
+            return;
+        }
+        if (estimate <= minCandidate) {
+            return;
+        }
+        long weakest = 0;
+        int weakestCount = Integer.MAX_VALUE;
+        for (long candidate : candidates.keySet()) {
+            int count = estimate(candidate);
+            if (count < weakestCount) {
+                weakest = candidate;
+                weakestCount = count;
+            }
+        }
+        minCandidate = weakestCount;
+        if (estimate > weakestCount) {
+            candidates.remove(weakest);
+            candidates.put(cell, new double[] { latitude, longitude });
+        }
+    }
+
+    /**
+     * 查询次数最多的 {@code n} 个网格，按次数从多到少排列
+     */
+    public synchronized List<Hot> top(int n) {
+        List<Hot> hot = new ArrayList<>(candidates.size());
+        for (Map.Entry<Long, double[]> entry : candidates.entrySet()) {
+            hot.add(new Hot(entry.getValue()[0], entry.getValue()[1], estimate(entry.getKey())));
+        }
+        hot.sort((a, b) -> Integer.compare(b.count(), a.count()));
+        return hot.size() > n ? new ArrayList<>(hot.subList(0, n)) : hot;
+    }
+
+    /**
+     * 所有计数减半
+     */
+    public synchronized void decay() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] >>>= 1;
+        }
+        minCandidate >>>= 1;
+    }
+
+    /**
+     * 保守更新：只抬高低于新估计值的计数器，减少哈希冲突带来的高估
+     */
+    private int increment(long cell, int times) {
+        int estimate = estimate(cell);
+        int updated = (int) Math.min(Integer.MAX_VALUE, (long) estimate + times);
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(cell, row);
+            if (counts[index] < updated) {
+                counts[index] = updated;
+            }
+        }
+        return updated;
+    }
+
+    private int estimate(long cell) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counts[index(cell, row)]);
+        }
+        return estimate;
+    }
+
+    private static int index(long cell, int row) {
+        // 每行用不同的种子做64位混合
+        long h = cell * 0x9E3779B97F4A7C15L + (row + 1) * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return row * WIDTH + (int) (h & (WIDTH - 1));
+    }
+}
@@ -0,0 +1,119 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 利用OpenMeteo的免费天气API提供天气数据
+ * 该API无需API密钥，可以直接使用
+ */
+public class OpenMeteoProvider implements WeatherProvider {
+
+    // 逐时预报的小时数
+    private static final int HOURLY_HOURS = 48;
+
+    // 当前天气、从当前小时起48小时的逐时预报和未来7天预报
+    private static final String FORECAST_URI = "/forecast?latitude={latitude}&longitude={longitude}&current=temperature_2m,apparent_temperature,relative_humidity_2m,precipitation,weather_code,wind_speed_10m,wind_direction_10m&hourly=temperature_2m,precipitation_probability,precipitation,weather_code,wind_speed_10m&daily=temperature_2m_max,temperature_2m_min,precipitation_sum,weather_code,wind_speed_10m_max,wind_direction_10m_dominant&timezone=auto&forecast_days=7&forecast_hours=" + HOURLY_HOURS;
+
+    // 当前的空气质量指数和主要污染物浓度
+    private static final String AIR_QUALITY_URI = "/air-quality?latitude={latitude}&longitude={longitude}&current=european_aqi,us_aqi,pm2_5,pm10,ozone,nitrogen_dioxide,sulphur_dioxide,carbon_monoxide&timezone=auto";
+
+    private final RestClient restClient;
+
+    private final RestClient geocodingClient;
+
+    private final RestClient airQualityClient;
+
+    public OpenMeteoProvider(WeatherProperties.OpenMeteo properties, UpstreamClients clients) {
+        this.restClient = clients.create(properties.getBaseUrl());
+        this.geocodingClient = clients.create(properties.getGeocodingBaseUrl());
+        this.airQualityClient = clients.create(properties.getAirQualityBaseUrl());
+    }
+
+    // OpenMeteo地名解析结果
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record GeocodingResult(@JsonProperty("results") List<Place> results) {
+
+        @JsonIgnoreProperties(ignoreUnknown = true)
+        record Place(
+                @JsonProperty("name") String name,
+                @JsonProperty("latitude") double latitude,
+                @JsonProperty("longitude") double longitude,
+                @JsonProperty("admin1") String admin1,
+                @JsonProperty("country") String country) {
+        }
+    }
+
+    @Override
+    public String name() {
+        return "OpenMeteo";
+    }
+
+    @Override
+    public WeatherData forecast(double latitude, double longitude) {
+        return restClient.get()
+                .uri(FORECAST_URI, latitude, longitude)
+                .retrieve()
+                .body(WeatherData.class);
+    }
+
+    /**
+     * 一次请求获取多个坐标的天气数据，结果与坐标顺序一致
+     */
+    @Override
+    public List<WeatherData> forecasts(List<List<Double>> points) {
+        if (points.size() == 1) {
+            return List.of(forecast(points.get(0).get(0), points.get(0).get(1)));
+        }
+        StringJoiner latitudes = new StringJoiner(",");
+        StringJoiner longitudes = new StringJoiner(",");
+        for (List<Double> point : points) {
+            latitudes.add(point.get(0).toString());
+            longitudes.add(point.get(1).toString());
+        }
+        // 多个坐标时OpenMeteo返回数组
+        WeatherData[] forecasts = restClient.get()
+                .uri(FORECAST_URI, latitudes.toString(), longitudes.toString())
+                .retrieve()
+                .body(WeatherData[].class);
+        if (forecasts == null || forecasts.length != points.size()) {
+            throw new RestClientException("OpenMeteo返回的地点数与请求不一致");
+        }
+        return List.of(forecasts);
+    }
+
+    /**
+     * 通过OpenMeteo地名解析API查找地名，取最匹配的一个结果
+     */
+    @Override
+    public ResolvedLocation geocode(String name) {
+        GeocodingResult result = geocodingClient.get()
+                .uri("/search?name={name}&count=1&language=zh&format=json", name)
+                .retrieve()
+                .body(GeocodingResult.class);
+        if (result == null || result.results() == null || result.results().isEmpty()) {
+            throw new IllegalArgumentException("未找到地点: " + name);
+        }
+        GeocodingResult.Place place = result.results().get(0);
+        String region = place.admin1() != null ? place.admin1() : place.country();
+        String label = region != null && !region.equals(place.name()) ? place.name() + ", " + region : place.name();
+        return new ResolvedLocation(label, place.latitude(), place.longitude());
+    }
+
+    /**
+     * 通过OpenMeteo空气质量API获取当前空气质量，与天气预报是不同的主机
+     */
+    @Override
+    public AirQuality airQuality(double latitude, double longitude) {
+        return airQualityClient.get()
+                .uri(AIR_QUALITY_URI, latitude, longitude)
+                .retrieve()
+                .body(AirQuality.class);
+    }
+}
@@ -0,0 +1,11 @@
+package org.springframework.ai.mcp.sample.weather;
+
+/**
+ * 解析后的地点
+ *
+ * @param label     用于输出的名称，如 北京, 中国
+ * @param latitude  纬度
+ * @param longitude 经度
+ */
+public record ResolvedLocation(String label, double latitude, double longitude) {
+}
@@ -0,0 +1,83 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * 把OpenMeteo的逐日、逐小时序列直接解析为基本类型数组，避免 {@code List<Double>} 的装箱
+ * <p>
+ * OpenMeteo在数据缺失处返回 {@code null}：浮点序列中记为 {@link Double#NaN}，
+ * 整数序列中记为 {@link #MISSING}。
+ */
+public final class SeriesDeserializers {
+
+    /**
+     * 整数序列中缺失值的标记
+     */
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    // 7天逐日或48小时逐时序列都能一次放下
+    private static final int INITIAL_CAPACITY = 64;
+
+    private SeriesDeserializers() {
+    }
+
+    /**
+     * 浮点序列，null记为NaN
+     */
+    public static class DoubleSeries extends StdDeserializer<double[]> {
+
+        public DoubleSeries() {
+            super(double[].class);
+        }
+
+        @Override
+        public double[] deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartArrayToken()) {
+                return (double[]) context.handleUnexpectedToken(double[].class, parser);
+            }
+            double[] values = new double[INITIAL_CAPACITY];
+            int size = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = token == JsonToken.VALUE_NULL ? Double.NaN : parser.getValueAsDouble();
+            }
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * 整数序列，null记为 {@link #MISSING}
+     */
+    public static class IntSeries extends StdDeserializer<int[]> {
+
+        public IntSeries() {
+            super(int[].class);
+        }
+
+        @Override
+        public int[] deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartArrayToken()) {
+                return (int[]) context.handleUnexpectedToken(int[].class, parser);
+            }
+            int[] values = new int[INITIAL_CAPACITY];
+            int size = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = token == JsonToken.VALUE_NULL ? MISSING : parser.getValueAsInt();
+            }
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 天气提供方共用的HTTP连接
+ * <p>
+ * 所有客户端共用一个JDK {@link HttpClient}，即一个连接池：同一上游的连接被复用，支持HTTP/2时多路复用，
+ * I/O在虚拟线程上执行。请求数超过 {@link WeatherProperties.Http#getMaxConcurrentRequests()} 时，
+ * 等待不超过 {@link WeatherProperties.Http#getAcquireTimeout()} 即失败，而不是在连接池中排队。
+ * 每个上游主机一个 {@link CircuitBreaker}，由该主机的所有客户端共用。
+ * <p>
+ * 每个上游请求的耗时按主机和结果记录到 {@code weather.upstream.requests}。
+ * {@link #executor()} 在虚拟线程上执行批量查询、后台刷新等阻塞任务。
+ */
+public class UpstreamClients {
+
+    private final JdkClientHttpRequestFactory requestFactory;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final WeatherProperties.Resilience resilience;
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public UpstreamClients(WeatherProperties properties, MeterRegistry registry) {
+        WeatherProperties.Http http = properties.getHttp();
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("weather-upstream-", 0).factory());
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(http.getConnectTimeout())
+                .executor(executor)
+                .build();
+        this.requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        this.requestFactory.setReadTimeout(http.getReadTimeout());
+        this.permits = new Semaphore(http.getMaxConcurrentRequests());
+        this.acquireTimeout = http.getAcquireTimeout();
+        this.resilience = properties.getResilience();
+        this.registry = registry;
+    }
+
+    /**
+     * 访问 {@code baseUrl} 的JSON客户端，经过共用的连接池、主机的熔断器和并发上限
+     */
+    public RestClient create(String baseUrl) {
+        String host = URI.create(baseUrl).getHost();
+        CircuitBreaker breaker = breakers.computeIfAbsent(host, name ->
+                new CircuitBreaker(name, resilience.getFailureThreshold(), resilience.getOpenDuration()));
+        return RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                // 本地并发已满不是上游的问题，不计入熔断
+                .requestInterceptor(bulkhead())
+                .requestInterceptor(breaker)
+                .requestInterceptor(timer(host))
+                .defaultHeader("Accept", MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader("User-Agent", "OpenMeteoClient/1.0")
+                .build();
+    }
+
+    /**
+     * 执行阻塞的上游任务的虚拟线程池
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * 收到响应后即释放名额，之后读取响应体的时间相对等待响应很短
+     */
+    private ClientHttpRequestInterceptor bulkhead() {
+        return (request, body, execution) -> {
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RestClientException("等待上游连接时被中断");
+            }
+            if (!acquired) {
+                throw new RestClientException("同时进行的上游请求过多");
+            }
+            try {
+                return execution.execute(request, body);
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    /**
+     * 记录实际发出的请求，被熔断或并发上限拒绝的不计入
+     */
+    private ClientHttpRequestInterceptor timer(String host) {
+        return (request, body, execution) -> {
+            long start = System.nanoTime();
+            String outcome = "IO_ERROR";
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                outcome = response.getStatusCode().is2xxSuccessful() ? "SUCCESS"
+                        : response.getStatusCode().is5xxServerError() ? "SERVER_ERROR" : "CLIENT_ERROR";
+                return response;
+            } finally {
+                Timer.builder("weather.upstream.requests")
+                        .tag("host", host)
+                        .tag("outcome", outcome)
+                        .register(registry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,12 @@
+package org.springframework.ai.mcp.sample.weather;
+
+/**
+ * 气象预警
+ *
+ * @param event    预警事件，如 暴雨、大风
+ * @param severity 预警级别，如 蓝色、黄色、橙色、红色
+ * @param headline 预警内容摘要
+ * @param expires  失效时间，当地时间，未知时为 {@code null}
+ */
+public record WeatherAlert(String event, String severity, String headline, String expires) {
+}
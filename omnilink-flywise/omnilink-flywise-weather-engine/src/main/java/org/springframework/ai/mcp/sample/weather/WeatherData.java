@@ -0,0 +1,67 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import org.springframework.ai.mcp.sample.weather.SeriesDeserializers.DoubleSeries;
+import org.springframework.ai.mcp.sample.weather.SeriesDeserializers.IntSeries;
+
+/**
+ * 一个地点的天气预报：当前天气、从当前小时起的逐时预报和逐日预报
+ * <p>
+ * 字段与OpenMeteo的响应一致，其他 {@link WeatherProvider} 需转换为此格式。
+ * 天气代码为WMO代码，时间为地点的当地时间。
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record WeatherData(
+        @JsonProperty("latitude") Double latitude,
+        @JsonProperty("longitude") Double longitude,
+        @JsonProperty("timezone") String timezone,
+        @JsonProperty("current") CurrentWeather current,
+        @JsonProperty("daily") DailyForecast daily,
+        @JsonProperty("hourly") HourlyForecast hourly,
+        @JsonProperty("current_units") CurrentUnits currentUnits) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record CurrentWeather(
+            @JsonProperty("time") String time,
+            @JsonProperty("temperature_2m") Double temperature,
+            @JsonProperty("apparent_temperature") Double feelsLike,
+            @JsonProperty("relative_humidity_2m") Integer humidity,
+            @JsonProperty("precipitation") Double precipitation,
+            @JsonProperty("weather_code") Integer weatherCode,
+            @JsonProperty("wind_speed_10m") Double windSpeed,
+            @JsonProperty("wind_direction_10m") Integer windDirection) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record CurrentUnits(
+            @JsonProperty("time") String timeUnit,
+            @JsonProperty("temperature_2m") String temperatureUnit,
+            @JsonProperty("relative_humidity_2m") String humidityUnit,
+            @JsonProperty("wind_speed_10m") String windSpeedUnit) {
+    }
+
+    // 逐日和逐时序列解析为基本类型数组，缺失值见 SeriesDeserializers
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record DailyForecast(
+            @JsonProperty("time") String[] time,
+            @JsonProperty("temperature_2m_max") @JsonDeserialize(using = DoubleSeries.class) double[] tempMax,
+            @JsonProperty("temperature_2m_min") @JsonDeserialize(using = DoubleSeries.class) double[] tempMin,
+            @JsonProperty("precipitation_sum") @JsonDeserialize(using = DoubleSeries.class) double[] precipitationSum,
+            @JsonProperty("weather_code") @JsonDeserialize(using = IntSeries.class) int[] weatherCode,
+            @JsonProperty("wind_speed_10m_max") @JsonDeserialize(using = DoubleSeries.class) double[] windSpeedMax,
+            @JsonProperty("wind_direction_10m_dominant") @JsonDeserialize(using = IntSeries.class) int[] windDirection) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record HourlyForecast(
+            @JsonProperty("time") String[] time,
+            @JsonProperty("temperature_2m") @JsonDeserialize(using = DoubleSeries.class) double[] temperature,
+            @JsonProperty("precipitation_probability") @JsonDeserialize(using = IntSeries.class) int[] precipitationProbability,
+            @JsonProperty("precipitation") @JsonDeserialize(using = DoubleSeries.class) double[] precipitation,
+            @JsonProperty("weather_code") @JsonDeserialize(using = IntSeries.class) int[] weatherCode,
+            @JsonProperty("wind_speed_10m") @JsonDeserialize(using = DoubleSeries.class) double[] windSpeed) {
+    }
+}
@@ -0,0 +1,380 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 天气引擎，供各个MCP服务器的天气工具共用
+ * <p>
+ * 通过 {@link WeatherProvider} 获取预报，在其之上提供按网格的缓存与过期降级、热点预热、
+ * 批量查询的去重与并行请求、带超时与过期降级的空气质量查询、预报与空气质量的并行综合查询，
+ * 以及离线的地名索引。
+ * 上游请求都经过同一个 {@link UpstreamClients}，连接池、熔断和指标因此只在一处配置。
+ * 工具类只负责参数和输出格式。
+ */
+public class WeatherEngine {
+
+    // 地名解析结果缓存的上限
+    private static final int MAX_GEOCODED = 10000;
+
+    /**
+     * 批量查询中的一个地点，填写地名或经纬度
+     */
+    public record LocationQuery(String name, Double latitude, Double longitude) {
+    }
+
+    /**
+     * 批量查询中一个地点的结果，{@code forecast} 与 {@code error} 有且只有一个不为 {@code null}
+     *
+     * @param label    地点名称，地点无法解析时为查询中填写的内容
+     * @param location 解析后的地点，无法解析时为 {@code null}
+     * @param forecast 预报，可能是带有获取时间的旧预报
+     * @param error    失败原因
+     */
+    public record BatchResult(String label, ResolvedLocation location, ForecastCache.Forecast forecast, String error) {
+    }
+
+    /**
+     * 综合天气报告中的一部分，{@code value} 与 {@code error} 有且只有一个不为 {@code null}
+     */
+    public record Part<T>(T value, String error) {
+    }
+
+    /**
+     * 一个坐标的综合天气报告，各部分独立获取，部分失败或超时不影响其他部分
+     *
+     * @param forecast   预报，可能是带有获取时间的旧预报
+     * @param airQuality 当前空气质量
+     * @param alerts     生效的气象预警，没有预警时为空列表
+     */
+    public record Report(Part<ForecastCache.Forecast> forecast, Part<AirQuality> airQuality,
+            Part<List<WeatherAlert>> alerts) {
+    }
+
+    private final WeatherProperties properties;
+
+    private final WeatherProvider provider;
+
+    private final ForecastCache forecastCache;
+
+    // 未启用缓存或预热时为 null
+    private final ForecastWarmer warmer;
+
+    private final GazetteerIndex gazetteer;
+
+    private final Map<String, ResolvedLocation> geocoded = new ConcurrentHashMap<>();
+
+    // 与预报同样按网格缓存，过期后在保留期内先返回旧数据并在后台刷新
+    private final GridCache<AirQuality> airQualityCache;
+
+    private final ExecutorService executor;
+
+    public WeatherEngine(WeatherProperties properties, WeatherProvider provider, UpstreamClients clients,
+            MeterRegistry registry) {
+        this(properties, provider, clients, registry, new DefaultResourceLoader());
+    }
+
+    public WeatherEngine(WeatherProperties properties, WeatherProvider provider, UpstreamClients clients,
+            MeterRegistry registry, ResourceLoader resourceLoader) {
+        this.properties = properties;
+        this.provider = provider;
+        this.executor = clients.executor();
+        this.forecastCache = new ForecastCache(properties, executor, registry);
+        this.airQualityCache = new GridCache<>("weather.air-quality.cache", "空气质量", properties, executor, registry,
+                Clock.systemUTC());
+        this.warmer = properties.getCache().isEnabled() && properties.getWarmup().isEnabled()
+                ? new ForecastWarmer(properties, forecastCache, provider, executor)
+                : null;
+        this.gazetteer = new GazetteerIndex(resourceLoader.getResource(properties.getGazetteer().getLocation()));
+    }
+
+    /**
+     * 不依赖Spring容器创建使用OpenMeteo的引擎，指标注册到 {@link Metrics#globalRegistry}，不预热
+     */
+    public static WeatherEngine create(WeatherProperties properties) {
+        UpstreamClients clients = new UpstreamClients(properties, Metrics.globalRegistry);
+        return new WeatherEngine(properties, new OpenMeteoProvider(properties.getOpenMeteo(), clients), clients,
+                Metrics.globalRegistry);
+    }
+
+    /**
+     * 预热保存的热点地点，完成或超时后才开始接收请求
+     */
+    public void start() {
+        if (warmer != null) {
+            warmer.start();
+        }
+    }
+
+    public void close() {
+        if (warmer != null) {
+            warmer.close();
+        }
+    }
+
+    public WeatherProperties getProperties() {
+        return this.properties;
+    }
+
+    public WeatherProvider getProvider() {
+        return this.provider;
+    }
+
+    public GazetteerIndex getGazetteer() {
+        return this.gazetteer;
+    }
+
+    /**
+     * 坐标所在网格的预报，已过期时为带有获取时间的旧预报并在后台刷新
+     *
+     * @throws org.springframework.web.client.RestClientException 没有可用数据且上游失败或超时
+     */
+    public ForecastCache.Forecast forecast(double latitude, double longitude) {
+        return forecastCache.get(latitude, longitude, provider::forecast);
+    }
+
+    /**
+     * 坐标所在网格当前的空气质量，按与预报相同的规则缓存
+     * <p>
+     * 已过更新周期但仍在 {@link WeatherProperties.Resilience#getMaxStale()} 内时立即返回旧数据并在后台刷新，
+     * 其中的时间即观测时间；同一网格的并发查询只发起一次上游请求。没有可用数据时最多等待
+     * {@link WeatherProperties.Resilience#getTimeout()}，超时的请求继续在后台完成并写入缓存。
+     *
+     * @throws RestClientException           没有可用数据且上游失败或超时
+     * @throws UnsupportedOperationException 提供方没有空气质量数据
+     */
+    public AirQuality airQuality(double latitude, double longitude) {
+        return airQualityCache.get(latitude, longitude, provider::airQuality).value();
+    }
+
+    /**
+     * 同时获取一个坐标的预报、空气质量和气象预警
+     * <p>
+     * 三个请求并行发出，共用 {@link WeatherProperties.Resilience#getTimeout()} 的期限，
+     * 总耗时取决于最慢的一个而不是三者之和。届时仍未完成的部分报告超时，请求继续在后台完成，
+     * 预报完成后写入缓存。预报与空气质量失败或超时时与单独查询一样降级为保留期内的旧数据。
+     */
+    public Report report(double latitude, double longitude) {
+        long timeout = properties.getResilience().getTimeout().toMillis();
+        CompletableFuture<ForecastCache.Forecast> forecast =
+                CompletableFuture.supplyAsync(() -> forecast(latitude, longitude), executor);
+        CompletableFuture<AirQuality> airQuality =
+                CompletableFuture.supplyAsync(() -> airQuality(latitude, longitude), executor);
+        CompletableFuture<List<WeatherAlert>> alerts =
+                CompletableFuture.supplyAsync(() -> provider.alerts(latitude, longitude), executor);
+
+        // 失败的部分在下面逐个报告
+        CompletableFuture.allOf(forecast, airQuality, alerts)
+                .exceptionally(e -> null)
+                .completeOnTimeout(null, timeout, TimeUnit.MILLISECONDS)
+                .join();
+        return new Report(part(forecast, timeout), part(airQuality, timeout), part(alerts, timeout));
+    }
+
+    private static <T> Part<T> part(CompletableFuture<T> future, long timeout) {
+        if (!future.isDone()) {
+            return new Part<>(null, "请求超时（超过 " + timeout + " 毫秒）");
+        }
+        try {
+            return new Part<>(future.join(), null);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return new Part<>(null, cause.getMessage());
+        }
+    }
+
+    /**
+     * 批量获取多个地点的预报
+     * <p>
+     * 命中缓存的地点直接返回，其余地点按网格去重后拆分为每批
+     * {@link WeatherProperties.Batch#getChunkSize()} 个，利用提供方的多坐标查询并行请求。
+     * 缓存已过期的地点立即返回旧预报，同时在后台刷新。
+     * 整个调用最多等待 {@link WeatherProperties.Resilience#getTimeout()}，届时仍未完成的地点
+     * 报告超时，单个地点失败或超时不影响其他地点。
+     *
+     * @return 与 {@code queries} 顺序一致的结果
+     * @throws IllegalArgumentException 没有地点或超过 {@link WeatherProperties.Batch#getMaxLocations()}
+     */
+    public List<BatchResult> forecasts(List<LocationQuery> queries) {
+        if (queries == null || queries.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个地点");
+        }
+        int maxLocations = properties.getBatch().getMaxLocations();
+        if (queries.size() > maxLocations) {
+            throw new IllegalArgumentException("每次最多查询 " + maxLocations + " 个地点");
+        }
+        long timeout = properties.getResilience().getTimeout().toMillis();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        // 并行解析地名
+        List<CompletableFuture<ResolvedLocation>> resolving = new ArrayList<>(queries.size());
+        for (LocationQuery query : queries) {
+            resolving.add(CompletableFuture.supplyAsync(() -> resolve(query), executor));
+        }
+
+        // 解析失败的地点在下面逐个报告，不影响其他地点
+        CompletableFuture.allOf(resolving.toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null)
+                .completeOnTimeout(null, remaining(deadline), TimeUnit.NANOSECONDS)
+                .join();
+
+        // 保留期内的缓存预报（可能已过期）；没有的按网格中心点去重后请求，已过期的在后台刷新
+        ForecastCache.Forecast[] cached = new ForecastCache.Forecast[queries.size()];
+        LinkedHashSet<List<Double>> misses = new LinkedHashSet<>();
+        LinkedHashSet<List<Double>> expired = new LinkedHashSet<>();
+        for (int i = 0; i < queries.size(); i++) {
+            ResolvedLocation resolved = resolving.get(i).exceptionally(e -> null).getNow(null);
+            if (resolved != null) {
+                cached[i] = forecastCache.getStale(resolved.latitude(), resolved.longitude());
+                if (cached[i] == null) {
+                    misses.add(cellCenter(resolved));
+                } else if (cached[i].stale()) {
+                    expired.add(cellCenter(resolved));
+                }
+            }
+        }
+
+        // 过期的网格在后台刷新，已在刷新的不再重复请求
+        forecastCache.refreshAll(new ArrayList<>(expired), Math.max(1, properties.getBatch().getChunkSize()),
+                provider::forecasts);
+        // 记录每个网格中心点的预报或失败原因
+        Map<List<Double>, Object> fetched = new ConcurrentHashMap<>();
+        CompletableFuture.allOf(fetchChunks(new ArrayList<>(misses), fetched))
+                .completeOnTimeout(null, remaining(deadline), TimeUnit.NANOSECONDS)
+                .join();
+
+        List<BatchResult> results = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            ResolvedLocation resolved;
+            try {
+                resolved = resolving.get(i).getNow(null);
+            } catch (CompletionException e) {
+                results.add(new BatchResult(describe(queries.get(i)), null, null,
+                        "无法解析地点: " + e.getCause().getMessage()));
+                continue;
+            }
+            if (resolved == null) {
+                results.add(new BatchResult(describe(queries.get(i)), null, null,
+                        "地名解析超时（超过 " + timeout + " 毫秒）"));
+                continue;
+            }
+            if (cached[i] != null) {
+                results.add(new BatchResult(resolved.label(), resolved, cached[i], null));
+                continue;
+            }
+            Object result = fetched.get(cellCenter(resolved));
+            if (result instanceof ForecastCache.Forecast forecast) {
+                results.add(new BatchResult(resolved.label(), resolved, forecast, null));
+            } else if (result instanceof Throwable e) {
+                results.add(new BatchResult(resolved.label(), resolved, null, "无法获取天气: " + e.getMessage()));
+            } else {
+                // 请求仍在进行，完成后写入缓存
+                results.add(new BatchResult(resolved.label(), resolved, null,
+                        "天气数据请求超时（超过 " + timeout + " 毫秒），请稍后重试"));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 把坐标拆分为每批 {@link WeatherProperties.Batch#getChunkSize()} 个并行请求，
+     * 结果写入缓存，并在 {@code results} 中记录每个坐标的预报或失败原因
+     *
+     * @return 每批的请求，总是正常完成
+     */
+    private CompletableFuture<?>[] fetchChunks(List<List<Double>> points, Map<List<Double>, Object> results) {
+        int chunkSize = Math.max(1, properties.getBatch().getChunkSize());
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < points.size(); from += chunkSize) {
+            List<List<Double>> chunk = points.subList(from, Math.min(from + chunkSize, points.size()));
+            chunks.add(CompletableFuture
+                    .runAsync(() -> {
+                        List<WeatherData> forecasts = provider.forecasts(chunk);
+                        for (int i = 0; i < chunk.size(); i++) {
+                            List<Double> point = chunk.get(i);
+                            results.put(point, forecastCache.put(point.get(0), point.get(1), forecasts.get(i)));
+                        }
+                    }, executor)
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        chunk.forEach(point -> results.put(point, cause));
+                        return null;
+                    }));
+        }
+        return chunks.toArray(CompletableFuture[]::new);
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    /**
+     * 解析地点：已知经纬度时直接使用，否则先查本地地名索引，查不到再由提供方在线解析
+     *
+     * @throws IllegalArgumentException 没有填写地名和经纬度，或未找到地点
+     */
+    public ResolvedLocation resolve(LocationQuery query) {
+        if (query.latitude() != null && query.longitude() != null) {
+            String label = query.name() != null && !query.name().isBlank() ? query.name().trim()
+                    : String.format("%.4f, %.4f", query.latitude(), query.longitude());
+            return new ResolvedLocation(label, query.latitude(), query.longitude());
+        }
+        if (query.name() == null || query.name().isBlank()) {
+            throw new IllegalArgumentException("请填写地名或经纬度");
+        }
+        GazetteerIndex.Place place = gazetteer.lookup(query.name());
+        if (place != null) {
+            return new ResolvedLocation(place.label(), place.latitude(), place.longitude());
+        }
+        return geocode(query.name().trim());
+    }
+
+    /**
+     * 地名坐标不会变化，在线解析的结果长期缓存
+     */
+    private ResolvedLocation geocode(String name) {
+        ResolvedLocation cached = geocoded.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        ResolvedLocation resolved = provider.geocode(name);
+        if (geocoded.size() < MAX_GEOCODED) {
+            geocoded.putIfAbsent(name, resolved);
+        }
+        return resolved;
+    }
+
+    private List<Double> cellCenter(ResolvedLocation location) {
+        return cellCenter(location.latitude(), location.longitude());
+    }
+
+    private List<Double> cellCenter(double latitude, double longitude) {
+        double[] center = forecastCache.cellCenter(latitude, longitude);
+        return List.of(center[0], center[1]);
+    }
+
+    private static String describe(LocationQuery query) {
+        if (query.name() != null && !query.name().isBlank()) {
+            return query.name();
+        }
+        if (query.latitude() != null || query.longitude() != null) {
+            return String.format("%s, %s", query.latitude(), query.longitude());
+        }
+        return "未填写的地点";
+    }
+}
@@ -0,0 +1,49 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ResourceLoader;
+
+/**
+ * 天气引擎的自动配置，依赖本模块的服务器无需再声明
+ * <p>
+ * 应用中已有 {@link WeatherProvider} 时使用它，否则使用 {@link OpenMeteoProvider}。
+ * 指标注册到应用的 {@link MeterRegistry}，没有时注册到 {@link Metrics#globalRegistry}。
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(WeatherProperties.class)
+public class WeatherEngineAutoConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public UpstreamClients weatherUpstreamClients(WeatherProperties properties,
+            ObjectProvider<MeterRegistry> registryProvider) {
+        return new UpstreamClients(properties, registryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public WeatherProvider weatherProvider(WeatherProperties properties, UpstreamClients clients) {
+        return new OpenMeteoProvider(properties.getOpenMeteo(), clients);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public WeatherEngine weatherEngine(WeatherProperties properties, WeatherProvider provider,
+            UpstreamClients clients, ObjectProvider<MeterRegistry> registryProvider, ResourceLoader resourceLoader) {
+        return new WeatherEngine(properties, provider, clients,
+                registryProvider.getIfAvailable(() -> Metrics.globalRegistry), resourceLoader);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ForecastRenderer forecastRenderer(WeatherProperties properties) {
+        return new ForecastRenderer(properties.getOutput());
+    }
+}
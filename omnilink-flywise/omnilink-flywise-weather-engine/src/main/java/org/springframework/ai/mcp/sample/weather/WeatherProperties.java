@@ -0,0 +1,480 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 天气服务配置
+ */
+@ConfigurationProperties(WeatherProperties.CONFIG_PREFIX)
+public class WeatherProperties {
+
+    public static final String CONFIG_PREFIX = "weather";
+
+    private final OpenMeteo openMeteo = new OpenMeteo();
+
+    private final Http http = new Http();
+
+    private final Cache cache = new Cache();
+
+    private final Warmup warmup = new Warmup();
+
+    private final Batch batch = new Batch();
+
+    private final Gazetteer gazetteer = new Gazetteer();
+
+    private final Output output = new Output();
+
+    private final Resilience resilience = new Resilience();
+
+    public OpenMeteo getOpenMeteo() {
+        return this.openMeteo;
+    }
+
+    public Http getHttp() {
+        return this.http;
+    }
+
+    public Cache getCache() {
+        return this.cache;
+    }
+
+    public Warmup getWarmup() {
+        return this.warmup;
+    }
+
+    public Batch getBatch() {
+        return this.batch;
+    }
+
+    public Gazetteer getGazetteer() {
+        return this.gazetteer;
+    }
+
+    public Output getOutput() {
+        return this.output;
+    }
+
+    public Resilience getResilience() {
+        return this.resilience;
+    }
+
+    /**
+     * 天气工具的输出格式
+     */
+    public enum OutputFormat {
+
+        /**
+         * 分行的文字描述
+         */
+        TEXT,
+
+        /**
+         * 单位只写一次的紧凑表格，占用的模型token更少
+         */
+        COMPACT
+    }
+
+    /**
+     * OpenMeteo API配置
+     */
+    public static class OpenMeteo {
+
+        /**
+         * OpenMeteo API基础URL，可指向本地替身服务
+         */
+        private String baseUrl = "https://api.open-meteo.com/v1";
+
+        /**
+         * OpenMeteo地名解析API基础URL
+         */
+        private String geocodingBaseUrl = "https://geocoding-api.open-meteo.com/v1";
+
+        /**
+         * OpenMeteo空气质量API基础URL
+         */
+        private String airQualityBaseUrl = "https://air-quality-api.open-meteo.com/v1";
+
+        public String getBaseUrl() {
+            return this.baseUrl;
+        }
+
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public String getGeocodingBaseUrl() {
+            return this.geocodingBaseUrl;
+        }
+
+        public void setGeocodingBaseUrl(String geocodingBaseUrl) {
+            this.geocodingBaseUrl = geocodingBaseUrl;
+        }
+
+        public String getAirQualityBaseUrl() {
+            return this.airQualityBaseUrl;
+        }
+
+        public void setAirQualityBaseUrl(String airQualityBaseUrl) {
+            this.airQualityBaseUrl = airQualityBaseUrl;
+        }
+    }
+
+    /**
+     * 上游HTTP连接配置，所有提供方共用一个连接池
+     */
+    public static class Http {
+
+        /**
+         * 与上游建立连接的超时时间
+         */
+        private Duration connectTimeout = Duration.ofSeconds(3);
+
+        /**
+         * 单个上游请求等待响应的超时时间
+         */
+        private Duration readTimeout = Duration.ofSeconds(10);
+
+        /**
+         * 同时进行的上游请求数上限
+         */
+        private int maxConcurrentRequests = 64;
+
+        /**
+         * 请求等待空闲名额的最长时间，超时则直接失败
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(2);
+
+        public Duration getConnectTimeout() {
+            return this.connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return this.readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return this.maxConcurrentRequests;
+        }
+
+        public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+        }
+
+        public Duration getAcquireTimeout() {
+            return this.acquireTimeout;
+        }
+
+        public void setAcquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+    }
+
+    /**
+     * 天气预报缓存配置，空气质量按同样的网格和规则另外缓存
+     */
+    public static class Cache {
+
+        /**
+         * 是否启用缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 经纬度量化的网格大小（度）。同一网格内的坐标共用一份预报，
+         * 默认0.1°，与OpenMeteo全球模型约9-11公里的分辨率相当
+         */
+        private double gridResolution = 0.1;
+
+        /**
+         * 预报数据的更新周期。缓存在下一个周期边界（按UTC对齐）过期，
+         * 默认15分钟，与OpenMeteo当前天气数据的步长一致
+         */
+        private Duration updateInterval = Duration.ofMinutes(15);
+
+        /**
+         * 最多缓存的网格数，超出时淘汰最久未使用的
+         */
+        private int maxSize = 4096;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getGridResolution() {
+            return this.gridResolution;
+        }
+
+        public void setGridResolution(double gridResolution) {
+            this.gridResolution = gridResolution;
+        }
+
+        public Duration getUpdateInterval() {
+            return this.updateInterval;
+        }
+
+        public void setUpdateInterval(Duration updateInterval) {
+            this.updateInterval = updateInterval;
+        }
+
+        public int getMaxSize() {
+            return this.maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * 热点地点预热配置
+     */
+    public static class Warmup {
+
+        /**
+         * 是否预热热点地点，需同时启用缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 预热查询次数最多的多少个网格
+         */
+        private int topN = 100;
+
+        /**
+         * 网格至少被查询多少次（随时间减半）才预热，避免为偶然的查询请求上游
+         */
+        private int minRequests = 3;
+
+        /**
+         * 在每个缓存更新周期边界之后多久预热，留给上游发布新数据的时间
+         */
+        private Duration delay = Duration.ofSeconds(10);
+
+        /**
+         * 查询次数每隔多久减半
+         */
+        private Duration decayInterval = Duration.ofHours(1);
+
+        /**
+         * 热点集合的保存位置，重启后据此先预热再接收请求
+         */
+        private Path stateFile = Path.of(System.getProperty("java.io.tmpdir"), "omnilink-weather-hot.tsv");
+
+        /**
+         * 启动时预热最多等待多久
+         */
+        private Duration startupTimeout = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getTopN() {
+            return this.topN;
+        }
+
+        public void setTopN(int topN) {
+            this.topN = topN;
+        }
+
+        public int getMinRequests() {
+            return this.minRequests;
+        }
+
+        public void setMinRequests(int minRequests) {
+            this.minRequests = minRequests;
+        }
+
+        public Duration getDelay() {
+            return this.delay;
+        }
+
+        public void setDelay(Duration delay) {
+            this.delay = delay;
+        }
+
+        public Duration getDecayInterval() {
+            return this.decayInterval;
+        }
+
+        public void setDecayInterval(Duration decayInterval) {
+            this.decayInterval = decayInterval;
+        }
+
+        public Path getStateFile() {
+            return this.stateFile;
+        }
+
+        public void setStateFile(Path stateFile) {
+            this.stateFile = stateFile;
+        }
+
+        public Duration getStartupTimeout() {
+            return this.startupTimeout;
+        }
+
+        public void setStartupTimeout(Duration startupTimeout) {
+            this.startupTimeout = startupTimeout;
+        }
+    }
+
+    /**
+     * 批量天气预报配置
+     */
+    public static class Batch {
+
+        /**
+         * 每次调用最多查询的地点数
+         */
+        private int maxLocations = 50;
+
+        /**
+         * 每个上游请求携带的地点数。未命中缓存的地点按此拆分后并行请求
+         */
+        private int chunkSize = 10;
+
+        public int getMaxLocations() {
+            return this.maxLocations;
+        }
+
+        public void setMaxLocations(int maxLocations) {
+            this.maxLocations = maxLocations;
+        }
+
+        public int getChunkSize() {
+            return this.chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    /**
+     * 离线地名索引配置
+     */
+    public static class Gazetteer {
+
+        /**
+         * GeoNames城市数据格式的地名文件位置，支持 {@code classpath:} 和 {@code file:}
+         */
+        private String location = "classpath:gazetteer.tsv";
+
+        /**
+         * 地名查询最多返回的地点数
+         */
+        private int maxResults = 10;
+
+        public String getLocation() {
+            return this.location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        public int getMaxResults() {
+            return this.maxResults;
+        }
+
+        public void setMaxResults(int maxResults) {
+            this.maxResults = maxResults;
+        }
+    }
+
+    /**
+     * 工具输出配置
+     */
+    public static class Output {
+
+        /**
+         * 未在调用中指定时使用的输出格式
+         */
+        private OutputFormat format = OutputFormat.TEXT;
+
+        public OutputFormat getFormat() {
+            return this.format;
+        }
+
+        public void setFormat(OutputFormat format) {
+            this.format = format;
+        }
+    }
+
+    /**
+     * 上游超时、降级与熔断配置
+     */
+    public static class Resilience {
+
+        /**
+         * 每次工具调用等待上游的总时长。超时后有旧数据则返回旧数据，请求继续在后台完成并写入缓存
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * 过期的预报和空气质量最多保留多久用于降级返回
+         */
+        private Duration maxStale = Duration.ofHours(6);
+
+        /**
+         * 连续失败多少次后熔断
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * 熔断后多久放行一个探测请求
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        public Duration getTimeout() {
+            return this.timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Duration getMaxStale() {
+            return this.maxStale;
+        }
+
+        public void setMaxStale(Duration maxStale) {
+            this.maxStale = maxStale;
+        }
+
+        public int getFailureThreshold() {
+            return this.failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return this.openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+    }
+}
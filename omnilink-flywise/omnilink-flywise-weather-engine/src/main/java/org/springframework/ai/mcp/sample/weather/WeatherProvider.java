@@ -0,0 +1,73 @@
+package org.springframework.ai.mcp.sample.weather;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 天气数据提供方
+ * <p>
+ * {@link WeatherEngine} 只通过此接口访问上游，缓存、预热、超时降级和地名索引都在引擎中完成，
+ * 提供方只需发起请求并把结果转换为 {@link WeatherData}。默认使用 {@link OpenMeteoProvider}；
+ * 在应用中声明一个此类型的Bean即可替换，如接入其他数据源或在压测中使用替身提供方，工具类无需改动。
+ * 请求上游时应使用 {@link UpstreamClients} 创建的客户端，以共用连接池、熔断和指标。
+ */
+public interface WeatherProvider {
+
+    /**
+     * 提供方名称，用于日志和提示
+     */
+    String name();
+
+    /**
+     * 获取一个坐标的天气预报
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     */
+    WeatherData forecast(double latitude, double longitude);
+
+    /**
+     * 获取多个坐标的天气预报，结果与坐标顺序一致。
+     * 默认逐个请求，支持多坐标查询的提供方应覆盖为一次请求
+     *
+     * @param points 坐标列表，每项为 [纬度, 经度]
+     */
+    default List<WeatherData> forecasts(List<List<Double>> points) {
+        List<WeatherData> forecasts = new ArrayList<>(points.size());
+        for (List<Double> point : points) {
+            forecasts.add(forecast(point.get(0), point.get(1)));
+        }
+        return forecasts;
+    }
+
+    /**
+     * 在线解析本地地名索引中没有的地名，取最匹配的一个结果。默认不支持
+     *
+     * @param name 地名
+     * @throws IllegalArgumentException 未找到地点
+     */
+    default ResolvedLocation geocode(String name) {
+        throw new IllegalArgumentException("未找到地点: " + name);
+    }
+
+    /**
+     * 获取一个坐标当前的空气质量。默认不支持
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @throws UnsupportedOperationException 提供方没有空气质量数据
+     */
+    default AirQuality airQuality(double latitude, double longitude) {
+        throw new UnsupportedOperationException(name() + " 不提供空气质量数据");
+    }
+
+    /**
+     * 获取一个坐标当前生效的气象预警。默认没有预警数据，返回空列表
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     */
+    default List<WeatherAlert> alerts(double latitude, double longitude) {
+        return List.of();
+    }
+}
@@ -7,6 +7,8 @@ plugins {
 }
 
 dependencies {
+    api(project(":omnilink-flywise:omnilink-flywise-common"))
+    api(project(":omnilink-flywise:omnilink-flywise-weather-engine"))
     api(libs.org.springframework.ai.spring.ai.mcp.server.webflux.spring.boot.starter)
     api(libs.org.springframework.spring.web)
 }
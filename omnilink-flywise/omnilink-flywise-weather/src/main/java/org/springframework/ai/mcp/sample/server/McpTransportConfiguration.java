@@ -0,0 +1,55 @@
+package org.springframework.ai.mcp.sample.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.transport.StdioServerTransport;
+import io.modelcontextprotocol.server.transport.WebFluxSseServerTransport;
+import io.modelcontextprotocol.spec.ServerMcpTransport;
+
+import org.springframework.ai.autoconfigure.mcp.server.McpServerProperties;
+import org.springframework.ai.mcp.sample.common.SerializedServerMcpTransport;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.reactive.function.server.RouterFunction;
+
+/**
+ * 用 {@link SerializedServerMcpTransport} 包装自动配置的 MCP 传输，使并发完成的工具调用不丢失响应
+ * <p>
+ * 定义了传输 Bean 后自动配置不再创建传输，所以 SSE 模式下在此创建 WebFlux 传输及其路由，
+ * 再以 {@link Primary} 的包装交给 MCP Server。
+ */
+@Configuration(proxyBeanMethods = false)
+public class McpTransportConfiguration {
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "stdio", havingValue = "true")
+    static class Stdio {
+
+        @Bean
+        public ServerMcpTransport stdioServerTransport() {
+            return new SerializedServerMcpTransport(new StdioServerTransport());
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "stdio", havingValue = "false", matchIfMissing = true)
+    static class Sse {
+
+        @Bean
+        public WebFluxSseServerTransport webFluxTransport(McpServerProperties serverProperties) {
+            return new WebFluxSseServerTransport(new ObjectMapper(), serverProperties.getSseMessageEndpoint());
+        }
+
+        @Bean
+        public RouterFunction<?> webfluxMcpRouterFunction(WebFluxSseServerTransport webFluxTransport) {
+            return webFluxTransport.getRouterFunction();
+        }
+
+        @Bean
+        @Primary
+        public ServerMcpTransport serializedServerMcpTransport(WebFluxSseServerTransport webFluxTransport) {
+            return new SerializedServerMcpTransport(webFluxTransport);
+        }
+    }
+}
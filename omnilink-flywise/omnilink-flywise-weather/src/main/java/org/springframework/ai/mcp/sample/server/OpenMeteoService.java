@@ -1,313 +1,170 @@
 package org.springframework.ai.mcp.sample.server;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import org.springframework.ai.mcp.sample.weather.ForecastRenderer;
+import org.springframework.ai.mcp.sample.weather.GazetteerIndex;
+import org.springframework.ai.mcp.sample.weather.WeatherEngine;
+import org.springframework.ai.mcp.sample.weather.WeatherProperties;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 
 /**
- * 利用OpenMeteo的免费天气API提供天气服务
- * 该API无需API密钥，可以直接使用
+ * 天气工具
+ * <p>
+ * 天气数据、缓存、地名和时区由 {@link WeatherEngine} 提供，输出由 {@link ForecastRenderer} 渲染，
+ * 本类只负责工具的参数和描述。
  */
 @Service
 public class OpenMeteoService {
 
-    // OpenMeteo免费天气API基础URL
-    private static final String BASE_URL = "https://api.open-meteo.com/v1";
+    private final WeatherEngine engine;
 
-    private final RestClient restClient;
+    private final ForecastRenderer renderer;
 
-    public OpenMeteoService() {
-        this.restClient = RestClient.builder()
-                .baseUrl(BASE_URL)
-                .defaultHeader("Accept", "application/json")
-                .defaultHeader("User-Agent", "OpenMeteoClient/1.0")
-                .build();
-    }
-
-    // OpenMeteo天气数据模型
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public record WeatherData(
-            @JsonProperty("latitude") Double latitude,
-            @JsonProperty("longitude") Double longitude,
-            @JsonProperty("timezone") String timezone,
-            @JsonProperty("current") CurrentWeather current,
-            @JsonProperty("daily") DailyForecast daily,
-            @JsonProperty("current_units") CurrentUnits currentUnits) {
-
-        @JsonIgnoreProperties(ignoreUnknown = true)
-        public record CurrentWeather(
-                @JsonProperty("time") String time,
-                @JsonProperty("temperature_2m") Double temperature,
-                @JsonProperty("apparent_temperature") Double feelsLike,
-                @JsonProperty("relative_humidity_2m") Integer humidity,
-                @JsonProperty("precipitation") Double precipitation,
-                @JsonProperty("weather_code") Integer weatherCode,
-                @JsonProperty("wind_speed_10m") Double windSpeed,
-                @JsonProperty("wind_direction_10m") Integer windDirection) {
-        }
-
-        @JsonIgnoreProperties(ignoreUnknown = true)
-        public record CurrentUnits(
-                @JsonProperty("time") String timeUnit,
-                @JsonProperty("temperature_2m") String temperatureUnit,
-                @JsonProperty("relative_humidity_2m") String humidityUnit,
-                @JsonProperty("wind_speed_10m") String windSpeedUnit) {
-        }
-
-        @JsonIgnoreProperties(ignoreUnknown = true)
-        public record DailyForecast(
-                @JsonProperty("time") List<String> time,
-                @JsonProperty("temperature_2m_max") List<Double> tempMax,
-                @JsonProperty("temperature_2m_min") List<Double> tempMin,
-                @JsonProperty("precipitation_sum") List<Double> precipitationSum,
-                @JsonProperty("weather_code") List<Integer> weatherCode,
-                @JsonProperty("wind_speed_10m_max") List<Double> windSpeedMax,
-                @JsonProperty("wind_direction_10m_dominant") List<Integer> windDirection) {
-        }
+    public OpenMeteoService(WeatherEngine engine, ForecastRenderer renderer) {
+        this.engine = engine;
+        this.renderer = renderer;
     }
 
     /**
-     * 获取天气代码对应的描述
+     * 获取指定经纬度的天气预报
+     * 
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @param format    输出格式，为空时使用 weather.output.format
+     * @return 指定位置的天气预报，上游暂时无法更新时为带有数据时间提示的旧预报
+     * @throws RestClientException 如果请求失败且没有可用的旧预报
      */
-    private String getWeatherDescription(int code) {
-        return switch (code) {
-            case 0 -> "晴朗";
-            case 1, 2, 3 -> "多云";
-            case 45, 48 -> "雾";
-            case 51, 53, 55 -> "毛毛雨";
-            case 56, 57 -> "冻雨";
-            case 61, 63, 65 -> "雨";
-            case 66, 67 -> "冻雨";
-            case 71, 73, 75 -> "雪";
-            case 77 -> "雪粒";
-            case 80, 81, 82 -> "阵雨";
-            case 85, 86 -> "阵雪";
-            case 95 -> "雷暴";
-            case 96, 99 -> "雷暴伴有冰雹";
-            default -> "未知天气";
-        };
+    @Tool(description = "获取指定经纬度的天气预报。只知道地名时先用 geocodePlace 查询经纬度")
+    public String getWeatherForecastByLocation(double latitude, double longitude,
+            @ToolParam(description = "输出格式：text 为文字描述，compact 为单位只写一次的紧凑表格；不填使用服务器默认", required = false) String format) {
+        return renderer.render(engine.forecast(latitude, longitude), format);
     }
 
     /**
-     * 获取风向描述
+     * 获取指定经纬度从当前小时起的逐时天气预报
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @param hours     小时数，默认24，最多48
+     * @return 逐时预报表格
      */
-    private String getWindDirection(int degrees) {
-        if (degrees >= 337.5 || degrees < 22.5)
-            return "北风";
-        if (degrees >= 22.5 && degrees < 67.5)
-            return "东北风";
-        if (degrees >= 67.5 && degrees < 112.5)
-            return "东风";
-        if (degrees >= 112.5 && degrees < 157.5)
-            return "东南风";
-        if (degrees >= 157.5 && degrees < 202.5)
-            return "南风";
-        if (degrees >= 202.5 && degrees < 247.5)
-            return "西南风";
-        if (degrees >= 247.5 && degrees < 292.5)
-            return "西风";
-        return "西北风";
+    @Tool(description = "获取指定经纬度从当前小时起的逐时天气预报（温度、降水概率、降水量、天气、风速），最多48小时。只知道地名时先用 geocodePlace 查询经纬度")
+    public String getHourlyForecast(@ToolParam(description = "纬度") double latitude,
+            @ToolParam(description = "经度") double longitude,
+            @ToolParam(description = "小时数，1-48，默认24", required = false) Integer hours) {
+        return renderer.renderHourly(engine.forecast(latitude, longitude), hours);
     }
 
     /**
-     * 获取指定经纬度的天气预报
-     * 
+     * 一次获取指定经纬度的天气预报、空气质量和气象预警，查询过程见 {@link WeatherEngine#report(double, double)}
+     *
      * @param latitude  纬度
      * @param longitude 经度
-     * @return 指定位置的天气预报
-     * @throws RestClientException 如果请求失败
+     * @return 紧凑格式的综合报告，获取失败的部分注明原因
      */
-    @Tool(description = "获取指定经纬度的天气预报")
-    public String getWeatherForecastByLocation(double latitude, double longitude) {
-        // 获取天气数据（当前和未来7天）
-        var weatherData = restClient.get()
-                .uri("/forecast?latitude={latitude}&longitude={longitude}&current=temperature_2m,apparent_temperature,relative_humidity_2m,precipitation,weather_code,wind_speed_10m,wind_direction_10m&daily=temperature_2m_max,temperature_2m_min,precipitation_sum,weather_code,wind_speed_10m_max,wind_direction_10m_dominant&timezone=auto&forecast_days=7",
-                        latitude, longitude)
-                .retrieve()
-                .body(WeatherData.class);
-
-        // 拼接天气信息
-        StringBuilder weatherInfo = new StringBuilder();
-
-        // 添加当前天气信息
-        WeatherData.CurrentWeather current = weatherData.current();
-        String temperatureUnit = weatherData.currentUnits() != null ? weatherData.currentUnits().temperatureUnit()
-                : "°C";
-        String windSpeedUnit = weatherData.currentUnits() != null ? weatherData.currentUnits().windSpeedUnit() : "km/h";
-        String humidityUnit = weatherData.currentUnits() != null ? weatherData.currentUnits().humidityUnit() : "%";
-
-        weatherInfo.append(String.format("""
-                当前天气:
-                温度: %.1f%s (体感温度: %.1f%s)
-                天气: %s
-                风向: %s (%.1f %s)
-                湿度: %d%s
-                降水量: %.1f 毫米
-
-                """,
-                current.temperature(),
-                temperatureUnit,
-                current.feelsLike(),
-                temperatureUnit,
-                getWeatherDescription(current.weatherCode()),
-                getWindDirection(current.windDirection()),
-                current.windSpeed(),
-                windSpeedUnit,
-                current.humidity(),
-                humidityUnit,
-                current.precipitation()));
-
-        // 添加未来天气预报
-        weatherInfo.append("未来天气预报:\n");
-        WeatherData.DailyForecast daily = weatherData.daily();
-
-        for (int i = 0; i < daily.time().size(); i++) {
-            String date = daily.time().get(i);
-            double tempMin = daily.tempMin().get(i);
-            double tempMax = daily.tempMax().get(i);
-            int weatherCode = daily.weatherCode().get(i);
-            double windSpeed = daily.windSpeedMax().get(i);
-            int windDir = daily.windDirection().get(i);
-            double precip = daily.precipitationSum().get(i);
-
-            // 格式化日期
-            LocalDate localDate = LocalDate.parse(date);
-            String formattedDate = localDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd (EEE)"));
+    @Tool(description = "一次获取指定经纬度的天气预报、实时空气质量和气象预警，比分别调用天气和空气质量工具更快。"
+            + "只知道地名时先用 geocodePlace 查询经纬度")
+    public String getWeatherReport(@ToolParam(description = "纬度") double latitude,
+            @ToolParam(description = "经度") double longitude) {
+        return renderer.renderReport(engine.report(latitude, longitude));
+    }
 
-            weatherInfo.append(String.format("""
-                    %s:
-                    温度: %.1f%s ~ %.1f%s
-                    天气: %s
-                    风向: %s (%.1f %s)
-                    降水量: %.1f 毫米
+    /**
+     * 批量查询中的一个地点，填写地名或经纬度
+     */
+    public record Location(
+            @ToolParam(description = "地名，如 北京、上海；已知经纬度时可不填", required = false) @JsonProperty("name") String name,
+            @ToolParam(description = "纬度", required = false) @JsonProperty("latitude") Double latitude,
+            @ToolParam(description = "经度", required = false) @JsonProperty("longitude") Double longitude) {
+    }
 
-                    """,
-                    formattedDate,
-                    tempMin, temperatureUnit,
-                    tempMax, temperatureUnit,
-                    getWeatherDescription(weatherCode),
-                    getWindDirection(windDir),
-                    windSpeed, windSpeedUnit,
-                    precip));
+    /**
+     * 批量获取多个地点的天气预报摘要，查询过程见 {@link WeatherEngine#forecasts(List)}
+     *
+     * @param locations 地点列表，每项为地名或经纬度
+     * @param days      每个地点输出的预报天数，默认3天
+     * @return 每个地点一段的天气摘要
+     */
+    @Tool(description = "批量获取多个地点的天气预报摘要，地点可以是地名或经纬度，适合一次比较多个城市的天气")
+    public String getBatchWeatherForecast(
+            @ToolParam(description = "地点列表，每项填写地名name，或纬度latitude和经度longitude") Location[] locations,
+            @ToolParam(description = "每个地点的预报天数，1-7，默认3", required = false) Integer days) {
+        List<WeatherEngine.LocationQuery> queries = new ArrayList<>(locations == null ? 0 : locations.length);
+        if (locations != null) {
+            for (Location location : locations) {
+                queries.add(new WeatherEngine.LocationQuery(location.name(), location.latitude(), location.longitude()));
+            }
         }
-
-        return weatherInfo.toString();
+        return renderer.renderBatch(engine.forecasts(queries), days);
     }
 
     /**
-     * 获取指定位置的空气质量信息 (使用备用模拟数据)
-     * 注意：由于OpenMeteo的空气质量API可能需要额外配置或不可用，这里提供备用数据
-     * 
-     * @param latitude  纬度
-     * @param longitude 经度
-     * @return 空气质量信息
+     * 在本地地名索引中按地名查找经纬度，不访问网络
+     *
+     * @param name  地名、拼音或英文名，也可以只填开头部分
+     * @param limit 最多返回的地点数
+     * @return 匹配的地点表格，名称完全匹配的在前，同名地点按人口排序
      */
-    @Tool(description = "获取指定位置的空气质量信息（模拟数据）")
-    public String getAirQuality(@ToolParam(description = "纬度") double latitude,
-            @ToolParam(description = "经度") double longitude) {
-
-        try {
-            // 从天气数据中获取基本信息
-            var weatherData = restClient.get()
-                    .uri("/forecast?latitude={latitude}&longitude={longitude}&current=temperature_2m&timezone=auto",
-                            latitude, longitude)
-                    .retrieve()
-                    .body(WeatherData.class);
-
-            // 模拟空气质量数据 - 实际情况下应该从真实API获取
-            // 根据经纬度生成一些随机但相对合理的数据
-            int europeanAqi = (int) (Math.random() * 100) + 1;
-            int usAqi = (int) (europeanAqi * 1.5);
-            double pm10 = Math.random() * 50 + 5;
-            double pm25 = Math.random() * 25 + 2;
-            double co = Math.random() * 500 + 100;
-            double no2 = Math.random() * 40 + 5;
-            double so2 = Math.random() * 20 + 1;
-            double o3 = Math.random() * 80 + 20;
-
-            String aqiLevel = getAqiLevel(europeanAqi);
-            String usAqiLevel = getUsAqiLevel(usAqi);
-
-            // 构建空气质量信息字符串
-            String aqiInfo = String.format("""
-                    空气质量信息 (纬度: %.4f, 经度: %.4f, 时区: %s):
-
-                    欧洲空气质量指数 (EAQI): %d (%s)
-                    美国空气质量指数 (US AQI): %d (%s)
-
-                    详细污染物信息:
-                    PM10: %.1f μg/m³
-                    PM2.5: %.1f μg/m³
-                    一氧化碳 (CO): %.1f μg/m³
-                    二氧化氮 (NO2): %.1f μg/m³
-                    二氧化硫 (SO2): %.1f μg/m³
-                    臭氧 (O3): %.1f μg/m³
-
-                    注意：以上是模拟数据，仅供示例。
-                    """,
-                    latitude, longitude, weatherData.timezone(),
-                    europeanAqi, aqiLevel,
-                    usAqi, usAqiLevel,
-                    pm10, pm25, co, no2, so2, o3);
-
-            return aqiInfo;
-        } catch (Exception e) {
-            return "无法获取空气质量信息: " + e.getMessage();
+    @Tool(description = "根据地名查询经纬度，支持中文名、拼音或英文名（如 北京、beijing、Tokyo），也可以只填开头部分。"
+            + "查询天气前先用它获得经纬度，同名地点按人口排序")
+    public String geocodePlace(@ToolParam(description = "地名") String name,
+            @ToolParam(description = "最多返回的地点数，默认5", required = false) Integer limit) {
+        int maxResults = engine.getProperties().getGazetteer().getMaxResults();
+        List<GazetteerIndex.Place> places = engine.getGazetteer().find(name,
+                limit == null ? Math.min(5, maxResults) : Math.max(1, Math.min(limit, maxResults)));
+        if (places.isEmpty()) {
+            throw new IllegalArgumentException("未找到地点: " + name);
         }
+        return renderer.renderPlaces(places);
     }
 
     /**
-     * 获取欧洲AQI等级描述
+     * 在本地地名索引中查找离经纬度最近的地点，不访问网络
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @return 最近的地点及距离
      */
-    private String getAqiLevel(Integer aqi) {
-        if (aqi <= 20) {
-            return "优 (0-20): 空气质量非常好";
-        } else if (aqi <= 40) {
-            return "良 (20-40): 空气质量良好";
-        } else if (aqi <= 60) {
-            return "中等 (40-60): 对敏感人群可能有影响";
-        } else if (aqi <= 80) {
-            return "较差 (60-80): 对所有人群健康有影响";
-        } else if (aqi <= 100) {
-            return "差 (80-100): 可能对所有人群健康造成损害";
-        } else {
-            return "非常差 (>100): 对所有人群健康有严重影响";
+    @Tool(description = "根据经纬度查询最近的城市及距离")
+    public String reverseGeocode(@ToolParam(description = "纬度") double latitude,
+            @ToolParam(description = "经度") double longitude) {
+        GazetteerIndex.Nearest nearest = engine.getGazetteer().nearest(latitude, longitude);
+        if (nearest == null) {
+            throw new IllegalStateException("地名索引为空");
         }
+        GazetteerIndex.Place place = nearest.place();
+        return String.format("最近的地点: %s (%.4f, %.4f)，距离 %.1f 公里",
+                place.label(), place.latitude(), place.longitude(), nearest.distanceKm());
     }
 
     /**
-     * 获取美国AQI等级描述
+     * 获取指定经纬度当前的空气质量，查询过程见 {@link WeatherEngine#airQuality(double, double)}
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @return 空气质量表格，上游不可用时为带有观测时间的旧数据
+     * @throws RestClientException 如果请求失败且没有可用的旧数据
      */
-    private String getUsAqiLevel(Integer aqi) {
-        if (aqi <= 50) {
-            return "优 (0-50): 空气质量令人满意，污染风险很低";
-        } else if (aqi <= 100) {
-            return "良 (51-100): 空气质量尚可，对极少数敏感人群可能有影响";
-        } else if (aqi <= 150) {
-            return "对敏感人群不健康 (101-150): 敏感人群可能会经历健康影响";
-        } else if (aqi <= 200) {
-            return "不健康 (151-200): 所有人可能开始经历健康影响";
-        } else if (aqi <= 300) {
-            return "非常不健康 (201-300): 健康警告，所有人可能经历更严重的健康影响";
-        } else {
-            return "危险 (>300): 健康警报，所有人更可能受到影响";
-        }
+    @Tool(description = "获取指定位置当前的空气质量，包括欧洲和美国空气质量指数以及PM2.5、PM10、臭氧等污染物浓度")
+    public String getAirQuality(@ToolParam(description = "纬度") double latitude,
+            @ToolParam(description = "经度") double longitude) {
+        return renderer.renderAirQuality(engine.airQuality(latitude, longitude));
     }
 
     public static void main(String[] args) {
-        OpenMeteoService service = new OpenMeteoService();
+        WeatherProperties properties = new WeatherProperties();
+        OpenMeteoService service = new OpenMeteoService(WeatherEngine.create(properties),
+                new ForecastRenderer(properties.getOutput()));
         // 测试北京的天气预报
         System.out.println("北京天气预报:");
-        System.out.println(service.getWeatherForecastByLocation(39.9042, 116.4074));
+        System.out.println(service.getWeatherForecastByLocation(39.9042, 116.4074, null));
 
         // 测试北京的空气质量
         System.out.println("北京空气质量:");
@@ -0,0 +1,32 @@
+package com.alibaba.cloud.ai.example.common;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Contents of the {@code <server>-mcp-tools-index.json} entry: one version and content hash
+ * per tool, whose full definition is in its own {@code <server>-mcp-tool-<tool>.json} entry.
+ * <p>
+ * Clients watch only this small entry. A change of {@link #version()} tells them something
+ * changed, and comparing the per-tool hashes with what they hold tells them which tool entries
+ * to fetch.
+ *
+ * @param version incremented on every change of the index
+ * @param tools   entry per tool, by tool name
+ */
+public record ToolIndex(long version, Map<String, Entry> tools) {
+
+    public static final ToolIndex EMPTY = new ToolIndex(0, Map.of());
+
+    public ToolIndex {
+        tools = tools == null ? Map.of() : new TreeMap<>(tools);
+    }
+
+    /**
+     * @param version incremented whenever the tool's definition changes
+     * @param hash    SHA-256 of the tool's definition, also stored in its entry
+     * @param enabled whether the tool's policy lets it be listed and called
+     */
+    public record Entry(long version, String hash, boolean enabled) {
+    }
+}
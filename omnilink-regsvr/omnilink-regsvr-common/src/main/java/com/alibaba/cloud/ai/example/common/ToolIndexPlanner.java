@@ -0,0 +1,167 @@
+package com.alibaba.cloud.ai.example.common;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+/**
+ * Works out what to write to bring a server's {@link ToolIndex} in line with its tools, for
+ * whichever registry holds it.
+ * <p>
+ * Each tool's definition is hashed in a canonical form, with object keys sorted, so that an
+ * unchanged tool hashes the same on every start and every instance. A tool whose hash changed
+ * gets its version incremented and its entry rewritten; switching a tool on or off changes
+ * only the index. Publishers write the changed entries first, then the index, then remove the
+ * entries of tools that are gone, so a client that sees the new index always finds the
+ * entries it names.
+ */
+public class ToolIndexPlanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolIndexPlanner.class);
+
+    public static final String INDEX_SUFFIX = "-mcp-tools-index.json";
+
+    public static final String TOOL_INFIX = "-mcp-tool-";
+
+    private static final TypeReference<Map<String, Object>> DOCUMENT_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * What to write for one publish.
+     *
+     * @param index    the index to write, or the previous one if nothing changed
+     * @param changed  entry content with its hash, by name of the tool to rewrite
+     * @param switched tools only switched on or off
+     * @param removed  tools whose entries to remove once the index is written
+     */
+    public record Plan(ToolIndex index, Map<String, String> changed, List<String> switched, Set<String> removed) {
+
+        public boolean isEmpty() {
+            return changed.isEmpty() && switched.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    private final String serverName;
+    private final ObjectMapper objectMapper;
+
+    public ToolIndexPlanner(String serverName, ObjectMapper objectMapper) {
+        this.serverName = serverName;
+        this.objectMapper = objectMapper.copy()
+                .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public String indexId() {
+        return serverName + INDEX_SUFFIX;
+    }
+
+    public String toolId(String toolName) {
+        return serverName + TOOL_INFIX + toolName + ".json";
+    }
+
+    /**
+     * @param previous the index currently in the registry
+     * @param disabled names of the tools whose policy switches them off, or {@code null} to
+     *                 keep the switch of each tool as it is in {@code previous}
+     * @throws IllegalArgumentException if a tool has an input schema that is not valid JSON
+     */
+    public Plan plan(ToolIndex previous, List<ToolDefinition> tools, Set<String> disabled) {
+        Map<String, ToolIndex.Entry> next = new TreeMap<>();
+        Map<String, String> changed = new TreeMap<>();
+        List<String> switched = new ArrayList<>();
+        for (ToolDefinition tool : tools) {
+            String name = tool.name();
+            Map<String, Object> entry = entry(tool);
+            String hash = hash(write(entry));
+            ToolIndex.Entry before = previous.tools().get(name);
+            boolean enabled = disabled != null ? !disabled.contains(name) : before == null || before.enabled();
+            if (before != null && before.hash().equals(hash)) {
+                next.put(name, new ToolIndex.Entry(before.version(), hash, enabled));
+                if (before.enabled() != enabled) {
+                    switched.add(name);
+                }
+            } else {
+                next.put(name, new ToolIndex.Entry(before == null ? 1 : before.version() + 1, hash, enabled));
+                entry.put("hash", hash);
+                changed.put(name, write(entry));
+            }
+        }
+        Set<String> removed = new TreeSet<>(previous.tools().keySet());
+        removed.removeAll(next.keySet());
+        if (changed.isEmpty() && switched.isEmpty() && removed.isEmpty()) {
+            return new Plan(previous, changed, switched, removed);
+        }
+        return new Plan(new ToolIndex(previous.version() + 1, next), changed, switched, removed);
+    }
+
+    /**
+     * Reads an index from the registry; a missing or malformed one reads as {@link ToolIndex#EMPTY}.
+     */
+    public ToolIndex parse(String content) {
+        if (content == null || content.isBlank()) {
+            return ToolIndex.EMPTY;
+        }
+        try {
+            return objectMapper.readValue(content, ToolIndex.class);
+        } catch (JsonProcessingException e) {
+            // Rebuilt from scratch; versions restart but the hashes stay right
+            logger.warn("Replacing malformed tool index of {}: {}", serverName, e.getOriginalMessage());
+            return ToolIndex.EMPTY;
+        }
+    }
+
+    public String write(ToolIndex index) {
+        return write((Object) index);
+    }
+
+    /**
+     * The canonical definition of a tool: name, description and input schema.
+     */
+    private Map<String, Object> entry(ToolDefinition tool) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("name", tool.name());
+        entry.put("description", tool.description());
+        try {
+            entry.put("inputSchema",
+                    tool.inputSchema() == null ? Map.of() : objectMapper.readValue(tool.inputSchema(), DOCUMENT_TYPE));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Tool " + tool.name() + " has an invalid input schema", e);
+        }
+        return entry;
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hash(String content) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.alibaba.cloud.ai.example.common;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+/**
+ * Publishes a server's tools to a registry as a {@link ToolIndex} and one entry per tool, as
+ * planned by {@link ToolIndexPlanner}.
+ */
+public interface ToolPublisher {
+
+    /**
+     * Brings the registry in line with {@code tools}.
+     *
+     * @param disabled names of the tools whose policy switches them off, or {@code null} to
+     *                 keep the switches already in the registry
+     * @return the index now in the registry
+     * @throws Exception if the registry cannot be written
+     */
+    ToolIndex publish(List<ToolDefinition> tools, Set<String> disabled) throws Exception;
+}
@@ -0,0 +1,28 @@
+/*
+ * This file was generated by the Gradle 'init' task.
+ */
+
+plugins {
+    id("buildlogic.java-conventions")
+}
+
+dependencies {
+    api(libs.org.springframework.boot.spring.boot.autoconfigure)
+    api(libs.org.springframework.ai.spring.ai.mcp.client.spring.boot.autoconfigure)
+    api(libs.org.springframework.ai.spring.ai.mcp)
+    api(libs.com.alibaba.nacos.nacos.client)
+}
+
+// Shares the sample helpers in src/test with omnilink-regsvr-embedded
+val testJar by tasks.registering(Jar::class) {
+    archiveClassifier.set("tests")
+    from(sourceSets.test.get().output)
+}
+
+val testArtifacts by configurations.creating
+
+artifacts {
+    add(testArtifacts.name, testJar)
+}
+
+description = "omnilink-regsvr-discovery"
@@ -0,0 +1,475 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.ClientMcpTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCNotification;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCRequest;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * An MCP client transport spreading requests over all endpoints of one server.
+ * <p>
+ * It holds one transport per endpoint, created by the given factory. {@code initialize} and
+ * every notification go to all endpoints, and only the first {@code initialize} response is
+ * passed on, so that the client sees one server with one session. Each other request goes to
+ * the endpoint chosen by an {@link EndpointBalancer}, which learns from the responses:
+ * their latency, and JSON-RPC internal and server errors as failures. Replies to requests the
+ * server sends go back to the endpoint that sent them.
+ * <p>
+ * {@link #update} follows registry changes: endpoints that appear are connected and given the
+ * {@code initialize} request and {@code notifications/initialized} notification the client
+ * already sent, those that disappear are closed. Endpoints whose connection failed, broke or
+ * stopped answering are reconnected every
+ * {@link McpDiscoveryProperties.Balancer#getReconnectInterval()}. A server the registry has not
+ * reported yet starts without endpoints and is connected once it is: until then messages wait
+ * up to {@link McpDiscoveryProperties.Balancer#getRequestTimeout()}, while a server reported
+ * with no available endpoint rejects them at once.
+ * <p>
+ * A request that cannot be sent is retried once on another endpoint; requests that were sent
+ * but got no answer are failed, not retried.
+ */
+public class BalancedMcpTransport implements ClientMcpTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalancedMcpTransport.class);
+
+    private static final Duration SWEEP_INTERVAL = Duration.ofSeconds(1);
+
+    // JSON-RPC reserves -32000 to -32099 for implementation-defined server errors
+    private static final int SERVER_ERROR_MIN = -32099;
+    private static final int SERVER_ERROR_MAX = -32000;
+
+    private record Flight(Connection connection, EndpointBalancer.Lease lease) {
+    }
+
+    private static final class Connection {
+
+        final McpEndpoint endpoint;
+        final ClientMcpTransport transport;
+        volatile boolean broken;
+
+        Connection(McpEndpoint endpoint, ClientMcpTransport transport) {
+            this.endpoint = endpoint;
+            this.transport = transport;
+        }
+
+        String url() {
+            return endpoint.url();
+        }
+    }
+
+    private final String serverName;
+    private final Function<String, ClientMcpTransport> transportFactory;
+    private final McpDiscoveryProperties.Balancer properties;
+    private final ObjectMapper objectMapper;
+    private final EndpointBalancer balancer;
+    private final ScheduledExecutorService sweeper;
+
+    // Connected endpoints by URL; guarded by this for changes
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    private final Set<String> opening = new HashSet<>();
+    private final Map<Object, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Map<Object, Connection> serverRequests = new ConcurrentHashMap<>();
+    private final Map<Object, Sinks.One<JSONRPCResponse>> replays = new ConcurrentHashMap<>();
+    private final AtomicLong replayIds = new AtomicLong();
+    private final AtomicBoolean initializeAnswered = new AtomicBoolean();
+    private final Sinks.One<Void> firstReady = Sinks.one();
+
+    private volatile McpServerDescriptor server;
+    private volatile boolean reported;
+    private volatile Function<Mono<JSONRPCMessage>, Mono<JSONRPCMessage>> handler;
+    private volatile JSONRPCRequest initialize;
+    private volatile JSONRPCNotification initialized;
+    private volatile boolean closed;
+
+    public BalancedMcpTransport(McpServerDescriptor server, Function<String, ClientMcpTransport> transportFactory,
+            McpDiscoveryProperties.Balancer properties, ObjectMapper objectMapper) {
+        this.server = server;
+        this.reported = true;
+        this.serverName = server.name();
+        this.transportFactory = transportFactory;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.balancer = new EndpointBalancer(properties);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-balancer-" + serverName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * A transport for a server the registry has not reported yet; its endpoints come with the
+     * first {@link #update}.
+     */
+    public BalancedMcpTransport(String serverName, Function<String, ClientMcpTransport> transportFactory,
+            McpDiscoveryProperties.Balancer properties, ObjectMapper objectMapper) {
+        this(new McpServerDescriptor(serverName, null, null, true, null, List.of(), List.of()), transportFactory,
+                properties, objectMapper);
+        this.reported = false;
+    }
+
+    public EndpointBalancer balancer() {
+        return balancer;
+    }
+
+    /**
+     * Completes once the first endpoint is connected, or fails if none can be. Without
+     * endpoints it completes at once, and they are connected as the registry reports them.
+     */
+    @Override
+    public Mono<Void> connect(Function<Mono<JSONRPCMessage>, Mono<JSONRPCMessage>> handler) {
+        this.handler = handler;
+        sweeper.scheduleWithFixedDelay(this::expire, SWEEP_INTERVAL.toMillis(), SWEEP_INTERVAL.toMillis(),
+                TimeUnit.MILLISECONDS);
+        long reconnect = Math.max(1, properties.getReconnectInterval().toMillis());
+        sweeper.scheduleWithFixedDelay(this::reconnect, reconnect, reconnect, TimeUnit.MILLISECONDS);
+        List<McpEndpoint> endpoints = available(server);
+        if (endpoints.isEmpty()) {
+            logger.info("MCP server {} has no endpoints yet, connecting once the registry reports some", serverName);
+            return Mono.empty();
+        }
+        Sinks.One<Void> ready = Sinks.one();
+        AtomicInteger pending = new AtomicInteger(endpoints.size());
+        for (McpEndpoint endpoint : endpoints) {
+            open(endpoint).subscribe(null, e -> {
+                if (pending.decrementAndGet() == 0) {
+                    ready.tryEmitError(new IllegalStateException(
+                            "No endpoint of MCP server " + serverName + " is reachable", e));
+                }
+            }, () -> {
+                pending.decrementAndGet();
+                ready.tryEmitEmpty();
+            });
+        }
+        return ready.asMono();
+    }
+
+    /**
+     * Follows a change of the server in the registry.
+     */
+    public void update(McpServerDescriptor server) {
+        if (!serverName.equals(server.name())) {
+            return;
+        }
+        this.server = server;
+        this.reported = true;
+        Set<String> urls = new HashSet<>();
+        for (McpEndpoint endpoint : available(server)) {
+            urls.add(endpoint.url());
+        }
+        List<Connection> removed = new ArrayList<>();
+        synchronized (this) {
+            for (Connection connection : connections.values()) {
+                if (!urls.contains(connection.url())) {
+                    connections.remove(connection.url());
+                    balancer.remove(connection.endpoint);
+                    removed.add(connection);
+                }
+            }
+        }
+        for (Connection connection : removed) {
+            logger.info("MCP server {} endpoint {} left", serverName, connection.url());
+            connection.transport.closeGracefully().subscribe(null, e -> {
+            });
+        }
+        for (McpEndpoint endpoint : available(server)) {
+            if (connections.containsKey(endpoint.url())) {
+                // Picks up weight changes
+                balancer.add(endpoint);
+            }
+        }
+        if (handler != null) {
+            reconnect();
+        }
+    }
+
+    /**
+     * The MCP session sends {@code initialize} without waiting for {@link #connect}, so
+     * messages wait up to the request timeout for the first endpoint to be ready. Until one
+     * has been, they are rejected at once if the registry reports no available endpoint.
+     */
+    @Override
+    public Mono<Void> sendMessage(JSONRPCMessage message) {
+        return Mono.defer(() -> {
+                    if (connections.isEmpty() && reported && available(server).isEmpty()) {
+                        return Mono.<Void>error(new IllegalStateException(
+                                "MCP server " + serverName + " has no available endpoint"));
+                    }
+                    return firstReady.asMono().timeout(properties.getRequestTimeout(),
+                            Mono.error(() -> new IllegalStateException(
+                                    "No endpoint of MCP server " + serverName + " is connected")));
+                })
+                .then(Mono.defer(() -> send(message)));
+    }
+
+    private Mono<Void> send(JSONRPCMessage message) {
+        if (message instanceof JSONRPCRequest request) {
+            if (McpSchema.METHOD_INITIALIZE.equals(request.method())) {
+                List<Connection> targets;
+                synchronized (this) {
+                    initialize = request;
+                    initializeAnswered.set(false);
+                    targets = List.copyOf(connections.values());
+                }
+                return broadcast(targets, request);
+            }
+            return route(request, true);
+        }
+        if (message instanceof JSONRPCNotification notification) {
+            List<Connection> targets;
+            synchronized (this) {
+                if (McpSchema.METHOD_NOTIFICATION_INITIALIZED.equals(notification.method())) {
+                    initialized = notification;
+                }
+                targets = List.copyOf(connections.values());
+            }
+            return broadcast(targets, notification);
+        }
+        if (message instanceof JSONRPCResponse response) {
+            Connection connection = serverRequests.remove(response.id());
+            if (connection == null) {
+                logger.debug("Dropping response {} to MCP server {}: no endpoint asked for it", response.id(),
+                        serverName);
+                return Mono.empty();
+            }
+            return connection.transport.sendMessage(response);
+        }
+        return Mono.error(new IllegalArgumentException("Unsupported message type " + message.getClass()));
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        List<Connection> all;
+        synchronized (this) {
+            closed = true;
+            all = List.copyOf(connections.values());
+            connections.clear();
+        }
+        sweeper.shutdownNow();
+        for (Flight flight : inFlight.values()) {
+            flight.lease().cancel();
+        }
+        inFlight.clear();
+        return Flux.fromIterable(all)
+                .flatMap(connection -> connection.transport.closeGracefully().onErrorResume(e -> Mono.empty()))
+                .then();
+    }
+
+    @Override
+    public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+        return objectMapper.convertValue(data, typeRef);
+    }
+
+    private Mono<Void> route(JSONRPCRequest request, boolean retry) {
+        EndpointBalancer.Lease lease;
+        try {
+            lease = balancer.acquire();
+        } catch (IllegalStateException e) {
+            return Mono.error(new IllegalStateException("No endpoint of MCP server " + serverName + " is available"));
+        }
+        Connection connection = connections.get(lease.endpoint().url());
+        if (connection == null) {
+            // Removed between the choice and now
+            lease.cancel();
+            return retry ? route(request, false)
+                    : Mono.error(new IllegalStateException("No endpoint of MCP server " + serverName + " is available"));
+        }
+        inFlight.put(request.id(), new Flight(connection, lease));
+        return connection.transport.sendMessage(request).onErrorResume(e -> {
+            inFlight.remove(request.id());
+            lease.failure();
+            connection.broken = true;
+            logger.warn("Sending {} to MCP server {} endpoint {} failed: {}", request.method(), serverName,
+                    connection.url(), e.getMessage());
+            return retry ? route(request, false) : Mono.error(e);
+        });
+    }
+
+    private Mono<Void> broadcast(List<Connection> targets, JSONRPCMessage message) {
+        if (targets.isEmpty()) {
+            return Mono.error(new IllegalStateException("No endpoint of MCP server " + serverName + " is connected"));
+        }
+        return Flux.fromIterable(targets)
+                .flatMap(connection -> connection.transport.sendMessage(message).onErrorResume(e -> {
+                    connection.broken = true;
+                    logger.warn("Sending to MCP server {} endpoint {} failed: {}", serverName, connection.url(),
+                            e.getMessage());
+                    return Mono.empty();
+                }))
+                .then();
+    }
+
+    private Mono<JSONRPCMessage> receive(Connection connection, JSONRPCMessage message) {
+        if (message instanceof JSONRPCResponse response) {
+            Sinks.One<JSONRPCResponse> replay = replays.remove(response.id());
+            if (replay != null) {
+                replay.tryEmitValue(response);
+                return Mono.empty();
+            }
+            JSONRPCRequest init = initialize;
+            if (init != null && Objects.equals(response.id(), init.id())) {
+                return initializeAnswered.compareAndSet(false, true) ? handler.apply(Mono.just(message))
+                        : Mono.empty();
+            }
+            Flight flight = inFlight.remove(response.id());
+            if (flight != null) {
+                if (isServerError(response.error())) {
+                    flight.lease().failure();
+                } else {
+                    flight.lease().success();
+                }
+            }
+        } else if (message instanceof JSONRPCRequest request) {
+            serverRequests.put(request.id(), connection);
+        }
+        return handler.apply(Mono.just(message));
+    }
+
+    /**
+     * Connects to an endpoint, initializes it if the client already has, and then makes it
+     * available to the balancer, replacing an earlier connection to the same endpoint.
+     */
+    private Mono<Void> open(McpEndpoint endpoint) {
+        synchronized (this) {
+            if (closed || !opening.add(endpoint.url())) {
+                return Mono.empty();
+            }
+        }
+        Connection connection = new Connection(endpoint, transportFactory.apply(server.baseUrl(endpoint)));
+        return connection.transport.connect(mono -> mono.flatMap(message -> receive(connection, message)))
+                .then(Mono.defer(() -> activate(connection, null)))
+                .doOnError(e -> {
+                    logger.warn("Connecting to MCP server {} endpoint {} failed: {}", serverName, endpoint.url(),
+                            e.getMessage());
+                    connection.transport.closeGracefully().subscribe(null, closeError -> {
+                    });
+                })
+                .doFinally(signal -> {
+                    synchronized (this) {
+                        opening.remove(endpoint.url());
+                    }
+                })
+                .then();
+    }
+
+    private Mono<Void> replayInitialize(Connection connection, JSONRPCRequest init) {
+        String id = "replay-" + replayIds.incrementAndGet();
+        Sinks.One<JSONRPCResponse> response = Sinks.one();
+        replays.put(id, response);
+        return connection.transport
+                .sendMessage(new JSONRPCRequest(init.jsonrpc(), init.method(), id, init.params()))
+                .then(response.asMono())
+                .timeout(properties.getRequestTimeout())
+                .flatMap(result -> result.error() == null ? Mono.<Void>empty()
+                        : Mono.error(new IllegalStateException(result.error().message())))
+                .doFinally(signal -> replays.remove(id));
+    }
+
+    /**
+     * Makes a connection available once it has seen the client's current {@code initialize}
+     * request, replaying that first if {@code initializedWith} is not it.
+     */
+    private Mono<Void> activate(Connection connection, JSONRPCRequest initializedWith) {
+        JSONRPCRequest init = initialize;
+        if (init != initializedWith) {
+            return replayInitialize(connection, init).then(Mono.defer(() -> activate(connection, init)));
+        }
+        boolean wanted;
+        Connection previous = null;
+        JSONRPCNotification notification = null;
+        synchronized (this) {
+            if (initialize != initializedWith) {
+                // The client sent initialize just now, without this connection
+                return Mono.defer(() -> activate(connection, initializedWith));
+            }
+            wanted = !closed && available(server).stream().anyMatch(e -> e.url().equals(connection.url()));
+            if (wanted) {
+                previous = connections.put(connection.url(), connection);
+                balancer.add(connection.endpoint);
+                notification = initialized;
+            }
+        }
+        if (!wanted) {
+            // Left the registry while connecting
+            connection.transport.closeGracefully().subscribe(null, e -> {
+            });
+            return Mono.empty();
+        }
+        logger.info("MCP server {} endpoint {} {}", serverName, connection.url(),
+                previous == null ? "joined" : "reconnected");
+        firstReady.tryEmitEmpty();
+        if (previous != null) {
+            previous.transport.closeGracefully().subscribe(null, e -> {
+            });
+        }
+        if (notification != null) {
+            connection.transport.sendMessage(notification).subscribe(null, e -> connection.broken = true);
+        }
+        return Mono.empty();
+    }
+
+    /**
+     * Opens endpoints that are missing and reopens broken ones.
+     */
+    private void reconnect() {
+        if (closed) {
+            return;
+        }
+        for (McpEndpoint endpoint : available(server)) {
+            Connection connection = connections.get(endpoint.url());
+            if (connection == null || connection.broken) {
+                open(endpoint).subscribe(null, e -> {
+                });
+            }
+        }
+    }
+
+    /**
+     * Fails requests that got no response within the request timeout. A silent endpoint may
+     * have lost its session, so its connection is reopened too.
+     */
+    private void expire() {
+        long deadline = System.nanoTime() - properties.getRequestTimeout().toNanos();
+        inFlight.forEach((id, flight) -> {
+            if (flight.lease().startNanos() < deadline && inFlight.remove(id, flight)) {
+                flight.lease().failure();
+                flight.connection().broken = true;
+                logger.warn("MCP server {} endpoint {} did not answer request {} within {}", serverName,
+                        flight.connection().url(), id, properties.getRequestTimeout());
+            }
+        });
+    }
+
+    private static List<McpEndpoint> available(McpServerDescriptor server) {
+        return server.enabled() ? server.endpoints() : List.of();
+    }
+
+    private static boolean isServerError(McpSchema.JSONRPCResponse.JSONRPCError error) {
+        return error != null && (error.code() == McpSchema.ErrorCodes.INTERNAL_ERROR
+                || error.code() >= SERVER_ERROR_MIN && error.code() <= SERVER_ERROR_MAX);
+    }
+}
@@ -0,0 +1,312 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load-aware choice among the endpoints of one MCP server.
+ * <p>
+ * Each request goes to the cheaper of two randomly picked endpoints (power of two choices),
+ * where the cost is the peak EWMA of response latency times the requests in flight plus one,
+ * divided by the endpoint's weight. A busy or slow pod thus loses traffic as soon as its
+ * queue or latency grows, without the herding that always picking the single best causes.
+ * <p>
+ * The weight is the instance weight, overridden by a {@code weight} entry in the instance
+ * metadata. New endpoints, and endpoints returning from ejection, start at a tenth of their
+ * weight and ramp up linearly over {@link McpDiscoveryProperties.Balancer#getSlowStart()}.
+ * After {@link McpDiscoveryProperties.Balancer#getConsecutiveFailures()} failures in a row an
+ * endpoint is ejected for {@link McpDiscoveryProperties.Balancer#getEjection()}, longer each
+ * time it is ejected again, but never more than
+ * {@link McpDiscoveryProperties.Balancer#getMaxEjectionPercent()} of the endpoints at once.
+ */
+public class EndpointBalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EndpointBalancer.class);
+
+    // Weight share a new endpoint starts with
+    private static final double MIN_RAMP = 0.1;
+
+    // Latency assumed before the first response, in nanoseconds
+    private static final double DEFAULT_LATENCY = 100_000_000;
+
+    // Ejections beyond this many in a row no longer lengthen the ejection time
+    private static final int MAX_EJECTION_MULTIPLIER = 10;
+
+    /**
+     * Load of one endpoint, for logging and inspection.
+     *
+     * @param latencyMillis peak EWMA latency
+     * @param weight        weight after slow start, 0 while ejected
+     */
+    public record EndpointLoad(McpEndpoint endpoint, int outstanding, double latencyMillis, double weight,
+            boolean ejected) {
+    }
+
+    /**
+     * One request in flight to {@link #endpoint()}. Exactly one of {@link #success()},
+     * {@link #failure()} and {@link #cancel()} should be called when it ends; later calls are
+     * ignored.
+     */
+    public final class Lease {
+
+        private final Stats stats;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Lease(Stats stats) {
+            this.stats = stats;
+            stats.outstanding.incrementAndGet();
+        }
+
+        public McpEndpoint endpoint() {
+            return stats.endpoint;
+        }
+
+        public long startNanos() {
+            return start;
+        }
+
+        public void success() {
+            if (done.compareAndSet(false, true)) {
+                stats.outstanding.decrementAndGet();
+                stats.success(System.nanoTime() - start);
+            }
+        }
+
+        public void failure() {
+            if (done.compareAndSet(false, true)) {
+                stats.outstanding.decrementAndGet();
+                failed(stats);
+            }
+        }
+
+        /**
+         * Ends the request without judging the endpoint, when it was never sent.
+         */
+        public void cancel() {
+            if (done.compareAndSet(false, true)) {
+                stats.outstanding.decrementAndGet();
+            }
+        }
+    }
+
+    private final class Stats {
+
+        volatile McpEndpoint endpoint;
+        volatile double weight;
+        final AtomicInteger outstanding = new AtomicInteger();
+
+        // Guarded by this
+        double latency;
+        long lastObserved;
+        long rampStart;
+        long ejectedUntil;
+        int consecutiveFailures;
+        int ejections;
+
+        Stats(McpEndpoint endpoint, double latency, long now) {
+            update(endpoint);
+            this.latency = latency;
+            this.lastObserved = now;
+            this.rampStart = now;
+        }
+
+        void update(McpEndpoint endpoint) {
+            this.endpoint = endpoint;
+            this.weight = weight(endpoint);
+        }
+
+        /**
+         * Peak EWMA: a slower response is taken at once, faster ones are blended in with a
+         * weight that grows with the time since the last observation.
+         */
+        synchronized void success(long nanos) {
+            long now = System.nanoTime();
+            double decay = Math.exp(-(double) (now - lastObserved) / decayNanos);
+            latency = nanos > latency ? nanos : latency * decay + nanos * (1 - decay);
+            lastObserved = now;
+            consecutiveFailures = 0;
+        }
+
+        synchronized boolean ejected(long now) {
+            return now < ejectedUntil;
+        }
+
+        synchronized double effectiveWeight(long now) {
+            if (now < ejectedUntil) {
+                return 0;
+            }
+            double ramp = Math.min(1, Math.max(MIN_RAMP, (double) (now - rampStart) / slowStartNanos));
+            return weight * ramp;
+        }
+
+        synchronized double cost(long now) {
+            double effectiveWeight = effectiveWeight(now);
+            return effectiveWeight <= 0 ? Double.MAX_VALUE : latency * (outstanding.get() + 1) / effectiveWeight;
+        }
+
+        synchronized double latency() {
+            return latency;
+        }
+    }
+
+    private final McpDiscoveryProperties.Balancer properties;
+    private final long decayNanos;
+    private final long slowStartNanos;
+    private final Map<String, Stats> endpoints = new ConcurrentHashMap<>();
+
+    // Serializes ejection decisions, so the cap holds under concurrent failures. Taken before,
+    // never while holding, the lock of a Stats
+    private final Object ejectionLock = new Object();
+
+    public EndpointBalancer(McpDiscoveryProperties.Balancer properties) {
+        this.properties = properties;
+        this.decayNanos = Math.max(1, properties.getDecay().toNanos());
+        this.slowStartNanos = Math.max(1, properties.getSlowStart().toNanos());
+    }
+
+    /**
+     * Adds an endpoint, ramping it up from a tenth of its weight, or refreshes the weight of a
+     * known one.
+     */
+    public void add(McpEndpoint endpoint) {
+        long now = System.nanoTime();
+        endpoints.compute(endpoint.url(), (url, stats) -> {
+            if (stats != null) {
+                stats.update(endpoint);
+                return stats;
+            }
+            // Start from the peers' average, so the newcomer is neither shunned nor flooded
+            return new Stats(endpoint, averageLatency(), now);
+        });
+    }
+
+    public void remove(McpEndpoint endpoint) {
+        endpoints.remove(endpoint.url());
+    }
+
+    public boolean isEmpty() {
+        return endpoints.isEmpty();
+    }
+
+    /**
+     * Picks an endpoint for one request.
+     *
+     * @throws IllegalStateException if there are no endpoints
+     */
+    public Lease acquire() {
+        long now = System.nanoTime();
+        List<Stats> candidates = new ArrayList<>(endpoints.size());
+        for (Stats stats : endpoints.values()) {
+            if (stats.effectiveWeight(now) > 0) {
+                candidates.add(stats);
+            }
+        }
+        if (candidates.isEmpty()) {
+            // Every endpoint is ejected or has weight 0: better to try one than to fail outright
+            candidates.addAll(endpoints.values());
+        }
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException("No endpoints available");
+        }
+        if (candidates.size() == 1) {
+            return new Lease(candidates.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Stats a = candidates.get(first);
+        Stats b = candidates.get(second);
+        return new Lease(a.cost(now) <= b.cost(now) ? a : b);
+    }
+
+    public List<EndpointLoad> loads() {
+        long now = System.nanoTime();
+        return endpoints.values().stream()
+                .map(stats -> new EndpointLoad(stats.endpoint, stats.outstanding.get(), stats.latency() / 1e6,
+                        stats.effectiveWeight(now), stats.ejected(now)))
+                .toList();
+    }
+
+    private void failed(Stats stats) {
+        long now = System.nanoTime();
+        synchronized (stats) {
+            stats.consecutiveFailures++;
+            if (!shouldEject(stats, now)) {
+                return;
+            }
+        }
+        // Count the ejected endpoints without holding this endpoint's lock: counting takes the
+        // lock of each endpoint in turn, and two failing endpoints must not wait on each other
+        synchronized (ejectionLock) {
+            if (ejectedCount(now) + 1 > endpoints.size() * properties.getMaxEjectionPercent() / 100) {
+                return;
+            }
+            synchronized (stats) {
+                // A success or another failure may have come in since the check above
+                if (shouldEject(stats, now)) {
+                    eject(stats, now);
+                }
+            }
+        }
+    }
+
+    // Guarded by the lock of stats
+    private boolean shouldEject(Stats stats, long now) {
+        return stats.consecutiveFailures >= properties.getConsecutiveFailures() && now >= stats.ejectedUntil;
+    }
+
+    // Guarded by the lock of stats
+    private void eject(Stats stats, long now) {
+        int multiplier = Math.min(++stats.ejections, MAX_EJECTION_MULTIPLIER);
+        stats.ejectedUntil = now + properties.getEjection().toNanos() * multiplier;
+        // Ramp up again once the ejection ends
+        stats.rampStart = stats.ejectedUntil;
+        stats.consecutiveFailures = 0;
+        logger.warn("Ejecting MCP endpoint {} for {} after {} consecutive failures", stats.endpoint.url(),
+                properties.getEjection().multipliedBy(multiplier), properties.getConsecutiveFailures());
+    }
+
+    private int ejectedCount(long now) {
+        int ejected = 0;
+        for (Stats stats : endpoints.values()) {
+            if (stats.ejected(now)) {
+                ejected++;
+            }
+        }
+        return ejected;
+    }
+
+    private double averageLatency() {
+        Collection<Stats> peers = endpoints.values();
+        return peers.isEmpty() ? DEFAULT_LATENCY
+                : peers.stream().mapToDouble(Stats::latency).average().orElse(DEFAULT_LATENCY);
+    }
+
+    /**
+     * The {@code weight} metadata entry if it is a number, otherwise the instance weight.
+     */
+    private static double weight(McpEndpoint endpoint) {
+        String weight = endpoint.metadata().get("weight");
+        if (weight != null) {
+            try {
+                return Math.max(0, Double.parseDouble(weight));
+            } catch (NumberFormatException e) {
+                // Fall back to the instance weight
+            }
+        }
+        return Math.max(0, endpoint.weight());
+    }
+}
@@ -0,0 +1,77 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.spec.ClientMcpTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.autoconfigure.mcp.client.NamedClientMcpTransport;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Creates MCP client transports for the servers listed in {@code mcp.discovery.servers},
+ * with addresses taken from the registry instead of hardcoded connection URLs.
+ * <p>
+ * The transports are picked up by Spring AI's MCP client auto-configuration next to any
+ * statically configured connections. Each is a {@link BalancedMcpTransport} spreading
+ * requests over all healthy endpoints of its server and following them as
+ * {@link McpServerDirectory} reports registry changes. A server with no known endpoint at
+ * startup still gets its transport, which connects once the registry reports endpoints; until
+ * then its requests wait or are rejected as described in {@link BalancedMcpTransport}.
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(McpDiscoveryProperties.class)
+@ConditionalOnProperty(prefix = McpDiscoveryProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class McpDiscoveryAutoConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpDiscoveryAutoConfiguration.class);
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public McpRegistry mcpRegistry(McpDiscoveryProperties properties) {
+        return new NacosMcpRegistry(properties.getNacos());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public McpServerDirectory mcpServerDirectory(McpDiscoveryProperties properties, McpRegistry registry,
+            ObjectProvider<ObjectMapper> objectMapperProvider) {
+        return new McpServerDirectory(properties, registry, objectMapperProvider.getIfAvailable(ObjectMapper::new));
+    }
+
+    @Bean
+    public List<NamedClientMcpTransport> discoveredMcpTransports(McpDiscoveryProperties properties,
+            McpServerDirectory directory, ObjectProvider<ObjectMapper> objectMapperProvider) {
+        ObjectMapper objectMapper = objectMapperProvider.getIfAvailable(ObjectMapper::new);
+        Function<String, ClientMcpTransport> factory =
+                baseUrl -> new HttpClientSseClientTransport(HttpClient.newBuilder(), baseUrl, objectMapper);
+        List<NamedClientMcpTransport> transports = new ArrayList<>();
+        for (String name : properties.getServers()) {
+            BalancedMcpTransport transport =
+                    new BalancedMcpTransport(name, factory, properties.getBalancer(), objectMapper);
+            // Listening first, so that no change is missed between the two
+            directory.addListener(transport::update);
+            McpServerDescriptor server = directory.get(name);
+            if (server != null) {
+                transport.update(server);
+            }
+            if (server == null || !server.enabled() || server.endpoints().isEmpty()) {
+                logger.warn("No available endpoint for MCP server {} yet, connecting once there is", name);
+            }
+            transports.add(new NamedClientMcpTransport(name, transport));
+        }
+        return transports;
+    }
+}
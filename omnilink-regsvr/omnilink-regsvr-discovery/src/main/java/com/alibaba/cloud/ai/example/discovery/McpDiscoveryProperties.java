@@ -0,0 +1,300 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for discovering MCP servers from the registry.
+ */
+@ConfigurationProperties(McpDiscoveryProperties.CONFIG_PREFIX)
+public class McpDiscoveryProperties {
+
+    public static final String CONFIG_PREFIX = "mcp.discovery";
+
+    /**
+     * Whether to discover MCP servers and create clients for them.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Names of the MCP servers to connect to, as registered with {@code spring.ai.mcp.server.name}.
+     */
+    private List<String> servers = new ArrayList<>();
+
+    /**
+     * File holding the last known state of every server, read on startup before the registry
+     * answers and rewritten on every change.
+     */
+    private Path snapshotFile = Path.of(System.getProperty("java.io.tmpdir"), "omnilink-mcp-discovery.json");
+
+    /**
+     * How long startup waits for the registry when a server is missing from the snapshot.
+     * Servers in the snapshot never wait.
+     */
+    private Duration initialTimeout = Duration.ofSeconds(3);
+
+    /**
+     * How often to retry subscribing to a server while the registry is unreachable.
+     */
+    private Duration retryInterval = Duration.ofSeconds(10);
+
+    private final Nacos nacos = new Nacos();
+
+    private final Balancer balancer = new Balancer();
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getServers() {
+        return this.servers;
+    }
+
+    public void setServers(List<String> servers) {
+        this.servers = servers;
+    }
+
+    public Path getSnapshotFile() {
+        return this.snapshotFile;
+    }
+
+    public void setSnapshotFile(Path snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    public Duration getInitialTimeout() {
+        return this.initialTimeout;
+    }
+
+    public void setInitialTimeout(Duration initialTimeout) {
+        this.initialTimeout = initialTimeout;
+    }
+
+    public Duration getRetryInterval() {
+        return this.retryInterval;
+    }
+
+    public void setRetryInterval(Duration retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    public Nacos getNacos() {
+        return this.nacos;
+    }
+
+    public Balancer getBalancer() {
+        return this.balancer;
+    }
+
+    /**
+     * Nacos connection and the names under which {@code spring-ai-alibaba-mcp-nacos} publishes
+     * server metadata. The defaults match what {@code omnilink-regsvr-nacos} registers.
+     */
+    public static class Nacos {
+
+        /**
+         * Nacos server address, {@code host:port}; comma-separated for a cluster.
+         */
+        private String serverAddr = "127.0.0.1:8848";
+
+        /**
+         * Namespace of the MCP server services.
+         */
+        private String serviceNamespace = "public";
+
+        /**
+         * Group of the MCP server services.
+         */
+        private String serviceGroup = "DEFAULT_GROUP";
+
+        /**
+         * Namespace of the server and tool metadata configuration entries.
+         */
+        private String configNamespace = "nacos-default-mcp";
+
+        /**
+         * Group of the {@code *-mcp-server.json} entries.
+         */
+        private String serverGroup = "mcp-server";
+
+        /**
+         * Group of the {@code *-mcp-tools.json} entries.
+         */
+        private String toolsGroup = "mcp-tools";
+
+        private String username;
+
+        private String password;
+
+        public String getServerAddr() {
+            return this.serverAddr;
+        }
+
+        public void setServerAddr(String serverAddr) {
+            this.serverAddr = serverAddr;
+        }
+
+        public String getServiceNamespace() {
+            return this.serviceNamespace;
+        }
+
+        public void setServiceNamespace(String serviceNamespace) {
+            this.serviceNamespace = serviceNamespace;
+        }
+
+        public String getServiceGroup() {
+            return this.serviceGroup;
+        }
+
+        public void setServiceGroup(String serviceGroup) {
+            this.serviceGroup = serviceGroup;
+        }
+
+        public String getConfigNamespace() {
+            return this.configNamespace;
+        }
+
+        public void setConfigNamespace(String configNamespace) {
+            this.configNamespace = configNamespace;
+        }
+
+        public String getServerGroup() {
+            return this.serverGroup;
+        }
+
+        public void setServerGroup(String serverGroup) {
+            this.serverGroup = serverGroup;
+        }
+
+        public String getToolsGroup() {
+            return this.toolsGroup;
+        }
+
+        public void setToolsGroup(String toolsGroup) {
+            this.toolsGroup = toolsGroup;
+        }
+
+        public String getUsername() {
+            return this.username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return this.password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+
+    /**
+     * How requests are spread over the endpoints of one server, see {@link EndpointBalancer}.
+     */
+    public static class Balancer {
+
+        /**
+         * Time over which a new or returning endpoint ramps up from a tenth to its full weight.
+         */
+        private Duration slowStart = Duration.ofSeconds(30);
+
+        /**
+         * Time constant of the latency average; older responses count for less.
+         */
+        private Duration decay = Duration.ofSeconds(10);
+
+        /**
+         * Failures in a row after which an endpoint is ejected.
+         */
+        private int consecutiveFailures = 5;
+
+        /**
+         * How long the first ejection lasts; each further ejection of the same endpoint lasts
+         * one multiple longer, up to ten.
+         */
+        private Duration ejection = Duration.ofSeconds(30);
+
+        /**
+         * Largest share of a server's endpoints that may be ejected at the same time.
+         */
+        private int maxEjectionPercent = 50;
+
+        /**
+         * Time after which a request without a response counts as failed for its endpoint.
+         */
+        private Duration requestTimeout = Duration.ofSeconds(30);
+
+        /**
+         * How often endpoints whose connection failed, broke or stopped answering are
+         * reconnected.
+         */
+        private Duration reconnectInterval = Duration.ofSeconds(10);
+
+        public Duration getSlowStart() {
+            return this.slowStart;
+        }
+
+        public void setSlowStart(Duration slowStart) {
+            this.slowStart = slowStart;
+        }
+
+        public Duration getDecay() {
+            return this.decay;
+        }
+
+        public void setDecay(Duration decay) {
+            this.decay = decay;
+        }
+
+        public int getConsecutiveFailures() {
+            return this.consecutiveFailures;
+        }
+
+        public void setConsecutiveFailures(int consecutiveFailures) {
+            this.consecutiveFailures = consecutiveFailures;
+        }
+
+        public Duration getEjection() {
+            return this.ejection;
+        }
+
+        public void setEjection(Duration ejection) {
+            this.ejection = ejection;
+        }
+
+        public int getMaxEjectionPercent() {
+            return this.maxEjectionPercent;
+        }
+
+        public void setMaxEjectionPercent(int maxEjectionPercent) {
+            this.maxEjectionPercent = maxEjectionPercent;
+        }
+
+        public Duration getRequestTimeout() {
+            return this.requestTimeout;
+        }
+
+        public void setRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+
+        public Duration getReconnectInterval() {
+            return this.reconnectInterval;
+        }
+
+        public void setReconnectInterval(Duration reconnectInterval) {
+            this.reconnectInterval = reconnectInterval;
+        }
+    }
+}
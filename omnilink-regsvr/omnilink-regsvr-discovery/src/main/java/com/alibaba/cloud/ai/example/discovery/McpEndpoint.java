@@ -0,0 +1,25 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.util.Map;
+
+/**
+ * A running instance of an MCP server, as registered in the naming service.
+ *
+ * @param host     instance address
+ * @param port     instance port
+ * @param weight   registry weight; instances with weight 0 receive no traffic
+ * @param metadata instance metadata
+ */
+public record McpEndpoint(String host, int port, double weight, Map<String, String> metadata) {
+
+    public McpEndpoint {
+        metadata = metadata == null ? Map.of() : Map.copyOf(metadata);
+    }
+
+    /**
+     * Base URL of the instance, without the export path.
+     */
+    public String url() {
+        return "http://" + host + ":" + port;
+    }
+}
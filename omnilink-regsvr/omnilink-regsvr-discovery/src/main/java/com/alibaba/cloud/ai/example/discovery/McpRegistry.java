@@ -0,0 +1,45 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The registry operations {@link McpServerDirectory} needs: configuration entries for server
+ * and tool metadata, and service instances, each read together with a subscription to later
+ * changes so that no update falls between the read and the subscription.
+ * <p>
+ * {@link NacosMcpRegistry} is the default. Declaring another bean of this type swaps the
+ * registry, for example for an in-process stand-in.
+ */
+public interface McpRegistry extends AutoCloseable {
+
+    /**
+     * Reads a configuration entry and subscribes to its changes.
+     *
+     * @param listener called with the new content on every later change, {@code null} when deleted
+     * @return the current content, or {@code null} if the entry does not exist
+     * @throws Exception if the registry cannot be reached
+     */
+    String getConfigAndWatch(String dataId, String group, Consumer<String> listener) throws Exception;
+
+    /**
+     * Reads a configuration entry without subscribing to it.
+     *
+     * @return the current content, or {@code null} if the entry does not exist
+     * @throws Exception if the registry cannot be reached
+     */
+    String getConfig(String dataId, String group) throws Exception;
+
+    /**
+     * Reads the healthy instances of a service and subscribes to instance changes.
+     *
+     * @param listener called with the full healthy instance list on every later change
+     * @return the current healthy instances
+     * @throws Exception if the registry cannot be reached
+     */
+    List<McpEndpoint> getInstancesAndWatch(String serviceName, String group, Consumer<List<McpEndpoint>> listener)
+            throws Exception;
+
+    @Override
+    void close();
+}
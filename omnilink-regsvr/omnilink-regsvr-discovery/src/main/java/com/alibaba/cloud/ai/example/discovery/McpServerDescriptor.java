@@ -0,0 +1,40 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.util.List;
+
+/**
+ * What the registry knows about one MCP server: its {@code *-mcp-server.json} entry,
+ * the healthy instances of its service and its {@code *-mcp-tools.json} entry.
+ *
+ * @param name        server name, as in {@code spring.ai.mcp.server.name}
+ * @param version     server version, {@code null} until the server entry is known
+ * @param description server description
+ * @param enabled     {@code false} when the server was switched off in the registry
+ * @param exportPath  SSE endpoint path on each instance, such as {@code /sse}
+ * @param endpoints   healthy, enabled instances
+ * @param tools       published tools, including disabled ones
+ */
+public record McpServerDescriptor(String name, String version, String description, boolean enabled,
+        String exportPath, List<McpEndpoint> endpoints, List<ToolDescriptor> tools) {
+
+    public McpServerDescriptor {
+        endpoints = endpoints == null ? List.of() : List.copyOf(endpoints);
+        tools = tools == null ? List.of() : List.copyOf(tools);
+    }
+
+    /**
+     * Base URL for an SSE transport to {@code endpoint}. The MCP SSE transport appends
+     * {@code /sse} itself, so only the part of the export path before it is kept.
+     */
+    public String baseUrl(McpEndpoint endpoint) {
+        String path = exportPath == null ? "" : exportPath;
+        if (path.endsWith("/sse")) {
+            path = path.substring(0, path.length() - "/sse".length());
+        }
+        return endpoint.url() + path;
+    }
+
+    public List<ToolDescriptor> enabledTools() {
+        return tools.stream().filter(ToolDescriptor::enabled).toList();
+    }
+}
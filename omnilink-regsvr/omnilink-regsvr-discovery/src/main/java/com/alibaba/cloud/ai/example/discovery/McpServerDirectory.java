@@ -0,0 +1,482 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Live view of the configured MCP servers, kept current by registry pushes.
+ * <p>
+ * On {@link #start()} the last known state is read from
+ * {@link McpDiscoveryProperties#getSnapshotFile()}, so servers seen before are available at
+ * once, however slow or unreachable the registry is. Subscribing to the registry happens on a
+ * background thread; only servers missing from the snapshot make startup wait, for at most
+ * {@link McpDiscoveryProperties#getInitialTimeout()}. While the registry is unreachable the
+ * subscription is retried every {@link McpDiscoveryProperties#getRetryInterval()} and the
+ * snapshot state keeps being served.
+ * <p>
+ * Once subscribed, every change to a server's metadata entry, tools or instances replaces
+ * its {@link McpServerDescriptor}, notifies the listeners and rewrites the snapshot.
+ * <p>
+ * Tools are read from the server's {@code *-mcp-tools-index.json} entry when it has one: only
+ * that small index is watched, and on each change only the {@code *-mcp-tool-<tool>.json}
+ * entries whose hash differs from the tool already known, from the registry or the snapshot,
+ * are fetched. Servers without an index are read from their full {@code *-mcp-tools.json}
+ * entry.
+ */
+public class McpServerDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpServerDirectory.class);
+
+    // Entry and service names used by spring-ai-alibaba-mcp-nacos
+    private static final String SERVER_CONFIG_SUFFIX = "-mcp-server.json";
+    private static final String TOOLS_CONFIG_SUFFIX = "-mcp-tools.json";
+    private static final String TOOLS_INDEX_SUFFIX = "-mcp-tools-index.json";
+    private static final String TOOL_CONFIG_INFIX = "-mcp-tool-";
+    private static final String SERVICE_SUFFIX = "-mcp-service";
+    private static final String DEFAULT_EXPORT_PATH = "/sse";
+
+    private static final TypeReference<Map<String, Object>> SCHEMA_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * Contents of the snapshot file.
+     */
+    record Snapshot(String savedAt, List<McpServerDescriptor> servers) {
+    }
+
+    /**
+     * The naming service entry holding a server's instances.
+     */
+    private record ServiceRef(String serviceName, String group) {
+    }
+
+    /**
+     * What the registry last reported for one server, and which parts are subscribed.
+     */
+    private static final class Sources {
+
+        String serverJson;
+        String toolsJson;
+        String indexJson;
+        List<McpEndpoint> endpoints = List.of();
+        boolean serverWatched;
+        boolean indexWatched;
+        boolean toolsWatched;
+        boolean endpointsWatched;
+
+        // Tools of the index last synced, by name; seeded from the snapshot
+        Map<String, ToolDescriptor> indexedTools = Map.of();
+        String syncedIndexJson;
+
+        // Completed once all three parts have been read from the registry
+        final CompletableFuture<Void> subscribed = new CompletableFuture<>();
+    }
+
+    private final McpDiscoveryProperties properties;
+    private final McpRegistry registry;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService scheduler;
+    private final List<Consumer<McpServerDescriptor>> listeners = new CopyOnWriteArrayList<>();
+
+    // Replaced as a whole on every change, so readers never see a partial update
+    private volatile Map<String, McpServerDescriptor> servers = Map.of();
+
+    public McpServerDirectory(McpDiscoveryProperties properties, McpRegistry registry, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.registry = registry;
+        this.objectMapper = objectMapper.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-discovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Serves the snapshot, subscribes to the registry in the background, and waits for the
+     * servers the snapshot does not know.
+     */
+    public void start() {
+        load();
+        List<CompletableFuture<Void>> unknown = new ArrayList<>();
+        for (String name : properties.getServers()) {
+            Sources serverSources = new Sources();
+            McpServerDescriptor known = servers.get(name);
+            if (known == null) {
+                unknown.add(serverSources.subscribed);
+            } else {
+                serverSources.indexedTools = known.tools().stream()
+                        .filter(tool -> tool.hash() != null)
+                        .collect(Collectors.toUnmodifiableMap(ToolDescriptor::name, tool -> tool));
+            }
+            scheduler.execute(() -> subscribe(name, serverSources));
+        }
+        if (!unknown.isEmpty()) {
+            CompletableFuture.allOf(unknown.toArray(CompletableFuture[]::new))
+                    .completeOnTimeout(null, properties.getInitialTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .join();
+        }
+        for (String name : properties.getServers()) {
+            if (!servers.containsKey(name)) {
+                logger.warn("MCP server {} is not in the snapshot and the registry has not answered within {}",
+                        name, properties.getInitialTimeout());
+            }
+        }
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * The current state of a server, or {@code null} if neither the snapshot nor the registry
+     * has reported it yet.
+     */
+    public McpServerDescriptor get(String name) {
+        return servers.get(name);
+    }
+
+    public Collection<McpServerDescriptor> servers() {
+        return servers.values();
+    }
+
+    /**
+     * Registers a listener called with the new descriptor whenever a server changes.
+     * Listeners run on registry notification threads and should return quickly.
+     */
+    public void addListener(Consumer<McpServerDescriptor> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Reads and subscribes to whatever parts of a server are not subscribed yet; on failure
+     * retries later with only the remaining parts.
+     */
+    private void subscribe(String name, Sources serverSources) {
+        McpDiscoveryProperties.Nacos nacos = properties.getNacos();
+        try {
+            if (!serverSources.serverWatched) {
+                String json = registry.getConfigAndWatch(name + SERVER_CONFIG_SUFFIX, nacos.getServerGroup(),
+                        content -> update(name, serverSources, s -> s.serverJson = content));
+                synchronized (serverSources) {
+                    serverSources.serverJson = json;
+                    serverSources.serverWatched = true;
+                }
+            }
+            if (!serverSources.indexWatched) {
+                String json = registry.getConfigAndWatch(name + TOOLS_INDEX_SUFFIX, nacos.getToolsGroup(),
+                        content -> updateIndex(name, serverSources, content));
+                synchronized (serverSources) {
+                    serverSources.indexJson = json;
+                    serverSources.indexWatched = true;
+                }
+            }
+            if (serverSources.indexJson != null) {
+                syncTools(name, serverSources);
+            } else if (!serverSources.toolsWatched) {
+                // A server without an index, from before it was introduced
+                String json = registry.getConfigAndWatch(name + TOOLS_CONFIG_SUFFIX, nacos.getToolsGroup(),
+                        content -> update(name, serverSources, s -> s.toolsJson = content));
+                synchronized (serverSources) {
+                    serverSources.toolsJson = json;
+                    serverSources.toolsWatched = true;
+                }
+            }
+            if (!serverSources.endpointsWatched) {
+                ServiceRef service = service(name, serverSources.serverJson);
+                List<McpEndpoint> endpoints = registry.getInstancesAndWatch(service.serviceName(), service.group(),
+                        instances -> update(name, serverSources, s -> s.endpoints = instances));
+                synchronized (serverSources) {
+                    serverSources.endpoints = endpoints;
+                    serverSources.endpointsWatched = true;
+                }
+            }
+            synchronized (serverSources) {
+                rebuild(name, serverSources);
+                serverSources.subscribed.complete(null);
+            }
+        } catch (Exception e) {
+            if (scheduler.isShutdown()) {
+                return;
+            }
+            logger.warn("Cannot subscribe to MCP server {} in the registry, retrying in {}: {}",
+                    name, properties.getRetryInterval(), e.getMessage());
+            scheduler.schedule(() -> subscribe(name, serverSources),
+                    properties.getRetryInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void update(String name, Sources serverSources, Consumer<Sources> change) {
+        // Registry subscriptions outlive the directory; ignore pushes once closed
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        synchronized (serverSources) {
+            change.accept(serverSources);
+            // Until every part has been read, the snapshot state stands
+            if (serverSources.endpointsWatched) {
+                rebuild(name, serverSources);
+            }
+        }
+    }
+
+    private void updateIndex(String name, Sources serverSources, String content) {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        boolean subscribeTools;
+        synchronized (serverSources) {
+            serverSources.indexJson = content;
+            // Index removed: fall back to the full tools entry, subscribing to it if need be
+            subscribeTools = content == null && !serverSources.toolsWatched;
+            if (content == null && serverSources.endpointsWatched) {
+                rebuild(name, serverSources);
+            }
+        }
+        if (subscribeTools) {
+            scheduler.execute(() -> subscribe(name, serverSources));
+        } else if (content != null) {
+            scheduler.execute(() -> refreshTools(name, serverSources));
+        }
+    }
+
+    /**
+     * Brings the tools up to date with a changed index, on the directory thread so that
+     * fetches do not hold up registry notifications; retried while the registry is unreachable.
+     */
+    private void refreshTools(String name, Sources serverSources) {
+        try {
+            syncTools(name, serverSources);
+            synchronized (serverSources) {
+                if (serverSources.endpointsWatched) {
+                    rebuild(name, serverSources);
+                }
+            }
+        } catch (Exception e) {
+            if (scheduler.isShutdown()) {
+                return;
+            }
+            logger.warn("Cannot read the tools of MCP server {}, retrying in {}: {}",
+                    name, properties.getRetryInterval(), e.getMessage());
+            scheduler.schedule(() -> refreshTools(name, serverSources),
+                    properties.getRetryInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reads the current index and fetches the entries of tools whose hash is not the one
+     * already known. Enabled flags come from the index itself.
+     *
+     * @throws IllegalStateException if a tool entry does not match its hash in the index yet,
+     *                               as while the server is still publishing
+     */
+    private void syncTools(String name, Sources serverSources) throws Exception {
+        String json;
+        Map<String, ToolDescriptor> known;
+        synchronized (serverSources) {
+            json = serverSources.indexJson;
+            known = serverSources.indexedTools;
+            if (json == null || json.equals(serverSources.syncedIndexJson)) {
+                return;
+            }
+        }
+        JsonNode index = parse(name, json);
+        if (index == null) {
+            return;
+        }
+        Map<String, ToolDescriptor> tools = new LinkedHashMap<>();
+        int fetched = 0;
+        for (Map.Entry<String, JsonNode> entry : index.path("tools").properties()) {
+            String toolName = entry.getKey();
+            String hash = entry.getValue().path("hash").asText();
+            ToolDescriptor tool = known.get(toolName);
+            if (tool == null || !hash.equals(tool.hash())) {
+                JsonNode content = parse(name, registry.getConfig(name + TOOL_CONFIG_INFIX + toolName + ".json",
+                        properties.getNacos().getToolsGroup()));
+                if (content == null || !hash.equals(content.path("hash").asText())) {
+                    throw new IllegalStateException("Entry of tool " + toolName + " does not match the index yet");
+                }
+                tool = tool(content, true, hash);
+                fetched++;
+            }
+            tools.put(toolName, new ToolDescriptor(tool.name(), tool.description(), tool.inputSchema(),
+                    entry.getValue().path("enabled").asBoolean(true), hash));
+        }
+        synchronized (serverSources) {
+            serverSources.indexedTools = Map.copyOf(tools);
+            serverSources.syncedIndexJson = json;
+        }
+        logger.debug("Synced tool index of MCP server {} at version {}, fetched {} of {} tools", name,
+                index.path("version").asLong(), fetched, tools.size());
+    }
+
+    /**
+     * Service name and group of a server's instances: the service reference in its metadata
+     * entry if present, otherwise the name {@code spring-ai-alibaba-mcp-nacos} registers.
+     */
+    private ServiceRef service(String name, String serverJson) {
+        String serviceName = name + SERVICE_SUFFIX;
+        String group = properties.getNacos().getServiceGroup();
+        JsonNode server = parse(name, serverJson);
+        if (server != null) {
+            JsonNode ref = server.path("remoteServerConfig").path("serviceRef");
+            serviceName = ref.path("serviceName").asText(serviceName);
+            group = ref.path("groupName").asText(group);
+        }
+        return new ServiceRef(serviceName, group);
+    }
+
+    private void rebuild(String name, Sources serverSources) {
+        JsonNode server = parse(name, serverSources.serverJson);
+        if (server == null && serverSources.serverJson != null) {
+            // Keep the last good state rather than publish a half-parsed one
+            return;
+        }
+        List<ToolDescriptor> tools;
+        if (serverSources.indexJson != null) {
+            if (!serverSources.indexJson.equals(serverSources.syncedIndexJson)) {
+                // The tools are being fetched; rebuilt once they are
+                return;
+            }
+            tools = List.copyOf(serverSources.indexedTools.values());
+        } else {
+            JsonNode toolsInfo = parse(name, serverSources.toolsJson);
+            if (toolsInfo == null && serverSources.toolsJson != null) {
+                return;
+            }
+            tools = tools(toolsInfo);
+        }
+        String exportPath = DEFAULT_EXPORT_PATH;
+        String version = null;
+        String description = null;
+        boolean enabled = true;
+        if (server != null) {
+            version = server.path("version").asText(null);
+            description = server.path("description").asText(null);
+            enabled = server.path("enabled").asBoolean(true);
+            exportPath = server.path("remoteServerConfig").path("exportPath").asText(DEFAULT_EXPORT_PATH);
+        }
+        publish(new McpServerDescriptor(name, version, description, enabled, exportPath, serverSources.endpoints,
+                tools));
+    }
+
+    /**
+     * Tools from a {@code *-mcp-tools.json} entry; {@code toolsMeta} may switch tools off.
+     */
+    private List<ToolDescriptor> tools(JsonNode toolsInfo) {
+        if (toolsInfo == null) {
+            return List.of();
+        }
+        JsonNode meta = toolsInfo.path("toolsMeta");
+        List<ToolDescriptor> tools = new ArrayList<>();
+        for (JsonNode tool : toolsInfo.path("tools")) {
+            tools.add(tool(tool, meta.path(tool.path("name").asText()).path("enabled").asBoolean(true), null));
+        }
+        return tools;
+    }
+
+    private ToolDescriptor tool(JsonNode tool, boolean enabled, String hash) {
+        Map<String, Object> schema = tool.hasNonNull("inputSchema")
+                ? objectMapper.convertValue(tool.get("inputSchema"), SCHEMA_TYPE)
+                : Map.of();
+        return new ToolDescriptor(tool.path("name").asText(), tool.path("description").asText(null), schema,
+                enabled, hash);
+    }
+
+    private JsonNode parse(String name, String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring malformed registry entry of MCP server {}: {}", name, e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private synchronized void publish(McpServerDescriptor descriptor) {
+        if (descriptor.equals(servers.get(descriptor.name()))) {
+            return;
+        }
+        Map<String, McpServerDescriptor> updated = new LinkedHashMap<>(servers);
+        updated.put(descriptor.name(), descriptor);
+        servers = Map.copyOf(updated);
+        logger.info("MCP server {} now has {} endpoints and {} tools", descriptor.name(),
+                descriptor.endpoints().size(), descriptor.tools().size());
+        save();
+        for (Consumer<McpServerDescriptor> listener : listeners) {
+            try {
+                listener.accept(descriptor);
+            } catch (RuntimeException e) {
+                logger.warn("MCP server listener failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void load() {
+        Path file = properties.getSnapshotFile();
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            Snapshot snapshot = objectMapper.readValue(file.toFile(), Snapshot.class);
+            Map<String, McpServerDescriptor> loaded = new LinkedHashMap<>();
+            for (McpServerDescriptor descriptor : snapshot.servers()) {
+                if (properties.getServers().contains(descriptor.name())) {
+                    loaded.put(descriptor.name(), descriptor);
+                }
+            }
+            servers = Map.copyOf(loaded);
+            logger.info("Loaded {} MCP servers from the snapshot saved at {}", loaded.size(), snapshot.savedAt());
+        } catch (IOException | RuntimeException e) {
+            // The snapshot only speeds up startup; the registry remains the source of truth
+            logger.warn("Ignoring unreadable MCP discovery snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void save() {
+        Path file = properties.getSnapshotFile();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            // Write a temporary file and move it into place, so a crash never leaves half a snapshot
+            Path temp = Files.createTempFile(parent, "mcp-discovery", ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    objectMapper.writerWithDefaultPrettyPrinter()
+                            .writeValue(out, new Snapshot(Instant.now().toString(), List.copyOf(servers.values())));
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to save the MCP discovery snapshot to {}: {}", file, e.getMessage());
+        }
+    }
+}
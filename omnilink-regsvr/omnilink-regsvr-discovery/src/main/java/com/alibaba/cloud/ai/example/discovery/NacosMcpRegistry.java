@@ -0,0 +1,116 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import com.alibaba.nacos.api.NacosFactory;
+import com.alibaba.nacos.api.PropertyKeyConst;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.config.listener.AbstractListener;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link McpRegistry} backed by the Nacos configuration and naming services.
+ * <p>
+ * The Nacos clients are created on first use rather than in the constructor, because creating
+ * them connects to the server and can block for seconds when it is unreachable;
+ * {@link McpServerDirectory} makes that first call off the startup thread.
+ */
+public class NacosMcpRegistry implements McpRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(NacosMcpRegistry.class);
+
+    private static final long CONFIG_TIMEOUT_MILLIS = 3000;
+
+    private final McpDiscoveryProperties.Nacos properties;
+
+    private ConfigService configService;
+
+    private NamingService namingService;
+
+    public NacosMcpRegistry(McpDiscoveryProperties.Nacos properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public String getConfigAndWatch(String dataId, String group, Consumer<String> listener) throws NacosException {
+        return configService().getConfigAndSignListener(dataId, group, CONFIG_TIMEOUT_MILLIS, new AbstractListener() {
+            @Override
+            public void receiveConfigInfo(String configInfo) {
+                listener.accept(configInfo);
+            }
+        });
+    }
+
+    @Override
+    public String getConfig(String dataId, String group) throws NacosException {
+        return configService().getConfig(dataId, group, CONFIG_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    public List<McpEndpoint> getInstancesAndWatch(String serviceName, String group,
+            Consumer<List<McpEndpoint>> listener) throws NacosException {
+        NamingService naming = namingService();
+        // Nacos pushes the full instance list on every change, health changes included
+        naming.subscribe(serviceName, group, event -> {
+            if (event instanceof NamingEvent namingEvent) {
+                listener.accept(available(namingEvent.getInstances()));
+            }
+        });
+        return available(naming.selectInstances(serviceName, group, true));
+    }
+
+    private static List<McpEndpoint> available(List<Instance> instances) {
+        return instances.stream()
+                .filter(instance -> instance.isHealthy() && instance.isEnabled())
+                .map(instance -> new McpEndpoint(instance.getIp(), instance.getPort(), instance.getWeight(),
+                        instance.getMetadata()))
+                .toList();
+    }
+
+    private synchronized ConfigService configService() throws NacosException {
+        if (configService == null) {
+            configService = NacosFactory.createConfigService(nacosProperties(properties.getConfigNamespace()));
+        }
+        return configService;
+    }
+
+    private synchronized NamingService namingService() throws NacosException {
+        if (namingService == null) {
+            namingService = NacosFactory.createNamingService(nacosProperties(properties.getServiceNamespace()));
+        }
+        return namingService;
+    }
+
+    private Properties nacosProperties(String namespace) {
+        Properties nacos = new Properties();
+        nacos.setProperty(PropertyKeyConst.SERVER_ADDR, properties.getServerAddr());
+        nacos.setProperty(PropertyKeyConst.NAMESPACE, namespace);
+        if (properties.getUsername() != null && !properties.getUsername().isEmpty()) {
+            nacos.setProperty(PropertyKeyConst.USERNAME, properties.getUsername());
+            nacos.setProperty(PropertyKeyConst.PASSWORD,
+                    properties.getPassword() == null ? "" : properties.getPassword());
+        }
+        return nacos;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (configService != null) {
+                configService.shutDown();
+            }
+            if (namingService != null) {
+                namingService.shutDown();
+            }
+        } catch (NacosException e) {
+            logger.warn("Failed to shut down the Nacos clients: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.util.Map;
+
+/**
+ * A tool published by an MCP server, in its {@code *-mcp-tool-<tool>.json} registry entry or,
+ * from servers without a tool index, in its {@code *-mcp-tools.json} entry.
+ *
+ * @param name        tool name
+ * @param description tool description
+ * @param inputSchema JSON schema of the tool arguments
+ * @param enabled     {@code false} when the tool was switched off in the registry's tool metadata
+ * @param hash        content hash from the tool index, {@code null} for tools from the full
+ *                    tools entry
+ */
+public record ToolDescriptor(String name, String description, Map<String, Object> inputSchema, boolean enabled,
+        String hash) {
+}
@@ -0,0 +1,269 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.ClientMcpTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCRequest;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCResponse;
+import reactor.core.publisher.Mono;
+
+import static com.alibaba.cloud.ai.example.discovery.Checks.await;
+import static com.alibaba.cloud.ai.example.discovery.Checks.check;
+
+/**
+ * Runs an MCP client over {@link BalancedMcpTransport} against simulated endpoints that are
+ * discovered through {@link InMemoryMcpRegistry}: a slow endpoint gets less traffic, a failing
+ * one is ejected, and one that joins later ramps up slowly. A second server without instances
+ * rejects calls until one registers.
+ */
+public class BalancerSample {
+
+    private static final String SERVER = "webmvc-mcp-server";
+
+    private static final String SERVICE = SERVER + "-mcp-service";
+
+    private static final String PENDING_SERVER = "pending-mcp-server";
+
+    private static final String SERVER_JSON = """
+            {"protocol":"mcp-sse","name":"webmvc-mcp-server","description":"Weather","version":"1.0.0","enabled":true,
+             "remoteServerConfig":{"serviceRef":{"namespaceId":"public","groupName":"DEFAULT_GROUP",
+             "serviceName":"webmvc-mcp-server-mcp-service"},"exportPath":"/sse"}}
+            """;
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final ScheduledExecutorService responder = Executors.newScheduledThreadPool(4);
+
+    /**
+     * How each simulated endpoint behaves, by host.
+     */
+    private static final Map<String, Duration> latencies = new ConcurrentHashMap<>();
+
+    private static final Map<String, Boolean> failing = new ConcurrentHashMap<>();
+
+    private static final Map<String, AtomicInteger> initializes = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws Exception {
+        Path snapshot = Files.createTempFile("mcp-balancer", ".json");
+        Files.delete(snapshot);
+        McpDiscoveryProperties properties = new McpDiscoveryProperties();
+        properties.setServers(List.of(SERVER, PENDING_SERVER));
+        properties.setSnapshotFile(snapshot);
+        McpDiscoveryProperties.Balancer balancing = properties.getBalancer();
+        balancing.setSlowStart(Duration.ofSeconds(2));
+        balancing.setDecay(Duration.ofMillis(500));
+        balancing.setEjection(Duration.ofSeconds(10));
+        balancing.setReconnectInterval(Duration.ofMillis(200));
+
+        simulate("fast", Duration.ofMillis(10), false);
+        simulate("slow", Duration.ofMillis(60), false);
+        simulate("broken", Duration.ofMillis(10), true);
+        simulate("late", Duration.ofMillis(10), false);
+        simulate("spare", Duration.ofMillis(10), false);
+
+        InMemoryMcpRegistry registry = new InMemoryMcpRegistry();
+        registry.publishConfig(SERVER + "-mcp-server.json", "mcp-server", SERVER_JSON);
+        for (String host : List.of("fast", "slow", "broken")) {
+            registry.registerInstance(SERVICE, "DEFAULT_GROUP", new McpEndpoint(host, 8080, 1.0, Map.of()));
+        }
+        McpServerDirectory directory = new McpServerDirectory(properties, registry, objectMapper);
+        directory.start();
+
+        BalancedMcpTransport transport = new BalancedMcpTransport(directory.get(SERVER),
+                SimulatedTransport::new, balancing, objectMapper);
+        directory.addListener(transport::update);
+        McpSyncClient client = McpClient.sync(transport).requestTimeout(Duration.ofSeconds(5)).build();
+        client.initialize();
+        check(initializes.get("fast").get() == 1 && initializes.get("slow").get() == 1
+                && initializes.get("broken").get() == 1, "initialize reaches every endpoint once");
+
+        // 1. A server without instances rejects calls at once, and is connected when one registers
+        BalancedMcpTransport pendingTransport = new BalancedMcpTransport(PENDING_SERVER, SimulatedTransport::new,
+                balancing, objectMapper);
+        directory.addListener(pendingTransport::update);
+        pendingTransport.update(directory.get(PENDING_SERVER));
+        McpSyncClient pendingClient = McpClient.sync(pendingTransport).requestTimeout(Duration.ofSeconds(5)).build();
+        long started = System.nanoTime();
+        boolean rejected = false;
+        try {
+            pendingClient.initialize();
+        } catch (RuntimeException e) {
+            rejected = true;
+        }
+        check(rejected && System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1),
+                "server without instances rejects calls at once");
+        registry.registerInstance(PENDING_SERVER + "-mcp-service", "DEFAULT_GROUP",
+                new McpEndpoint("spare", 8080, 1.0, Map.of()));
+        await(() -> weight(pendingTransport, "spare") >= 0, WAIT, "instance of the pending server connects");
+        pendingClient.initialize();
+        check(initializes.get("spare").get() == 1, "pending server is initialized once it has an instance");
+        pendingClient.closeGracefully();
+
+        // 2. Past the slow start: the fast endpoint takes most calls, the broken one is ejected
+        Thread.sleep(2000);
+        Map<String, Integer> calls = call(client, 600);
+        System.out.println("Calls per endpoint: " + calls + ", loads: " + transport.balancer().loads());
+        check(calls.getOrDefault("fast", 0) > 2 * calls.getOrDefault("slow", 0), "slow endpoint gets less traffic");
+        check(calls.getOrDefault("broken", 0) < 30 && ejected(transport, "broken"), "broken endpoint is ejected");
+
+        // 3. A new endpoint joins, is initialized, and ramps up over the slow start
+        registry.registerInstance(SERVICE, "DEFAULT_GROUP", new McpEndpoint("late", 8080, 1.0, Map.of()));
+        await(() -> initializes.containsKey("late") && weight(transport, "late") > 0, WAIT, "late endpoint joins");
+        Map<String, Integer> early = call(client, 200);
+        Thread.sleep(2000);
+        Map<String, Integer> later = call(client, 200);
+        System.out.println("Right after joining: " + early + ", after the slow start: " + later);
+        check(share(early, "late") < share(later, "late"), "new endpoint ramps up");
+
+        // 4. An endpoint leaves the registry and gets no more calls
+        registry.deregisterInstance(SERVICE, "DEFAULT_GROUP", "fast", 8080);
+        await(() -> weight(transport, "fast") < 0, WAIT, "fast endpoint leaves");
+        check(!call(client, 100).containsKey("fast"), "no calls to a removed endpoint");
+
+        client.closeGracefully();
+        directory.close();
+        registry.close();
+        responder.shutdownNow();
+        Files.deleteIfExists(snapshot);
+        System.out.println("All balancer checks passed");
+    }
+
+    private static void simulate(String host, Duration latency, boolean fails) {
+        latencies.put(host, latency);
+        failing.put(host, fails);
+    }
+
+    /**
+     * Calls the tool from 16 threads and counts the answers by endpoint; failed calls count
+     * for the endpoint named in the error.
+     */
+    private static Map<String, Integer> call(McpSyncClient client, int count) throws Exception {
+        Map<String, Integer> calls = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+        AtomicInteger remaining = new AtomicInteger(count);
+        try (ExecutorService callers = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 16; i++) {
+                futures.add(callers.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        String host;
+                        try {
+                            McpSchema.CallToolResult result = client
+                                    .callTool(new McpSchema.CallToolRequest("getWeather", Map.of("cityName", "Hangzhou")));
+                            host = ((McpSchema.TextContent) result.content().get(0)).text();
+                        } catch (RuntimeException e) {
+                            host = e.getMessage().substring(e.getMessage().lastIndexOf(' ') + 1);
+                        }
+                        calls.merge(host, 1, Integer::sum);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return calls;
+    }
+
+    private static double share(Map<String, Integer> calls, String host) {
+        int total = calls.values().stream().mapToInt(Integer::intValue).sum();
+        return (double) calls.getOrDefault(host, 0) / total;
+    }
+
+    private static boolean ejected(BalancedMcpTransport transport, String host) {
+        return transport.balancer().loads().stream()
+                .anyMatch(load -> load.endpoint().host().equals(host) && load.ejected());
+    }
+
+    /**
+     * Current weight of an endpoint, -1 if the balancer does not know it.
+     */
+    private static double weight(BalancedMcpTransport transport, String host) {
+        return transport.balancer().loads().stream()
+                .filter(load -> load.endpoint().host().equals(host))
+                .mapToDouble(EndpointBalancer.EndpointLoad::weight)
+                .findFirst()
+                .orElse(-1);
+    }
+
+    /**
+     * Stands in for the SSE transport of one endpoint: answers {@code initialize} and tool
+     * calls after the endpoint's latency, with its host as the tool result.
+     */
+    private static class SimulatedTransport implements ClientMcpTransport {
+
+        private final String host;
+
+        private volatile Function<Mono<JSONRPCMessage>, Mono<JSONRPCMessage>> handler;
+
+        SimulatedTransport(String baseUrl) {
+            this.host = baseUrl.substring("http://".length(), baseUrl.lastIndexOf(':'));
+        }
+
+        @Override
+        public Mono<Void> connect(Function<Mono<JSONRPCMessage>, Mono<JSONRPCMessage>> handler) {
+            this.handler = handler;
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Void> sendMessage(JSONRPCMessage message) {
+            if (!(message instanceof JSONRPCRequest request)) {
+                return Mono.empty();
+            }
+            JSONRPCResponse response;
+            if (McpSchema.METHOD_INITIALIZE.equals(request.method())) {
+                initializes.computeIfAbsent(host, h -> new AtomicInteger()).incrementAndGet();
+                response = result(request, new McpSchema.InitializeResult(McpSchema.LATEST_PROTOCOL_VERSION,
+                        new McpSchema.ServerCapabilities(null, null, null, null, null),
+                        new McpSchema.Implementation(SERVER, "1.0.0"), null));
+            } else if (failing.get(host)) {
+                response = new JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null,
+                        new JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INTERNAL_ERROR,
+                                "Internal error on " + host, null));
+            } else {
+                response = result(request, new McpSchema.CallToolResult(
+                        List.of(new McpSchema.TextContent(host)), false));
+            }
+            responder.schedule(() -> handler.apply(Mono.just(response)).subscribe(),
+                    latencies.get(host).toMillis(), TimeUnit.MILLISECONDS);
+            return Mono.empty();
+        }
+
+        private static JSONRPCResponse result(JSONRPCRequest request, Object result) {
+            return new JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(),
+                    objectMapper.convertValue(result, new TypeReference<Map<String, Object>>() {
+                    }), null);
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.empty();
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+            return objectMapper.convertValue(data, typeRef);
+        }
+    }
+}
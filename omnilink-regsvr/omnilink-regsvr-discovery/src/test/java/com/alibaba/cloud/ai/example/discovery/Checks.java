@@ -0,0 +1,35 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Assertions for the runnable samples: each passed check is printed, the first failed one
+ * ends the sample with an exception.
+ */
+public final class Checks {
+
+    private Checks() {
+    }
+
+    public static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Check failed: " + what);
+        }
+        System.out.println("ok: " + what);
+    }
+
+    /**
+     * Polls {@code condition} until it holds, failing once {@code timeout} has passed.
+     */
+    public static void await(BooleanSupplier condition, Duration timeout, String what) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Check failed within " + timeout.toMillis() + " ms: " + what);
+            }
+            Thread.sleep(20);
+        }
+        System.out.println("ok: " + what);
+    }
+}
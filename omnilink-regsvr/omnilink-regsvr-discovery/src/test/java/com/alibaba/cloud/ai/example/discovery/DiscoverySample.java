@@ -0,0 +1,106 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static com.alibaba.cloud.ai.example.discovery.Checks.check;
+
+/**
+ * Runs {@link McpServerDirectory} against {@link InMemoryMcpRegistry}: discovery from the
+ * registry, push updates, and startup from the snapshot while the registry is slow and then
+ * unreachable.
+ */
+public class DiscoverySample {
+
+    private static final String SERVER = "webmvc-mcp-server";
+
+    private static final String SERVER_JSON = """
+            {"protocol":"mcp-sse","name":"webmvc-mcp-server","description":"Weather","version":"1.0.0","enabled":true,
+             "remoteServerConfig":{"serviceRef":{"namespaceId":"public","groupName":"DEFAULT_GROUP",
+             "serviceName":"webmvc-mcp-server-mcp-service"},"exportPath":"/sse"},
+             "toolsDescriptionRef":"webmvc-mcp-server-mcp-tools.json"}
+            """;
+
+    private static final String TOOLS_JSON = """
+            {"tools":[{"name":"getWeather","description":"Get weather information by city name",
+             "inputSchema":{"type":"object","properties":{"cityName":{"type":"string"}},"required":["cityName"]}}],
+             "toolsMeta":{"getWeather":{"enabled":%s}}}
+            """;
+
+    public static void main(String[] args) throws Exception {
+        Path snapshot = Files.createTempFile("mcp-discovery", ".json");
+        Files.delete(snapshot);
+        McpDiscoveryProperties properties = new McpDiscoveryProperties();
+        properties.setServers(List.of(SERVER));
+        properties.setSnapshotFile(snapshot);
+        properties.setRetryInterval(Duration.ofMillis(200));
+
+        InMemoryMcpRegistry registry = new InMemoryMcpRegistry();
+        registry.publishConfig(SERVER + "-mcp-server.json", "mcp-server", SERVER_JSON);
+        registry.publishConfig(SERVER + "-mcp-tools.json", "mcp-tools", TOOLS_JSON.formatted(true));
+        registry.registerInstance(SERVER + "-mcp-service", "DEFAULT_GROUP",
+                new McpEndpoint("10.0.0.1", 8080, 1.0, Map.of()));
+
+        // 1. Cold start: no snapshot, so startup waits for the registry
+        McpServerDirectory directory = new McpServerDirectory(properties, registry, new ObjectMapper());
+        directory.start();
+        McpServerDescriptor server = directory.get(SERVER);
+        check(server != null && server.endpoints().size() == 1 && server.enabledTools().size() == 1,
+                "cold start discovers the server: " + server);
+        check(server.baseUrl(server.endpoints().get(0)).equals("http://10.0.0.1:8080"), "base URL without /sse");
+
+        // 2. Pushes: a new instance and a disabled tool arrive without polling
+        LinkedBlockingQueue<McpServerDescriptor> changes = new LinkedBlockingQueue<>();
+        directory.addListener(changes::add);
+        registry.registerInstance(SERVER + "-mcp-service", "DEFAULT_GROUP",
+                new McpEndpoint("10.0.0.2", 8080, 1.0, Map.of()));
+        check(next(changes).endpoints().size() == 2, "instance push");
+        registry.publishConfig(SERVER + "-mcp-tools.json", "mcp-tools", TOOLS_JSON.formatted(false));
+        check(next(changes).enabledTools().isEmpty(), "tool metadata push");
+        directory.close();
+        System.out.println("Snapshot:\n" + Files.readString(snapshot));
+
+        // 3. Warm start against a slow registry: served from the snapshot without waiting
+        registry.setLatency(Duration.ofSeconds(5));
+        properties.setInitialTimeout(Duration.ofSeconds(10));
+        long begin = System.nanoTime();
+        McpServerDirectory warm = new McpServerDirectory(properties, registry, new ObjectMapper());
+        warm.start();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        check(millis < 1000 && warm.get(SERVER).endpoints().size() == 2,
+                "warm start took " + millis + " ms with " + warm.get(SERVER));
+        warm.close();
+
+        // 4. Registry down: still served from the snapshot, and caught up once it is back
+        registry.setLatency(Duration.ZERO);
+        registry.setReachable(false);
+        McpServerDirectory offline = new McpServerDirectory(properties, registry, new ObjectMapper());
+        LinkedBlockingQueue<McpServerDescriptor> recovered = new LinkedBlockingQueue<>();
+        offline.addListener(recovered::add);
+        offline.start();
+        check(offline.get(SERVER).endpoints().size() == 2, "offline start from the snapshot");
+        registry.deregisterInstance(SERVER + "-mcp-service", "DEFAULT_GROUP", "10.0.0.1", 8080);
+        registry.setReachable(true);
+        check(next(recovered).endpoints().size() == 1, "catches up after the registry recovers");
+        offline.close();
+        registry.close();
+        Files.deleteIfExists(snapshot);
+        System.out.println("All discovery checks passed");
+    }
+
+    private static McpServerDescriptor next(LinkedBlockingQueue<McpServerDescriptor> changes)
+            throws InterruptedException {
+        McpServerDescriptor change = changes.poll(5, TimeUnit.SECONDS);
+        if (change == null) {
+            throw new IllegalStateException("No change pushed within 5 s");
+        }
+        return change;
+    }
+}
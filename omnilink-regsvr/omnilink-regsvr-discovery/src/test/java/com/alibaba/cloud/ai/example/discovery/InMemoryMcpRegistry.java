@@ -0,0 +1,129 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for Nacos, so discovery can be exercised without a registry server.
+ * <p>
+ * Configuration entries and service instances live in memory. As with Nacos, listeners are
+ * notified asynchronously on a notification thread, with the full healthy instance list for
+ * service changes. {@link #setLatency} delays every read to imitate a slow registry, and
+ * {@link #setReachable} makes reads fail as they do when the registry is down.
+ */
+public class InMemoryMcpRegistry implements McpRegistry {
+
+    private final Map<String, String> configs = new ConcurrentHashMap<>();
+    private final Map<String, List<McpEndpoint>> instances = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<String>>> configListeners = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<List<McpEndpoint>>>> instanceListeners = new ConcurrentHashMap<>();
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "registry-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicInteger configReads = new AtomicInteger();
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile boolean reachable = true;
+
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    public void setReachable(boolean reachable) {
+        this.reachable = reachable;
+    }
+
+    public void publishConfig(String dataId, String group, String content) {
+        configs.put(key(dataId, group), content);
+        for (Consumer<String> listener : configListeners.getOrDefault(key(dataId, group), List.of())) {
+            notifier.execute(() -> listener.accept(content));
+        }
+    }
+
+    /**
+     * Reads of single entries through {@link #getConfig}, to tell how much a client fetched.
+     */
+    public int configReads() {
+        return configReads.get();
+    }
+
+    public void registerInstance(String serviceName, String group, McpEndpoint endpoint) {
+        instances.compute(key(serviceName, group), (key, current) -> {
+            List<McpEndpoint> updated = current == null ? new ArrayList<>() : new ArrayList<>(current);
+            updated.removeIf(e -> e.host().equals(endpoint.host()) && e.port() == endpoint.port());
+            updated.add(endpoint);
+            return List.copyOf(updated);
+        });
+        notifyInstances(serviceName, group);
+    }
+
+    public void deregisterInstance(String serviceName, String group, String host, int port) {
+        instances.computeIfPresent(key(serviceName, group), (key, current) -> current.stream()
+                .filter(e -> !(e.host().equals(host) && e.port() == port))
+                .toList());
+        notifyInstances(serviceName, group);
+    }
+
+    private void notifyInstances(String serviceName, String group) {
+        List<McpEndpoint> current = instances.getOrDefault(key(serviceName, group), List.of());
+        for (Consumer<List<McpEndpoint>> listener : instanceListeners.getOrDefault(key(serviceName, group),
+                List.of())) {
+            notifier.execute(() -> listener.accept(current));
+        }
+    }
+
+    @Override
+    public String getConfigAndWatch(String dataId, String group, Consumer<String> listener) throws IOException {
+        call();
+        configListeners.computeIfAbsent(key(dataId, group), key -> new CopyOnWriteArrayList<>()).add(listener);
+        return configs.get(key(dataId, group));
+    }
+
+    @Override
+    public String getConfig(String dataId, String group) throws IOException {
+        call();
+        configReads.incrementAndGet();
+        return configs.get(key(dataId, group));
+    }
+
+    @Override
+    public List<McpEndpoint> getInstancesAndWatch(String serviceName, String group,
+            Consumer<List<McpEndpoint>> listener) throws IOException {
+        call();
+        instanceListeners.computeIfAbsent(key(serviceName, group), key -> new CopyOnWriteArrayList<>()).add(listener);
+        return instances.getOrDefault(key(serviceName, group), List.of());
+    }
+
+    private void call() throws IOException {
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling the registry");
+        }
+        if (!reachable) {
+            throw new IOException("Registry unreachable");
+        }
+    }
+
+    private static String key(String name, String group) {
+        return group + "@@" + name;
+    }
+
+    @Override
+    public void close() {
+        notifier.shutdownNow();
+    }
+}
@@ -0,0 +1,146 @@
+package com.alibaba.cloud.ai.example.discovery;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static com.alibaba.cloud.ai.example.discovery.Checks.check;
+
+/**
+ * Runs {@link McpServerDirectory} against a server with hundreds of tools published as a tool
+ * index in {@link InMemoryMcpRegistry}, and counts the tool entries it fetches: all of them on
+ * a cold start, then only those whose hash changed.
+ */
+public class ToolIndexSample {
+
+    private static final String SERVER = "webmvc-mcp-server";
+
+    private static final String GROUP = "mcp-tools";
+
+    private static final String SERVER_JSON = """
+            {"protocol":"mcp-sse","name":"webmvc-mcp-server","description":"Weather","version":"1.0.0","enabled":true,
+             "remoteServerConfig":{"serviceRef":{"namespaceId":"public","groupName":"DEFAULT_GROUP",
+             "serviceName":"webmvc-mcp-server-mcp-service"},"exportPath":"/sse"}}
+            """;
+
+    private static final int TOOLS = 300;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * What the server side has published: the index entry per tool, by tool name.
+     */
+    private static final Map<String, Map<String, Object>> index = new TreeMap<>();
+
+    private static long indexVersion;
+
+    public static void main(String[] args) throws Exception {
+        Path snapshot = Files.createTempFile("mcp-tool-index", ".json");
+        Files.delete(snapshot);
+        McpDiscoveryProperties properties = new McpDiscoveryProperties();
+        properties.setServers(List.of(SERVER));
+        properties.setSnapshotFile(snapshot);
+        properties.setRetryInterval(Duration.ofMillis(200));
+
+        InMemoryMcpRegistry registry = new InMemoryMcpRegistry();
+        registry.publishConfig(SERVER + "-mcp-server.json", "mcp-server", SERVER_JSON);
+        registry.registerInstance(SERVER + "-mcp-service", "DEFAULT_GROUP",
+                new McpEndpoint("10.0.0.1", 8080, 1.0, Map.of()));
+        for (int i = 0; i < TOOLS; i++) {
+            publishTool(registry, "tool" + i, "Tool number " + i, "v1");
+        }
+        publishIndex(registry);
+
+        // 1. Cold start: every tool entry is fetched once
+        McpServerDirectory directory = new McpServerDirectory(properties, registry, objectMapper);
+        directory.start();
+        check(directory.get(SERVER).tools().size() == TOOLS && registry.configReads() == TOOLS,
+                "cold start fetches all " + registry.configReads() + " tool entries");
+
+        // 2. One tool changes: only its entry is fetched
+        LinkedBlockingQueue<McpServerDescriptor> changes = new LinkedBlockingQueue<>();
+        directory.addListener(changes::add);
+        int reads = registry.configReads();
+        publishTool(registry, "tool7", "Tool number 7, now better", "v2");
+        publishIndex(registry);
+        McpServerDescriptor changed = next(changes);
+        check(registry.configReads() - reads == 1 && tool(changed, "tool7").description().endsWith("better"),
+                "a changed tool costs one fetch");
+
+        // 3. A tool is switched off in the index: no fetch at all
+        reads = registry.configReads();
+        index.get("tool8").put("enabled", false);
+        publishIndex(registry);
+        changed = next(changes);
+        check(registry.configReads() == reads && !tool(changed, "tool8").enabled()
+                && changed.enabledTools().size() == TOOLS - 1, "switching a tool off costs no fetch");
+
+        // 4. The index names an entry that is not published yet: retried until it is
+        reads = registry.configReads();
+        index.put("late", Map.of("version", 1, "hash", "h-late-v1", "enabled", true));
+        publishIndex(registry);
+        Thread.sleep(300);
+        publishTool(registry, "late", "Published after the index", "v1");
+        changed = next(changes);
+        check(changed.tools().size() == TOOLS + 1 && registry.configReads() - reads >= 2,
+                "an entry published after the index is picked up on retry");
+        directory.close();
+
+        // 5. Warm start: tools come from the snapshot, only the one changed meanwhile is fetched
+        publishTool(registry, "tool9", "Tool number 9, changed while the client was down", "v2");
+        index.remove("late");
+        publishIndex(registry);
+        reads = registry.configReads();
+        McpServerDirectory warm = new McpServerDirectory(properties, registry, objectMapper);
+        LinkedBlockingQueue<McpServerDescriptor> warmChanges = new LinkedBlockingQueue<>();
+        warm.addListener(warmChanges::add);
+        warm.start();
+        changed = next(warmChanges);
+        check(registry.configReads() - reads == 1 && changed.tools().size() == TOOLS
+                && tool(changed, "tool9").description().contains("changed"),
+                "warm start fetches only the tool changed meanwhile");
+        warm.close();
+        registry.close();
+        Files.deleteIfExists(snapshot);
+        System.out.println("All tool index checks passed");
+    }
+
+    /**
+     * Publishes a tool entry as the server side does; the hash stands for the content hash.
+     */
+    private static void publishTool(InMemoryMcpRegistry registry, String name, String description, String revision)
+            throws Exception {
+        String hash = "h-" + name + "-" + revision;
+        registry.publishConfig(SERVER + "-mcp-tool-" + name + ".json", GROUP, objectMapper.writeValueAsString(Map.of(
+                "name", name, "description", description, "hash", hash,
+                "inputSchema", Map.of("type", "object", "properties", Map.of("city", Map.of("type", "string"))))));
+        Map<String, Object> entry = index.get(name);
+        long version = entry == null ? 1 : ((Number) entry.get("version")).longValue() + 1;
+        index.put(name, new TreeMap<>(Map.of("version", version, "hash", hash, "enabled", true)));
+    }
+
+    private static void publishIndex(InMemoryMcpRegistry registry) throws Exception {
+        registry.publishConfig(SERVER + "-mcp-tools-index.json", GROUP,
+                objectMapper.writeValueAsString(Map.of("version", ++indexVersion, "tools", index)));
+    }
+
+    private static ToolDescriptor tool(McpServerDescriptor server, String name) {
+        return server.tools().stream().filter(tool -> tool.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static McpServerDescriptor next(LinkedBlockingQueue<McpServerDescriptor> changes)
+            throws InterruptedException {
+        McpServerDescriptor change = changes.poll(5, TimeUnit.SECONDS);
+        if (change == null) {
+            throw new IllegalStateException("No change pushed within 5 s");
+        }
+        return change;
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * This file was generated by the Gradle 'init' task.
+ */
+
+plugins {
+    id("buildlogic.java-conventions")
+}
+
+dependencies {
+    api(libs.org.springframework.boot.spring.boot.autoconfigure)
+    api(libs.org.springframework.ai.spring.ai.mcp)
+    api(project(":omnilink-regsvr:omnilink-regsvr-common"))
+    compileOnly(project(":omnilink-regsvr:omnilink-regsvr-discovery"))
+    testImplementation(project(":omnilink-regsvr:omnilink-regsvr-discovery"))
+    testImplementation(project(path = ":omnilink-regsvr:omnilink-regsvr-discovery", configuration = "testArtifacts"))
+}
+
+description = "omnilink-regsvr-embedded"
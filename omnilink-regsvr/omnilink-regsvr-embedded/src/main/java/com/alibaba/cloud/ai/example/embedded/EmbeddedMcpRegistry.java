@@ -0,0 +1,94 @@
+package com.alibaba.cloud.ai.example.embedded;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import com.alibaba.cloud.ai.example.discovery.McpEndpoint;
+import com.alibaba.cloud.ai.example.discovery.McpRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link McpRegistry} backed by the entries a {@link GossipNode} replicates, so that
+ * {@code McpServerDirectory} discovers servers of an embedded cluster exactly as it does from
+ * Nacos. Reads are local; changes are pushed as the node receives them.
+ * <p>
+ * The instances of a service are those whose node is alive or suspected; a node declared
+ * dead or leaving takes its instances with it.
+ */
+public class EmbeddedMcpRegistry implements McpRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedMcpRegistry.class);
+
+    private final GossipNode node;
+    private final ObjectMapper objectMapper;
+    private final Consumer<String> nodeListener = this::changed;
+
+    private final Map<String, List<Consumer<String>>> configListeners = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<List<McpEndpoint>>>> instanceListeners = new ConcurrentHashMap<>();
+
+    public EmbeddedMcpRegistry(GossipNode node, ObjectMapper objectMapper) {
+        this.node = node;
+        this.objectMapper = objectMapper;
+        node.addListener(nodeListener);
+    }
+
+    @Override
+    public String getConfigAndWatch(String dataId, String group, Consumer<String> listener) {
+        String key = RegistryKeys.config(dataId, group);
+        configListeners.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(listener);
+        return node.get(key);
+    }
+
+    @Override
+    public String getConfig(String dataId, String group) {
+        return node.get(RegistryKeys.config(dataId, group));
+    }
+
+    @Override
+    public List<McpEndpoint> getInstancesAndWatch(String serviceName, String group,
+            Consumer<List<McpEndpoint>> listener) {
+        String prefix = RegistryKeys.instances(serviceName, group);
+        instanceListeners.computeIfAbsent(prefix, k -> new CopyOnWriteArrayList<>()).add(listener);
+        return instances(prefix);
+    }
+
+    private void changed(String key) {
+        List<Consumer<String>> listeners = configListeners.get(key);
+        if (listeners != null) {
+            String content = node.get(key);
+            listeners.forEach(listener -> listener.accept(content));
+        }
+        instanceListeners.forEach((prefix, serviceListeners) -> {
+            if (key.startsWith(prefix)) {
+                List<McpEndpoint> instances = instances(prefix);
+                serviceListeners.forEach(listener -> listener.accept(instances));
+            }
+        });
+    }
+
+    private List<McpEndpoint> instances(String prefix) {
+        List<McpEndpoint> instances = new ArrayList<>();
+        node.getAll(prefix).forEach((key, json) -> {
+            try {
+                instances.add(objectMapper.readValue(json, McpEndpoint.class));
+            } catch (JsonProcessingException e) {
+                logger.warn("Ignoring malformed instance {}: {}", key, e.getOriginalMessage());
+            }
+        });
+        instances.sort(Comparator.comparing(McpEndpoint::host).thenComparingInt(McpEndpoint::port));
+        return instances;
+    }
+
+    @Override
+    public void close() {
+        node.removeListener(nodeListener);
+    }
+}
@@ -0,0 +1,113 @@
+package com.alibaba.cloud.ai.example.embedded;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.cloud.ai.example.discovery.McpRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Runs a {@link GossipNode} when {@code mcp.embedded.enabled} is set, and uses it in place of
+ * Nacos on both sides:
+ * <ul>
+ * <li>an MCP server, one with {@code spring.ai.mcp.server.name}, registers itself and its
+ * tools once it is ready</li>
+ * <li>with {@code omnilink-regsvr-discovery} on the classpath, the node becomes the
+ * {@link McpRegistry} that servers are discovered from</li>
+ * </ul>
+ */
+@AutoConfiguration(beforeName = "com.alibaba.cloud.ai.example.discovery.McpDiscoveryAutoConfiguration")
+@EnableConfigurationProperties(EmbeddedRegistryProperties.class)
+@ConditionalOnProperty(prefix = EmbeddedRegistryProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true")
+public class EmbeddedRegistryAutoConfiguration {
+
+    /**
+     * Name of the bean that publishes the server's tools, see {@link Server#embeddedToolSync}.
+     */
+    public static final String TOOL_SYNC_BEAN = "embeddedToolSync";
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public GossipNode gossipNode(EmbeddedRegistryProperties properties,
+            ObjectProvider<ObjectMapper> objectMapperProvider) {
+        return new GossipNode(properties, objectMapperProvider.getIfAvailable(ObjectMapper::new));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "com.alibaba.cloud.ai.example.discovery.McpRegistry")
+    static class Discovery {
+
+        @Bean(destroyMethod = "close")
+        @ConditionalOnMissingBean
+        public McpRegistry mcpRegistry(GossipNode node, ObjectProvider<ObjectMapper> objectMapperProvider) {
+            return new EmbeddedMcpRegistry(node, objectMapperProvider.getIfAvailable(ObjectMapper::new));
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "spring.ai.mcp.server.name")
+    static class Server {
+
+        @Bean
+        public EmbeddedServerRegistration embeddedServerRegistration(GossipNode node,
+                EmbeddedRegistryProperties properties, ObjectProvider<ObjectMapper> objectMapperProvider,
+                @Value("${spring.ai.mcp.server.name}") String serverName,
+                @Value("${spring.ai.mcp.server.version:1.0.0}") String version,
+                @Value("${spring.ai.mcp.server.sse-endpoint:/sse}") String exportPath,
+                @Value("${server.port:8080}") int port) {
+            return new EmbeddedServerRegistration(node, objectMapperProvider.getIfAvailable(ObjectMapper::new),
+                    serverName, version, exportPath, port, properties.getProtocolPeriod().multipliedBy(3));
+        }
+
+        /**
+         * Publishes the tools of every {@link ToolCallbackProvider} once the server accepts
+         * connections, keeping the switches already in the registry. An application that
+         * switches tools on and off itself defines a bean of this name instead, which calls
+         * {@link EmbeddedServerRegistration#publish} on every change.
+         */
+        @Bean(TOOL_SYNC_BEAN)
+        @ConditionalOnMissingBean(name = TOOL_SYNC_BEAN)
+        public ApplicationListener<ApplicationReadyEvent> embeddedToolSync(EmbeddedServerRegistration registration,
+                ObjectProvider<ToolCallbackProvider> providers) {
+            return event -> {
+                List<ToolDefinition> tools = new ArrayList<>();
+                for (ToolCallbackProvider provider : providers) {
+                    for (Object callback : provider.getToolCallbacks()) {
+                        if (callback instanceof ToolCallback tool) {
+                            tools.add(tool.getToolDefinition());
+                        }
+                    }
+                }
+                try {
+                    registration.publish(tools, null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+        }
+
+        /**
+         * Registers the server and this instance once the server accepts connections.
+         */
+        @EventListener(ApplicationReadyEvent.class)
+        public void register(ApplicationReadyEvent event) throws InterruptedException {
+            event.getApplicationContext().getBean(EmbeddedServerRegistration.class).register();
+        }
+    }
+}
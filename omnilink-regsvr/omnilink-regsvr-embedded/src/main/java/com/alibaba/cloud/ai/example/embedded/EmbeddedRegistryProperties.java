@@ -0,0 +1,219 @@
+package com.alibaba.cloud.ai.example.embedded;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the embedded registry: this node's gossip endpoint, the nodes to join
+ * through, and the timing of the SWIM failure detector.
+ */
+@ConfigurationProperties(EmbeddedRegistryProperties.CONFIG_PREFIX)
+public class EmbeddedRegistryProperties {
+
+    public static final String CONFIG_PREFIX = "mcp.embedded";
+
+    /**
+     * Whether to run a gossip node and use it as the registry instead of Nacos.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Address the UDP and TCP sockets bind to.
+     */
+    private String bindHost = "0.0.0.0";
+
+    /**
+     * Port for both UDP and TCP; 0 picks one free for both.
+     */
+    private int port = 7946;
+
+    /**
+     * Address other nodes and clients reach this node at; the bind address if that is not a
+     * wildcard, otherwise the local host address.
+     */
+    private String advertiseHost;
+
+    /**
+     * Unique name of this node; {@code host:port} if empty.
+     */
+    private String name;
+
+    /**
+     * Nodes to join through, {@code host:port}. Any live node will do; it need not be listed
+     * on every node.
+     */
+    private List<String> seeds = new ArrayList<>();
+
+    /**
+     * How often each node probes one other node.
+     */
+    private Duration protocolPeriod = Duration.ofSeconds(1);
+
+    /**
+     * How long to wait for a direct probe to be answered before asking other nodes to probe.
+     * Must be shorter than the protocol period.
+     */
+    private Duration ackTimeout = Duration.ofMillis(300);
+
+    /**
+     * Nodes asked to probe a node that did not answer directly.
+     */
+    private int indirectChecks = 3;
+
+    /**
+     * How long a suspected node has to refute the suspicion before it is declared dead.
+     */
+    private Duration suspicionTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Each update is piggybacked on this many messages times the log of the cluster size.
+     */
+    private int retransmitMultiplier = 4;
+
+    /**
+     * How often to exchange full state with a random node, repairing anything gossip missed.
+     */
+    private Duration syncInterval = Duration.ofSeconds(10);
+
+    /**
+     * Timeout for connecting to another node over TCP, and for each read on the connection,
+     * for full state syncs and entries too large for a datagram.
+     */
+    private Duration streamTimeout = Duration.ofSeconds(10);
+
+    /**
+     * How long dead and departed nodes are remembered, so that stale gossip about them is
+     * recognized as such.
+     */
+    private Duration deadRetention = Duration.ofMinutes(1);
+
+    /**
+     * How long deleted entries are remembered, so that the deletion wins over older copies.
+     * A node cut off for longer may bring a deleted entry back, so keep it well above the
+     * sync interval and the longest partition to ride out.
+     */
+    private Duration tombstoneRetention = Duration.ofMinutes(10);
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getBindHost() {
+        return this.bindHost;
+    }
+
+    public void setBindHost(String bindHost) {
+        this.bindHost = bindHost;
+    }
+
+    public int getPort() {
+        return this.port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public String getAdvertiseHost() {
+        return this.advertiseHost;
+    }
+
+    public void setAdvertiseHost(String advertiseHost) {
+        this.advertiseHost = advertiseHost;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<String> getSeeds() {
+        return this.seeds;
+    }
+
+    public void setSeeds(List<String> seeds) {
+        this.seeds = seeds;
+    }
+
+    public Duration getProtocolPeriod() {
+        return this.protocolPeriod;
+    }
+
+    public void setProtocolPeriod(Duration protocolPeriod) {
+        this.protocolPeriod = protocolPeriod;
+    }
+
+    public Duration getAckTimeout() {
+        return this.ackTimeout;
+    }
+
+    public void setAckTimeout(Duration ackTimeout) {
+        this.ackTimeout = ackTimeout;
+    }
+
+    public int getIndirectChecks() {
+        return this.indirectChecks;
+    }
+
+    public void setIndirectChecks(int indirectChecks) {
+        this.indirectChecks = indirectChecks;
+    }
+
+    public Duration getSuspicionTimeout() {
+        return this.suspicionTimeout;
+    }
+
+    public void setSuspicionTimeout(Duration suspicionTimeout) {
+        this.suspicionTimeout = suspicionTimeout;
+    }
+
+    public int getRetransmitMultiplier() {
+        return this.retransmitMultiplier;
+    }
+
+    public void setRetransmitMultiplier(int retransmitMultiplier) {
+        this.retransmitMultiplier = retransmitMultiplier;
+    }
+
+    public Duration getSyncInterval() {
+        return this.syncInterval;
+    }
+
+    public void setSyncInterval(Duration syncInterval) {
+        this.syncInterval = syncInterval;
+    }
+
+    public Duration getStreamTimeout() {
+        return this.streamTimeout;
+    }
+
+    public void setStreamTimeout(Duration streamTimeout) {
+        this.streamTimeout = streamTimeout;
+    }
+
+    public Duration getDeadRetention() {
+        return this.deadRetention;
+    }
+
+    public void setDeadRetention(Duration deadRetention) {
+        this.deadRetention = deadRetention;
+    }
+
+    public Duration getTombstoneRetention() {
+        return this.tombstoneRetention;
+    }
+
+    public void setTombstoneRetention(Duration tombstoneRetention) {
+        this.tombstoneRetention = tombstoneRetention;
+    }
+}
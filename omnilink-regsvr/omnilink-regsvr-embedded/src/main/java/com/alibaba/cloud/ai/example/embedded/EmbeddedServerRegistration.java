@@ -0,0 +1,163 @@
+package com.alibaba.cloud.ai.example.embedded;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.alibaba.cloud.ai.example.common.ToolIndex;
+import com.alibaba.cloud.ai.example.common.ToolIndexPlanner;
+import com.alibaba.cloud.ai.example.common.ToolPublisher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+/**
+ * Registers an MCP server with the embedded registry in the layout that
+ * {@code spring-ai-alibaba-mcp-nacos} and {@code ToolIndexPublisher} use in Nacos, so that
+ * clients read it unchanged:
+ * <ul>
+ * <li>{@code <server>-mcp-server.json} in group {@code mcp-server}</li>
+ * <li>{@code <server>-mcp-tools-index.json} and one {@code <server>-mcp-tool-<tool>.json} per
+ * tool in group {@code mcp-tools}, rewritten only for tools whose hash changed</li>
+ * <li>an ephemeral instance of {@code <server>-mcp-service} in group {@code DEFAULT_GROUP},
+ * owned by this node</li>
+ * </ul>
+ * The tool entries are planned by {@link ToolIndexPlanner}, as for Nacos. Every instance of a
+ * server writes the same entries; since they hold the same content, it does not matter whose
+ * write wins. Before its first write, the registration waits for the node to catch up with the
+ * cluster, so that settings kept in the registry, such as disabled tools, are not overwritten.
+ */
+public class EmbeddedServerRegistration implements ToolPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedServerRegistration.class);
+
+    public static final String SERVER_GROUP = "mcp-server";
+
+    public static final String TOOLS_GROUP = "mcp-tools";
+
+    public static final String SERVICE_GROUP = "DEFAULT_GROUP";
+
+    private final GossipNode node;
+    private final ObjectMapper objectMapper;
+    private final ToolIndexPlanner planner;
+    private final String serverName;
+    private final String version;
+    private final String exportPath;
+    private final int port;
+    private final Duration joinTimeout;
+    private boolean joined;
+
+    /**
+     * @param joinTimeout how long to wait for another node to answer before the first write
+     */
+    public EmbeddedServerRegistration(GossipNode node, ObjectMapper objectMapper, String serverName, String version,
+            String exportPath, int port, Duration joinTimeout) {
+        this.node = node;
+        this.objectMapper = objectMapper;
+        this.planner = new ToolIndexPlanner(serverName, objectMapper);
+        this.serverName = serverName;
+        this.version = version;
+        this.exportPath = exportPath;
+        this.port = port;
+        this.joinTimeout = joinTimeout;
+    }
+
+    /**
+     * Publishes the server and this instance.
+     */
+    public synchronized void register() throws InterruptedException {
+        awaitJoin();
+        publishServer();
+        Map<String, Object> instance = new LinkedHashMap<>();
+        instance.put("host", node.host());
+        instance.put("port", port);
+        instance.put("weight", 1.0);
+        instance.put("metadata", Map.of());
+        node.put(RegistryKeys.instance(serviceName(), SERVICE_GROUP, node.name()), write(instance), true);
+        logger.info("Registered MCP server {} at {}:{} in the embedded registry", serverName, node.host(), port);
+    }
+
+    /**
+     * Brings the server's tool entries in line with {@code tools}.
+     *
+     * @param disabled names of the tools whose policy switches them off, or {@code null} to
+     *                 keep the switches already in the registry
+     * @throws IllegalArgumentException if a tool definition is larger than an entry may be
+     */
+    @Override
+    public synchronized ToolIndex publish(List<ToolDefinition> tools, Set<String> disabled)
+            throws InterruptedException {
+        awaitJoin();
+        String indexKey = RegistryKeys.config(planner.indexId(), TOOLS_GROUP);
+        ToolIndexPlanner.Plan plan = planner.plan(planner.parse(node.get(indexKey)), tools, disabled);
+        if (plan.isEmpty()) {
+            return plan.index();
+        }
+        for (var changed : plan.changed().entrySet()) {
+            node.put(RegistryKeys.config(planner.toolId(changed.getKey()), TOOLS_GROUP), changed.getValue(), false);
+        }
+        node.put(indexKey, planner.write(plan.index()), false);
+        for (String name : plan.removed()) {
+            node.remove(RegistryKeys.config(planner.toolId(name), TOOLS_GROUP));
+        }
+        logger.info("Published tool index of {} at version {}: {} changed, {} switched, {} removed", serverName,
+                plan.index().version(), plan.changed().size(), plan.switched().size(), plan.removed().size());
+        return plan.index();
+    }
+
+    private void awaitJoin() throws InterruptedException {
+        if (!joined) {
+            if (!node.awaitJoin(joinTimeout)) {
+                logger.info("No other node of the embedded registry answered, registering as the first one");
+            }
+            joined = true;
+        }
+    }
+
+    private void publishServer() {
+        String key = RegistryKeys.config(serverName + "-mcp-server.json", SERVER_GROUP);
+        JsonNode current = parse(node.get(key));
+        Map<String, Object> serviceRef = new LinkedHashMap<>();
+        serviceRef.put("namespaceId", "public");
+        serviceRef.put("groupName", SERVICE_GROUP);
+        serviceRef.put("serviceName", serviceName());
+        Map<String, Object> server = new LinkedHashMap<>();
+        server.put("protocol", "mcp-sse");
+        server.put("name", serverName);
+        server.put("version", version);
+        // Kept across restarts, like the switch in the Nacos console
+        server.put("enabled", current == null || current.path("enabled").asBoolean(true));
+        server.put("remoteServerConfig", Map.of("serviceRef", serviceRef, "exportPath", exportPath));
+        node.put(key, write(server), false);
+    }
+
+    private String serviceName() {
+        return serverName + "-mcp-service";
+    }
+
+    private JsonNode parse(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            logger.warn("Replacing malformed registry entry of {}: {}", serverName, e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
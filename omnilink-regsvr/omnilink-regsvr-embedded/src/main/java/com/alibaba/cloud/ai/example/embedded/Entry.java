@@ -0,0 +1,30 @@
+package com.alibaba.cloud.ai.example.embedded;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One replicated value, last writer wins: of two entries with the same key, the one with the
+ * higher version, then the higher origin name, is kept everywhere.
+ *
+ * @param key       entry key
+ * @param value     content; {@code null} in digests and for deleted entries
+ * @param version   hybrid logical clock of the origin when it wrote the entry
+ * @param origin    name of the node that wrote the entry
+ * @param ephemeral whether the entry is dropped when its origin dies or leaves, as service
+ *                  instances are
+ * @param deleted   whether the entry is a tombstone
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+record Entry(String key, String value, long version, String origin, boolean ephemeral, boolean deleted) {
+
+    boolean isNewerThan(Entry other) {
+        return version != other.version ? version > other.version : origin.compareTo(other.origin) > 0;
+    }
+
+    /**
+     * The entry without its value, to tell another node which version is held.
+     */
+    Entry digest() {
+        return new Entry(key, null, version, origin, ephemeral, deleted);
+    }
+}
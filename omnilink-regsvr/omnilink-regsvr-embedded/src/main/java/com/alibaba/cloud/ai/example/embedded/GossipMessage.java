@@ -0,0 +1,69 @@
+package com.alibaba.cloud.ai.example.embedded;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A message between gossip nodes: a datagram, or for push-pull and entries too large to
+ * piggyback, a length-prefixed frame on a TCP connection. Every message may carry membership
+ * updates and entries being disseminated, whatever its type.
+ *
+ * @param type    what the message asks for
+ * @param seq     probe sequence number, echoed by {@link Type#ACK}
+ * @param target  node to probe on the sender's behalf, for {@link Type#PING_REQ}
+ * @param members membership updates; the sender's full member list for the sync types
+ * @param entries entries being disseminated or sent in reply to a digest
+ * @param digest  versions of all entries the sender holds, for the sync types
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+record GossipMessage(Type type, long seq, String target, List<Member> members, List<Entry> entries,
+        List<Entry> digest) {
+
+    GossipMessage {
+        members = members == null ? List.of() : members;
+        entries = entries == null ? List.of() : entries;
+        digest = digest == null ? List.of() : digest;
+    }
+
+    enum Type {
+
+        /**
+         * Direct probe, answered with an {@link #ACK}.
+         */
+        PING,
+
+        /**
+         * Asks the receiver to probe {@code target} and relay its {@link #ACK}.
+         */
+        PING_REQ,
+
+        ACK,
+
+        /**
+         * Push-pull, over TCP: the receiver merges the sender's members and replies on the
+         * same connection with its own members and digest, and the entries the sender's
+         * digest lacks or holds older.
+         */
+        SYNC,
+
+        /**
+         * Reply to {@link #SYNC}; the sender of the sync answers with a {@link #DATA} frame
+         * holding the entries the replier's digest lacks or holds older.
+         */
+        SYNC_REPLY,
+
+        /**
+         * Only carries entries.
+         */
+        DATA
+    }
+
+    static GossipMessage of(Type type, long seq, String target) {
+        return new GossipMessage(type, seq, target, List.of(), List.of(), List.of());
+    }
+
+    GossipMessage withGossip(List<Member> members, List<Entry> entries) {
+        return new GossipMessage(type, seq, target, members, entries, digest);
+    }
+}
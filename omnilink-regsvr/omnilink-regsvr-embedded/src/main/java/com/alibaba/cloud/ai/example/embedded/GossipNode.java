@@ -0,0 +1,1061 @@
+package com.alibaba.cloud.ai.example.embedded;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.BindException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.cloud.ai.example.embedded.GossipMessage.Type;
+import com.alibaba.cloud.ai.example.embedded.Member.State;
+
+/**
+ * A node of an embedded registry cluster: SWIM membership over UDP, and a replicated
+ * last-writer-wins store of {@link Entry entries} disseminated the same way. As in memberlist,
+ * datagrams stay within a typical path MTU, and whatever does not fit one goes over TCP on the
+ * same port.
+ * <p>
+ * Every protocol period the node probes one other node, in a shuffled round-robin order. A
+ * node that does not answer within the ack timeout is probed indirectly through a few others;
+ * if none of them gets an answer either, it is suspected. A suspected node that does not
+ * refute the suspicion, by gossiping a higher incarnation of itself, within the suspicion
+ * timeout is declared dead and its ephemeral entries are dropped everywhere.
+ * <p>
+ * Membership updates and written entries are piggybacked on the probe traffic, each on a
+ * number of messages growing with the log of the cluster size, so they reach every node in
+ * O(log n) periods without extra messages. Entries too large to piggyback are pushed over TCP
+ * to a random node instead, as many times. Every sync interval the node also exchanges its
+ * full member list and entry digest with a random node over TCP, push-pull, which repairs
+ * anything lost and brings joining nodes up to date. TCP traffic runs on its own thread, so
+ * a slow peer never holds up the failure detector.
+ * <p>
+ * Deletions are kept as tombstones, so that they win over older copies still around, and
+ * forgotten after the tombstone retention.
+ * <p>
+ * Incarnations and entry versions start from the wall clock, so a restarted node overrides
+ * what the cluster remembers of its previous run.
+ */
+public class GossipNode implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GossipNode.class);
+
+    /**
+     * Largest datagram sent, memberlist's default: below the MTU of most paths, so datagrams
+     * are not fragmented and lost whole with any one fragment.
+     */
+    static final int MAX_PACKET = 1_400;
+
+    /**
+     * Largest entry accepted.
+     */
+    static final int MAX_ENTRY = 1024 * 1024;
+
+    // Room for the message that broadcasts are piggybacked on
+    private static final int HEADER_ALLOWANCE = 256;
+
+    /**
+     * Largest broadcast piggybacked on datagrams; larger ones are pushed over TCP.
+     */
+    private static final int MAX_PIGGYBACK = MAX_PACKET - 2 * HEADER_ALLOWANCE;
+
+    /**
+     * Largest message read from a TCP connection, room for the full state of a cluster.
+     */
+    private static final int MAX_STREAM_MESSAGE = 64 * 1024 * 1024;
+
+    private static final class Known {
+
+        final Member member;
+        final long since;
+
+        Known(Member member, long since) {
+            this.member = member;
+            this.since = since;
+        }
+    }
+
+    private static final class Broadcast {
+
+        final Object item;
+        final int size;
+        int transmits;
+
+        Broadcast(Object item, int size) {
+            this.item = item;
+            this.size = size;
+        }
+    }
+
+    private record Outgoing(SocketAddress address, GossipMessage message) {
+    }
+
+    private final EmbeddedRegistryProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private DatagramSocket socket;
+    private ServerSocket streamSocket;
+    private String name;
+    private String host;
+    private int port;
+    private volatile boolean running;
+    private Thread receiver;
+    private Thread prober;
+    private Thread streamAcceptor;
+    private Thread streamer;
+
+    // Guarded by this
+    private final Map<String, Known> members = new HashMap<>();
+    private final NavigableMap<String, Entry> entries = new TreeMap<>();
+    private final Map<String, Broadcast> broadcasts = new LinkedHashMap<>();
+    private final List<String> probeOrder = new ArrayList<>();
+    private long incarnation;
+    private long clock;
+
+    private final Map<Long, CompletableFuture<Void>> pendingAcks = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Void> joined = new CompletableFuture<>();
+
+    public GossipNode(EmbeddedRegistryProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper.copy()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Binds the sockets and joins the cluster through the seeds. Returns without waiting for
+     * the seeds to answer; joining is retried every protocol period until a push-pull sync
+     * with another node went through.
+     */
+    public synchronized void start() throws IOException {
+        InetSocketAddress bind = new InetSocketAddress(properties.getBindHost(), properties.getPort());
+        bind(bind);
+        port = socket.getLocalPort();
+        host = properties.getAdvertiseHost() != null && !properties.getAdvertiseHost().isBlank()
+                ? properties.getAdvertiseHost()
+                : bind.getAddress().isAnyLocalAddress() ? InetAddress.getLocalHost().getHostAddress()
+                        : bind.getAddress().getHostAddress();
+        name = properties.getName() != null && !properties.getName().isBlank() ? properties.getName()
+                : host + ":" + port;
+        incarnation = System.currentTimeMillis();
+        Member self = new Member(name, host, port, State.ALIVE, incarnation);
+        members.put(name, new Known(self, System.nanoTime()));
+        broadcast(self);
+        running = true;
+        receiver = Thread.ofPlatform().daemon().name("gossip-receiver-" + port).start(this::receive);
+        prober = Thread.ofPlatform().daemon().name("gossip-probe-" + port).start(this::probeLoop);
+        streamAcceptor = Thread.ofPlatform().daemon().name("gossip-accept-" + port).start(this::accept);
+        streamer = Thread.ofPlatform().daemon().name("gossip-stream-" + port).start(this::streamLoop);
+        logger.info("Gossip node {} started at {}:{}, joining through {}", name, host, port,
+                properties.getSeeds());
+    }
+
+    /**
+     * Leaves the cluster: tells other nodes, which drop this node's ephemeral entries right
+     * away instead of after the suspicion timeout, then stops.
+     */
+    @Override
+    public void close() {
+        stop(true);
+    }
+
+    /**
+     * Stops without telling other nodes, as a crash would.
+     */
+    void halt() {
+        stop(false);
+    }
+
+    private void stop(boolean leave) {
+        List<Outgoing> farewell = new ArrayList<>();
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            if (leave) {
+                Member left = self().with(State.LEFT, incarnation);
+                members.put(name, new Known(left, System.nanoTime()));
+                GossipMessage message = GossipMessage.of(Type.DATA, 0, null).withGossip(List.of(left), List.of());
+                for (Member member : randomLive(Math.max(properties.getIndirectChecks(), 3) * 2, null)) {
+                    farewell.add(new Outgoing(address(member), message));
+                }
+            }
+            running = false;
+        }
+        farewell.forEach(this::send);
+        socket.close();
+        try {
+            streamSocket.close();
+        } catch (IOException e) {
+            logger.debug("Closing the gossip stream socket failed: {}", e.getMessage());
+        }
+        for (Thread thread : List.of(receiver, prober, streamAcceptor, streamer)) {
+            thread.interrupt();
+            try {
+                thread.join(properties.getProtocolPeriod().toMillis() * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.info("Gossip node {} {}", name, leave ? "left the cluster" : "stopped");
+    }
+
+    /**
+     * Waits until this node has exchanged state with another node, so that it holds what the
+     * cluster holds.
+     *
+     * @return {@code false} if no other node answered in time, as for the first node of a
+     *         cluster
+     */
+    public boolean awaitJoin(Duration timeout) throws InterruptedException {
+        try {
+            joined.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String host() {
+        return host;
+    }
+
+    public int port() {
+        return port;
+    }
+
+    /**
+     * All nodes known, this one included, dead and departed ones until they are forgotten.
+     */
+    public synchronized List<Member> members() {
+        return members.values().stream().map(known -> known.member)
+                .sorted(Comparator.comparing(Member::name)).toList();
+    }
+
+    /**
+     * Content of an entry, or {@code null} if it does not exist or was deleted.
+     */
+    public synchronized String get(String key) {
+        Entry entry = entries.get(key);
+        return entry == null || entry.deleted() ? null : entry.value();
+    }
+
+    /**
+     * Contents of the existing entries whose key starts with {@code prefix}, by key.
+     */
+    public synchronized Map<String, String> getAll(String prefix) {
+        Map<String, String> result = new TreeMap<>();
+        for (Entry entry : entries.values()) {
+            if (entry.key().startsWith(prefix) && !entry.deleted()) {
+                result.put(entry.key(), entry.value());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes an entry and disseminates it.
+     *
+     * @param ephemeral whether the entry disappears when this node dies or leaves
+     * @throws IllegalArgumentException if the entry is larger than {@link #MAX_ENTRY}
+     */
+    public void put(String key, String value, boolean ephemeral) {
+        synchronized (this) {
+            Entry entry = new Entry(key, value, nextVersion(), name, ephemeral, false);
+            int size = size(entry);
+            if (size > MAX_ENTRY) {
+                throw new IllegalArgumentException(
+                        "Entry " + key + " takes " + size + " bytes, more than the " + MAX_ENTRY + " allowed");
+            }
+            Entry current = entries.get(key);
+            if (current != null && !current.deleted() && value.equals(current.value())
+                    && current.origin().equals(name) && current.ephemeral() == ephemeral) {
+                return;
+            }
+            entries.put(key, entry);
+            broadcast(entry);
+        }
+        notifyListeners(Set.of(key));
+    }
+
+    /**
+     * Deletes an entry, leaving a tombstone so that the deletion wins over older copies.
+     */
+    public void remove(String key) {
+        synchronized (this) {
+            Entry current = entries.get(key);
+            if (current == null || current.deleted()) {
+                return;
+            }
+            Entry tombstone = new Entry(key, null, nextVersion(), name, current.ephemeral(), true);
+            entries.put(key, tombstone);
+            broadcast(tombstone);
+        }
+        notifyListeners(Set.of(key));
+    }
+
+    /**
+     * Number of deleted entries still remembered.
+     */
+    synchronized long tombstones() {
+        return entries.values().stream().filter(Entry::deleted).count();
+    }
+
+    /**
+     * Adds a listener called with the key of every entry that is written, deleted, or dropped
+     * because its origin died. It runs on a gossip thread and must not block.
+     */
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<String> listener) {
+        listeners.remove(listener);
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[65_536];
+        while (running) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+            } catch (IOException e) {
+                if (running) {
+                    logger.debug("Receiving gossip failed: {}", e.getMessage());
+                }
+                continue;
+            }
+            GossipMessage message;
+            try {
+                message = objectMapper.readValue(buffer, 0, packet.getLength(), GossipMessage.class);
+            } catch (IOException e) {
+                logger.debug("Ignoring malformed gossip from {}: {}", packet.getSocketAddress(), e.getMessage());
+                continue;
+            }
+            try {
+                handle(message, packet.getSocketAddress());
+            } catch (RuntimeException e) {
+                logger.warn("Handling {} from {} failed", message.type(), packet.getSocketAddress(), e);
+            }
+        }
+    }
+
+    private void handle(GossipMessage message, SocketAddress from) {
+        Set<String> changed = new LinkedHashSet<>();
+        List<Outgoing> outgoing = new ArrayList<>();
+        CompletableFuture<Void> acked = null;
+        synchronized (this) {
+            merge(message, changed);
+            switch (message.type()) {
+                case PING -> outgoing.add(new Outgoing(from, gossip(GossipMessage.of(Type.ACK, message.seq(), null))));
+                case PING_REQ -> {
+                    Known target = members.get(message.target());
+                    if (target != null && target.member.live()) {
+                        long relay = sequence.incrementAndGet();
+                        CompletableFuture<Void> relayed = new CompletableFuture<Void>()
+                                .orTimeout(properties.getProtocolPeriod().toMillis(), TimeUnit.MILLISECONDS);
+                        pendingAcks.put(relay, relayed);
+                        relayed.thenRun(() -> send(new Outgoing(from, GossipMessage.of(Type.ACK, message.seq(), null))));
+                        outgoing.add(new Outgoing(address(target.member), gossip(GossipMessage.of(Type.PING, relay, null))));
+                    }
+                }
+                case ACK -> acked = pendingAcks.remove(message.seq());
+                case SYNC, SYNC_REPLY -> logger.debug("Ignoring {} from {}, sent over TCP only", message.type(), from);
+                case DATA -> {
+                }
+            }
+        }
+        if (acked != null) {
+            acked.complete(null);
+        }
+        outgoing.forEach(this::send);
+        notifyListeners(changed);
+    }
+
+    private void probeLoop() {
+        long period = properties.getProtocolPeriod().toNanos();
+        while (running) {
+            long start = System.nanoTime();
+            try {
+                Member target = nextProbeTarget();
+                if (target != null) {
+                    probe(target);
+                }
+                expire();
+            } catch (RuntimeException e) {
+                logger.warn("Gossip protocol period failed", e);
+            }
+            if (!sleepUntil(start + period)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Every protocol period, pushes the broadcasts too large to piggyback, and syncs when
+     * the sync interval is up, or until a sync went through.
+     */
+    private void streamLoop() {
+        long period = properties.getProtocolPeriod().toNanos();
+        long nextSync = System.nanoTime();
+        while (running) {
+            long start = System.nanoTime();
+            try {
+                pushLarge();
+                if (start - nextSync >= 0 || !hasLivePeers() || !joined.isDone()) {
+                    sync();
+                    nextSync = start + properties.getSyncInterval().toNanos();
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Gossip stream period failed", e);
+            }
+            if (!sleepUntil(start + period)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if interrupted
+     */
+    private static boolean sleepUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void probe(Member target) {
+        long seq = sequence.incrementAndGet();
+        CompletableFuture<Void> ack = new CompletableFuture<>();
+        pendingAcks.put(seq, ack);
+        try {
+            send(new Outgoing(address(target), gossipLocked(GossipMessage.of(Type.PING, seq, null))));
+            if (await(ack, properties.getAckTimeout().toNanos())) {
+                return;
+            }
+            List<Outgoing> requests = new ArrayList<>();
+            synchronized (this) {
+                for (Member helper : randomLive(properties.getIndirectChecks(), target.name())) {
+                    requests.add(new Outgoing(address(helper), gossip(GossipMessage.of(Type.PING_REQ, seq, target.name()))));
+                }
+            }
+            requests.forEach(this::send);
+            long rest = properties.getProtocolPeriod().minus(properties.getAckTimeout()).toNanos();
+            if (!await(ack, Math.max(rest, properties.getAckTimeout().toNanos()))) {
+                suspect(target);
+            }
+        } finally {
+            pendingAcks.remove(seq);
+        }
+    }
+
+    private boolean await(CompletableFuture<Void> ack, long nanos) {
+        try {
+            ack.get(nanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    private synchronized void suspect(Member target) {
+        Known known = members.get(target.name());
+        if (known != null && known.member.state() == State.ALIVE
+                && known.member.incarnation() == target.incarnation()) {
+            Member suspect = target.with(State.SUSPECT, target.incarnation());
+            members.put(target.name(), new Known(suspect, System.nanoTime()));
+            broadcast(suspect);
+            logger.info("Gossip node {} suspects {}", name, target.name());
+        }
+    }
+
+    /**
+     * Declares suspects dead once their suspicion timed out, and forgets nodes dead and
+     * tombstones older than their retention.
+     */
+    private void expire() {
+        Set<String> changed = new LinkedHashSet<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            for (Known known : List.copyOf(members.values())) {
+                Member member = known.member;
+                if (member.state() == State.SUSPECT
+                        && now - known.since > properties.getSuspicionTimeout().toNanos()) {
+                    Member dead = member.with(State.DEAD, member.incarnation());
+                    members.put(member.name(), new Known(dead, now));
+                    broadcast(dead);
+                    dropEphemeral(member.name(), changed);
+                    logger.info("Gossip node {} declares {} dead", name, member.name());
+                } else if (!member.live() && !member.name().equals(name)
+                        && now - known.since > properties.getDeadRetention().toNanos()) {
+                    members.remove(member.name());
+                }
+            }
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.deleted() && isForgotten(entry)) {
+                    iterator.remove();
+                    broadcasts.remove(entry.key());
+                }
+            }
+            // Relayed probes the target never answered
+            pendingAcks.values().removeIf(CompletableFuture::isDone);
+        }
+        notifyListeners(changed);
+    }
+
+    /**
+     * Push-pull with a random live node, or with the seeds until one answers.
+     */
+    private void sync() {
+        List<SocketAddress> targets = new ArrayList<>();
+        synchronized (this) {
+            List<Member> peers = randomLive(1, null);
+            if (!peers.isEmpty()) {
+                targets.add(address(peers.get(0)));
+            } else {
+                for (String seed : properties.getSeeds()) {
+                    InetSocketAddress address = seedAddress(seed);
+                    if (address != null && !(address.getPort() == port && isSelf(address))) {
+                        targets.add(address);
+                    }
+                }
+            }
+        }
+        for (SocketAddress target : targets) {
+            if (pushPull(target)) {
+                joined.complete(null);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sends the full member list and entry digest, merges the members and the entries the
+     * other node replies with, then sends it the entries its digest lacks or holds older.
+     *
+     * @return whether the exchange went through
+     */
+    private boolean pushPull(SocketAddress target) {
+        try (Socket connection = connect(target)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            GossipMessage request;
+            synchronized (this) {
+                request = state(Type.SYNC, List.of());
+            }
+            writeFrame(out, request);
+            GossipMessage reply = readFrame(in);
+            Set<String> changed = new LinkedHashSet<>();
+            List<Entry> newer;
+            synchronized (this) {
+                merge(reply, changed);
+                newer = newerThan(reply.digest());
+            }
+            notifyListeners(changed);
+            writeFrame(out, new GossipMessage(Type.DATA, 0, null, List.of(), newer, List.of()));
+            return true;
+        } catch (IOException e) {
+            if (running) {
+                logger.debug("Syncing with {} failed: {}", target, e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Pushes the broadcasts too large to piggyback on datagrams to a random live node over
+     * TCP, each push counting as one transmission as piggybacking does.
+     */
+    private void pushLarge() {
+        List<Entry> large = new ArrayList<>();
+        Member target;
+        synchronized (this) {
+            List<Member> peers = randomLive(1, null);
+            if (peers.isEmpty()) {
+                return;
+            }
+            target = peers.get(0);
+            int limit = transmitLimit();
+            Iterator<Broadcast> iterator = broadcasts.values().iterator();
+            while (iterator.hasNext()) {
+                Broadcast broadcast = iterator.next();
+                if (broadcast.size > MAX_PIGGYBACK && broadcast.item instanceof Entry entry) {
+                    large.add(entry);
+                    if (++broadcast.transmits >= limit) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+        if (large.isEmpty()) {
+            return;
+        }
+        try (Socket connection = connect(address(target))) {
+            writeFrame(new DataOutputStream(new BufferedOutputStream(connection.getOutputStream())),
+                    new GossipMessage(Type.DATA, 0, null, List.of(), large, List.of()));
+        } catch (IOException e) {
+            if (running) {
+                logger.debug("Pushing {} entries to {} failed: {}", large.size(), target.name(), e.getMessage());
+            }
+        }
+    }
+
+    private void accept() {
+        while (running) {
+            Socket connection;
+            try {
+                connection = streamSocket.accept();
+            } catch (IOException e) {
+                if (running) {
+                    logger.debug("Accepting a gossip connection failed: {}", e.getMessage());
+                }
+                continue;
+            }
+            Thread.ofPlatform().daemon().name("gossip-serve-" + port).start(() -> serve(connection));
+        }
+    }
+
+    /**
+     * Answers a push-pull with this node's full member list, its entry digest and the entries
+     * the sender's digest lacks or holds older, then merges the entries sent back; merges the
+     * entries of a push.
+     */
+    private void serve(Socket connection) {
+        SocketAddress from = connection.getRemoteSocketAddress();
+        try (connection) {
+            connection.setSoTimeout((int) properties.getStreamTimeout().toMillis());
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            GossipMessage message = readFrame(in);
+            Set<String> changed = new LinkedHashSet<>();
+            GossipMessage reply = null;
+            synchronized (this) {
+                merge(message, changed);
+                if (message.type() == Type.SYNC) {
+                    reply = state(Type.SYNC_REPLY, newerThan(message.digest()));
+                }
+            }
+            notifyListeners(changed);
+            if (reply == null) {
+                return;
+            }
+            writeFrame(new DataOutputStream(new BufferedOutputStream(connection.getOutputStream())), reply);
+            GossipMessage data = readFrame(in);
+            Set<String> received = new LinkedHashSet<>();
+            synchronized (this) {
+                merge(data, received);
+            }
+            notifyListeners(received);
+        } catch (IOException e) {
+            if (running) {
+                logger.debug("Serving gossip connection from {} failed: {}", from, e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Serving gossip connection from {} failed", from, e);
+        }
+    }
+
+    private Socket connect(SocketAddress target) throws IOException {
+        int timeout = (int) properties.getStreamTimeout().toMillis();
+        Socket connection = new Socket();
+        try {
+            connection.connect(target, timeout);
+            connection.setSoTimeout(timeout);
+            return connection;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private void writeFrame(DataOutputStream out, GossipMessage message) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(message);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+
+    private GossipMessage readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STREAM_MESSAGE) {
+            throw new IOException("Gossip message of " + length + " bytes, at most " + MAX_STREAM_MESSAGE + " allowed");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return objectMapper.readValue(bytes, GossipMessage.class);
+    }
+
+    /**
+     * Binds the UDP and the TCP socket to the same port. When any port will do, a free one
+     * is picked for TCP first, and picked again should UDP find it taken.
+     */
+    private void bind(InetSocketAddress bind) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            ServerSocket stream = new ServerSocket();
+            try {
+                stream.bind(bind);
+                socket = new DatagramSocket(new InetSocketAddress(bind.getAddress(), stream.getLocalPort()));
+                streamSocket = stream;
+                return;
+            } catch (BindException e) {
+                stream.close();
+                if (bind.getPort() != 0 || attempt == 10) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean isSelf(InetSocketAddress address) {
+        InetAddress ip = address.getAddress();
+        return ip != null && (ip.isLoopbackAddress() || ip.isAnyLocalAddress() || ip.getHostAddress().equals(host));
+    }
+
+    private static InetSocketAddress seedAddress(String seed) {
+        int colon = seed.lastIndexOf(':');
+        if (colon < 0) {
+            logger.warn("Ignoring seed {}, expected host:port", seed);
+            return null;
+        }
+        return new InetSocketAddress(seed.substring(0, colon).trim(), Integer.parseInt(seed.substring(colon + 1).trim()));
+    }
+
+    private synchronized boolean hasLivePeers() {
+        return members.values().stream().anyMatch(known -> known.member.live() && !known.member.name().equals(name));
+    }
+
+    private synchronized Member nextProbeTarget() {
+        while (!probeOrder.isEmpty()) {
+            Known known = members.get(probeOrder.remove(probeOrder.size() - 1));
+            if (known != null && known.member.live()) {
+                return known.member;
+            }
+        }
+        for (Known known : members.values()) {
+            if (known.member.live() && !known.member.name().equals(name)) {
+                probeOrder.add(known.member.name());
+            }
+        }
+        Collections.shuffle(probeOrder);
+        return probeOrder.isEmpty() ? null : members.get(probeOrder.remove(probeOrder.size() - 1)).member;
+    }
+
+    // The methods below are called with the lock held
+
+    private void merge(GossipMessage message, Set<String> changed) {
+        message.members().forEach(member -> merge(member, changed));
+        message.entries().forEach(entry -> merge(entry, changed));
+    }
+
+    private void merge(Member update, Set<String> changed) {
+        if (update.name().equals(name)) {
+            if (running && (update.state() != State.ALIVE || update.incarnation() > incarnation)
+                    && update.incarnation() >= incarnation) {
+                refute(update);
+            }
+            return;
+        }
+        Known known = members.get(update.name());
+        Member current = known == null ? null : known.member;
+        boolean apply = switch (update.state()) {
+            case ALIVE -> current == null || update.incarnation() > current.incarnation();
+            case SUSPECT -> current != null && (current.state() == State.ALIVE
+                    ? update.incarnation() >= current.incarnation() : update.incarnation() > current.incarnation());
+            case DEAD, LEFT -> current != null && current.live() && update.incarnation() >= current.incarnation();
+        };
+        if (!apply) {
+            return;
+        }
+        members.put(update.name(), new Known(update, System.nanoTime()));
+        broadcast(update);
+        switch (update.state()) {
+            case ALIVE -> {
+                if (current == null || !current.live()) {
+                    logger.info("Gossip node {} sees {} join at {}:{}", name, update.name(), update.host(),
+                            update.port());
+                }
+            }
+            case SUSPECT -> logger.debug("Gossip node {} hears {} is suspected", name, update.name());
+            case DEAD, LEFT -> {
+                dropEphemeral(update.name(), changed);
+                logger.info("Gossip node {} hears {} {}", name, update.name(),
+                        update.state() == State.LEFT ? "left" : "is dead");
+            }
+        }
+    }
+
+    /**
+     * Answers gossip that this node is suspected or dead with a higher incarnation, and
+     * rewrites its ephemeral entries for the nodes that already dropped them.
+     */
+    private void refute(Member update) {
+        incarnation = Math.max(incarnation, update.incarnation()) + 1;
+        Member self = self().with(State.ALIVE, incarnation);
+        members.put(name, new Known(self, System.nanoTime()));
+        broadcast(self);
+        for (Entry entry : List.copyOf(entries.values())) {
+            if (entry.ephemeral() && !entry.deleted() && entry.origin().equals(name)) {
+                Entry rewritten = new Entry(entry.key(), entry.value(), nextVersion(), name, true, false);
+                entries.put(entry.key(), rewritten);
+                broadcast(rewritten);
+            }
+        }
+        logger.info("Gossip node {} refutes being {} with incarnation {}", name,
+                update.state().name().toLowerCase(), incarnation);
+    }
+
+    private void merge(Entry entry, Set<String> changed) {
+        Known origin = members.get(entry.origin());
+        if (entry.ephemeral() && !entry.deleted() && origin != null && !origin.member.live()) {
+            // Stale copy of an entry dropped when its origin died
+            return;
+        }
+        Entry current = entries.get(entry.key());
+        if (entry.origin().equals(name)) {
+            if (current == null && entry.ephemeral() && !entry.deleted()) {
+                // Left over from an earlier run of this node
+                Entry tombstone = new Entry(entry.key(), null, nextVersion(), name, true, true);
+                entries.put(entry.key(), tombstone);
+                broadcast(tombstone);
+                return;
+            }
+            if (current != null && entry.isNewerThan(current)) {
+                Entry rewritten = new Entry(current.key(), current.value(), nextVersion(), name,
+                        current.ephemeral(), current.deleted());
+                entries.put(current.key(), rewritten);
+                broadcast(rewritten);
+                return;
+            }
+        }
+        if (current != null ? !entry.isNewerThan(current) : entry.deleted() && isForgotten(entry)) {
+            // Not newer, or a tombstone this node already forgot while the sender has yet to
+            return;
+        }
+        entries.put(entry.key(), entry);
+        clock = Math.max(clock, entry.version());
+        broadcast(entry);
+        changed.add(entry.key());
+    }
+
+    private void dropEphemeral(String origin, Set<String> changed) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.ephemeral() && entry.origin().equals(origin)) {
+                iterator.remove();
+                broadcasts.remove(entry.key());
+                if (!entry.deleted()) {
+                    changed.add(entry.key());
+                }
+            }
+        }
+    }
+
+    private long nextVersion() {
+        clock = Math.max(clock + 1, System.currentTimeMillis());
+        return clock;
+    }
+
+    private Member self() {
+        return members.get(name).member;
+    }
+
+    private void broadcast(Member member) {
+        queue("member:" + member.name(), member);
+    }
+
+    private void broadcast(Entry entry) {
+        queue(entry.key(), entry);
+    }
+
+    private void queue(String id, Object item) {
+        broadcasts.remove(id);
+        broadcasts.put(id, new Broadcast(item, size(item)));
+    }
+
+    private synchronized GossipMessage gossipLocked(GossipMessage message) {
+        return gossip(message);
+    }
+
+    /**
+     * Piggybacks the least transmitted broadcasts that fit on a message.
+     */
+    private GossipMessage gossip(GossipMessage message) {
+        if (broadcasts.isEmpty()) {
+            return message;
+        }
+        int limit = transmitLimit();
+        int budget = MAX_PACKET - HEADER_ALLOWANCE - size(message);
+        List<Member> memberUpdates = new ArrayList<>(message.members());
+        List<Entry> entryUpdates = new ArrayList<>(message.entries());
+        List<Map.Entry<String, Broadcast>> candidates = new ArrayList<>(broadcasts.entrySet());
+        candidates.sort(Comparator.comparingInt(candidate -> candidate.getValue().transmits));
+        for (Map.Entry<String, Broadcast> candidate : candidates) {
+            Broadcast broadcast = candidate.getValue();
+            if (broadcast.size > MAX_PIGGYBACK || broadcast.size > budget) {
+                continue;
+            }
+            budget -= broadcast.size;
+            if (broadcast.item instanceof Member member) {
+                memberUpdates.add(member);
+            } else {
+                entryUpdates.add((Entry) broadcast.item);
+            }
+            if (++broadcast.transmits >= limit) {
+                broadcasts.remove(candidate.getKey());
+            }
+        }
+        return message.withGossip(memberUpdates, entryUpdates);
+    }
+
+    /**
+     * How many times each broadcast is sent: the multiplier times the log of the cluster size.
+     */
+    private int transmitLimit() {
+        int live = (int) members.values().stream().filter(known -> known.member.live()).count();
+        return Math.max(1, properties.getRetransmitMultiplier() * (int) Math.ceil(Math.log10(live + 1)));
+    }
+
+    /**
+     * Whether a tombstone is older than the retention. Versions start from the origin's wall
+     * clock, so this holds at about the same time on every node.
+     */
+    private boolean isForgotten(Entry tombstone) {
+        return System.currentTimeMillis() - tombstone.version() > properties.getTombstoneRetention().toMillis();
+    }
+
+    /**
+     * This node's full member list and entry digest, for push-pull.
+     */
+    private GossipMessage state(Type type, List<Entry> newer) {
+        List<Member> all = members.values().stream().map(known -> known.member).toList();
+        List<Entry> digest = entries.values().stream().map(Entry::digest).toList();
+        return new GossipMessage(type, 0, null, all, newer, digest);
+    }
+
+    /**
+     * Entries that a digest lacks or holds older.
+     */
+    private List<Entry> newerThan(List<Entry> digest) {
+        Map<String, Entry> held = new HashMap<>();
+        digest.forEach(entry -> held.put(entry.key(), entry));
+        List<Entry> newer = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            Entry other = held.get(entry.key());
+            if (other == null ? !entry.deleted() : entry.isNewerThan(other)) {
+                newer.add(entry);
+            }
+        }
+        return newer;
+    }
+
+    private List<Member> randomLive(int count, String excluded) {
+        List<Member> candidates = new ArrayList<>();
+        for (Known known : members.values()) {
+            Member member = known.member;
+            if (member.live() && !member.name().equals(name) && !member.name().equals(excluded)) {
+                candidates.add(member);
+            }
+        }
+        Collections.shuffle(candidates, ThreadLocalRandom.current());
+        return candidates.subList(0, Math.min(count, candidates.size()));
+    }
+
+    private static SocketAddress address(Member member) {
+        return new InetSocketAddress(member.host(), member.port());
+    }
+
+    private int size(Object item) {
+        try {
+            return objectMapper.writeValueAsBytes(item).length + 1;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void send(Outgoing outgoing) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(outgoing.message());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (bytes.length > MAX_PACKET) {
+            logger.warn("Dropping {} gossip of {} bytes to {}, more than a datagram holds", outgoing.message().type(),
+                    bytes.length, outgoing.address());
+            return;
+        }
+        try {
+            socket.send(new DatagramPacket(bytes, bytes.length, outgoing.address()));
+        } catch (IOException e) {
+            if (running) {
+                logger.debug("Sending gossip to {} failed: {}", outgoing.address(), e.getMessage());
+            }
+        }
+    }
+
+    private void notifyListeners(Set<String> keys) {
+        for (String key : keys) {
+            for (Consumer<String> listener : listeners) {
+                try {
+                    listener.accept(key);
+                } catch (RuntimeException e) {
+                    logger.warn("Gossip listener failed for {}", key, e);
+                }
+            }
+        }
+    }
+}
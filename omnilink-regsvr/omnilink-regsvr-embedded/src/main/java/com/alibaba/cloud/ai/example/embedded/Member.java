@@ -0,0 +1,30 @@
+package com.alibaba.cloud.ai.example.embedded;
+
+/**
+ * A node of the gossip cluster as one node knows it.
+ *
+ * @param name        unique node name
+ * @param host        address the node receives gossip at
+ * @param port        port the node receives gossip at, over UDP and TCP
+ * @param state       what is known of the node
+ * @param incarnation raised only by the node itself, to refute suspicion; an update about a
+ *                    node overrides another only with a higher incarnation, or the same
+ *                    incarnation and a worse state
+ */
+public record Member(String name, String host, int port, State state, long incarnation) {
+
+    public enum State {
+        ALIVE, SUSPECT, DEAD, LEFT
+    }
+
+    public Member with(State state, long incarnation) {
+        return new Member(name, host, port, state, incarnation);
+    }
+
+    /**
+     * Whether the node is taken to be running: alive, or suspected but not yet declared dead.
+     */
+    public boolean live() {
+        return state == State.ALIVE || state == State.SUSPECT;
+    }
+}
@@ -0,0 +1,24 @@
+package com.alibaba.cloud.ai.example.embedded;
+
+/**
+ * How registry data maps onto {@link GossipNode} entry keys: configuration entries by group
+ * and data id, as in Nacos, and one ephemeral entry per service instance, owned by the node
+ * running it.
+ */
+final class RegistryKeys {
+
+    private RegistryKeys() {
+    }
+
+    static String config(String dataId, String group) {
+        return "config/" + group + "/" + dataId;
+    }
+
+    static String instances(String serviceName, String group) {
+        return "instance/" + group + "/" + serviceName + "/";
+    }
+
+    static String instance(String serviceName, String group, String node) {
+        return instances(serviceName, group) + node;
+    }
+}
@@ -0,0 +1,198 @@
+package com.alibaba.cloud.ai.example.embedded;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.ai.example.discovery.McpDiscoveryProperties;
+import com.alibaba.cloud.ai.example.discovery.McpServerDescriptor;
+import com.alibaba.cloud.ai.example.discovery.McpServerDirectory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.ai.tool.definition.DefaultToolDefinition;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import static com.alibaba.cloud.ai.example.discovery.Checks.await;
+import static com.alibaba.cloud.ai.example.discovery.Checks.check;
+
+/**
+ * Runs an embedded registry cluster of several nodes on localhost, with fast protocol timing:
+ * two nodes register instances of an MCP server, and a client node discovers them through
+ * {@link McpServerDirectory} as it would from Nacos, while nodes change tools, crash, leave
+ * and restart. Then an entry too large to piggyback on a datagram spreads over TCP, and the
+ * cluster takes far more entries than datagrams could sync, which nodes joining later still
+ * get in full.
+ */
+public class EmbeddedClusterSample {
+
+    private static final String SERVER = "weather-mcp-server";
+
+    private static final int NODES = 5;
+
+    // The full state of this many entries takes about 90 KB, far over the size of a datagram
+    private static final int BULK = 1000;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final List<GossipNode> nodes = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        // 1. Nodes join through the first one and all see each other
+        long begin = System.nanoTime();
+        GossipNode seed = start("node-0", List.of());
+        for (int i = 1; i < NODES; i++) {
+            start("node-" + i, List.of("127.0.0.1:" + seed.port()));
+        }
+        await(() -> nodes.stream().allMatch(node -> live(node) == NODES), Duration.ofSeconds(5),
+                "membership converges");
+        System.out.println("   in " + millisSince(begin) + " ms");
+
+        // 2. Nodes 1 and 2 run the server; node 4 discovers it
+        EmbeddedServerRegistration first = registration(nodes.get(1), 8081);
+        EmbeddedServerRegistration second = registration(nodes.get(2), 8082);
+        first.register();
+        first.publish(tools("Get weather by city name"), null);
+        second.register();
+        second.publish(tools("Get weather by city name"), null);
+
+        Path snapshot = Files.createTempFile("mcp-embedded", ".json");
+        Files.delete(snapshot);
+        McpDiscoveryProperties discovery = new McpDiscoveryProperties();
+        discovery.setServers(List.of(SERVER));
+        discovery.setSnapshotFile(snapshot);
+        discovery.setRetryInterval(Duration.ofMillis(200));
+        EmbeddedMcpRegistry registry = new EmbeddedMcpRegistry(nodes.get(4), objectMapper);
+        McpServerDirectory directory = new McpServerDirectory(discovery, registry, objectMapper);
+        directory.start();
+        await(() -> endpoints(directory) == 2 && directory.get(SERVER).tools().size() == 2, Duration.ofSeconds(5),
+                "client discovers both instances and the tools");
+
+        // 3. A changed tool, then a tool switched off, reach the client
+        first.publish(tools("Get weather and air quality by city name"), null);
+        await(() -> directory.get(SERVER).tools().stream()
+                .anyMatch(tool -> tool.description().contains("air quality")), Duration.ofSeconds(5),
+                "changed tool reaches the client");
+        first.publish(tools("Get weather and air quality by city name"), Set.of("getForecast"));
+        await(() -> !enabled(directory, "getForecast"), Duration.ofSeconds(5), "switched-off tool reaches the client");
+
+        // 4. A crashed node is suspected, declared dead and its instance dropped
+        begin = System.nanoTime();
+        nodes.get(2).halt();
+        await(() -> endpoints(directory) == 1, Duration.ofSeconds(10), "crashed instance is dropped");
+        System.out.println("   in " + millisSince(begin) + " ms");
+
+        // 5. A node that leaves takes its instance with it right away
+        begin = System.nanoTime();
+        nodes.get(1).close();
+        await(() -> endpoints(directory) == 0, Duration.ofSeconds(2), "departed instance is dropped");
+        System.out.println("   in " + millisSince(begin) + " ms");
+
+        // 6. The crashed node restarts under its name and overrides its old state
+        GossipNode restarted = start("node-2", List.of("127.0.0.1:" + seed.port()));
+        restarted.awaitJoin(Duration.ofSeconds(2));
+        EmbeddedServerRegistration third = registration(restarted, 8082);
+        third.register();
+        third.publish(tools("Get weather and air quality by city name"), null);
+        await(() -> endpoints(directory) == 1 && directory.get(SERVER).endpoints().get(0).port() == 8082,
+                Duration.ofSeconds(5), "restarted instance is back");
+        check(!enabled(directory, "getForecast"), "restarted instance keeps the tool switched off");
+        await(() -> nodes.stream().filter(node -> node != nodes.get(1) && node != nodes.get(2))
+                .allMatch(node -> live(node) == NODES - 1), Duration.ofSeconds(5),
+                "every running node sees the restarted one");
+
+        // 7. An entry larger than a datagram reaches every node, and nodes joining a cluster
+        // holding many entries get all of them
+        List<GossipNode> running = new ArrayList<>(List.of(seed, nodes.get(3), nodes.get(4), restarted));
+        String large = "{\"value\":\"" + "x".repeat(20 * GossipNode.MAX_PACKET) + "\"}";
+        nodes.get(3).put("large", large, false);
+        await(() -> running.stream().allMatch(node -> large.equals(node.get("large"))), Duration.ofSeconds(5),
+                "an entry of " + large.length() + " bytes reaches every running node");
+        for (int i = 0; i < BULK; i++) {
+            nodes.get(3).put(String.format("bulk/%04d", i), "{\"value\":\"" + "x".repeat(48) + i + "\"}", false);
+        }
+        await(() -> running.stream().allMatch(node -> node.getAll("bulk/").size() == BULK), Duration.ofSeconds(10),
+                "every running node holds the " + BULK + " entries");
+        begin = System.nanoTime();
+        GossipNode joining = start("node-5", List.of("127.0.0.1:" + seed.port()));
+        check(joining.awaitJoin(Duration.ofSeconds(3)), "a new node joins a cluster holding " + BULK + " entries");
+        await(() -> joining.getAll("bulk/").size() == BULK, Duration.ofSeconds(2), "the new node holds every entry");
+        System.out.println("   in " + millisSince(begin) + " ms");
+        running.add(joining);
+
+        // 8. Deletions win over the copies, and their tombstones are forgotten after the retention
+        for (int i = 0; i < BULK / 4; i++) {
+            nodes.get(3).remove(String.format("bulk/%04d", i));
+        }
+        await(() -> running.stream().allMatch(node -> node.getAll("bulk/").size() == BULK * 3 / 4),
+                Duration.ofSeconds(10), "every running node drops the deleted entries");
+        await(() -> running.stream().allMatch(node -> node.tombstones() == 0), Duration.ofSeconds(10),
+                "tombstones are forgotten after the retention");
+        GossipNode late = start("node-6", List.of("127.0.0.1:" + seed.port()));
+        check(late.awaitJoin(Duration.ofSeconds(3)), "a node joins after the tombstones are forgotten");
+        running.add(late);
+        // Two sync intervals, for the nodes to compare their full state again
+        Thread.sleep(2_500);
+        await(() -> running.stream().allMatch(node -> node.getAll("bulk/").size() == BULK * 3 / 4),
+                Duration.ofSeconds(1), "deleted entries stay deleted");
+
+        directory.close();
+        registry.close();
+        for (GossipNode node : nodes) {
+            node.close();
+        }
+        Files.deleteIfExists(snapshot);
+        System.out.println("All embedded cluster checks passed");
+    }
+
+    private static GossipNode start(String name, List<String> seeds) throws Exception {
+        EmbeddedRegistryProperties properties = new EmbeddedRegistryProperties();
+        properties.setName(name);
+        properties.setBindHost("127.0.0.1");
+        properties.setPort(0);
+        properties.setSeeds(seeds);
+        properties.setProtocolPeriod(Duration.ofMillis(200));
+        properties.setAckTimeout(Duration.ofMillis(60));
+        properties.setIndirectChecks(2);
+        properties.setSuspicionTimeout(Duration.ofSeconds(1));
+        properties.setSyncInterval(Duration.ofSeconds(1));
+        properties.setTombstoneRetention(Duration.ofSeconds(3));
+        GossipNode node = new GossipNode(properties, objectMapper);
+        node.start();
+        nodes.add(node);
+        return node;
+    }
+
+    private static EmbeddedServerRegistration registration(GossipNode node, int port) {
+        return new EmbeddedServerRegistration(node, objectMapper, SERVER, "1.0.0", "/sse", port,
+                Duration.ofSeconds(1));
+    }
+
+    private static List<ToolDefinition> tools(String weatherDescription) {
+        return List.of(
+                new DefaultToolDefinition("getWeather", weatherDescription,
+                        "{\"type\":\"object\",\"properties\":{\"cityName\":{\"type\":\"string\"}}}"),
+                new DefaultToolDefinition("getForecast", "Get a 3-day forecast by city name",
+                        "{\"type\":\"object\",\"properties\":{\"cityName\":{\"type\":\"string\"}}}"));
+    }
+
+    private static int endpoints(McpServerDirectory directory) {
+        McpServerDescriptor server = directory.get(SERVER);
+        return server == null ? -1 : server.endpoints().size();
+    }
+
+    private static boolean enabled(McpServerDirectory directory, String tool) {
+        return directory.get(SERVER).tools().stream().anyMatch(known -> known.name().equals(tool) && known.enabled());
+    }
+
+    private static long live(GossipNode node) {
+        return node.members().stream().filter(Member::live).count();
+    }
+
+    private static long millisSince(long begin) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+    }
+}
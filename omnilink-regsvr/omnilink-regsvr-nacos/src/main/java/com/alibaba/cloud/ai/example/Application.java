@@ -1,6 +1,8 @@
 package com.alibaba.cloud.ai.example;
 
+import com.alibaba.cloud.ai.example.load.ToolLoadTracker;
 import com.alibaba.cloud.ai.example.service.WeatherService;
+import com.alibaba.cloud.ai.example.tools.ToolRegistry;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
 import org.springframework.boot.SpringApplication;
@@ -20,8 +22,10 @@ public class Application {
     }
 
     @Bean
-    public ToolCallbackProvider weatherTools(WeatherService weatherService) {
-        return MethodToolCallbackProvider.builder().toolObjects(weatherService).build();
+    public ToolCallbackProvider weatherTools(WeatherService weatherService, ToolLoadTracker loadTracker,
+            ToolRegistry toolRegistry) {
+        return toolRegistry.register(
+                loadTracker.track(MethodToolCallbackProvider.builder().toolObjects(weatherService).build()));
     }
 
 }
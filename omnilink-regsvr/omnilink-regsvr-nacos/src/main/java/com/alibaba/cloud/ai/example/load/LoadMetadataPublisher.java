@@ -0,0 +1,157 @@
+package com.alibaba.cloud.ai.example.load;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingMaintainService;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.alibaba.nacos.api.utils.NetUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples the load of this server every {@link LoadProperties#getCheckInterval()} and writes
+ * it into the metadata of its instance in Nacos.
+ * <p>
+ * An update is sent only when the load moved past one of the thresholds since the last one,
+ * and no sooner than {@link LoadProperties#getMinInterval()} after it, so a busy server costs
+ * the registry at most one write per interval. The instance is looked up by this server's
+ * port and local address, and updated with its registered weight, status and other metadata
+ * unchanged.
+ */
+public class LoadMetadataPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadMetadataPublisher.class);
+
+    private final LoadProperties properties;
+    private final ToolLoadTracker tracker;
+    private final NamingService namingService;
+    private final NamingMaintainService maintainService;
+    private final String serviceName;
+    private final String group;
+    private final int port;
+    private final Set<String> localAddresses;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-load-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched by the scheduler thread
+    private LoadSnapshot published;
+    private long lastAttempt;
+    private double cpuHeadroom = Double.NaN;
+    private double heapHeadroom = Double.NaN;
+
+    public LoadMetadataPublisher(LoadProperties properties, ToolLoadTracker tracker, NamingService namingService,
+            NamingMaintainService maintainService, String serviceName, String group, int port) {
+        this.properties = properties;
+        this.tracker = tracker;
+        this.namingService = namingService;
+        this.maintainService = maintainService;
+        this.serviceName = serviceName;
+        this.group = group;
+        this.port = port;
+        this.localAddresses = properties.getIp() != null && !properties.getIp().isBlank()
+                ? Set.of(properties.getIp()) : localAddresses();
+    }
+
+    public void start() {
+        // The first CPU samples of a JVM are unreliable, let the average settle first
+        lastAttempt = System.nanoTime();
+        long interval = Math.max(1, properties.getCheckInterval().toMillis());
+        scheduler.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void check() {
+        LoadSnapshot snapshot = smooth(LoadSnapshot.sample(tracker));
+        long now = System.nanoTime();
+        long elapsed = now - lastAttempt;
+        if (elapsed < properties.getMinInterval().toNanos()) {
+            return;
+        }
+        if (published != null && elapsed < properties.getMaxInterval().toNanos()
+                && !snapshot.differsFrom(published, properties)) {
+            return;
+        }
+        try {
+            Instance self = findSelf();
+            if (self == null) {
+                // Not registered yet, try again on the next check
+                logger.debug("No instance of {} on port {} registered yet", serviceName, port);
+                return;
+            }
+            lastAttempt = now;
+            Map<String, String> metadata = new HashMap<>(self.getMetadata());
+            metadata.keySet().removeIf(key -> key.startsWith(LoadSnapshot.METADATA_PREFIX));
+            metadata.putAll(snapshot.toMetadata());
+            self.setMetadata(metadata);
+            maintainService.updateInstance(serviceName, group, self);
+            published = snapshot;
+            logger.debug("Published load of {}:{}: {}", self.getIp(), port, snapshot.toMetadata());
+        } catch (NacosException | RuntimeException e) {
+            lastAttempt = now;
+            logger.warn("Publishing load metadata to Nacos failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Averages CPU and heap headroom over about {@link LoadProperties#getMinInterval()}: sampled
+     * every second, CPU load jumps by whole cores and heap by garbage collections, which would
+     * otherwise cross the threshold on every check.
+     */
+    private LoadSnapshot smooth(LoadSnapshot sample) {
+        double alpha = 1 - Math.exp(-(double) properties.getCheckInterval().toNanos()
+                / Math.max(1, properties.getMinInterval().toNanos()));
+        cpuHeadroom = average(cpuHeadroom, sample.cpuHeadroom(), alpha);
+        heapHeadroom = average(heapHeadroom, sample.heapHeadroom(), alpha);
+        return new LoadSnapshot(sample.inFlight(), cpuHeadroom, heapHeadroom, sample.latencies());
+    }
+
+    private static double average(double average, double sample, double alpha) {
+        if (Double.isNaN(sample) || Double.isNaN(average)) {
+            return sample;
+        }
+        return average + alpha * (sample - average);
+    }
+
+    private Instance findSelf() throws NacosException {
+        for (Instance instance : namingService.getAllInstances(serviceName, group, false)) {
+            if (instance.getPort() == port && localAddresses.contains(instance.getIp())) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    private static Set<String> localAddresses() {
+        Set<String> addresses = new HashSet<>();
+        addresses.add(NetUtils.localIP());
+        try {
+            for (NetworkInterface network : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                for (InetAddress address : Collections.list(network.getInetAddresses())) {
+                    addresses.add(address.getHostAddress());
+                }
+            }
+        } catch (SocketException e) {
+            logger.warn("Listing local addresses failed, matching the instance by {} only: {}",
+                    NetUtils.localIP(), e.getMessage());
+        }
+        return Set.copyOf(addresses);
+    }
+}
@@ -0,0 +1,144 @@
+package com.alibaba.cloud.ai.example.load;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for publishing this server's load into its Nacos instance metadata.
+ */
+@ConfigurationProperties(LoadProperties.CONFIG_PREFIX)
+public class LoadProperties {
+
+    public static final String CONFIG_PREFIX = "mcp.load";
+
+    /**
+     * Whether to publish load metadata.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How often the load is sampled and compared with what was last published.
+     */
+    private Duration checkInterval = Duration.ofSeconds(1);
+
+    /**
+     * Least time between two updates, however much the load changes.
+     */
+    private Duration minInterval = Duration.ofSeconds(5);
+
+    /**
+     * Most time between two updates, even if the load did not change.
+     */
+    private Duration maxInterval = Duration.ofMinutes(1);
+
+    /**
+     * Change in tool calls in flight that is worth an update.
+     */
+    private int inFlightThreshold = 2;
+
+    /**
+     * Change in CPU or heap headroom, as a fraction, that is worth an update.
+     */
+    private double headroomThreshold = 0.1;
+
+    /**
+     * Relative change in a tool's p50 or p99 latency that is worth an update.
+     */
+    private double latencyThreshold = 0.2;
+
+    /**
+     * Age after which a tool call no longer counts towards its latency percentiles.
+     */
+    private Duration latencyWindow = Duration.ofMinutes(1);
+
+    /**
+     * Most recent calls per tool kept for the latency percentiles.
+     */
+    private int latencySamples = 512;
+
+    /**
+     * Address this instance is registered under, if not the detected local address.
+     */
+    private String ip;
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getCheckInterval() {
+        return this.checkInterval;
+    }
+
+    public void setCheckInterval(Duration checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+
+    public Duration getMinInterval() {
+        return this.minInterval;
+    }
+
+    public void setMinInterval(Duration minInterval) {
+        this.minInterval = minInterval;
+    }
+
+    public Duration getMaxInterval() {
+        return this.maxInterval;
+    }
+
+    public void setMaxInterval(Duration maxInterval) {
+        this.maxInterval = maxInterval;
+    }
+
+    public int getInFlightThreshold() {
+        return this.inFlightThreshold;
+    }
+
+    public void setInFlightThreshold(int inFlightThreshold) {
+        this.inFlightThreshold = inFlightThreshold;
+    }
+
+    public double getHeadroomThreshold() {
+        return this.headroomThreshold;
+    }
+
+    public void setHeadroomThreshold(double headroomThreshold) {
+        this.headroomThreshold = headroomThreshold;
+    }
+
+    public double getLatencyThreshold() {
+        return this.latencyThreshold;
+    }
+
+    public void setLatencyThreshold(double latencyThreshold) {
+        this.latencyThreshold = latencyThreshold;
+    }
+
+    public Duration getLatencyWindow() {
+        return this.latencyWindow;
+    }
+
+    public void setLatencyWindow(Duration latencyWindow) {
+        this.latencyWindow = latencyWindow;
+    }
+
+    public int getLatencySamples() {
+        return this.latencySamples;
+    }
+
+    public void setLatencySamples(int latencySamples) {
+        this.latencySamples = latencySamples;
+    }
+
+    public String getIp() {
+        return this.ip;
+    }
+
+    public void setIp(String ip) {
+        this.ip = ip;
+    }
+}
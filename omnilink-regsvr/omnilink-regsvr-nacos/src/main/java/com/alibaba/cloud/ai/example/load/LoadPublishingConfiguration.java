@@ -0,0 +1,36 @@
+package com.alibaba.cloud.ai.example.load;
+
+import com.alibaba.nacos.api.naming.NamingMaintainService;
+import com.alibaba.nacos.api.naming.NamingService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tracks tool load and publishes it to the Nacos instance that
+ * {@code spring-ai-alibaba-mcp-nacos} registers, through the shared Nacos naming clients.
+ */
+@Configuration
+@EnableConfigurationProperties(LoadProperties.class)
+public class LoadPublishingConfiguration {
+
+    @Bean
+    public ToolLoadTracker toolLoadTracker(LoadProperties properties) {
+        return new ToolLoadTracker(properties);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = LoadProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true",
+            matchIfMissing = true)
+    public LoadMetadataPublisher loadMetadataPublisher(LoadProperties properties, ToolLoadTracker tracker,
+            NamingService namingService, NamingMaintainService maintainService,
+            @Value("${spring.ai.mcp.server.name}") String serverName,
+            @Value("${server.port:8080}") int port,
+            @Value("${spring.ai.alibaba.mcp.nacos.service-group:DEFAULT_GROUP}") String group) {
+        return new LoadMetadataPublisher(properties, tracker, namingService, maintainService,
+                serverName + "-mcp-service", group, port);
+    }
+}
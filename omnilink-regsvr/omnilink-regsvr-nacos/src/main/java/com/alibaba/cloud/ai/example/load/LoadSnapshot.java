@@ -0,0 +1,93 @@
+package com.alibaba.cloud.ai.example.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The load of this server at one moment, as published in its instance metadata.
+ *
+ * @param inFlight     tool calls in flight
+ * @param cpuHeadroom  unused share of the CPUs available to this process, {@code NaN} if the
+ *                     platform does not tell
+ * @param heapHeadroom unused share of the maximum heap, {@code NaN} if unknown
+ * @param latencies    recent latency percentiles by tool
+ */
+public record LoadSnapshot(int inFlight, double cpuHeadroom, double heapHeadroom,
+        Map<String, ToolLoadTracker.Latency> latencies) {
+
+    /**
+     * Prefix of every metadata entry written from a snapshot.
+     */
+    public static final String METADATA_PREFIX = "load.";
+
+    public LoadSnapshot {
+        latencies = Map.copyOf(latencies);
+    }
+
+    public static LoadSnapshot sample(ToolLoadTracker tracker) {
+        return new LoadSnapshot(tracker.inFlight(), measureCpuHeadroom(), measureHeapHeadroom(), tracker.latencies());
+    }
+
+    /**
+     * Metadata entries, such as {@code load.inflight=3}, {@code load.cpu.free=0.62} and
+     * {@code load.latency.getWeather=12/85} (p50/p99 in milliseconds).
+     */
+    public Map<String, String> toMetadata() {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put(METADATA_PREFIX + "inflight", Integer.toString(inFlight));
+        if (!Double.isNaN(cpuHeadroom)) {
+            metadata.put(METADATA_PREFIX + "cpu.free", String.format(Locale.ROOT, "%.2f", cpuHeadroom));
+        }
+        if (!Double.isNaN(heapHeadroom)) {
+            metadata.put(METADATA_PREFIX + "heap.free", String.format(Locale.ROOT, "%.2f", heapHeadroom));
+        }
+        latencies.forEach((tool, latency) -> metadata.put(METADATA_PREFIX + "latency." + tool,
+                latency.p50() + "/" + latency.p99()));
+        return metadata;
+    }
+
+    /**
+     * Whether this snapshot differs from {@code published} by more than the thresholds, so
+     * that publishing it is worth a registry update.
+     */
+    public boolean differsFrom(LoadSnapshot published, LoadProperties properties) {
+        if (Math.abs(inFlight - published.inFlight) >= properties.getInFlightThreshold()
+                || Double.isNaN(cpuHeadroom) != Double.isNaN(published.cpuHeadroom)
+                || Math.abs(cpuHeadroom - published.cpuHeadroom) >= properties.getHeadroomThreshold()
+                || Math.abs(heapHeadroom - published.heapHeadroom) >= properties.getHeadroomThreshold()
+                || !latencies.keySet().equals(published.latencies.keySet())) {
+            return true;
+        }
+        for (Map.Entry<String, ToolLoadTracker.Latency> entry : latencies.entrySet()) {
+            ToolLoadTracker.Latency before = published.latencies.get(entry.getKey());
+            ToolLoadTracker.Latency now = entry.getValue();
+            if (changed(before.p50(), now.p50(), properties) || changed(before.p99(), now.p99(), properties)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean changed(long before, long now, LoadProperties properties) {
+        // Changes of a millisecond or so are noise, however large relative to a fast tool
+        return Math.abs(now - before) > 1
+                && Math.abs(now - before) >= properties.getLatencyThreshold() * Math.max(before, 1);
+    }
+
+    private static double measureCpuHeadroom() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            double load = os.getCpuLoad();
+            return load < 0 ? Double.NaN : 1 - load;
+        }
+        return Double.NaN;
+    }
+
+    private static double measureHeapHeadroom() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        return max > 0 ? 1 - (double) heap.getUsed() / max : Double.NaN;
+    }
+}
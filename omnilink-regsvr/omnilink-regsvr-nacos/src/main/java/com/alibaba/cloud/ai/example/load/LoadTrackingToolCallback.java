@@ -0,0 +1,40 @@
+package com.alibaba.cloud.ai.example.load;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+/**
+ * A tool whose calls are recorded by a {@link ToolLoadTracker}.
+ */
+class LoadTrackingToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final ToolLoadTracker tracker;
+
+    LoadTrackingToolCallback(ToolCallback delegate, ToolLoadTracker tracker) {
+        this.delegate = delegate;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return tracker.call(delegate.getToolDefinition().name(), () -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return tracker.call(delegate.getToolDefinition().name(), () -> delegate.call(toolInput, toolContext));
+    }
+}
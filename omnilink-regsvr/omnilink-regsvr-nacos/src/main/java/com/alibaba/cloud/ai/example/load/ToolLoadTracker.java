@@ -0,0 +1,120 @@
+package com.alibaba.cloud.ai.example.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+
+/**
+ * Counts tool calls in flight and keeps the latency of recent calls per tool.
+ */
+public class ToolLoadTracker {
+
+    /**
+     * Latency percentiles of one tool, in milliseconds.
+     */
+    public record Latency(long p50, long p99) {
+    }
+
+    private final LoadProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    public ToolLoadTracker(LoadProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Wraps the tools of a provider so that their calls are tracked.
+     */
+    public ToolCallbackProvider track(ToolCallbackProvider provider) {
+        var callbacks = provider.getToolCallbacks().clone();
+        for (int i = 0; i < callbacks.length; i++) {
+            if (callbacks[i] instanceof ToolCallback tool) {
+                callbacks[i] = new LoadTrackingToolCallback(tool, this);
+            }
+        }
+        return ToolCallbackProvider.from(callbacks);
+    }
+
+    String call(String tool, Supplier<String> call) {
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            long end = System.nanoTime();
+            inFlight.decrementAndGet();
+            latencies.computeIfAbsent(tool, name -> new LatencyWindow(properties.getLatencySamples()))
+                    .add(end, end - start);
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Percentiles of the calls within the latency window, by tool; tools without such calls
+     * are left out.
+     */
+    public Map<String, Latency> latencies() {
+        long since = System.nanoTime() - properties.getLatencyWindow().toNanos();
+        Map<String, Latency> result = new TreeMap<>();
+        latencies.forEach((tool, window) -> {
+            Latency latency = window.percentiles(since);
+            if (latency != null) {
+                result.put(tool, latency);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Ring buffer of the most recent call durations of one tool.
+     */
+    private static final class LatencyWindow {
+
+        private final long[] ends;
+        private final long[] durations;
+        private int next;
+        private int size;
+
+        LatencyWindow(int capacity) {
+            this.ends = new long[Math.max(1, capacity)];
+            this.durations = new long[ends.length];
+        }
+
+        synchronized void add(long end, long duration) {
+            ends[next] = end;
+            durations[next] = duration;
+            next = (next + 1) % ends.length;
+            size = Math.min(size + 1, ends.length);
+        }
+
+        synchronized Latency percentiles(long since) {
+            long[] recent = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (ends[i] - since >= 0) {
+                    recent[count++] = durations[i];
+                }
+            }
+            if (count == 0) {
+                return null;
+            }
+            Arrays.sort(recent, 0, count);
+            return new Latency(millis(recent, count, 0.5), millis(recent, count, 0.99));
+        }
+
+        private static long millis(long[] sorted, int count, double quantile) {
+            int index = Math.min(count - 1, (int) Math.ceil(quantile * count) - 1);
+            return Math.round(sorted[Math.max(0, index)] / 1e6);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.alibaba.cloud.ai.example.nacos;
+
+import java.util.Properties;
+
+import com.alibaba.nacos.api.NacosFactory;
+import com.alibaba.nacos.api.PropertyKeyConst;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingMaintainService;
+import com.alibaba.nacos.api.naming.NamingService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.util.StringUtils;
+
+/**
+ * The Nacos clients shared by load publishing, the tool index and the tool policies, using the
+ * same Nacos settings as {@code spring-ai-alibaba-mcp-nacos}: one config client for the
+ * namespace of its entries and one naming client for the namespace of its instances.
+ * <p>
+ * The clients are created on first use, so nothing connects to Nacos when all three features
+ * are switched off, as in the {@code embedded} profile.
+ */
+@Configuration
+public class NacosClientConfiguration {
+
+    /**
+     * Namespace of the entries {@code spring-ai-alibaba-mcp-nacos} publishes.
+     */
+    public static final String CONFIG_NAMESPACE = "nacos-default-mcp";
+
+    private final Properties nacos = new Properties();
+
+    public NacosClientConfiguration(@Value("${spring.ai.alibaba.mcp.nacos.server-addr:}") String serverAddr,
+            @Value("${spring.ai.alibaba.mcp.nacos.username:}") String username,
+            @Value("${spring.ai.alibaba.mcp.nacos.password:}") String password) {
+        nacos.put(PropertyKeyConst.SERVER_ADDR, serverAddr);
+        if (StringUtils.hasText(username)) {
+            nacos.put(PropertyKeyConst.USERNAME, username);
+            nacos.put(PropertyKeyConst.PASSWORD, password);
+        }
+    }
+
+    @Bean(destroyMethod = "shutDown")
+    @Lazy
+    public ConfigService mcpConfigService(
+            @Value("${mcp.nacos.config-namespace:" + CONFIG_NAMESPACE + "}") String namespace)
+            throws NacosException {
+        return NacosFactory.createConfigService(withNamespace(namespace));
+    }
+
+    @Bean(destroyMethod = "shutDown")
+    @Lazy
+    public NamingService mcpNamingService(
+            @Value("${spring.ai.alibaba.mcp.nacos.service-namespace:public}") String namespace)
+            throws NacosException {
+        return NacosFactory.createNamingService(withNamespace(namespace));
+    }
+
+    @Bean(destroyMethod = "shutDown")
+    @Lazy
+    public NamingMaintainService mcpNamingMaintainService(
+            @Value("${spring.ai.alibaba.mcp.nacos.service-namespace:public}") String namespace)
+            throws NacosException {
+        return NacosFactory.createMaintainService(withNamespace(namespace));
+    }
+
+    private Properties withNamespace(String namespace) {
+        Properties properties = new Properties();
+        properties.putAll(nacos);
+        properties.put(PropertyKeyConst.NAMESPACE, namespace);
+        return properties;
+    }
+}
@@ -0,0 +1,40 @@
+package com.alibaba.cloud.ai.example.registry;
+
+import com.alibaba.cloud.ai.example.embedded.EmbeddedRegistryAutoConfiguration;
+import com.alibaba.cloud.ai.example.embedded.EmbeddedRegistryProperties;
+import com.alibaba.cloud.ai.example.embedded.EmbeddedServerRegistration;
+import com.alibaba.cloud.ai.example.tools.ToolRegistry;
+
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * With the embedded registry, keeps its tool index in line with the {@link ToolRegistry} the
+ * same way {@link ToolIndexConfiguration} does for Nacos, in place of the one-off publish at
+ * startup that the embedded registry does on its own.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = EmbeddedRegistryProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true")
+public class EmbeddedToolIndexConfiguration {
+
+    @Bean(name = EmbeddedRegistryAutoConfiguration.TOOL_SYNC_BEAN, destroyMethod = "close")
+    public ToolIndexSync embeddedToolSync(EmbeddedServerRegistration registration, ToolRegistry registry,
+            ObjectProvider<ToolCallbackProvider> providers) {
+        return new ToolIndexSync(registration, registry, providers);
+    }
+
+    /**
+     * Publishes the tool index once the server is ready, then again on every change of the
+     * registered tools or their policies.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void publishToolIndex(ApplicationReadyEvent event) {
+        event.getApplicationContext().getBean(ToolRegistry.class).addListener(event.getApplicationContext()
+                .getBean(EmbeddedRegistryAutoConfiguration.TOOL_SYNC_BEAN, ToolIndexSync.class));
+    }
+}
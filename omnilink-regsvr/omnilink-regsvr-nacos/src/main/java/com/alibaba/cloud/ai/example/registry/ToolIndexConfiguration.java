@@ -0,0 +1,51 @@
+package com.alibaba.cloud.ai.example.registry;
+
+import com.alibaba.cloud.ai.example.tools.ToolRegistry;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Publishes the tool index once the server is ready, and whenever the {@link ToolRegistry}
+ * changes, next to the full tools entry that {@code spring-ai-alibaba-mcp-nacos} still writes
+ * for older clients.
+ */
+@Configuration
+@EnableConfigurationProperties(ToolIndexProperties.class)
+@ConditionalOnProperty(prefix = ToolIndexProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class ToolIndexConfiguration {
+
+    @Bean
+    public ToolIndexPublisher toolIndexPublisher(ToolIndexProperties properties, ConfigService configService,
+            ObjectProvider<ObjectMapper> objectMapperProvider,
+            @Value("${spring.ai.mcp.server.name}") String serverName) {
+        return new ToolIndexPublisher(properties, configService, serverName,
+                objectMapperProvider.getIfAvailable(ObjectMapper::new));
+    }
+
+    @Bean(destroyMethod = "close")
+    public ToolIndexSync toolIndexSync(ToolIndexPublisher publisher, ToolRegistry registry,
+            ObjectProvider<ToolCallbackProvider> providers) {
+        return new ToolIndexSync(publisher, registry, providers);
+    }
+
+    /**
+     * Publishes the tool index once the server is ready, then again on every change of the
+     * registered tools or their policies.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void publishToolIndex(ApplicationReadyEvent event) {
+        event.getApplicationContext().getBean(ToolRegistry.class)
+                .addListener(event.getApplicationContext().getBean("toolIndexSync", ToolIndexSync.class));
+    }
+}
@@ -0,0 +1,51 @@
+package com.alibaba.cloud.ai.example.registry;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for publishing tool metadata incrementally, see {@link ToolIndexPublisher}.
+ */
+@ConfigurationProperties(ToolIndexProperties.CONFIG_PREFIX)
+public class ToolIndexProperties {
+
+    public static final String CONFIG_PREFIX = "mcp.tools-index";
+
+    /**
+     * Whether to publish the tool index and per-tool entries on startup.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Group of the entries.
+     */
+    private String group = "mcp-tools";
+
+    /**
+     * Attempts to publish the index when another instance changes it at the same time.
+     */
+    private int maxAttempts = 3;
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getGroup() {
+        return this.group;
+    }
+
+    public void setGroup(String group) {
+        this.group = group;
+    }
+
+    public int getMaxAttempts() {
+        return this.maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+}
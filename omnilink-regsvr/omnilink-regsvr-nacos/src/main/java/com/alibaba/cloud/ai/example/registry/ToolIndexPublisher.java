@@ -0,0 +1,105 @@
+package com.alibaba.cloud.ai.example.registry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+import com.alibaba.cloud.ai.example.common.ToolIndex;
+import com.alibaba.cloud.ai.example.common.ToolIndexPlanner;
+import com.alibaba.cloud.ai.example.common.ToolPublisher;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.config.ConfigType;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+/**
+ * Publishes a server's tools to Nacos as one config entry per tool plus a {@link ToolIndex},
+ * writing only what {@link ToolIndexPlanner} finds changed since the index currently in
+ * Nacos. A restart with unchanged tools writes nothing.
+ * <p>
+ * The index is written with compare-and-set on the content read, and the whole comparison
+ * is redone if another instance changed it in between.
+ */
+public class ToolIndexPublisher implements ToolPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolIndexPublisher.class);
+
+    private static final long TIMEOUT_MILLIS = 3000;
+
+    private final ToolIndexProperties properties;
+    private final ConfigService configService;
+    private final String serverName;
+    private final ToolIndexPlanner planner;
+
+    public ToolIndexPublisher(ToolIndexProperties properties, ConfigService configService, String serverName,
+            ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.configService = configService;
+        this.serverName = serverName;
+        this.planner = new ToolIndexPlanner(serverName, objectMapper);
+    }
+
+    /**
+     * Brings the registry in line with {@code tools}.
+     *
+     * @param disabled names of the tools whose policy switches them off, or {@code null} to
+     *                 keep the switches already in the index
+     * @return the index now in the registry
+     * @throws NacosException if the registry cannot be reached, or the index kept changing
+     *                        under concurrent publishing
+     */
+    @Override
+    public synchronized ToolIndex publish(List<ToolDefinition> tools, Set<String> disabled) throws NacosException {
+        String group = properties.getGroup();
+        for (int attempt = 1; attempt <= properties.getMaxAttempts(); attempt++) {
+            String current = configService.getConfig(planner.indexId(), group, TIMEOUT_MILLIS);
+            ToolIndexPlanner.Plan plan = planner.plan(planner.parse(current), tools, disabled);
+            if (plan.isEmpty()) {
+                logger.info("Tool index of {} is up to date at version {}", serverName, plan.index().version());
+                return plan.index();
+            }
+
+            for (var changed : plan.changed().entrySet()) {
+                configService.publishConfig(planner.toolId(changed.getKey()), group, changed.getValue(),
+                        ConfigType.JSON.getType());
+            }
+            String content = planner.write(plan.index());
+            boolean published = current == null
+                    ? configService.publishConfig(planner.indexId(), group, content, ConfigType.JSON.getType())
+                    : configService.publishConfigCas(planner.indexId(), group, content, md5(current),
+                            ConfigType.JSON.getType());
+            if (!published) {
+                logger.info("Tool index of {} changed while publishing, retrying", serverName);
+                continue;
+            }
+            for (String name : plan.removed()) {
+                configService.removeConfig(planner.toolId(name), group);
+            }
+            logger.info("Published tool index of {} at version {}: {} changed, {} switched, {} removed, {} unchanged",
+                    serverName, plan.index().version(), plan.changed().size(), plan.switched().size(),
+                    plan.removed().size(), tools.size() - plan.changed().size() - plan.switched().size());
+            return plan.index();
+        }
+        throw new NacosException(NacosException.CONFLICT, "Tool index of " + serverName + " kept changing during "
+                + properties.getMaxAttempts() + " attempts to publish it");
+    }
+
+    /**
+     * MD5 of the content, as Nacos compares it for compare-and-set.
+     */
+    private static String md5(String content) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
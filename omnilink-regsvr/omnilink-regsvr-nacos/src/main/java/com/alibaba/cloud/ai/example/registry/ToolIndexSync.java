@@ -0,0 +1,99 @@
+package com.alibaba.cloud.ai.example.registry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import com.alibaba.cloud.ai.example.common.ToolPublisher;
+import com.alibaba.cloud.ai.example.tools.ToolPolicy;
+import com.alibaba.cloud.ai.example.tools.ToolRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Keeps the tool index in line with the tools of the server, in Nacos or in the embedded
+ * registry. Registered as a {@link ToolRegistry} listener, it republishes whenever a tool is
+ * enabled, disabled or changes its definition, with each entry's {@code enabled} taken from
+ * the tool's policy.
+ * <p>
+ * Publishing talks to the registry, so it runs on its own thread rather than in the registry's
+ * listener call; changes arriving while a publish runs are folded into one more publish.
+ * A failure is logged rather than retried: clients fall back to the full tools entry, and
+ * the next change publishes again.
+ */
+public class ToolIndexSync implements Consumer<Map<String, ToolDefinition>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolIndexSync.class);
+
+    private final ToolPublisher publisher;
+    private final ToolRegistry registry;
+    private final ObjectProvider<ToolCallbackProvider> providers;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tool-index-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param providers tool providers of the server, for tools not registered with the registry
+     */
+    public ToolIndexSync(ToolPublisher publisher, ToolRegistry registry,
+            ObjectProvider<ToolCallbackProvider> providers) {
+        this.publisher = publisher;
+        this.registry = registry;
+        this.providers = providers;
+    }
+
+    @Override
+    public void accept(Map<String, ToolDefinition> listed) {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                scheduled.set(false);
+                publish();
+            });
+        }
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void publish() {
+        Map<String, ToolDefinition> tools = new TreeMap<>();
+        for (ToolCallbackProvider provider : providers) {
+            for (Object callback : provider.getToolCallbacks()) {
+                if (callback instanceof ToolCallback tool) {
+                    tools.put(tool.getToolDefinition().name(), tool.getToolDefinition());
+                }
+            }
+        }
+        // The registry holds the current definition of the tools it manages, disabled ones included
+        tools.putAll(registry.definitions());
+        Set<String> disabled = new HashSet<>();
+        for (String name : tools.keySet()) {
+            ToolPolicy policy = registry.policy(name);
+            if (policy != null && !policy.enabled()) {
+                disabled.add(name);
+            }
+        }
+        try {
+            publisher.publish(new ArrayList<>(tools.values()), disabled);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Publishing the tool index failed: {}", e.getMessage());
+        }
+    }
+}
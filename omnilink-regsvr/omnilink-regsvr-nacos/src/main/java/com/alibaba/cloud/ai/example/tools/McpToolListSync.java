@@ -0,0 +1,73 @@
+package com.alibaba.cloud.ai.example.tools;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import io.modelcontextprotocol.server.McpSyncServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.mcp.McpToolUtils;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+/**
+ * Keeps the tools listed by an MCP server in line with the enabled tools of a
+ * {@link ToolRegistry}. Every tool added or removed makes the server send
+ * {@code notifications/tools/list_changed} to connected clients.
+ */
+class McpToolListSync implements Consumer<Map<String, ToolDefinition>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpToolListSync.class);
+
+    private final ToolRegistry registry;
+    private final McpSyncServer server;
+
+    /**
+     * Tools the server lists, by name.
+     */
+    private final Map<String, ToolDefinition> listed;
+
+    /**
+     * @param listed the tools the server was started with
+     */
+    McpToolListSync(ToolRegistry registry, McpSyncServer server, Map<String, ToolDefinition> listed) {
+        this.registry = registry;
+        this.server = server;
+        this.listed = new HashMap<>(listed);
+    }
+
+    @Override
+    public synchronized void accept(Map<String, ToolDefinition> tools) {
+        for (Map.Entry<String, ToolDefinition> tool : Map.copyOf(listed).entrySet()) {
+            if (!tool.getValue().equals(tools.get(tool.getKey()))) {
+                remove(tool.getKey());
+            }
+        }
+        tools.forEach((name, definition) -> {
+            if (!listed.containsKey(name)) {
+                add(name, definition);
+            }
+        });
+    }
+
+    private void remove(String name) {
+        try {
+            server.removeTool(name);
+            listed.remove(name);
+            logger.info("Tool {} is no longer listed", name);
+        } catch (RuntimeException e) {
+            logger.warn("Removing tool {} from the MCP server failed: {}", name, e.getMessage());
+        }
+    }
+
+    private void add(String name, ToolDefinition definition) {
+        try {
+            server.addTool(McpToolUtils.toSyncToolRegistration(registry.callback(name)));
+            listed.put(name, definition);
+            logger.info("Tool {} is listed", name);
+        } catch (RuntimeException e) {
+            logger.warn("Adding tool {} to the MCP server failed: {}", name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.alibaba.cloud.ai.example.tools;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free rate limit as a generic cell rate algorithm: one atomic theoretical arrival time
+ * that every admitted call pushes one interval further.
+ */
+final class RateLimiter {
+
+    private final long interval;
+    private final long tolerance;
+    private final AtomicLong arrival = new AtomicLong(System.nanoTime());
+
+    RateLimiter(double rate, int burst) {
+        this.interval = Math.max(1, Math.round(1e9 / rate));
+        this.tolerance = interval * (burst > 0 ? burst : Math.max(1, (long) Math.ceil(rate)));
+    }
+
+    boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = arrival.get();
+            long next = (current - now > 0 ? current : now) + interval;
+            if (next - now > tolerance) {
+                return false;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
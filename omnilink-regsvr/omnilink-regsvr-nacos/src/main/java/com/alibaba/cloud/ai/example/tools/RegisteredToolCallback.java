@@ -0,0 +1,41 @@
+package com.alibaba.cloud.ai.example.tools;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+/**
+ * A tool that looks up its current implementation and policy in a {@link ToolRegistry} on
+ * every call.
+ */
+class RegisteredToolCallback implements ToolCallback {
+
+    private final String name;
+    private final ToolRegistry registry;
+
+    RegisteredToolCallback(String name, ToolRegistry registry) {
+        this.name = name;
+        this.registry = registry;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return registry.delegate(name).getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return registry.delegate(name).getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return registry.call(name, tool -> tool.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return registry.call(name, tool -> tool.call(toolInput, toolContext));
+    }
+}
@@ -0,0 +1,20 @@
+package com.alibaba.cloud.ai.example.tools;
+
+/**
+ * Runtime settings of one tool in the {@link ToolRegistry}.
+ *
+ * @param enabled whether the tool is listed to clients and can be called
+ * @param weight  share of calls admitted, from 0 to 1; the others are rejected right away
+ * @param rate    calls admitted per second, 0 for no limit
+ * @param burst   calls admitted at once on top of the rate, 0 for one second's worth
+ */
+public record ToolPolicy(boolean enabled, double weight, double rate, int burst) {
+
+    public static final ToolPolicy DEFAULT = new ToolPolicy(true, 1, 0, 0);
+
+    public ToolPolicy {
+        weight = Math.max(0, Math.min(1, weight));
+        rate = Math.max(0, rate);
+        burst = Math.max(0, burst);
+    }
+}
@@ -0,0 +1,51 @@
+package com.alibaba.cloud.ai.example.tools;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for changing tool policies through Nacos, see {@link ToolPolicyWatcher}.
+ */
+@ConfigurationProperties(ToolPolicyProperties.CONFIG_PREFIX)
+public class ToolPolicyProperties {
+
+    public static final String CONFIG_PREFIX = "mcp.tool-policy";
+
+    /**
+     * Whether to watch the policy entry in Nacos.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Group of the policy entry.
+     */
+    private String group = "mcp-tools";
+
+    /**
+     * Data id of the policy entry; {@code <server>-mcp-tool-policies.json} if empty.
+     */
+    private String dataId;
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getGroup() {
+        return this.group;
+    }
+
+    public void setGroup(String group) {
+        this.group = group;
+    }
+
+    public String getDataId() {
+        return this.dataId;
+    }
+
+    public void setDataId(String dataId) {
+        this.dataId = dataId;
+    }
+}
@@ -0,0 +1,89 @@
+package com.alibaba.cloud.ai.example.tools;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.config.listener.AbstractListener;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies the tool policies pushed by Nacos to a {@link ToolRegistry}. The entry holds a
+ * policy per tool name, any field of which may be left out:
+ *
+ * <pre>
+ * {"getWeather": {"enabled": true, "weight": 0.5, "rate": 20, "burst": 40}}
+ * </pre>
+ * <p>
+ * A deleted or empty entry restores the default policy of every tool; a malformed one is
+ * ignored and the current policies stay.
+ */
+public class ToolPolicyWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolPolicyWatcher.class);
+
+    private static final long TIMEOUT_MILLIS = 3000;
+
+    private final ToolPolicyProperties properties;
+    private final ConfigService configService;
+    private final ToolRegistry registry;
+    private final String dataId;
+    private final ObjectMapper objectMapper;
+
+    private final AbstractListener listener = new AbstractListener() {
+        @Override
+        public void receiveConfigInfo(String content) {
+            apply(content);
+        }
+    };
+
+    public ToolPolicyWatcher(ToolPolicyProperties properties, ConfigService configService, ToolRegistry registry,
+            String dataId, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.configService = configService;
+        this.registry = registry;
+        this.dataId = dataId;
+        this.objectMapper = objectMapper;
+    }
+
+    public void start() throws NacosException {
+        apply(configService.getConfigAndSignListener(dataId, properties.getGroup(), TIMEOUT_MILLIS, listener));
+    }
+
+    public void close() {
+        configService.removeListener(dataId, properties.getGroup(), listener);
+    }
+
+    private void apply(String content) {
+        try {
+            registry.apply(parse(content));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            logger.warn("Ignoring malformed tool policies in {}: {}", dataId, e.getMessage());
+        }
+    }
+
+    private Map<String, ToolPolicy> parse(String content) throws JsonProcessingException {
+        Map<String, ToolPolicy> policies = new TreeMap<>();
+        if (content == null || content.isBlank()) {
+            return policies;
+        }
+        JsonNode root = objectMapper.readTree(content);
+        if (!root.isObject()) {
+            throw new IllegalArgumentException("expected an object of policies by tool name");
+        }
+        root.fields().forEachRemaining(field -> {
+            JsonNode node = field.getValue();
+            policies.put(field.getKey(), new ToolPolicy(
+                    node.path("enabled").asBoolean(ToolPolicy.DEFAULT.enabled()),
+                    node.path("weight").asDouble(ToolPolicy.DEFAULT.weight()),
+                    node.path("rate").asDouble(ToolPolicy.DEFAULT.rate()),
+                    node.path("burst").asInt(ToolPolicy.DEFAULT.burst())));
+        });
+        return policies;
+    }
+}
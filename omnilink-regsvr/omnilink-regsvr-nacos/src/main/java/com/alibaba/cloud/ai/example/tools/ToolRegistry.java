@@ -0,0 +1,178 @@
+package com.alibaba.cloud.ai.example.tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+/**
+ * Tools whose implementation and {@link ToolPolicy} can be changed while the server runs.
+ * <p>
+ * The tools are held in one immutable map that every change replaces as a whole, so a call
+ * reads a single volatile field and never waits for a change; calls in flight finish on the
+ * implementation and policy they started with. Changes are serialized and reported to
+ * listeners as the tools to list, see {@link #addListener}.
+ */
+public class ToolRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolRegistry.class);
+
+    private record ManagedTool(ToolCallback delegate, ToolPolicy policy, RateLimiter limiter) {
+    }
+
+    private volatile Map<String, ManagedTool> tools = Map.of();
+
+    // Guarded by this
+    private Map<String, ToolPolicy> policies = Map.of();
+    private final List<Consumer<Map<String, ToolDefinition>>> listeners = new ArrayList<>();
+
+    /**
+     * Registers the tools of a provider and returns them as tools that are called through
+     * this registry. Registering a tool under a name already registered swaps its
+     * implementation.
+     */
+    public synchronized ToolCallbackProvider register(ToolCallbackProvider provider) {
+        Map<String, ManagedTool> next = new TreeMap<>(tools);
+        var callbacks = provider.getToolCallbacks().clone();
+        for (int i = 0; i < callbacks.length; i++) {
+            if (callbacks[i] instanceof ToolCallback tool) {
+                String name = tool.getToolDefinition().name();
+                next.put(name, managed(name, tool, next.get(name)));
+                callbacks[i] = new RegisteredToolCallback(name, this);
+            }
+        }
+        update(next);
+        return ToolCallbackProvider.from(callbacks);
+    }
+
+    /**
+     * Replaces the policies of all tools; tools left out get {@link ToolPolicy#DEFAULT}.
+     * Policies of tools not registered yet apply once they are.
+     */
+    public synchronized void apply(Map<String, ToolPolicy> policies) {
+        this.policies = Map.copyOf(policies);
+        Map<String, ManagedTool> next = new TreeMap<>();
+        tools.forEach((name, tool) -> {
+            ManagedTool updated = managed(name, tool.delegate(), tool);
+            if (!updated.policy().equals(tool.policy())) {
+                logger.info("Tool {} now runs with {}", name, updated.policy());
+            }
+            next.put(name, updated);
+        });
+        update(next);
+    }
+
+    /**
+     * Adds a listener for the tools to list, that is the enabled ones, by name. It is called
+     * right away with the current tools, then whenever a tool is enabled, disabled or changes
+     * its definition.
+     */
+    public synchronized void addListener(Consumer<Map<String, ToolDefinition>> listener) {
+        listeners.add(listener);
+        listener.accept(listed(tools));
+    }
+
+    /**
+     * Definitions of all registered tools, enabled or not, by name.
+     */
+    public Map<String, ToolDefinition> definitions() {
+        Map<String, ToolDefinition> result = new TreeMap<>();
+        tools.forEach((name, tool) -> result.put(name, tool.delegate().getToolDefinition()));
+        return result;
+    }
+
+    public ToolPolicy policy(String name) {
+        ManagedTool tool = tools.get(name);
+        return tool == null ? null : tool.policy();
+    }
+
+    /**
+     * A tool that is called through this registry.
+     */
+    ToolCallback callback(String name) {
+        return new RegisteredToolCallback(name, this);
+    }
+
+    /**
+     * The current implementation of a tool, for reading its definition and metadata.
+     */
+    ToolCallback delegate(String name) {
+        return registered(name).delegate();
+    }
+
+    /**
+     * Calls a tool if its policy admits the call.
+     *
+     * @throws IllegalStateException if the tool is disabled, or the call is shed or over the
+     *                               rate limit
+     */
+    String call(String name, Function<ToolCallback, String> call) {
+        ManagedTool tool = registered(name);
+        ToolPolicy policy = tool.policy();
+        if (!policy.enabled()) {
+            throw new IllegalStateException("Tool " + name + " is disabled");
+        }
+        if (policy.weight() < 1 && ThreadLocalRandom.current().nextDouble() >= policy.weight()) {
+            throw new IllegalStateException("Tool " + name + " is shedding load, try again later");
+        }
+        if (tool.limiter() != null && !tool.limiter().tryAcquire()) {
+            throw new IllegalStateException(
+                    "Tool " + name + " is over its limit of " + policy.rate() + " calls per second");
+        }
+        return call.apply(tool.delegate());
+    }
+
+    private ManagedTool registered(String name) {
+        ManagedTool tool = tools.get(name);
+        if (tool == null) {
+            throw new IllegalStateException("Tool " + name + " is not registered");
+        }
+        return tool;
+    }
+
+    /**
+     * Keeps the rate limiter of the previous version of the tool while its rate is unchanged,
+     * so that an unrelated change does not hand out a fresh burst.
+     */
+    private ManagedTool managed(String name, ToolCallback delegate, ManagedTool previous) {
+        ToolPolicy policy = policies.getOrDefault(name, ToolPolicy.DEFAULT);
+        RateLimiter limiter = null;
+        if (policy.rate() > 0) {
+            limiter = previous != null && previous.limiter() != null && previous.policy().rate() == policy.rate()
+                    && previous.policy().burst() == policy.burst()
+                    ? previous.limiter() : new RateLimiter(policy.rate(), policy.burst());
+        }
+        return new ManagedTool(delegate, policy, limiter);
+    }
+
+    private void update(Map<String, ManagedTool> next) {
+        Map<String, ToolDefinition> before = listed(tools);
+        tools = Collections.unmodifiableMap(next);
+        Map<String, ToolDefinition> after = listed(tools);
+        if (!Objects.equals(before, after)) {
+            listeners.forEach(listener -> listener.accept(after));
+        }
+    }
+
+    private static Map<String, ToolDefinition> listed(Map<String, ManagedTool> tools) {
+        Map<String, ToolDefinition> result = new TreeMap<>();
+        tools.forEach((name, tool) -> {
+            if (tool.policy().enabled()) {
+                result.put(name, tool.delegate().getToolDefinition());
+            }
+        });
+        return result;
+    }
+}
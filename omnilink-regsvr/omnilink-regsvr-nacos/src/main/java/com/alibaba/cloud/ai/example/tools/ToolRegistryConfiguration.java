@@ -0,0 +1,52 @@
+package com.alibaba.cloud.ai.example.tools;
+
+import com.alibaba.nacos.api.config.ConfigService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpSyncServer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * The {@link ToolRegistry}, kept in line with the tools the MCP server lists, and the tool
+ * policies pushed by Nacos through the shared Nacos config client.
+ */
+@Configuration
+@EnableConfigurationProperties(ToolPolicyProperties.class)
+public class ToolRegistryConfiguration {
+
+    public static final String POLICIES_SUFFIX = "-mcp-tool-policies.json";
+
+    @Bean
+    public ToolRegistry toolRegistry() {
+        return new ToolRegistry();
+    }
+
+    /**
+     * Attaches the MCP server once it has been built from the registered tools, and before
+     * it accepts connections.
+     */
+    @Bean
+    public SmartInitializingSingleton mcpToolListSync(ToolRegistry registry, ObjectProvider<McpSyncServer> server) {
+        return () -> server.ifAvailable(
+                mcp -> registry.addListener(new McpToolListSync(registry, mcp, registry.definitions())));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = ToolPolicyProperties.CONFIG_PREFIX, name = "enabled", havingValue = "true",
+            matchIfMissing = true)
+    public ToolPolicyWatcher toolPolicyWatcher(ToolPolicyProperties properties, ToolRegistry registry,
+            ConfigService configService, ObjectProvider<ObjectMapper> objectMapperProvider,
+            @Value("${spring.ai.mcp.server.name}") String serverName) {
+        String dataId = StringUtils.hasText(properties.getDataId()) ? properties.getDataId()
+                : serverName + POLICIES_SUFFIX;
+        return new ToolPolicyWatcher(properties, configService, registry, dataId,
+                objectMapperProvider.getIfAvailable(ObjectMapper::new));
+    }
+}
@@ -11,10 +11,16 @@ include(
 //    "omnilink-manual-sample"
 )
 
+include(":omnilink-flywise:omnilink-flywise-common")
 include(":omnilink-flywise:omnilink-flywise-stock")
+include(":omnilink-flywise:omnilink-flywise-weather-engine")
 include(":omnilink-flywise:omnilink-flywise-weather")
+include(":omnilink-flywise:omnilink-flywise-loadtest")
 include(":omnilink-bridge:omnilink-bridge-javaseeker")
+include(":omnilink-regsvr:omnilink-regsvr-common")
 include(":omnilink-regsvr:omnilink-regsvr-nacos")
+include(":omnilink-regsvr:omnilink-regsvr-discovery")
+include(":omnilink-regsvr:omnilink-regsvr-embedded")
 
 // Add manual sample submodules
 //include(":omnilink-manual-sample:mcp-stock-client")